@@ -0,0 +1,290 @@
+//
+// Copyright (C) 2014 United States Government as represented by the
+// Administrator of the National Aeronautics and Space Administration
+// (NASA).  All Rights Reserved.
+//
+// This software is distributed under the NASA Open Source Agreement
+// (NOSA), version 1.3.  The NOSA has been approved by the Open Source
+// Initiative.  See the file NOSA-1.3-JPF at the top of the distribution
+// directory tree for the complete NOSA document.
+//
+// THE SUBJECT SOFTWARE IS PROVIDED "AS IS" WITHOUT ANY WARRANTY OF ANY
+// KIND, EITHER EXPRESSED, IMPLIED, OR STATUTORY, INCLUDING, BUT NOT
+// LIMITED TO, ANY WARRANTY THAT THE SUBJECT SOFTWARE WILL CONFORM TO
+// SPECIFICATIONS, ANY IMPLIED WARRANTIES OF MERCHANTABILITY, FITNESS FOR
+// A PARTICULAR PURPOSE, OR FREEDOM FROM INFRINGEMENT, ANY WARRANTY THAT
+// THE SUBJECT SOFTWARE WILL BE ERROR FREE, OR ANY WARRANTY THAT
+// DOCUMENTATION, IF PROVIDED, WILL CONFORM TO THE SUBJECT SOFTWARE.
+//
+
+package gov.nasa.jpf.autodoc.types;
+
+import gov.nasa.jpf.autodoc.types.output.WriterFactory;
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.io.UnsupportedEncodingException;
+import java.io.Writer;
+import java.math.BigInteger;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.URISyntaxException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.util.Arrays;
+import java.util.logging.Level;
+
+/**
+ * Long-lived process that runs the tool on request, so configuration, leaf 
+ * types, the index of standard classes and analyzers with their classpaths 
+ * are loaded once and kept warm for every run after the first one.
+ * <p>
+ * Requests come from a TCP socket bound to the loopback address, one per 
+ * connection, or from stdin, one per line. A request is a line with the 
+ * working directory of the client followed by the command-line arguments of
+ * the run, all separated by tabs. On a socket, requests start with one more
+ * field: a random token written at start to a file only readable by the 
+ * owner of the daemon, next to <code>bin/jpfadtc</code>, so other local 
+ * users can't stop the daemon nor run the tool as its owner. Clients must 
+ * send their request in {@link #TIMEOUT} milliseconds. An empty directory 
+ * stands for the one of the daemon, and runs are refused in any other, since
+ * output files are relative to it. The answer is the console output of the 
+ * run followed by a line with {@link #END} and its exit status. A request 
+ * with the single argument {@link #STOP} stops the daemon.
+ * <p>
+ * Runs are served one at a time, in the order they come.
+ * 
+ * @author Carlos Uribe
+ */
+public class AutoDocDaemon {
+
+  public static final int DEFAULT_PORT = 7741;
+  public static final String END = "%%end ";
+  public static final String STOP = "--stop";
+  public static final int TIMEOUT = 10000;
+
+  private final File dir = new File("").getAbsoluteFile();
+  private final String token;
+  private boolean stopped = false;
+
+  /**
+   * Create a daemon taking any request, as from stdin.
+   */
+  public AutoDocDaemon() {
+    this(null);
+  }
+
+  /**
+   * @param token Token requests must start with, <code>null</code> for none.
+   */
+  public AutoDocDaemon(String token) {
+    this.token = token;
+  }
+
+  /**
+   * Start a daemon on stdin or a loopback port.
+   * 
+   * @param arg <code>stdin</code>, a port number or empty for the default 
+   *            port.
+   */
+  public static void start(String arg) {
+    try {
+      if (arg.equals("stdin")) {
+        new AutoDocDaemon().serve(System.in, System.out, false);
+      } else {
+        int port = arg.isEmpty() ? DEFAULT_PORT : Integer.parseInt(arg);
+        File file = getTokenFile(port);
+        AutoDocDaemon daemon = new AutoDocDaemon(createToken());
+        daemon.writeToken(file);
+
+        try {
+          daemon.listen(port);
+        } finally {
+          file.delete();
+        }
+      }
+    } catch (NumberFormatException ex) {
+      System.out.println("[" + Level.SEVERE + "] Invalid daemon port. " + ex);
+    } catch (IOException ex) {
+      System.out.println("[" + Level.SEVERE + "] Daemon I/O error. " + ex);
+    }
+  }
+
+  public boolean isStopped() {
+    return stopped;
+  }
+
+  /**
+   * Create a random token of 128 bits, in hex.
+   */
+  public static String createToken() {
+    byte[] bytes = new byte[16];
+    new SecureRandom().nextBytes(bytes);
+    return String.format("%032x", new BigInteger(1, bytes));
+  }
+
+  /**
+   * Get the token file of a port, next to <code>bin/jpfadtc</code> of the 
+   * installation the daemon runs from.
+   */
+  public static File getTokenFile(int port) {
+    File home;
+
+    try {
+      //--- build/jpf-autodoc-types.jar or build/main, both in the home.
+      home = new File(AutoDocDaemon.class.getProtectionDomain()
+              .getCodeSource().getLocation().toURI())
+              .getParentFile().getParentFile();
+    } catch (URISyntaxException ex) {
+      throw new IllegalStateException(ex);
+    }
+    return new File(new File(home, "bin"), ".jpfadtc-" + port + ".token");
+  }
+
+  /**
+   * Write the token of this daemon to a file readable only by its owner, 
+   * replacing any other.
+   */
+  public void writeToken(File file) throws IOException {
+    Path path = file.toPath();
+    Files.deleteIfExists(path);
+
+    try {
+      Files.createFile(path, PosixFilePermissions.asFileAttribute(
+              PosixFilePermissions.fromString("rw-------")));
+    } catch (UnsupportedOperationException ex) {
+      //--- not a posix file system, restrict it as far as possible.
+      Files.createFile(path);
+      file.setReadable(false, false);
+      file.setWritable(false, false);
+      file.setReadable(true, true);
+      file.setWritable(true, true);
+    }
+
+    Writer out = new OutputStreamWriter(Files.newOutputStream(path), 
+                                        "UTF-8");
+
+    try {
+      out.write(token);
+    } finally {
+      out.close();
+    }
+  }
+
+  /**
+   * Serve a request per connection on a loopback port until stopped.
+   */
+  public void listen(int port) throws IOException {
+    ServerSocket server = new ServerSocket(port, 50, 
+                                           InetAddress.getByName(null));
+    System.out.println("jpfadt daemon listening on " 
+                       + server.getLocalSocketAddress() + " in " + dir);
+
+    try {
+      while (!stopped) {
+        Socket client = server.accept();
+
+        try {
+          client.setSoTimeout(TIMEOUT);
+          serve(client.getInputStream(), client.getOutputStream(), true);
+        } catch (IOException ex) {
+          System.err.println("[" + Level.WARNING + "] Request not served. " 
+                             + ex);
+        } finally {
+          client.close();
+        }
+      }
+    } finally {
+      server.close();
+    }
+  }
+
+  /**
+   * Serve requests read from a stream, one per line, until the end of input
+   * or a stop request.
+   * 
+   * @param once Whether to serve a single request.
+   */
+  public void serve(InputStream in, OutputStream out, boolean once) 
+          throws IOException {
+    BufferedReader reader = new BufferedReader(
+            new InputStreamReader(in, "UTF-8"));
+    PrintWriter pw = new PrintWriter(new BufferedWriter(
+            new OutputStreamWriter(out, "UTF-8")));
+    String line;
+
+    while (!stopped && (line = reader.readLine()) != null) {
+      int status = handle(line, pw);
+      pw.println();
+      pw.println(END + status);
+      pw.flush();
+
+      if (once) {
+        break;
+      }
+    }
+  }
+
+  /**
+   * Run the tool for a request, showing its console output on a stream.
+   * 
+   * @return exit status of the run.
+   */
+  public int handle(String request, PrintWriter pw) {
+    String[] fields = request.split("\t", -1);
+
+    if (token != null) {
+      if (!isToken(fields[0]) || fields.length < 2) {
+        pw.print("[" + Level.SEVERE + "] Invalid daemon token.");
+        return 2;
+      }
+      fields = Arrays.copyOfRange(fields, 1, fields.length);
+    }
+    String[] args = Arrays.copyOfRange(fields, 1, fields.length);
+
+    if (args.length == 1 && args[0].equals(STOP)) {
+      stopped = true;
+      pw.print("daemon stopped");
+      return 0;
+    }
+
+    if (!fields[0].isEmpty() 
+        && !new File(fields[0]).getAbsoluteFile().equals(dir)) {
+      pw.print("[" + Level.SEVERE + "] Daemon runs in " + dir + ", not in " 
+               + fields[0]);
+      return 2;
+    }
+
+    try {
+      return AutoDocTool.execute(args, WriterFactory.createConsole(pw));
+    } catch (RuntimeException ex) {
+      //--- a failed run must not take the daemon down.
+      System.err.println("[" + Level.SEVERE + "] Unexpected error in run " 
+                         + Arrays.toString(args) + ". " + ex);
+      pw.print("[" + Level.SEVERE + "] Unexpected error. " + ex);
+      return 1;
+    }
+  }
+
+  /**
+   * Compare a token with the one of this daemon in constant time.
+   */
+  private boolean isToken(String str) {
+    try {
+      return MessageDigest.isEqual(str.getBytes("UTF-8"), 
+                                   token.getBytes("UTF-8"));
+    } catch (UnsupportedEncodingException ex) {
+      throw new IllegalStateException(ex);
+    }
+  }
+}
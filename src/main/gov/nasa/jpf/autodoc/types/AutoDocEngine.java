@@ -0,0 +1,1203 @@
+//
+// Copyright (C) 2014 United States Government as represented by the
+// Administrator of the National Aeronautics and Space Administration
+// (NASA).  All Rights Reserved.
+//
+// This software is distributed under the NASA Open Source Agreement
+// (NOSA), version 1.3.  The NOSA has been approved by the Open Source
+// Initiative.  See the file NOSA-1.3-JPF at the top of the distribution
+// directory tree for the complete NOSA document.
+//
+// THE SUBJECT SOFTWARE IS PROVIDED "AS IS" WITHOUT ANY WARRANTY OF ANY
+// KIND, EITHER EXPRESSED, IMPLIED, OR STATUTORY, INCLUDING, BUT NOT
+// LIMITED TO, ANY WARRANTY THAT THE SUBJECT SOFTWARE WILL CONFORM TO
+// SPECIFICATIONS, ANY IMPLIED WARRANTIES OF MERCHANTABILITY, FITNESS FOR
+// A PARTICULAR PURPOSE, OR FREEDOM FROM INFRINGEMENT, ANY WARRANTY THAT
+// THE SUBJECT SOFTWARE WILL BE ERROR FREE, OR ANY WARRANTY THAT
+// DOCUMENTATION, IF PROVIDED, WILL CONFORM TO THE SUBJECT SOFTWARE.
+//
+
+package gov.nasa.jpf.autodoc.types;
+
+import gov.nasa.jpf.autodoc.types.AutoDocTool.Options;
+import gov.nasa.jpf.autodoc.types.analyzer.AnalysisCache;
+import gov.nasa.jpf.autodoc.types.analyzer.AnalysisTrigger;
+import gov.nasa.jpf.autodoc.types.analyzer.InfoAnalyzer;
+import gov.nasa.jpf.autodoc.types.analyzer.InvalidAnalyzerException;
+import gov.nasa.jpf.autodoc.types.diff.DiffWriter;
+import gov.nasa.jpf.autodoc.types.diff.InfoDiff;
+import gov.nasa.jpf.autodoc.types.info.ClassInfo;
+import gov.nasa.jpf.autodoc.types.info.ClassStore;
+import gov.nasa.jpf.autodoc.types.info.CollectedInfo;
+import gov.nasa.jpf.autodoc.types.info.JPFInfo;
+import gov.nasa.jpf.autodoc.types.info.SubtypeInfo;
+import gov.nasa.jpf.autodoc.types.output.FanOutWriter;
+import gov.nasa.jpf.autodoc.types.output.HtmlSiteWriter;
+import gov.nasa.jpf.autodoc.types.output.ProgressWriter;
+import gov.nasa.jpf.autodoc.types.output.ShardedWriter;
+import gov.nasa.jpf.autodoc.types.output.StreamingJSONWriter;
+import gov.nasa.jpf.autodoc.types.output.StreamingXMLReader;
+import gov.nasa.jpf.autodoc.types.output.StreamingXMLWriter;
+import gov.nasa.jpf.autodoc.types.output.Writer;
+import gov.nasa.jpf.autodoc.types.output.WriterFactory;
+import gov.nasa.jpf.autodoc.types.parser.ClassFileNotFoundException;
+import gov.nasa.jpf.autodoc.types.parser.Parser;
+import gov.nasa.jpf.autodoc.types.parser.StdLibIndex;
+import gov.nasa.jpf.autodoc.types.parser.TargetParser;
+import gov.nasa.jpf.autodoc.types.query.InfoQuery;
+import gov.nasa.jpf.autodoc.types.query.InvalidQueryException;
+import gov.nasa.jpf.autodoc.types.scanner.InvalidTargetException;
+import gov.nasa.jpf.autodoc.types.scanner.ProjectScanner;
+import gov.nasa.jpf.autodoc.types.scanner.Scanner;
+import gov.nasa.jpf.autodoc.types.scanner.TargetScanner;
+import gov.nasa.jpf.classfile.ClassFileException;
+import java.io.File;
+import java.io.FilenameFilter;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.logging.Level;
+import javax.xml.stream.XMLStreamException;
+
+/**
+ * Session of the tool: a single run of scans, analyses and outputs over some
+ * targets, with its own state. Sessions are created by a {@link Builder} and
+ * may run at the same time in a JVM, as long as they write different files.
+ * What sessions can share (configuration, parsed leaf types, the index of 
+ * standard classes and idle analyzers with their open classpaths) is kept in
+ * a {@link Shared} object given to their builders. A session over the same 
+ * targets as a previous one reanalyzes only classes changed since then and 
+ * their dependents.
+ * <p>
+ * A session never exits the JVM nor redirects standard streams; errors are 
+ * shown on its console and reported by the status of {@link #run()}.
+ * 
+ * @author Carlos Uribe
+ */
+public class AutoDocEngine {
+
+  /**
+   * Resources that sessions load once and share. They are read-only once 
+   * loaded, except idle triggers and their last results, which are handed to
+   * one session at a time.
+   */
+  public static class Shared {
+
+    /** Idle triggers kept for later sessions. */
+    public static final int MAX_IDLE = 4;
+
+    private final String configFile;
+    private final String buildFile;
+    private ConfigLoader config;
+    private final List<SubtypeInfo> leafs = new ArrayList<SubtypeInfo>();
+    private StdLibIndex stdlib;
+    private boolean stdlibLoaded = false;
+    private final List<Idle> idle = new LinkedList<Idle>();
+    private final Map<AnalysisTrigger, Idle> results = 
+            new IdentityHashMap<AnalysisTrigger, Idle>();
+
+    private static class Idle {
+      final String jars;
+      final String stamp;
+      final AnalysisTrigger trigger;
+      final String key;
+      final CollectedInfo info;
+
+      Idle(String jars, String stamp, AnalysisTrigger trigger, String key, 
+           CollectedInfo info) {
+        this.jars = jars;
+        this.stamp = stamp;
+        this.trigger = trigger;
+        this.key = key;
+        this.info = info;
+      }
+    }
+
+    public Shared() {
+      this("config.properties", "build.properties");
+    }
+
+    /**
+     * @param configFile Config file of the tool.
+     * @param buildFile Build properties file, with app name and version, 
+     *                  loaded if it exists.
+     */
+    public Shared(String configFile, String buildFile) {
+      this.configFile = configFile;
+      this.buildFile = buildFile;
+    }
+
+    /**
+     * Get the configuration, loading it on first request.
+     */
+    public synchronized ConfigLoader getConfig() throws IOException {
+      if (config == null) {
+        ConfigLoader loaded = new ConfigLoader();
+        loaded.loadConfig(configFile);
+        
+        if (new File(buildFile).isFile()) {
+          loaded.loadConfig(buildFile);
+        }
+        config = loaded;
+      }
+      return config;
+    }
+
+    /**
+     * Get configured leaf types, parsing them on first request. Each call 
+     * gets its own copies, so sessions don't share mutable components.
+     */
+    public synchronized List<SubtypeInfo> getLeafs(Parser parser) 
+            throws IOException, ClassFileException, 
+                   ClassFileNotFoundException {
+      if (leafs.isEmpty()) {
+        ConfigLoader cfg = getConfig();
+        String[] pathnames = cfg.getPropertyVals("SubtypeAnalyzer.classpath");
+        
+        for (String key : cfg.getLeafs()) {
+          ClassInfo cls = parser.parse(cfg.getProperty(key), pathnames);
+          SubtypeInfo type = new SubtypeInfo();
+          type.setInfo(cls);
+          type.setType(cfg.getType(key));
+          leafs.add(type);
+        }
+      }
+
+      List<SubtypeInfo> copies = new ArrayList<SubtypeInfo>();
+
+      for (SubtypeInfo leaf : leafs) {
+        SubtypeInfo type = new SubtypeInfo();
+        type.setInfo(new ClassInfo(leaf.getInfo()));
+        type.setType(leaf.getType());
+        copies.add(type);
+      }
+      return copies;
+    }
+
+    /**
+     * Open the index of JDK standard classes, building it if needed, on 
+     * first request. Without index, standard classes are searched only in 
+     * the model classpath.
+     * 
+     * @param console Writer to show a warning if it can't be opened.
+     * @return index or <code>null</code> if not configured or not available.
+     */
+    public synchronized StdLibIndex getStdLib(Writer console) 
+            throws IOException {
+      String dir = getConfig().getProperty("ModelClassAnalyzer.index");
+      
+      if (dir == null || stdlibLoaded) {
+        return stdlib;
+      }
+      
+      try {
+        stdlib = StdLibIndex.open(new File(dir));
+      } catch (IOException ex) {
+        console.error("[" + Level.WARNING + "] Standard classes not indexed. " 
+                      + ex);
+      }
+      stdlibLoaded = true;
+      return stdlib;
+    }
+
+    /**
+     * Take an idle trigger set up for the same project jars, whose 
+     * classpaths didn't change since it was given back.
+     * 
+     * @return trigger or <code>null</code> if there is none.
+     */
+    public synchronized AnalysisTrigger takeTrigger(Set<String> jars) {
+      for (Iterator<Idle> it = idle.iterator(); it.hasNext();) {
+        Idle entry = it.next();
+
+        if (entry.jars.equals(jars.toString())) {
+          it.remove();
+
+          if (entry.stamp.equals(stamp(entry.trigger, jars))) {
+            results.put(entry.trigger, entry);
+            return entry.trigger;
+          }
+        }
+      }
+      return null;
+    }
+
+    /**
+     * Take the results a trigger had when given back, if they were analyzed
+     * with the same targets and options. Only the first call after taking 
+     * the trigger may get them.
+     * 
+     * @param key Targets, classpath and options of the session.
+     * @return collected info or <code>null</code> if there are none.
+     */
+    public synchronized CollectedInfo takeResults(AnalysisTrigger trigger, 
+                                                  String key) {
+      Idle entry = results.remove(trigger);
+
+      if (entry == null || entry.info == null || !entry.key.equals(key)) {
+        return null;
+      }
+      return entry.info;
+    }
+
+    /**
+     * Give back a trigger no longer used by a session.
+     */
+    public synchronized void giveTrigger(Set<String> jars, 
+                                         AnalysisTrigger trigger) {
+      giveTrigger(jars, trigger, "", null);
+    }
+
+    /**
+     * Give back a trigger along with the results of its last analyses, to 
+     * be reanalyzed incrementally by a later session.
+     * 
+     * @param info Collected info or <code>null</code> if none can be reused.
+     */
+    public synchronized void giveTrigger(Set<String> jars, 
+                                         AnalysisTrigger trigger, String key,
+                                         CollectedInfo info) {
+      results.remove(trigger);
+      idle.add(0, new Idle(jars.toString(), stamp(trigger, jars), trigger,
+                           key, info));
+
+      while (idle.size() > MAX_IDLE) {
+        idle.remove(idle.size() - 1);
+      }
+    }
+
+    /**
+     * Get a stamp of project jars and classpaths of a trigger's analyzers, 
+     * which changes if any of them is added, removed or modified.
+     */
+    static String stamp(AnalysisTrigger trg, Set<String> jars) {
+      StringBuilder sb = new StringBuilder(jars.toString());
+      
+      for (InfoAnalyzer analyzer : trg.getAnalyzers()) {
+        for (String pathname : analyzer.getPathNames()) {
+          File file = new File(pathname);
+          sb.append(';').append(pathname).append(':')
+            .append(file.lastModified()).append(':').append(file.length());
+        }
+      }
+      return sb.toString();
+    }
+  }
+
+  /**
+   * Builder of sessions. Options, targets and classpath are taken from 
+   * command-line arguments, unless they are set on their own.
+   */
+  public static class Builder {
+
+    private String[] args = new String[0];
+    private Integer options;
+    private List<String> targets;
+    private List<String> classpath;
+    private Writer console;
+    private Shared shared;
+    private final List<Writer> sinks = new ArrayList<Writer>();
+
+    /**
+     * Set command-line arguments, with options and their parameters such as
+     * output files.
+     */
+    public Builder args(String... args) {
+      this.args = args;
+      return this;
+    }
+
+    /**
+     * Set enabled options, replacing the ones given by arguments.
+     * 
+     * @param options Bitwise value of {@link AutoDocTool.Options}.
+     */
+    public Builder options(int options) {
+      this.options = options;
+      return this;
+    }
+
+    public Builder options(Options... options) {
+      int mask = 0;
+
+      for (Options op : options) {
+        mask |= op.getWeight();
+      }
+      return options(mask);
+    }
+
+    public Builder targets(String... targets) {
+      this.targets = new ArrayList<String>(Arrays.asList(targets));
+      return this;
+    }
+
+    public Builder classpath(String... pathnames) {
+      this.classpath = new ArrayList<String>(Arrays.asList(pathnames));
+      return this;
+    }
+
+    /**
+     * Set the writer to show progress, results and errors. By default, the 
+     * standard output.
+     */
+    public Builder console(Writer console) {
+      this.console = console;
+      return this;
+    }
+
+    /**
+     * Add a writer of detailed info, written along with enabled outputs. 
+     * It's not closed by the session.
+     */
+    public Builder sink(Writer sink) {
+      sinks.add(sink);
+      return this;
+    }
+
+    /**
+     * Set resources shared with other sessions. By default, a session loads
+     * its own ones.
+     */
+    public Builder shared(Shared shared) {
+      this.shared = shared;
+      return this;
+    }
+
+    public AutoDocEngine build() {
+      AutoDocEngine engine = new AutoDocEngine();
+      int opts = (options != null) 
+                 ? options : AutoDocTool.getOptions(args);
+      engine.args = args;
+      engine.options = opts | AutoDocTool.setDefaults(opts);
+      engine.targets = (targets != null) 
+                       ? targets : AutoDocTool.parseTargets(args);
+      
+      if (classpath != null) {
+        engine.classpath = classpath;
+      } else if (AutoDocTool.isOptionEnabled(engine.options, 
+                                             Options.CLASSPATH.getWeight())) {
+        engine.classpath = AutoDocTool.parseClassPath(args);
+      }
+      engine.console = (console != null) 
+                       ? console : WriterFactory.createConsole();
+      engine.shared = (shared != null) ? shared : new Shared();
+      engine.sinks.addAll(sinks);
+      return engine;
+    }
+  }
+
+  private String[] args;
+  private int options;
+  private List<String> targets;
+  private List<String> classpath = new ArrayList<String>();
+  private Shared shared;
+  private final List<Writer> sinks = new ArrayList<Writer>();
+  
+  private long startTime = 0;
+  private long endTime = 0;
+  
+  private Writer text;
+  private Writer console;
+  private Scanner scanner;
+  private final TargetParser parser = new TargetParser();
+  private Metrics metrics = Metrics.DISABLED;
+  private ConfigLoader config;
+  private CollectedInfo info = new CollectedInfo();
+  private CollectedInfo base;
+  private ClassStore store;
+  private AnalysisTrigger trigger;
+  private Set<String> jars;
+
+  /**
+   * Use a {@link Builder}.
+   */
+  protected AutoDocEngine() {
+  }
+
+  /**
+   * Get collected info, complete once {@link #run()} returned 0. If the 
+   * <code>CollectedInfo.store</code> folder is set, classes are kept in a 
+   * store closed at the end of the run and can't be read afterwards.
+   */
+  public CollectedInfo getInfo() {
+    return info;
+  }
+
+  public int getOptions() {
+    return options;
+  }
+
+  public List<String> getTargets() {
+    return targets;
+  }
+
+  /**
+   * Get metrics of the last run, disabled unless the metrics option is.
+   */
+  public Metrics getMetrics() {
+    return metrics;
+  }
+
+  /**
+   * Run the session once: scan targets, analyze parsed classes and write 
+   * enabled outputs or the result of a query.
+   * 
+   * @return 0 if the run ended normally or 1 if it ended with an error.
+   */
+  public int run() {
+    startTime = System.currentTimeMillis();
+    metrics = new Metrics(isEnabled(Options.METRICS));
+    parser.setMetrics(metrics);
+    Metrics.Timer timer = metrics.start("run");
+    ProgressWriter progress = null;
+    boolean done = false;
+
+    try {
+      configure();
+      
+      if (checkNonRetOpts() || !checkParams()) {
+        return 0;
+      }
+      
+      showTitle();
+      console.writeHeader();
+      showParams();
+      showEnabled();
+      
+      startScan();
+      prepareAnalyses();
+      progress = startProgress();
+      startAnalyses();
+      endProgress(progress);
+      progress = null;
+      
+      if (isEnabled(Options.QUERY)) {
+        startQuery(getArg(Options.QUERY));
+      } else {
+        checkOutputOpts();
+      }
+      endTime = System.currentTimeMillis();
+      timer.stop(info.getParsed().size());
+      statistics();
+      writeMetrics();
+      console.writeFooter();
+      done = true;
+      return 0;
+      
+    } catch (IOException ex) {
+      console.error("\n[" + Level.SEVERE + "] I/O error. " + ex);
+    } catch (FileNotLoadedException ex) {
+      console.error("[" + Level.SEVERE + "] Error trying to load file. " + ex);
+    } catch (ClassFileException ex) {
+      console.error("[" + Level.WARNING + "] Error parsing file. " + ex);
+    } catch (InvalidTargetException ex) {
+      console.error("[" + Level.SEVERE + "] Error scanning target. " + ex);
+    } catch (XMLStreamException ex) {
+      console.error("[" + Level.SEVERE + "] Error reading XML file. " + ex);
+    } catch (ClassFileNotFoundException ex) {
+      console.error("[" + Level.SEVERE + "] Error parsing file. " + ex);
+    } catch (InvalidAnalyzerException ex) {
+      console.error("[" + Level.SEVERE + "] Error loading analyzer. " + ex);
+    } catch (InvalidQueryException ex) {
+      console.error("[" + Level.SEVERE + "] Error in query. " + ex);
+    } finally {
+      //--- a failed run must not leave its listener on an idle trigger.
+      if (progress != null) {
+        trigger.removeListener(progress);
+        
+        try {
+          progress.close();
+        } catch (IOException ex) {
+          console.error("[" + Level.WARNING + "] Progress not closed. " + ex);
+        }
+      }
+      
+      if (trigger != null) {
+        //--- classes in a store can't be read once it's closed.
+        trigger.setMetrics(Metrics.DISABLED);
+        shared.giveTrigger(jars, trigger, getResultsKey(), 
+                           (done && store == null) ? info : null);
+        trigger = null;
+      }
+      
+      if (store != null) {
+        try {
+          store.close();
+        } catch (IOException ex) {
+          console.error("[" + Level.WARNING + "] Class store not closed. " 
+                        + ex);
+        }
+        store = null;
+      }
+    }
+    return 1;
+  }
+
+  /**
+   * Get what results of analyses depend on besides classes: targets, 
+   * classpath and enabled scans and analyses.
+   */
+  private String getResultsKey() {
+    return targets + ";" + classpath + ";" + (options & 0xFF);
+  }
+
+  private boolean isEnabled(Options op) {
+    return AutoDocTool.isOptionEnabled(options, op.getWeight());
+  }
+
+  private String getArg(Options op) {
+    return AutoDocTool.getOptionArg(args, op);
+  }
+
+  private String getOutputFile(Options op, String def) {
+    return AutoDocTool.getOutputFile(args, options, op, def);
+  }
+
+  private String getProgressFile() {
+    return AutoDocTool.getProgressFile(args);
+  }
+
+  /**
+   * Get shared configuration and register configured leaf types.
+   */
+  protected void configure() throws IOException, ClassFileException, 
+                                    ClassFileNotFoundException {
+    Metrics.Timer timer = metrics.start("configure");
+    config = shared.getConfig();
+    
+    for (SubtypeInfo type : shared.getLeafs(parser)) {
+      info.register(type.getInfo());
+      info.registerType(type);
+    }
+    timer.stop();
+  }
+
+  /**
+   * Check those {@link Options} that show something and halt.
+   * 
+   * @return whether something was shown and the run must halt.
+   */
+  boolean checkNonRetOpts() {
+    if (isEnabled(Options.HELP)) {
+      AutoDocTool.showUsage(console);
+      return true;
+    }
+
+    if (isEnabled(Options.VER)) {
+      showVersion();
+      return true;
+    }
+
+    if (isEnabled(Options.CONFIG)) {
+      showTitle();
+      config.list(console.getPrintWriter());
+      return true;
+    }
+    return false;
+  }
+
+  /**
+   * Check targets and classpath. Usage is shown if they are not coherent.
+   * 
+   * @return whether targets and classpath are coherent.
+   */
+  protected boolean checkParams() {
+    if (!AutoDocTool.isInputCoherent(targets, classpath)) {
+      AutoDocTool.showUsage(console);
+      return false;
+    }
+    return true;
+  }
+
+  /**
+   * Show current enabled options.
+   */
+  public void showEnabled() {
+    String en = new String();
+    
+    for (Options op : Options.values()) {
+      if (isEnabled(op)) {
+        if (((op.getWeight() << 1) & op.getWeight()) == 0) {
+          en += op.name().toLowerCase() + ", ";
+        }
+      }
+    }
+    en = en.isEmpty() ? en : en.substring(0, en.length() - 2);
+    console.writeParam("enabled", en);
+  }
+
+  /**
+   * Scan registered targets and store results.
+   * 
+   * @throws java.io.IOException
+   * @throws gov.nasa.jpf.autodoc.types.FileNotLoadedException
+   * @throws gov.nasa.jpf.classfile.ClassFileException
+   * @throws gov.nasa.jpf.autodoc.types.scanner.InvalidTargetException
+   * @throws gov.nasa.jpf.autodoc.types.parser.ClassFileNotFoundException
+   */
+  protected void startScan()
+          throws IOException, FileNotLoadedException, ClassFileException, 
+          InvalidTargetException, ClassFileNotFoundException {
+    Metrics.Timer timer = metrics.start("scan");
+    TargetScanner tscanner = new TargetScanner(parser);
+    tscanner.setMetrics(metrics);
+    scanner = tscanner;
+    
+    int opts = (options & 0xF0) >> 0x4;
+    
+    scanner.scan(targets, classpath, scanner.getScanType(opts));
+    Set<ClassInfo> scanned = scanner.getScanned();
+    String storedir = config.getProperty("CollectedInfo.store");
+    
+    if (storedir != null) {
+      store = ClassStore.createTemp(new File(storedir));
+      info.useStore(store);
+    }
+    info.storeParsed(scanned);
+    
+    //--- keep only compact views of scanned classes, listed later on debug.
+    scanned.clear();
+    scanned.addAll(info.getParsed().values());
+    timer.stop(scanned.size());
+  }
+
+  /**
+   * Prepare the trigger with classpath for analyzers and the analysis cache,
+   * reusing an idle one if possible.
+   * 
+   * @throws gov.nasa.jpf.autodoc.types.analyzer.InvalidAnalyzerException
+   */
+  protected void prepareAnalyses() 
+          throws IOException, InvalidAnalyzerException {
+    Metrics.Timer timer = metrics.start("prepare");
+    ProjectScanner pscanner = new ProjectScanner(scanner);
+    FilenameFilter filter = new FilenameFilter() {
+
+      @Override
+      public boolean accept(File dir, String name) {
+        return NameUtils.isJarFilename(name) && name.endsWith("-classes.jar")
+               && NameUtils.isBuildFolder(dir.getName());
+      }
+    };
+    
+    jars = pscanner.fetchAllFiles(filter);
+    
+    //--- analyzers keep their classpaths open, reuse idle ones if unchanged.
+    trigger = shared.takeTrigger(jars);
+    
+    if (trigger == null) {
+      trigger = createTrigger(jars);
+    }
+    trigger.setThreads(config.getIntProperty("AnalysisTrigger.threads", 0));
+    trigger.setMetrics(metrics);
+    
+    String cachefile = config.getProperty("AnalysisTrigger.cache");
+    
+    if (cachefile != null) {
+      AnalysisCache cache = trigger.getCache();
+      String fingerprint = AnalysisCache.fingerprint(trigger, info);
+      
+      if (cache == null || !cache.getFile().equals(new File(cachefile))
+          || !cache.getFingerprint().equals(fingerprint)) {
+        trigger.setCache(AnalysisCache.load(new File(cachefile), 
+                                            fingerprint));
+      }
+    }
+    
+    timer.stop();
+  }
+
+  /**
+   * Start analyses with the prepared trigger and store results. If the 
+   * trigger comes with results of the same targets, only classes changed 
+   * since then and their dependents are analyzed again.
+   * 
+   * @throws gov.nasa.jpf.autodoc.types.parser.ClassFileNotFoundException
+   */
+  protected void startAnalyses() throws ClassFileNotFoundException {
+    Metrics.Timer timer = metrics.start("analyze");
+    CollectedInfo last = shared.takeResults(trigger, getResultsKey());
+    
+    if (last != null) {
+      Set<String> affected = trigger.reanalyze(last, info, options & 0xF);
+      metrics.count("reanalyzed", affected.size());
+    } else {
+      info = trigger.startAnalyses(info, options & 0xF);
+    }
+    timer.stop(info.getParsed().size());
+    
+    if (trigger.getCache() != null) {
+      metrics.count("cache.hits", trigger.getCache().getHits());
+      metrics.count("cache.misses", trigger.getCache().getMisses());
+      timer = metrics.start("cache.save");
+      
+      try {
+        trigger.getCache().save();
+      } catch (IOException ex) {
+        console.error("[" + Level.WARNING + "] Analysis cache not saved. " 
+                      + ex);
+      }
+      timer.stop(trigger.getCache().size());
+    }
+  }
+
+  /**
+   * Create a trigger with configured analyzers and their classpaths.
+   * 
+   * @param jars Classes jars of projects, searched for native peers.
+   */
+  protected AnalysisTrigger createTrigger(Set<String> jars) 
+          throws IOException, InvalidAnalyzerException {
+    AnalysisTrigger created = new AnalysisTrigger();
+    
+    if (config.getProperty("AnalysisTrigger.analyzers") != null) {
+      created.setAnalyzers(config.getPropertyVals(
+              "AnalysisTrigger.analyzers"));
+    }
+    String boot = System.getProperty("sun.boot.class.path");
+    
+    if (boot != null) {
+      created.addModelPath(boot);
+    }
+    created.setStdLib(shared.getStdLib(console));
+    
+    created.addTypePaths(config.getPropertyVals(
+            "SubtypeAnalyzer.classpath"));
+    created.addPeerPaths(config.getPropertyVals(
+            "NativePeerAnalyzer.classpath"));
+    created.addModelPaths(config.getPropertyVals(
+            "ModelClassAnalyzer.classpath"));
+    
+    for (InfoAnalyzer analyzer : created.getAnalyzers()) {
+      String key = analyzer.getClass().getSimpleName() + ".classpath";
+      
+      if (!created.isBuiltIn(analyzer) && config.getProperty(key) != null) {
+        analyzer.addPathNames(config.getPropertyVals(key));
+      }
+    }
+    
+    created.addPeerPaths(jars.toArray(new String[jars.size()]));
+    return created;
+  }
+
+  /**
+   * Start writing components as soon as analyses find them, if enabled. 
+   * Components are also reported to console at verbosity levels 1 and 2.
+   * 
+   * @return progress listener or <code>null</code> if not enabled.
+   */
+  protected ProgressWriter startProgress() 
+          throws IOException {
+    if (!isEnabled(Options.PROGRESS)) {
+      return null;
+    }
+    
+    boolean verbose = isEnabled(Options.OUT_LEVEL1)
+                      || isEnabled(Options.OUT_LEVEL2);
+    ProgressWriter progress = new ProgressWriter(
+            WriterFactory.createJSONWriter(getProgressFile(), true), 
+            verbose ? console : null);
+    trigger.addListener(progress);
+    return progress;
+  }
+
+  /**
+   * Stop writing components found and replace the file with the sorted 
+   * NDJSON of collected info, once all analyses are done.
+   */
+  protected void endProgress(ProgressWriter progress) 
+          throws IOException {
+    if (progress == null) {
+      return;
+    }
+    
+    trigger.removeListener(progress);
+    progress.close();
+    
+    if (progress.getError() != null) {
+      console.error("[" + Level.WARNING + "] Progress not fully written. " 
+                    + progress.getError());
+    }
+    
+    String file = getProgressFile();
+    Metrics.Timer timer = metrics.start("write.progress");
+    writeJSON(file, true);
+    timer.stop(progress.getCount());
+    console.writeParam("progress sorted in", file + " (" 
+                       + progress.getCount() + " components found)");
+  }
+
+  /**
+   * Index collected info and show the components matching a query, without
+   * writing output files.
+   * 
+   * @param expression Query like <code>kind=peer,model=java.lang.Thread</code>.
+   * @throws gov.nasa.jpf.autodoc.types.query.InvalidQueryException
+   */
+  protected void startQuery(String expression) 
+          throws InvalidQueryException {
+    Metrics.Timer timer = metrics.start("query");
+    long start = System.nanoTime();
+    InfoQuery query = new InfoQuery(info);
+    long indexed = System.nanoTime();
+    List<JPFInfo> found = query.select(expression);
+    long end = System.nanoTime();
+    timer.stop(query.size());
+    
+    console.writeMajorSeparator("query result");
+    
+    for (JPFInfo component : found) {
+      console.detail(query.getKind(component), component.getInfo().getName());
+    }
+    
+    console.writeMajorSeparator("status");
+    console.writeParam("query", expression);
+    console.writeParam("indexed components", Integer.toString(query.size()));
+    console.writeParam("matching components", Integer.toString(found.size()));
+    console.writeParam("indexing time", 
+                       String.format("%.3f ms", (indexed - start) / 1e6));
+    console.writeParam("query time", 
+                       String.format("%.3f ms", (end - indexed) / 1e6));
+    console.write("done!");
+  }
+
+  /**
+   * Check output options and call output writers to show collected info.
+   * 
+   * @throws java.io.IOException
+   * @throws javax.xml.stream.XMLStreamException
+   */
+  public void checkOutputOpts() 
+         throws IOException, XMLStreamException {
+    String debug = new String();
+    
+    if (isEnabled(Options.DEBUG_SCAN)) {
+      debug = getArg(Options.DEBUG_SCAN);
+      
+      if (debug.isEmpty()) {
+        debug = "debug-scan.txt";
+      }
+      
+      Metrics.Timer timer = metrics.start("write.debug");
+      text = WriterFactory.createFileWriter(debug);
+      scanner.list(text.getPrintWriter());
+      text.disable();
+      timer.stop(info.getParsed().size());
+      
+      if (isEnabled(Options.OUT_LEVEL1) 
+          || isEnabled(Options.OUT_LEVEL2)) {
+        console.writeMajorSeparator("scan");
+        scanner.list(console.getPrintWriter());
+      }
+    }
+    
+    if (isEnabled(Options.DIFF)) {
+      base = StreamingXMLReader.read(getArg(Options.DIFF));
+    }
+    
+    List<Writer> detailed = new ArrayList<Writer>();
+    
+    if (isEnabled(Options.OUT_LEVEL1)) {
+      console.writeMajorSeparator("analysis result");
+      writeInfo(console, false);
+    } else if (isEnabled(Options.OUT_LEVEL2)) {
+      console.writeMajorSeparator("analysis result");
+      detailed.add(console);
+    }
+    
+    detailed.addAll(sinks);
+    
+    String textFile = null;
+    String wikiFile = null;
+    String mdFile = null;
+    ShardedWriter.Key shard = null;
+    
+    if (isEnabled(Options.SHARD)) {
+      shard = ShardedWriter.Key.of(getArg(Options.SHARD));
+      
+      if (shard == null) {
+        console.error("[" + Level.WARNING + "] Unknown shard key " 
+                      + getArg(Options.SHARD) 
+                      + ", sharding by project.");
+        shard = ShardedWriter.Key.PROJECT;
+      }
+    }
+    
+    if (isEnabled(Options.TEXTFILE)) {
+      textFile = getOutputFile(Options.TEXTFILE, "jpf-types.txt");
+      
+      if (shard == null) {
+        text = WriterFactory.createFileWriter(textFile);
+        detailed.add(text);
+      }
+    }
+    
+    if (isEnabled(Options.WIKI)) {
+      wikiFile = getOutputFile(Options.WIKI, "jpf-types.wiki");
+      
+      if (shard == null) {
+        detailed.add(WriterFactory.createWikiWriter(wikiFile));
+      }
+    }
+    
+    if (isEnabled(Options.MARKDOWN)) {
+      mdFile = getOutputFile(Options.MARKDOWN, "jpf-types.md");
+      
+      if (shard == null) {
+        detailed.add(WriterFactory.createMarkdownWriter(mdFile));
+      }
+    }
+    
+    Metrics.Timer timer = metrics.start("write.detailed");
+    writeDetailedInfo(detailed);
+    
+    //--- file writers are buffered, closing them writes what is left.
+    for (Writer writer : detailed) {
+      if (writer != console && !sinks.contains(writer)) {
+        writer.disable();
+      }
+    }
+    timer.stop(detailed.isEmpty() ? 0 : countComponents());
+    
+    if (shard != null) {
+      textFile = writeShards(textFile, WriterFactory.Format.TEXT, shard);
+      wikiFile = writeShards(wikiFile, WriterFactory.Format.WIKI, shard);
+      mdFile = writeShards(mdFile, WriterFactory.Format.MARKDOWN, shard);
+    }
+    
+    console.writeMajorSeparator("status");
+    console.writeParam("writing debug file", debug);
+    
+    if (base != null) {
+      console.writeParam("writing differences with", 
+                         getArg(Options.DIFF));
+    }
+    
+    if (textFile != null) {
+      console.writeParam("writing text to", textFile);
+    }
+
+    if (isEnabled(Options.XML)) {
+      timer = metrics.start("write.xml");
+      String file = StreamingXMLWriter.write(info, 
+              getOutputFile(Options.XML, "jpf-types.xml"));
+      timer.stop(countComponents());
+      console.writeParam("writing xml to", file);
+    }
+    
+    if (wikiFile != null) {
+      console.writeParam("writing wiki to", wikiFile);
+    }
+    
+    if (mdFile != null) {
+      console.writeParam("writing markdown to", mdFile);
+    }
+    
+    if (isEnabled(Options.JSON)) {
+      String file = getOutputFile(Options.JSON, 
+                                  "jpf-types.json");
+      
+      timer = metrics.start("write.json");
+      writeJSON(file, false);
+      timer.stop(countComponents());
+      console.writeParam("writing json to", file);
+    }
+    
+    if (isEnabled(Options.NDJSON)) {
+      String file = getOutputFile(Options.NDJSON, 
+                                  "jpf-types.ndjson");
+      
+      timer = metrics.start("write.ndjson");
+      writeJSON(file, true);
+      timer.stop(countComponents());
+      console.writeParam("writing ndjson to", file);
+    }
+    
+    if (isEnabled(Options.HTML)) {
+      String dir = getArg(Options.HTML);
+      
+      if (dir.isEmpty()) {
+        dir = "jpf-types-html";
+      }
+      
+      timer = metrics.start("write.html");
+      HtmlSiteWriter site = WriterFactory.createSiteWriter(dir, 
+              config.getIntProperty("HtmlSiteWriter.threads", 0));
+      site.write(info);
+      timer.stop(site.getPageCount());
+      console.writeParam("writing html to", dir + " (" 
+              + site.getWrittenCount() + " of " + site.getPageCount() 
+              + " pages changed)");
+    }
+    
+    console.write("done!");
+  }
+
+  /**
+   * Write components split in files by a key, whether or not a diff base 
+   * was loaded.
+   * 
+   * @param file Index file or <code>null</code> if output is disabled.
+   * @return status of the files written.
+   */
+  String writeShards(String file, WriterFactory.Format format, 
+                     ShardedWriter.Key key) throws IOException {
+    if (file == null) {
+      return null;
+    }
+    
+    Metrics.Timer timer = metrics.start("write.shards");
+    ShardedWriter shards = new ShardedWriter(file, format, key);
+    shards.setThreads(config.getIntProperty("ShardedWriter.threads", 0));
+    shards.write(info);
+    timer.stop(shards.getShardCount() + 1);
+    return file + " (" + shards.getWrittenCount() + " of " 
+           + (shards.getShardCount() + 1) + " files changed)";
+  }
+
+  /**
+   * Write collected info as JSON, whether or not a diff base was loaded.
+   * 
+   * @param lines Whether to write a component per line.
+   */
+  void writeJSON(String file, boolean lines) throws IOException {
+    StreamingJSONWriter json = WriterFactory.createJSONWriter(file, lines);
+    
+    try {
+      json.write(info);
+    } finally {
+      json.close();
+    }
+  }
+
+  /**
+   * Write detailed collected info to several writers in a single pass over 
+   * components or, if a diff base was loaded, write its differences to each 
+   * writer. Writers run on their own threads if 
+   * <code>FanOutWriter.async</code> is set in config.
+   */
+  void writeDetailedInfo(List<Writer> writers) {
+    if (writers.isEmpty()) {
+      return;
+    }
+    
+    if (base != null) {
+      for (Writer writer : writers) {
+        writeInfo(writer, true);
+      }
+      return;
+    }
+    
+    boolean async = writers.size() > 1 
+                    && config.getBooleanProperty("FanOutWriter.async", false);
+    FanOutWriter fanout = new FanOutWriter();
+    
+    for (Writer writer : writers) {
+      fanout.addSink(writer, async);
+    }
+    fanout.write(info);
+  }
+
+  /**
+   * Write collected info or, if a diff base was loaded, its differences with
+   * collected info.
+   * 
+   * @param writer Output writer.
+   * @param detailed Whether to write all details of components.
+   */
+  void writeInfo(Writer writer, boolean detailed) {
+    if (base != null) {
+      DiffWriter diff = new DiffWriter(writer);
+      InfoDiff.compare(base, info, diff);
+      diff.writeSummary();
+    } else if (detailed) {
+      writer.writeDetailedInfo(info);
+    } else {
+      writer.writeInfo(info);
+    }
+  }
+
+  private int countComponents() {
+    return info.getSubtypes().size() + info.getModels().size() 
+           + info.getPeers().size();
+  }
+
+  /**
+   * Write metrics of the run to the file of the metrics option, if enabled.
+   */
+  void writeMetrics() {
+    if (!metrics.isEnabled()) {
+      return;
+    }
+    
+    String file = AutoDocTool.getMetricsFile(args);
+    metrics.count("classes.parsed", info.getParsed().size());
+    metrics.count("components.found", countComponents());
+    
+    try {
+      metrics.write(file);
+      console.detail("metrics written to", file);
+    } catch (IOException ex) {
+      console.error("[" + Level.WARNING + "] Metrics not written. " + ex);
+    }
+  }
+
+  /**
+   * Show some data such as analyzed classes count
+   */
+  public void statistics() {
+    String secs = String.format("%.3g", (float)((endTime - startTime)) / 1000);
+    int np = info.getParsed().size();
+    int ns = info.getSubtypes().size();
+    int nm = info.getModels().size();
+    int nn = info.getPeers().size();
+    int total = ns + nm + nn;
+    
+    console.writeMajorSeparator("statistics");
+    console.detail("total elapsed time", secs + " sec");
+    console.detail("analyzed subtypes", Integer.toString(ns));
+    console.detail("analyzed models", Integer.toString(nm));
+    console.detail("analyzed nat peers", Integer.toString(nn));
+    console.detail("total components", Integer.toString(total));
+    console.detail("total parsed classes", Integer.toString(np));
+    console.detail("other parsed classes", Integer.toString(np - total));
+  }
+
+  /**
+   * Show targets and classpath if exists.
+   */
+  public void showParams() {
+    if (targets.isEmpty()) {
+      console.writeParam("targets", "all projects");
+    } else {
+      console.writeParam("targets", targets.toString());
+    }
+    
+    if (!classpath.isEmpty()) {
+      console.writeParam("classpath", classpath.toString());
+    }
+  }
+
+  /**
+   * Show application title.
+   */
+  public void showTitle() {
+    showVersion();
+  }
+
+  /**
+   * Load build properties and show it.
+   */
+  public void showVersion() {
+    console.writeTitle(config.getProperty("app.name"),
+                       config.getProperty("version"),
+                       config.getProperty("release"),
+                       config.getProperty("vendor"), null);
+  }
+}
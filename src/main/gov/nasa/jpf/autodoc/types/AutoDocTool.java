@@ -19,39 +19,21 @@
 
 package gov.nasa.jpf.autodoc.types;
 
-import gov.nasa.jpf.autodoc.types.analyzer.AnalysisTrigger;
-import gov.nasa.jpf.autodoc.types.info.ClassInfo;
-import gov.nasa.jpf.autodoc.types.info.CollectedInfo;
-import gov.nasa.jpf.autodoc.types.info.SubtypeInfo;
+import gov.nasa.jpf.autodoc.types.output.FileStreams;
 import gov.nasa.jpf.autodoc.types.output.Writer;
 import gov.nasa.jpf.autodoc.types.output.WriterFactory;
-import gov.nasa.jpf.autodoc.types.output.XMLReaderWriter;
-import gov.nasa.jpf.autodoc.types.parser.ClassFileNotFoundException;
-import gov.nasa.jpf.autodoc.types.parser.Parser;
-import gov.nasa.jpf.autodoc.types.parser.TargetParser;
-import gov.nasa.jpf.autodoc.types.scanner.InvalidTargetException;
-import gov.nasa.jpf.autodoc.types.scanner.ProjectScanner;
-import gov.nasa.jpf.autodoc.types.scanner.Scanner;
-import gov.nasa.jpf.autodoc.types.scanner.TargetScanner;
-import gov.nasa.jpf.classfile.ClassFileException;
-import java.io.File;
-import java.io.FilenameFilter;
 import java.io.IOException;
 import java.io.PrintStream;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.LinkedList;
 import java.util.List;
-import java.util.Set;
 import java.util.logging.Level;
-import org.exolab.castor.mapping.MappingException;
-import org.exolab.castor.xml.MarshalException;
-import org.exolab.castor.xml.ValidationException;
 
 /**
  * Automatic Documentation of JPF Components. This class handles command-line 
- * options, configures the tool, starts scans and analyses, collects info and 
- * controls the output.
+ * options and runs them in an {@link AutoDocEngine} session, which configures 
+ * the tool, starts scans and analyses, collects info and controls the output.
  * 
  * @author Carlos Uribe [carlos.albert.uribe@gmail.com]
  */
@@ -94,8 +76,12 @@ public class AutoDocTool {
     WIKI          (0x1000,   true,  "-oW,-wiki,--wiki"),
     /** Allow writing output to a wiki file. */
     MARKDOWN      (0x2000,   true,  "-oM,-md,--md"),
+    /** Allow writing output to a json file. */
+    JSON          (0x4000,   true,  "-oJ,-json,--json"),
     /** Enable all output options with verbosity level 2.*/
-    OUTPUT_ALL    (0x3E00,   true,  "-oA,--output-all"),
+    OUTPUT_ALL    (0x7E00,   true,  "-oA,--output-all"),
+    /** Allow writing output to a json file with a component per line. */
+    NDJSON        (0x8000,   true,  "-oN,-ndjson,--ndjson"),
         
     /** Enable classpath settings. */
     CLASSPATH     (0x10000,  true,  "-cp,-classpath"),
@@ -111,7 +97,24 @@ public class AutoDocTool {
     /** Enable automated scan output integrity check. */
     CHECK_DSCAN   (0x200000,  true,  "-cS,-check-scan,--check-scan"),
     /** Enable automated xml integrity check. */
-    CHECK_DXML    (0x400000,  true,  "-cX,-check-xml,--check-xml");
+    CHECK_DXML    (0x400000,  true,  "-cX,-check-xml,--check-xml"),
+    
+    /** Enable query of collected info instead of writing output files. */
+    QUERY         (0x800000,  true,  "-q,-query,--query"),
+    /** Enable writing differences with a previous xml file. */
+    DIFF          (0x1000000, true,  "-d,-diff,--diff"),
+    /** Allow writing output to a folder of linked html pages. */
+    HTML          (0x2000000, true,  "-oH,-html,--html"),
+    /** Enable gzip compression of output files. */
+    COMPRESS      (0x4000000, false, "-oZ,-compress,--compress"),
+    /** Enable splitting text, wiki and markdown outputs in files. */
+    SHARD         (0x8000000, true,  "-oS,-shard,--shard"),
+    /** Enable writing components to a NDJSON file as they are found. */
+    PROGRESS      (0x10000000, true, "-oP,-progress,--progress"),
+    /** Serve runs from a local socket or stdin, keeping caches warm. */
+    DAEMON        (0x20000000, true, "-daemon,--daemon"),
+    /** Enable writing timings, counters and memory use to a JSON file. */
+    METRICS       (0x40000000, true, "-metrics,--metrics");
     
     private final int weight;
     private final boolean hasParam;
@@ -123,6 +126,10 @@ public class AutoDocTool {
       this.options = options.split(",");
     }
 
+    public int getWeight() {
+      return weight;
+    }
+
     int getParamPosInList(String optlist[]) {
       if (hasParam) {
         int opt = getPosInList(optlist);
@@ -148,19 +155,9 @@ public class AutoDocTool {
     }
   }
   
-  private static List<String> targets = new ArrayList<String>();
-  private static List<String> classpath = new ArrayList<String>();
-  
-  private static long startTime = 0;
-  private static long endTime = 0;
-  
-  private static Writer text;
-  private static Writer console;
-  private static Scanner scanner;
-  private static Parser parser;
-  private static final ConfigLoader config = new ConfigLoader();
-  private static CollectedInfo info = new CollectedInfo();
-  private static final AnalysisTrigger trigger = new AnalysisTrigger();
+  //--- resources shared by runs of the same process, see AutoDocDaemon.
+  private static final AutoDocEngine.Shared shared = 
+          new AutoDocEngine.Shared();
   
   /**
    * Entry point for the tool.
@@ -168,48 +165,34 @@ public class AutoDocTool {
    * @param args Command-line arguments for the tool.
    */
   public static void main(String args[]) {
-    startTime = System.currentTimeMillis();
     int options = getOptions(args);
-    options |= setDefaults(options);
-
+    
     try {
       System.setErr(new PrintStream("jpfadt.log"));
-      console = WriterFactory.createConsole();
-      parser = new TargetParser();
-      
-      configure();
-      checkNonRetOpts(args, options);
-      checkParams(args, options);
-      
-      showTitle();
-      console.writeHeader();
-      showParams();
-      showEnabled(options);
-      
-      startScan(options);
-      startAnalyses(options);
-      checkOutputOpts(args, options);
-      endTime = System.currentTimeMillis();
-      statistics();
-      console.writeFooter();
-      
     } catch (IOException ex) {
-      console.error("\n[" + Level.SEVERE + "] I/O error. " + ex);
-    } catch (FileNotLoadedException ex) {
-      console.error("[" + Level.SEVERE + "] Error trying to load file. " + ex);
-    } catch (ClassFileException ex) {
-      console.error("[" + Level.WARNING + "] Error parsing file. " + ex);
-    } catch (InvalidTargetException ex) {
-      console.error("[" + Level.SEVERE + "] Error scanning target. " + ex);
-    } catch (MappingException ex) {
-      console.error("[" + Level.WARNING + "] Error mapping XML file. " + ex);
-    } catch (MarshalException ex) {
-      console.error("[" + Level.SEVERE + "] Error marshalling XML file. " + ex);
-    } catch (ValidationException ex) {
-      console.error("[" + Level.WARNING + "] XML error. " + ex);
-    } catch (ClassFileNotFoundException ex) {
-      console.error("[" + Level.SEVERE + "] Error parsing file. " + ex);
+      System.out.println("[" + Level.WARNING + "] Log not redirected. " + ex);
     }
+    
+    if (isOptionEnabled(options, Options.DAEMON.weight)) {
+      AutoDocDaemon.start(getOptionArg(args, Options.DAEMON));
+    } else {
+      execute(args, WriterFactory.createConsole());
+    }
+  }
+  
+  /**
+   * Run the tool once, showing everything on a given console. Configuration,
+   * parsed leaf types, the index of standard classes, analyzers and their 
+   * classpaths are kept for next runs in the same process, so only the first
+   * one pays for them. Runs are serialized.
+   * 
+   * @param args Command-line arguments for the tool.
+   * @param out Console to show progress, results and errors.
+   * @return 0 if the run ended normally or 1 if it ended with an error.
+   */
+  public static synchronized int execute(String args[], Writer out) {
+    return new AutoDocEngine.Builder().args(args).console(out).shared(shared)
+            .build().run();
   }
   
   /**
@@ -226,7 +209,8 @@ public class AutoDocTool {
       mask |= Options.ANALYZE_ALL.weight; 
     }
     
-    if ((options & Options.OUTPUT_ALL.weight) == 0) {
+    if ((options & (Options.OUTPUT_ALL.weight | Options.NDJSON.weight 
+                    | Options.HTML.weight | Options.QUERY.weight)) == 0) {
       mask |= Options.XML.weight;
     }
     
@@ -236,86 +220,6 @@ public class AutoDocTool {
     
     return mask;
   }
-  
-  /**
-   * Load configuration files and prepare JPF components for analyses.
-   */
-  static void configure() throws IOException, ClassFileException, 
-                                              ClassFileNotFoundException {
-    config.loadConfig("config.properties");
-    
-    String[] pathnames = config.getPropertyVals("SubtypeAnalyzer.classpath");
-    
-    for (String key : config.getLeafs()) {
-      ClassInfo cls = parser.parse(config.getProperty(key), pathnames);
-      SubtypeInfo type = new SubtypeInfo();
-      type.setInfo(cls);
-      type.setType(config.getType(key));
-      info.register(cls);
-      info.registerType(type);
-    }
-    
-    config.loadConfig("build.properties");
-  }
-
-  /**
-   * Check those {@link Options} that show something and halt.
-   */
-  static void checkNonRetOpts(String[] args, int options) {
-    if (isOptionEnabled(options, Options.HELP.weight)) {
-      showUsage();
-      System.exit(0);
-    }
-
-    if (isOptionEnabled(options, Options.VER.weight)) {
-      showVersion();
-      System.exit(0);
-    }
-
-    if (isOptionEnabled(options, Options.CONFIG.weight)) {
-      showTitle();
-      config.list(console.getPrintWriter());
-      System.exit(0);
-    }
-  }
-
-  /**
-   * Parse and check classpath if enabled and parse targets.
-   * 
-   * @param args Command line arguments.
-   * @param options Bitwise value denoting enabled options.
-   */
-  static void checkParams(String[] args, int options) {
-    if (isOptionEnabled(options, Options.CLASSPATH.weight)) {
-      classpath = parseClassPath(args);
-    }
-
-    targets = parseTargets(args);
-
-    if (!isInputCoherent(targets, classpath)) {
-      showUsage();
-      System.exit(0);
-    }
-  }
-  
-  /**
-   * Show current enabled options.
-   * 
-   * @param options Bitwise value denoting enabled options.
-   */
-  public static void showEnabled(int options) {
-    String en = new String();
-    
-    for (Options op : Options.values()) {
-      if (isOptionEnabled(options, op.weight)) {
-        if (((op.weight << 1) & op.weight) == 0) {
-          en += op.name().toLowerCase() + ", ";
-        }
-      }
-    }
-    en = en.isEmpty() ? en : en.substring(0, en.length() - 2);
-    console.writeParam("enabled", en);
-  }
 
   /**
    * Extract classpath names from command-line arguments.
@@ -353,7 +257,7 @@ public class AutoDocTool {
       if (i >= 0 && tgs.size() > 0) {
         tgs.remove(i); 
         
-        if (j > 0 && tgs.size() > 0) {
+        if (j > 0 && tgs.size() > 0 && !remain[j].startsWith("-")) {
           tgs.remove(j - 1);
         }
       }
@@ -437,209 +341,44 @@ public class AutoDocTool {
   }
 
   /**
-   * Scan registered targets and store results.
-   * 
-   * @param options Bitwise value denoting scan options.
-   * @throws java.io.IOException
-   * @throws gov.nasa.jpf.autodoc.types.FileNotLoadedException
-   * @throws gov.nasa.jpf.classfile.ClassFileException
-   * @throws gov.nasa.jpf.autodoc.types.scanner.InvalidTargetException
-   * @throws gov.nasa.jpf.autodoc.types.parser.ClassFileNotFoundException
-   */
-  protected static void startScan(int options)
-          throws IOException, FileNotLoadedException, ClassFileException, 
-          InvalidTargetException, ClassFileNotFoundException {
-    scanner = new TargetScanner(parser);
-    
-    int opts = (options & 0xF0) >> 0x4;
-    
-    scanner.scan(targets, classpath, scanner.getScanType(opts));
-    info.storeParsed(scanner.getScanned());
-  }
-
-  /**
-   * Prepare classpath for analyzers, start analyses and store results.
-   * 
-   * @param options Bitwise value denoting analyses options.
-   * @throws gov.nasa.jpf.autodoc.types.parser.ClassFileNotFoundException
+   * Get the file of the progress option: its argument or else the default 
+   * name.
    */
-  protected static void startAnalyses(int options) 
-          throws ClassFileNotFoundException {
-    trigger.addModelPath(System.getProperty("sun.boot.class.path"));
-    
-    trigger.addTypePaths(config.getPropertyVals(
-            "SubtypeAnalyzer.classpath"));
-    trigger.addPeerPaths(config.getPropertyVals(
-            "NativePeerAnalyzer.classpath"));
-    trigger.addModelPaths(config.getPropertyVals(
-            "ModelClassAnalyzer.classpath"));
-    
-    ProjectScanner pscanner = new ProjectScanner(scanner);
-    FilenameFilter filter = new FilenameFilter() {
-
-      @Override
-      public boolean accept(File dir, String name) {
-        return NameUtils.isJarFilename(name) && name.endsWith("-classes.jar")
-               && NameUtils.isBuildFolder(dir.getName());
-      }
-    };
-    
-    Set<String> jars = pscanner.fetchAllFiles(filter);
-    trigger.addPeerPaths(jars.toArray(new String[jars.size()]));
-    
-    int opts = options & 0xF;
-    
-    info = trigger.startAnalyses(info, opts);
+  static String getProgressFile(String[] args) {
+    String file = getOptionArg(args, Options.PROGRESS);
+    return file.isEmpty() ? "jpf-types.progress.ndjson" : file;
   }
 
   /**
-   * Check output options and call output writers to show collected info.
-   * 
-   * @param args Command line arguments.
-   * @param options Bitwise value denoting output options.
-   * @throws java.io.IOException
-   * @throws org.exolab.castor.mapping.MappingException
-   * @throws org.exolab.castor.xml.MarshalException
-   * @throws org.exolab.castor.xml.ValidationException
+   * Get the file of the metrics option: its argument or else the default 
+   * name.
    */
-  public static void checkOutputOpts(String[] args, int options) 
-         throws IOException, MappingException, MarshalException, 
-         ValidationException {
-    String debug = new String();
-    
-    if (isOptionEnabled(options, Options.DEBUG_SCAN.weight)) {
-      debug = getOptionArg(args, Options.DEBUG_SCAN);
-      
-      if (debug.isEmpty()) {
-        debug = "debug-scan.txt";
-      }
-      
-      text = WriterFactory.createFileWriter(debug);
-      scanner.list(text.getPrintWriter());
-      
-      if (isOptionEnabled(options, Options.OUT_LEVEL1.weight) 
-          || isOptionEnabled(options, Options.OUT_LEVEL2.weight)) {
-        console.writeMajorSeparator("scan");
-        scanner.list(console.getPrintWriter());
-      }
-    }
-    
-    if (isOptionEnabled(options, Options.OUT_LEVEL1.weight)) {
-      console.writeMajorSeparator("analysis result");
-      console.writeInfo(info);
-    } else if (isOptionEnabled(options, Options.OUT_LEVEL2.weight)) {
-      console.writeMajorSeparator("analysis result");
-      console.writeDetailedInfo(info);
-    }
-    
-    console.writeMajorSeparator("status");
-    console.writeParam("writing debug file", debug);
-    
-    if (isOptionEnabled(options, Options.TEXTFILE.weight)) {
-      String file = getOptionArg(args, Options.TEXTFILE);
-      
-      if (file.isEmpty()) {
-        file = "jpf-types.txt";
-      }
-      
-      text = WriterFactory.createFileWriter(file);
-      text.writeDetailedInfo(info);
-      console.writeParam("writing text to", file);
-    }
-
-    if (isOptionEnabled(options, Options.XML.weight)) {
-      String arg = getOptionArg(args, Options.XML);
-      XMLReaderWriter xml = new XMLReaderWriter();
-      
-      xml.setup();
-      xml.marshal(info, arg);
-      console.writeParam("writing xml to", xml.getFile());
-    }
-    
-    if (isOptionEnabled(options, Options.WIKI.weight)) {
-      String file = getOptionArg(args, Options.WIKI);
-      
-      if (file.isEmpty()) {
-        file = "jpf-types.wiki";
-      }
-      
-      text = WriterFactory.createWikiWriter(file);
-      text.writeDetailedInfo(info);
-      console.writeParam("writing wiki to", file);
-    }
-    
-    if (isOptionEnabled(options, Options.MARKDOWN.weight)) {
-      String file = getOptionArg(args, Options.MARKDOWN);
-      
-      if (file.isEmpty()) {
-        file = "jpf-types.md";
-      }
-      
-      text = WriterFactory.createMarkdownWriter(file);
-      text.writeDetailedInfo(info);
-      console.writeParam("writing markdown to", file);
-    }
-    
-    console.write("done!");
-  }
-  
-  /**
-   * Show some data such as analyzed classes count
-   */
-  public static void statistics() {
-    String secs = String.format("%.3g", (float)((endTime - startTime)) / 1000);
-    int np = info.getParsed().size();
-    int ns = info.getSubtypes().size();
-    int nm = info.getModels().size();
-    int nn = info.getPeers().size();
-    int total = ns + nm + nn;
-    
-    console.writeMajorSeparator("statistics");
-    console.detail("total elapsed time", secs + " sec");
-    console.detail("analyzed subtypes", Integer.toString(ns));
-    console.detail("analyzed models", Integer.toString(nm));
-    console.detail("analyzed nat peers", Integer.toString(nn));
-    console.detail("total components", Integer.toString(total));
-    console.detail("total parsed classes", Integer.toString(np));
-    console.detail("other parsed classes", Integer.toString(np - total));
+  static String getMetricsFile(String[] args) {
+    String file = getOptionArg(args, Options.METRICS);
+    return file.isEmpty() ? "jpf-types.metrics.json" : file;
   }
 
   /**
-   * Show targets and classpath if exists.
+   * Get the file of an output option: its argument or else the default name,
+   * with the gzip extension if compression is enabled.
    */
-  public static void showParams() {
-    if (targets.isEmpty()) {
-      console.writeParam("targets", "all projects");
-    } else {
-      console.writeParam("targets", targets.toString());
-    }
+  static String getOutputFile(String[] args, int options, Options op, 
+                              String def) {
+    String file = getOptionArg(args, op);
     
-    if (!classpath.isEmpty()) {
-      console.writeParam("classpath", classpath.toString());
+    if (file.isEmpty()) {
+      file = def;
     }
-  }
-  
-  /**
-   * Show application title.
-   */
-  public static void showTitle() {
-    showVersion();
-  }
-
-  /**
-   * Load build properties and show it.
-   */
-  public static void showVersion() {
-    console.writeTitle(config.getProperty("app.name"),
-                       config.getProperty("version"),
-                       config.getProperty("release"),
-                       config.getProperty("vendor"), null);
+    return FileStreams.getFilename(file, 
+            isOptionEnabled(options, Options.COMPRESS.weight));
   }
 
   /**
    * Show help screen.
+   * 
+   * @param console Writer where to show it.
    */
-  public static void showUsage() {
+  public static void showUsage(Writer console) {
     console.writeln("Usage: jpfadt [<options>] {<target specification>}\n");
     console.writeln("<target specification> :: ");
     console.writeln("  classfile : path or filename of a java class file. | ");
@@ -712,6 +451,29 @@ public class AutoDocTool {
                     + "file. (default mode) | ");
     console.writeln(" (-oW | -wiki | --wiki) [<file>] : dump output to a wiki "
                     + "file for Google Code Projects. | ");
+    console.writeln(" (-oJ | -json | --json) [<file>] : dump output to a json "
+                    + "file. | ");
+    console.writeln(" (-oN | -ndjson | --ndjson) [<file>] : dump output to a "
+                    + "json file with a ");
+    console.writeln("      component per line. | ");
+    console.writeln(" (-oH | -html | --html) [<dir>] : dump output to a folder "
+                    + "of linked html ");
+    console.writeln("      pages, rewriting only changed pages. | ");
+    console.writeln(" (-d | -diff | --diff) <xmlfile> : write differences with"
+                    + " a previous xml file ");
+    console.writeln("      instead of components, except in xml, json and "
+                    + "html output. | ");
+    console.writeln(" (-oS | -shard | --shard) [project | type] : split "
+                    + "text, wiki and markdown ");
+    console.writeln("      outputs in a file per project or type, plus an index"
+                    + " file. | ");
+    console.writeln(" (-oP | -progress | --progress) [file] : write "
+                    + "components to a NDJSON file as ");
+    console.writeln("      soon as they are found, sorted once analyses are "
+                    + "done. | ");
+    console.writeln("  -oZ | -compress | --compress : gzip output files. Files"
+                    + " named *.gz are ");
+    console.writeln("      always compressed. | ");
     console.writeln("  -oA | --output-all : output all formats with verbosity level 2.\n");
     console.writeln("  NOTE: If no output type specified, it runs default mode."
                     + " You can mix ");
@@ -729,6 +491,26 @@ public class AutoDocTool {
     console.writeln("  -V | -ver | -version | --version : show build properties"
                     + " including version. | ");
     console.writeln("  -show | --show | -config | --config: show jpfadt "
-                    + "config properties.");
+                    + "config properties. | ");
+    console.writeln("  (-q | -query | --query) <query> : show components "
+                    + "matching a query instead ");
+    console.writeln("                                   of writing output "
+                    + "files. | ");
+    console.writeln("  (-daemon | --daemon) [port | stdin] : serve runs "
+                    + "from bin/jpfadtc on a ");
+    console.writeln("      loopback port (default " 
+                    + AutoDocDaemon.DEFAULT_PORT + ") or from stdin, keeping "
+                    + "caches warm. | ");
+    console.writeln("  (-metrics | --metrics) [file] : write time, throughput "
+                    + "and memory use of each ");
+    console.writeln("      phase to a JSON file.\n");
+    console.writeln("<query> :: ");
+    console.writeln("  field=value[|value...][,field=value...] : components "
+                    + "matching all fields, ");
+    console.writeln("      with fields kind (subtype, model, peer), name, "
+                    + "package, project, ");
+    console.writeln("      layer, type, ancestor, model and interface.");
+    console.writeln("      e.g. jpfadt --query kind=peer,model=java.lang.Thread"
+                    + " jpf-core");
   }
 }
@@ -147,4 +147,41 @@ public class ConfigLoader extends Properties {
   public String[] getPropertyVals(String key) {
     return getProperty(key).split(",");
   }
+
+  /**
+   * Get the integer value of a property.
+   * 
+   * @param key String indicating the property key.
+   * @param def Default value if property is missing or is not a number.
+   * @return value of property or <code>def</code>.
+   */
+  public int getIntProperty(String key, int def) {
+    String val = getProperty(key);
+
+    if (val == null) {
+      return def;
+    }
+
+    try {
+      return Integer.parseInt(val.trim());
+    } catch (NumberFormatException ex) {
+      return def;
+    }
+  }
+
+  /**
+   * Get the boolean value of a property.
+   * 
+   * @param key String indicating the property key.
+   * @param def Default value if property is missing.
+   * @return true if property value is <code>true</code>, ignoring case.
+   */
+  public boolean getBooleanProperty(String key, boolean def) {
+    String val = getProperty(key);
+
+    if (val == null) {
+      return def;
+    }
+    return Boolean.parseBoolean(val.trim());
+  }
 }
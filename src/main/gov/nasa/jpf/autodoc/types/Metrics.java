@@ -0,0 +1,309 @@
+//
+// Copyright (C) 2014 United States Government as represented by the
+// Administrator of the National Aeronautics and Space Administration
+// (NASA).  All Rights Reserved.
+//
+// This software is distributed under the NASA Open Source Agreement
+// (NOSA), version 1.3.  The NOSA has been approved by the Open Source
+// Initiative.  See the file NOSA-1.3-JPF at the top of the distribution
+// directory tree for the complete NOSA document.
+//
+// THE SUBJECT SOFTWARE IS PROVIDED "AS IS" WITHOUT ANY WARRANTY OF ANY
+// KIND, EITHER EXPRESSED, IMPLIED, OR STATUTORY, INCLUDING, BUT NOT
+// LIMITED TO, ANY WARRANTY THAT THE SUBJECT SOFTWARE WILL CONFORM TO
+// SPECIFICATIONS, ANY IMPLIED WARRANTIES OF MERCHANTABILITY, FITNESS FOR
+// A PARTICULAR PURPOSE, OR FREEDOM FROM INFRINGEMENT, ANY WARRANTY THAT
+// THE SUBJECT SOFTWARE WILL BE ERROR FREE, OR ANY WARRANTY THAT
+// DOCUMENTATION, IF PROVIDED, WILL CONFORM TO THE SUBJECT SOFTWARE.
+//
+
+package gov.nasa.jpf.autodoc.types;
+
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.io.Writer;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.lang.management.MemoryUsage;
+import java.lang.management.ThreadMXBean;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Timings and counters of a session, exported as JSON by the metrics option.
+ * A phase adds up the wall and CPU time of each time it runs, on whatever 
+ * thread, so phases run by several analysis workers may take more CPU than 
+ * wall time. Phases may nest: <code>scan</code> holds the <code>walk</code>,
+ * <code>read</code> and <code>parse</code> phases of its targets.
+ * <p>
+ * A disabled instance records nothing and its timers do no work, so 
+ * instrumented code needs no checks of its own.
+ * 
+ * @author Carlos Uribe
+ */
+public class Metrics {
+
+  /** Instance recording nothing, used when metrics are not enabled. */
+  public static final Metrics DISABLED = new Metrics(false);
+
+  private static final ThreadMXBean THREADS = 
+          ManagementFactory.getThreadMXBean();
+
+  private final boolean enabled;
+  private final boolean cpu;
+  private final Map<String, Phase> phases = new LinkedHashMap<String, Phase>();
+  private final Map<String, AtomicLong> counters = 
+          new LinkedHashMap<String, AtomicLong>();
+
+  /**
+   * Times and processed items of a phase, added up over all its runs.
+   */
+  public static class Phase {
+
+    private final String name;
+    private final AtomicLong runs = new AtomicLong();
+    private final AtomicLong wall = new AtomicLong();
+    private final AtomicLong cpu = new AtomicLong();
+    private final AtomicLong items = new AtomicLong();
+
+    Phase(String name) {
+      this.name = name;
+    }
+
+    public String getName() {
+      return name;
+    }
+
+    public long getRuns() {
+      return runs.get();
+    }
+
+    /**
+     * Get the wall time in nanoseconds.
+     */
+    public long getWallTime() {
+      return wall.get();
+    }
+
+    /**
+     * Get the CPU time in nanoseconds, 0 if the JVM does not measure it.
+     */
+    public long getCpuTime() {
+      return cpu.get();
+    }
+
+    public long getItems() {
+      return items.get();
+    }
+
+    /**
+     * Get processed items per second of wall time.
+     */
+    public double getThroughput() {
+      long nanos = wall.get();
+      return nanos == 0 ? 0 : items.get() * 1e9 / nanos;
+    }
+  }
+
+  /**
+   * A single run of a phase, started by {@link Metrics#start(String)}.
+   */
+  public static class Timer {
+
+    private final Phase phase;
+    private final long wall;
+    private final long cpu;
+
+    Timer(Phase phase, long wall, long cpu) {
+      this.phase = phase;
+      this.wall = wall;
+      this.cpu = cpu;
+    }
+
+    public void stop() {
+      stop(0);
+    }
+
+    /**
+     * Stop the run, adding its times and processed items to the phase. It 
+     * must be called on the thread that started the run.
+     */
+    public void stop(long items) {
+      if (phase == null) {
+        return;
+      }
+
+      phase.wall.addAndGet(System.nanoTime() - wall);
+
+      if (cpu >= 0) {
+        phase.cpu.addAndGet(THREADS.getCurrentThreadCpuTime() - cpu);
+      }
+      phase.runs.incrementAndGet();
+      phase.items.addAndGet(items);
+    }
+  }
+
+  private static final Timer NONE = new Timer(null, 0, 0);
+
+  public Metrics(boolean enabled) {
+    this.enabled = enabled;
+    this.cpu = enabled && THREADS.isCurrentThreadCpuTimeSupported()
+               && THREADS.isThreadCpuTimeEnabled();
+  }
+
+  public boolean isEnabled() {
+    return enabled;
+  }
+
+  /**
+   * Start a run of a phase, created on its first run.
+   */
+  public Timer start(String name) {
+    if (!enabled) {
+      return NONE;
+    }
+
+    Phase phase;
+
+    synchronized (phases) {
+      phase = phases.get(name);
+
+      if (phase == null) {
+        phase = new Phase(name);
+        phases.put(name, phase);
+      }
+    }
+    long cputime = cpu ? THREADS.getCurrentThreadCpuTime() : -1;
+    return new Timer(phase, System.nanoTime(), cputime);
+  }
+
+  /**
+   * Add to a counter, created on its first use.
+   */
+  public void count(String name, long n) {
+    if (!enabled) {
+      return;
+    }
+
+    AtomicLong counter;
+
+    synchronized (counters) {
+      counter = counters.get(name);
+
+      if (counter == null) {
+        counter = new AtomicLong();
+        counters.put(name, counter);
+      }
+    }
+    counter.addAndGet(n);
+  }
+
+  /**
+   * @return the phase or <code>null</code> if it never ran.
+   */
+  public Phase getPhase(String name) {
+    synchronized (phases) {
+      return phases.get(name);
+    }
+  }
+
+  public List<Phase> getPhases() {
+    synchronized (phases) {
+      return new ArrayList<Phase>(phases.values());
+    }
+  }
+
+  public long getCount(String name) {
+    synchronized (counters) {
+      AtomicLong counter = counters.get(name);
+      return counter == null ? 0 : counter.get();
+    }
+  }
+
+  /**
+   * Write phases, counters and memory use to a JSON file.
+   */
+  public void write(String file) throws IOException {
+    Writer out = new OutputStreamWriter(new FileOutputStream(file), "UTF-8");
+
+    try {
+      write(out);
+    } finally {
+      out.close();
+    }
+  }
+
+  /**
+   * Write phases, counters and memory use as a JSON document. Times are in
+   * milliseconds and sizes in bytes. Memory is taken from the whole JVM when
+   * called, so its peak may come from earlier sessions of a daemon.
+   */
+  public void write(Writer out) throws IOException {
+    PrintWriter pw = new PrintWriter(out);
+    pw.print("{\n\"phases\": [");
+    String sep = "\n  ";
+
+    for (Phase phase : getPhases()) {
+      pw.print(sep + "{\"name\": \"" + phase.getName() + "\", \"runs\": " 
+               + phase.getRuns() + ", \"wall\": " + millis(phase.getWallTime())
+               + ", \"cpu\": " + millis(phase.getCpuTime()) + ", \"items\": " 
+               + phase.getItems());
+
+      if (phase.getItems() > 0) {
+        pw.print(", \"itemsPerSec\": " 
+                 + String.format(Locale.ROOT, "%.1f", phase.getThroughput()));
+      }
+      pw.print("}");
+      sep = ",\n  ";
+    }
+    pw.print("\n],\n\"counters\": {");
+    sep = "\n  ";
+
+    synchronized (counters) {
+      for (Map.Entry<String, AtomicLong> e : counters.entrySet()) {
+        pw.print(sep + "\"" + e.getKey() + "\": " + e.getValue().get());
+        sep = ",\n  ";
+      }
+    }
+    pw.print("\n},\n\"memory\": ");
+    writeMemory(pw);
+    pw.print("\n}\n");
+    pw.flush();
+  }
+
+  private void writeMemory(PrintWriter pw) {
+    MemoryUsage heap = ManagementFactory.getMemoryMXBean().getHeapMemoryUsage();
+    long peak = 0;
+    long collections = 0;
+    long collecting = 0;
+
+    for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+      if (pool.getType() == MemoryType.HEAP && pool.getPeakUsage() != null) {
+        peak += pool.getPeakUsage().getUsed();
+      }
+    }
+
+    for (GarbageCollectorMXBean gc : 
+         ManagementFactory.getGarbageCollectorMXBeans()) {
+      collections += Math.max(gc.getCollectionCount(), 0);
+      collecting += Math.max(gc.getCollectionTime(), 0);
+    }
+
+    pw.print("{\"heapUsed\": " + heap.getUsed() + ", \"heapCommitted\": " 
+             + heap.getCommitted() + ", \"heapMax\": " + heap.getMax() 
+             + ", \"heapPeak\": " + peak + ", \"gcCount\": " + collections 
+             + ", \"gcTime\": " + collecting + "}");
+  }
+
+  private static String millis(long nanos) {
+    return String.format(Locale.ROOT, "%.3f", nanos / 1e6);
+  }
+}
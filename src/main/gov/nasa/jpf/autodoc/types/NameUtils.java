@@ -122,6 +122,32 @@ public class NameUtils {
     return classname.contains(MJI_PFX) && count > 1;
   }
 
+  /**
+   * Get the model classname of a native peer from its mangled name.<p>
+   * Example: gov/nasa/jpf/jvm/JPF_java_lang_Thread gives java/lang/Thread.<br>
+   *          JPF_java_lang_Thread_TODO gives java/lang/Thread.
+   * 
+   * @return unmangled name or <code>null</code> if classname is not mangled.
+   */
+  public static String unmangleName(String clsname) {
+    if (!isNameMangled(clsname)) {
+      return null;
+    }
+
+    String name = clsname;
+
+    if (clsname.contains(UNX_SEP)) {
+      name = clsname.substring(clsname.lastIndexOf(UNX_SEP) + 1);
+    }
+
+    if (name.endsWith("_TODO")) {
+      name = name.substring(0, name.indexOf("_TODO"));
+    }
+
+    name = name.substring(name.indexOf(MJI_SEP) + 1);
+    return name.replace(MJI_SEP, UNX_SEP);
+  }
+
   /**
    * Normalize non-standard named package classnames replacing separators
    * for standard package dot separator.
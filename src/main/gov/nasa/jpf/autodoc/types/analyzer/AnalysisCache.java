@@ -0,0 +1,509 @@
+//
+// Copyright (C) 2014 United States Government as represented by the
+// Administrator of the National Aeronautics and Space Administration
+// (NASA).  All Rights Reserved.
+//
+// This software is distributed under the NASA Open Source Agreement
+// (NOSA), version 1.3.  The NOSA has been approved by the Open Source
+// Initiative.  See the file NOSA-1.3-JPF at the top of the distribution
+// directory tree for the complete NOSA document.
+//
+// THE SUBJECT SOFTWARE IS PROVIDED "AS IS" WITHOUT ANY WARRANTY OF ANY
+// KIND, EITHER EXPRESSED, IMPLIED, OR STATUTORY, INCLUDING, BUT NOT
+// LIMITED TO, ANY WARRANTY THAT THE SUBJECT SOFTWARE WILL CONFORM TO
+// SPECIFICATIONS, ANY IMPLIED WARRANTIES OF MERCHANTABILITY, FITNESS FOR
+// A PARTICULAR PURPOSE, OR FREEDOM FROM INFRINGEMENT, ANY WARRANTY THAT
+// THE SUBJECT SOFTWARE WILL BE ERROR FREE, OR ANY WARRANTY THAT
+// DOCUMENTATION, IF PROVIDED, WILL CONFORM TO THE SUBJECT SOFTWARE.
+//
+
+package gov.nasa.jpf.autodoc.types.analyzer;
+
+import gov.nasa.jpf.autodoc.types.info.AncestorChain;
+import gov.nasa.jpf.autodoc.types.info.ClassInfo;
+import gov.nasa.jpf.autodoc.types.info.CollectedInfo;
+import gov.nasa.jpf.autodoc.types.info.JPFInfo;
+import gov.nasa.jpf.autodoc.types.info.ModelClassInfo;
+import gov.nasa.jpf.autodoc.types.info.NativePeerInfo;
+import gov.nasa.jpf.autodoc.types.info.SubtypeInfo;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.UnsupportedEncodingException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Persistent cache of the results of built-in analyzers. Results are kept by 
+ * analyzer and classname along with the content hash of the parsed class and
+ * a digest of the classes it depends on (parsed superclasses and model 
+ * class), so a result is reused only if neither the class nor what it 
+ * inherits from has changed. The whole cache is dropped when its fingerprint
+ * (analyzers, their classpaths, configured types and Java version) differs.
+ * Only entries used since the last full run are saved, so those of classes 
+ * gone don't pile up.
+ *
+ * @author Carlos Uribe
+ */
+public class AnalysisCache {
+
+  public static final int MAGIC = 0x4A414331;
+  public static final int FORMAT = 1;
+
+  private static final byte NONE = 0;
+  private static final byte SUBTYPE = 1;
+  private static final byte MODEL = 2;
+  private static final byte PEER = 3;
+
+  private final File file;
+  private final String fingerprint;
+  private final Map<String, Entry> entries = 
+          new ConcurrentHashMap<String, Entry>();
+  private final Map<String, String> hashes = 
+          new ConcurrentHashMap<String, String>();
+  private final Map<String, String> digests = 
+          new ConcurrentHashMap<String, String>();
+  private final Set<String> used = Collections.newSetFromMap(
+          new ConcurrentHashMap<String, Boolean>());
+  private final AtomicInteger hits = new AtomicInteger();
+  private final AtomicInteger misses = new AtomicInteger();
+
+  /**
+   * Cached result of an analyzer over a class.
+   */
+  public static class Entry {
+
+    private final String hash;
+    private final String deps;
+    private final byte kind;
+    private final String type;
+    private final String name;
+    private final Set<String> ancestors;
+    private final Set<String> methods;
+
+    Entry(String hash, String deps, byte kind, String type, String name,
+          Set<String> ancestors, Set<String> methods) {
+      this.hash = hash;
+      this.deps = deps;
+      this.kind = kind;
+      this.type = type;
+      this.name = name;
+      this.ancestors = ancestors;
+      this.methods = methods;
+    }
+
+    /**
+     * Rebuild the cached component for the given class.
+     * 
+     * @return new component or <code>null</code> if the class was not one.
+     */
+    public JPFInfo getComponent(ClassInfo cls) {
+      switch (kind) {
+        case SUBTYPE:
+          SubtypeInfo subtype = new SubtypeInfo();
+          subtype.setInfo(cls);
+          subtype.setType(type);
+          subtype.addAllAncestors(ancestors);
+          subtype.setSuperMethods(new LinkedHashSet<String>(methods));
+          return subtype;
+        case MODEL:
+          ModelClassInfo model = new ModelClassInfo();
+          model.setInfo(cls);
+          model.setType(type);
+          model.setStdName(name);
+          model.setStdMethods(new LinkedHashSet<String>(methods));
+          return model;
+        case PEER:
+          NativePeerInfo peer = new NativePeerInfo();
+          peer.setInfo(cls);
+          peer.setType(type);
+          peer.setModelName(name);
+          peer.setModelMethods(new LinkedHashSet<String>(methods));
+          return peer;
+        default:
+          return null;
+      }
+    }
+  }
+
+  public AnalysisCache(File file, String fingerprint) {
+    this.file = file;
+    this.fingerprint = fingerprint;
+  }
+
+  /**
+   * Load a cache file. If it doesn't exist, can't be read or was written 
+   * with another fingerprint, the cache starts empty.
+   */
+  public static AnalysisCache load(File file, String fingerprint) {
+    AnalysisCache cache = new AnalysisCache(file, fingerprint);
+
+    if (file.isFile()) {
+      try {
+        cache.read();
+      } catch (IOException ex) {
+        cache.entries.clear();
+      }
+    }
+    return cache;
+  }
+
+  /**
+   * Compute the fingerprint of everything analyses depend on besides the 
+   * analyzed classes: analyzers, their classpaths, configured types and 
+   * Java version.
+   */
+  public static String fingerprint(AnalysisTrigger trigger, 
+                                   CollectedInfo info) {
+    MessageDigest md = newDigest();
+    update(md, System.getProperty("java.version"));
+
+    if (trigger.getStdLib() != null) {
+      update(md, trigger.getStdLib().getSource());
+    }
+
+    for (InfoAnalyzer analyzer : trigger.getAnalyzers()) {
+      update(md, analyzer.getClass().getName());
+
+      for (String pathname : analyzer.getPathNames()) {
+        update(md, pathname);
+        updateFile(md, new File(pathname));
+      }
+    }
+
+    for (SubtypeInfo type : info.getTypes().values()) {
+      update(md, type.getType());
+      update(md, hash(type.getInfo()));
+    }
+    return toHex(md.digest());
+  }
+
+  public File getFile() {
+    return file;
+  }
+
+  public String getFingerprint() {
+    return fingerprint;
+  }
+
+  public int size() {
+    return entries.size();
+  }
+
+  public int getHits() {
+    return hits.get();
+  }
+
+  public int getMisses() {
+    return misses.get();
+  }
+
+  /**
+   * Forget hashes of classes computed in a previous run. Called when 
+   * analyses start, since parsed classes may have changed.
+   */
+  public void reset() {
+    hashes.clear();
+    digests.clear();
+  }
+
+  /**
+   * Forget which entries were used. Called when all parsed classes are about
+   * to be analyzed, so entries not used by them are not saved.
+   */
+  public void clearUsed() {
+    used.clear();
+  }
+
+  /**
+   * Get the number of entries used since the last full run, those saved.
+   */
+  public int getUsed() {
+    return used.size();
+  }
+
+  /**
+   * Check if results of <code>analyzer</code> can be cached.
+   */
+  public boolean isCacheable(InfoAnalyzer analyzer) {
+    Class<?> cls = analyzer.getClass();
+    return cls == SubtypeAnalyzer.class || cls == ModelClassAnalyzer.class
+           || cls == NativePeerAnalyzer.class;
+  }
+
+  /**
+   * Find a valid result of an analyzer over the class of a context.
+   * 
+   * @return entry or <code>null</code> if missing or outdated.
+   */
+  public Entry lookup(InfoAnalyzer analyzer, AnalysisContext ctx,
+                      CollectedInfo info) {
+    String key = key(analyzer, ctx);
+    Entry entry = entries.get(key);
+
+    if (entry != null && entry.hash.equals(getHash(ctx.getInfo()))
+        && entry.deps.equals(getDigest(ctx, info))) {
+      hits.incrementAndGet();
+      used.add(key);
+      return entry;
+    }
+    misses.incrementAndGet();
+    return null;
+  }
+
+  /**
+   * Keep the result of an analyzer over the class of a context.
+   * 
+   * @param component Result of analysis, may be <code>null</code>.
+   */
+  public void store(InfoAnalyzer analyzer, AnalysisContext ctx, 
+                    CollectedInfo info, JPFInfo component) {
+    String hash = getHash(ctx.getInfo());
+    String deps = getDigest(ctx, info);
+    Set<String> none = new HashSet<String>();
+    Entry entry;
+
+    if (component instanceof SubtypeInfo) {
+      SubtypeInfo subtype = (SubtypeInfo)component;
+      entry = new Entry(hash, deps, SUBTYPE, subtype.getType(), "",
+                        subtype.getAncestorChain(),
+                        new LinkedHashSet<String>(subtype.getSuperMethods()));
+    } else if (component instanceof ModelClassInfo) {
+      ModelClassInfo model = (ModelClassInfo)component;
+      entry = new Entry(hash, deps, MODEL, model.getType(), 
+                        model.getStdName(), none,
+                        new LinkedHashSet<String>(model.getStdMethods()));
+    } else if (component instanceof NativePeerInfo) {
+      NativePeerInfo peer = (NativePeerInfo)component;
+      entry = new Entry(hash, deps, PEER, peer.getType(), 
+                        peer.getModelName(), none,
+                        new LinkedHashSet<String>(peer.getModelMethods()));
+    } else {
+      entry = new Entry(hash, deps, NONE, "", "", none, none);
+    }
+    String key = key(analyzer, ctx);
+    entries.put(key, entry);
+    used.add(key);
+  }
+
+  /**
+   * Write the entries used since the last full run to the cache file, 
+   * replacing it at once.
+   */
+  public void save() throws IOException {
+    File dir = file.getAbsoluteFile().getParentFile();
+    if (!dir.isDirectory() && !dir.mkdirs()) {
+      throw new IOException("Cannot create directory " + dir);
+    }
+
+    //--- sessions may save at once, so a file is replaced only when whole.
+    File tmp = File.createTempFile(file.getName(), ".tmp", dir);
+    DataOutputStream out = new DataOutputStream(new BufferedOutputStream(
+            new FileOutputStream(tmp)));
+    try {
+      out.writeInt(MAGIC);
+      out.writeInt(FORMAT);
+      out.writeUTF(fingerprint);
+
+      //--- entries of classes gone since the last full run are dropped.
+      Map<String, Entry> saved = new TreeMap<String, Entry>();
+      for (String key : used) {
+        Entry entry = entries.get(key);
+
+        if (entry != null) {
+          saved.put(key, entry);
+        }
+      }
+      out.writeInt(saved.size());
+
+      for (Map.Entry<String, Entry> e : saved.entrySet()) {
+        Entry entry = e.getValue();
+        out.writeUTF(e.getKey());
+        out.writeUTF(entry.hash);
+        out.writeUTF(entry.deps);
+        out.writeByte(entry.kind);
+        out.writeUTF(entry.type);
+        out.writeUTF(entry.name);
+        writeSet(out, entry.ancestors);
+        writeSet(out, entry.methods);
+      }
+    } finally {
+      out.close();
+    }
+    Files.move(tmp.toPath(), file.toPath(), 
+               StandardCopyOption.REPLACE_EXISTING, 
+               StandardCopyOption.ATOMIC_MOVE);
+  }
+
+  private void read() throws IOException {
+    DataInputStream in = new DataInputStream(new BufferedInputStream(
+            new FileInputStream(file)));
+    try {
+      if (in.readInt() != MAGIC || in.readInt() != FORMAT
+          || !in.readUTF().equals(fingerprint)) {
+        return;
+      }
+
+      for (int i = in.readInt(); i > 0; --i) {
+        String key = in.readUTF();
+        String hash = in.readUTF();
+        String deps = in.readUTF();
+        byte kind = in.readByte();
+        String type = in.readUTF();
+        String name = in.readUTF();
+        Set<String> ancestors = AncestorChain.of(readSet(in));
+        Set<String> methods = readSet(in);
+        entries.put(key, new Entry(hash, deps, kind, type, name, ancestors, 
+                                   methods));
+      }
+    } finally {
+      in.close();
+    }
+  }
+
+  private static void writeSet(DataOutputStream out, Set<String> set) 
+          throws IOException {
+    out.writeInt(set.size());
+    for (String str : set) {
+      out.writeUTF(str);
+    }
+  }
+
+  private static Set<String> readSet(DataInputStream in) throws IOException {
+    Set<String> set = new LinkedHashSet<String>();
+    for (int i = in.readInt(); i > 0; --i) {
+      set.add(in.readUTF());
+    }
+    return set;
+  }
+
+  private String key(InfoAnalyzer analyzer, AnalysisContext ctx) {
+    return analyzer.getClass().getSimpleName() + ":" + ctx.getName();
+  }
+
+  private String getHash(ClassInfo cls) {
+    String hash = hashes.get(cls.getName());
+
+    if (hash == null) {
+      hash = hash(cls);
+      hashes.put(cls.getName(), hash);
+    }
+    return hash;
+  }
+
+  /**
+   * Get the digest of parsed classes a class depends on: its chain of parsed
+   * superclasses up to the first one out of targets and, for native peers, 
+   * the model class. Classes out of targets are covered by the fingerprint.
+   */
+  private String getDigest(AnalysisContext ctx, CollectedInfo info) {
+    String digest = digests.get(ctx.getName());
+
+    if (digest == null) {
+      MessageDigest md = newDigest();
+      Set<String> seen = new HashSet<String>();
+      String name = ctx.getInfo().getSuperName();
+
+      while (name != null && info.isParsed(name) && seen.add(name)) {
+        ClassInfo parent = info.getCls(name);
+        update(md, name);
+        update(md, getHash(parent));
+        name = parent.getSuperName();
+      }
+      update(md, name);
+
+      String model = ctx.getUnmangledName();
+      if (model != null) {
+        update(md, model);
+        update(md, info.isParsed(model) ? getHash(info.getCls(model)) : null);
+      }
+      digest = toHex(md.digest());
+      digests.put(ctx.getName(), digest);
+    }
+    return digest;
+  }
+
+  /**
+   * Get the content hash of a parsed class. Location and project are left
+   * out since analyses don't depend on them.
+   */
+  public static String hash(ClassInfo cls) {
+    MessageDigest md = newDigest();
+    update(md, cls.getName());
+    update(md, cls.getSuperName());
+    update(md, Integer.toString(cls.getFlags()));
+    update(md, cls.getLayer());
+
+    for (String ifc : cls.getInterfaces()) {
+      update(md, ifc);
+    }
+    update(md, null);
+
+    for (String method : cls.getMethods()) {
+      update(md, method);
+    }
+    return toHex(md.digest());
+  }
+
+  private static MessageDigest newDigest() {
+    try {
+      return MessageDigest.getInstance("SHA-1");
+    } catch (NoSuchAlgorithmException ex) {
+      throw new IllegalStateException(ex);
+    }
+  }
+
+  private static void update(MessageDigest md, String str) {
+    try {
+      if (str != null) {
+        md.update(str.getBytes("UTF-8"));
+      }
+      md.update((byte)0);
+    } catch (UnsupportedEncodingException ex) {
+      throw new IllegalStateException(ex);
+    }
+  }
+
+  private static void updateFile(MessageDigest md, File file) {
+    if (file.isDirectory()) {
+      File[] files = file.listFiles();
+
+      if (files != null) {
+        Arrays.sort(files);
+        for (File child : files) {
+          update(md, child.getName());
+          updateFile(md, child);
+        }
+      }
+    } else {
+      update(md, Long.toString(file.length()));
+      update(md, Long.toString(file.lastModified()));
+    }
+  }
+
+  private static String toHex(byte[] bytes) {
+    StringBuilder hex = new StringBuilder(bytes.length * 2);
+
+    for (byte b : bytes) {
+      hex.append(Character.forDigit((b >> 4) & 0xF, 16));
+      hex.append(Character.forDigit(b & 0xF, 16));
+    }
+    return hex.toString();
+  }
+}
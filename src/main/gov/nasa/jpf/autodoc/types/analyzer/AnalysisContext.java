@@ -0,0 +1,97 @@
+//
+// Copyright (C) 2014 United States Government as represented by the
+// Administrator of the National Aeronautics and Space Administration
+// (NASA).  All Rights Reserved.
+//
+// This software is distributed under the NASA Open Source Agreement
+// (NOSA), version 1.3.  The NOSA has been approved by the Open Source
+// Initiative.  See the file NOSA-1.3-JPF at the top of the distribution
+// directory tree for the complete NOSA document.
+//
+// THE SUBJECT SOFTWARE IS PROVIDED "AS IS" WITHOUT ANY WARRANTY OF ANY
+// KIND, EITHER EXPRESSED, IMPLIED, OR STATUTORY, INCLUDING, BUT NOT
+// LIMITED TO, ANY WARRANTY THAT THE SUBJECT SOFTWARE WILL CONFORM TO
+// SPECIFICATIONS, ANY IMPLIED WARRANTIES OF MERCHANTABILITY, FITNESS FOR
+// A PARTICULAR PURPOSE, OR FREEDOM FROM INFRINGEMENT, ANY WARRANTY THAT
+// THE SUBJECT SOFTWARE WILL BE ERROR FREE, OR ANY WARRANTY THAT
+// DOCUMENTATION, IF PROVIDED, WILL CONFORM TO THE SUBJECT SOFTWARE.
+//
+
+package gov.nasa.jpf.autodoc.types.analyzer;
+
+import gov.nasa.jpf.autodoc.types.NameUtils;
+import gov.nasa.jpf.autodoc.types.info.ClassInfo;
+import gov.nasa.jpf.autodoc.types.info.CollectedInfo;
+import gov.nasa.jpf.autodoc.types.info.SubtypeInfo;
+
+/**
+ * Per-class data shared by all analyzers in a single visit. Names are derived
+ * once when the context is created and the supertype is resolved on first
+ * request, so analyzers don't repeat the same work or classpath lookups.
+ *
+ * @author Carlos Uribe
+ */
+public class AnalysisContext {
+
+  private final ClassInfo info;
+  private final AnalysisTrigger trigger;
+  private final String normalizedName;
+  private SubtypeInfo supertype;
+  private boolean resolved = false;
+
+  public AnalysisContext(ClassInfo info, AnalysisTrigger trigger) {
+    this.info = info;
+    this.trigger = trigger;
+    this.normalizedName = NameUtils.normalizeName(info.getName());
+  }
+
+  public ClassInfo getInfo() {
+    return info;
+  }
+
+  public String getName() {
+    return info.getName();
+  }
+
+  /**
+   * Get classname with standard package dot separators.
+   */
+  public String getNormalizedName() {
+    return normalizedName;
+  }
+
+  public String getLayer() {
+    return info.getLayer();
+  }
+
+  public boolean isMangled() {
+    return getUnmangledName() != null;
+  }
+
+  /**
+   * Get the name of the class modelled by a native peer, looked up in the 
+   * peer-model index of the trigger.
+   *
+   * @return unmangled name or <code>null</code> if classname is not mangled.
+   */
+  public String getUnmangledName() {
+    if (trigger == null) {
+      return NameUtils.unmangleName(info.getName());
+    }
+    return trigger.getPeerModels().getModelName(info.getName());
+  }
+
+  /**
+   * Get the component this class extends, resolving it on first request.
+   *
+   * @return supertype or <code>null</code> if the superclass is not a
+   *         registered type nor a subtype of one.
+   */
+  public SubtypeInfo getSupertype(CollectedInfo collected) {
+    if (!resolved) {
+      supertype = trigger.resolveSupertype(info.getSuperName(), collected);
+      resolved = true;
+    }
+    return supertype;
+  }
+}
@@ -0,0 +1,39 @@
+//
+// Copyright (C) 2014 United States Government as represented by the
+// Administrator of the National Aeronautics and Space Administration
+// (NASA).  All Rights Reserved.
+//
+// This software is distributed under the NASA Open Source Agreement
+// (NOSA), version 1.3.  The NOSA has been approved by the Open Source
+// Initiative.  See the file NOSA-1.3-JPF at the top of the distribution
+// directory tree for the complete NOSA document.
+//
+// THE SUBJECT SOFTWARE IS PROVIDED "AS IS" WITHOUT ANY WARRANTY OF ANY
+// KIND, EITHER EXPRESSED, IMPLIED, OR STATUTORY, INCLUDING, BUT NOT
+// LIMITED TO, ANY WARRANTY THAT THE SUBJECT SOFTWARE WILL CONFORM TO
+// SPECIFICATIONS, ANY IMPLIED WARRANTIES OF MERCHANTABILITY, FITNESS FOR
+// A PARTICULAR PURPOSE, OR FREEDOM FROM INFRINGEMENT, ANY WARRANTY THAT
+// THE SUBJECT SOFTWARE WILL BE ERROR FREE, OR ANY WARRANTY THAT
+// DOCUMENTATION, IF PROVIDED, WILL CONFORM TO THE SUBJECT SOFTWARE.
+//
+
+package gov.nasa.jpf.autodoc.types.analyzer;
+
+import gov.nasa.jpf.autodoc.types.info.JPFInfo;
+
+/**
+ * Listener of components found by an {@link AnalysisTrigger}, notified as 
+ * soon as each one is registered instead of when all analyses are done.
+ * Notifications never overlap, even if analyses run on several threads, but 
+ * they come in the order components are found, not in the sorted order of 
+ * collected info.
+ * 
+ * @author Carlos Uribe
+ */
+public interface AnalysisListener {
+
+  /**
+   * @param component Component just registered in collected info.
+   */
+  public void componentFound(JPFInfo component);
+}
@@ -19,15 +19,35 @@
 
 package gov.nasa.jpf.autodoc.types.analyzer;
 
+import gov.nasa.jpf.autodoc.types.Metrics;
 import gov.nasa.jpf.autodoc.types.info.ClassInfo;
 import gov.nasa.jpf.autodoc.types.info.CollectedInfo;
+import gov.nasa.jpf.autodoc.types.info.JPFInfo;
 import gov.nasa.jpf.autodoc.types.info.ModelClassInfo;
 import gov.nasa.jpf.autodoc.types.info.NativePeerInfo;
 import gov.nasa.jpf.autodoc.types.info.SubtypeInfo;
 import gov.nasa.jpf.autodoc.types.parser.ClassFileNotFoundException;
+import gov.nasa.jpf.autodoc.types.parser.StdLibIndex;
+import java.lang.reflect.InvocationTargetException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
- * Class that starts analyses.
+ * Class that starts analyses. Each parsed class is visited once and offered
+ * to every enabled analyzer through a shared {@link AnalysisContext}. 
+ * Analyses run on the calling thread unless more than one thread is set, in 
+ * which case parsed classes are shared out among workers, each one with its 
+ * own forked set of analyzers.
  * 
  * @author Carlos Uribe <carlos.albert.uribe@gmail.com>
  */
@@ -36,6 +56,15 @@ public class AnalysisTrigger {
   private SubtypeAnalyzer typelyzer = new SubtypeAnalyzer(this);
   private ModelClassAnalyzer modelyzer = new ModelClassAnalyzer();
   private NativePeerAnalyzer nativelyzer = new NativePeerAnalyzer(this);
+  private List<InfoAnalyzer> analyzers = new ArrayList<InfoAnalyzer>();
+  private Map<String, SubtypeInfo> supertypes = 
+          new HashMap<String, SubtypeInfo>();
+  private PeerModelIndex peermodels = new PeerModelIndex();
+  private List<AnalysisListener> listeners = 
+          new ArrayList<AnalysisListener>();
+  private AnalysisCache cache;
+  private Metrics metrics = Metrics.DISABLED;
+  private int threads = 1;
 
   public enum AnalysisType {
 
@@ -51,6 +80,81 @@ public class AnalysisTrigger {
     AnalysisType(int weight) {
       this.weight = weight;
     }
+
+    public int getWeight() {
+      return weight;
+    }
+  }
+
+  public AnalysisTrigger() {
+    modelyzer.setTrigger(this);
+    analyzers.add(typelyzer);
+    analyzers.add(modelyzer);
+    analyzers.add(nativelyzer);
+  }
+
+  public List<InfoAnalyzer> getAnalyzers() {
+    return analyzers;
+  }
+
+  /**
+   * Set analyzers to run over each parsed class, in the given order. 
+   * Built-in analyzers are reused and any other one is instantiated.
+   * 
+   * @param classnames Named package classnames of analyzers.
+   * @throws InvalidAnalyzerException if some analyzer cannot be created.
+   */
+  public void setAnalyzers(String[] classnames) 
+          throws InvalidAnalyzerException {
+    List<InfoAnalyzer> list = new ArrayList<InfoAnalyzer>();
+
+    for (String classname : classnames) {
+      list.add(createAnalyzer(classname.trim()));
+    }
+    analyzers = list;
+  }
+
+  protected InfoAnalyzer createAnalyzer(String classname)
+          throws InvalidAnalyzerException {
+    if (classname.equals(SubtypeAnalyzer.class.getName())) {
+      return typelyzer;
+    } else if (classname.equals(ModelClassAnalyzer.class.getName())) {
+      return modelyzer;
+    } else if (classname.equals(NativePeerAnalyzer.class.getName())) {
+      return nativelyzer;
+    }
+
+    try {
+      InfoAnalyzer analyzer = (InfoAnalyzer)Class.forName(classname)
+              .getDeclaredConstructor().newInstance();
+      analyzer.setTrigger(this);
+      return analyzer;
+    } catch (ClassNotFoundException ex) {
+      throw new InvalidAnalyzerException("Analyzer not found: " + classname);
+    } catch (InstantiationException ex) {
+      throw new InvalidAnalyzerException("Cannot create analyzer: " 
+                                         + classname);
+    } catch (IllegalAccessException ex) {
+      throw new InvalidAnalyzerException("Cannot create analyzer: " 
+                                         + classname);
+    } catch (NoSuchMethodException ex) {
+      throw new InvalidAnalyzerException("Analyzer without a constructor "
+                                         + "without arguments: " + classname);
+    } catch (InvocationTargetException ex) {
+      throw new InvalidAnalyzerException("Cannot create analyzer: " 
+                                         + classname + ". " + ex.getCause());
+    } catch (ClassCastException ex) {
+      throw new InvalidAnalyzerException("Not an analyzer: " + classname);
+    }
+  }
+
+  /**
+   * Check if an analyzer is one of the built-in analyzers of this trigger, 
+   * whose classpaths are set by <code>addXPaths</code> methods.
+   */
+  public boolean isBuiltIn(InfoAnalyzer analyzer) {
+    return analyzer == typelyzer || analyzer == modelyzer 
+           || analyzer == nativelyzer;
   }
 
   public void addModelPaths(String[] pathnames) {
@@ -69,87 +173,427 @@ public class AnalysisTrigger {
     modelyzer.addPathName(pathname);
   }
 
+  public StdLibIndex getStdLib() {
+    return modelyzer.getStdLib();
+  }
+
+  public void setStdLib(StdLibIndex stdlib) {
+    modelyzer.setStdLib(stdlib);
+  }
+
+  public AnalysisCache getCache() {
+    return cache;
+  }
+
+  /**
+   * Set the cache of analysis results, <code>null</code> to analyze always.
+   */
+  public void setCache(AnalysisCache cache) {
+    this.cache = cache;
+  }
+
+  public Metrics getMetrics() {
+    return metrics;
+  }
+
+  /**
+   * Set the metrics where each analyzer is timed, 
+   * <code>Metrics.DISABLED</code> to time nothing.
+   */
+  public void setMetrics(Metrics metrics) {
+    this.metrics = metrics;
+  }
+
+  /**
+   * Get the index of native peers and models resolved in the current run.
+   */
+  public PeerModelIndex getPeerModels() {
+    return peermodels;
+  }
+
+  /**
+   * Add a listener notified of each component as soon as it is found.
+   */
+  public void addListener(AnalysisListener listener) {
+    synchronized (listeners) {
+      listeners.add(listener);
+    }
+  }
+
+  public void removeListener(AnalysisListener listener) {
+    synchronized (listeners) {
+      listeners.remove(listener);
+    }
+  }
+
+  /**
+   * Notify listeners of a found component. Workers share listeners, so 
+   * notifications are serialized and listeners need not be thread-safe.
+   */
+  protected void fireComponentFound(JPFInfo component) {
+    synchronized (listeners) {
+      for (AnalysisListener listener : listeners) {
+        listener.componentFound(component);
+      }
+    }
+  }
+
+  public int getThreads() {
+    return threads;
+  }
+
+  /**
+   * Set the number of worker threads for analyses. A value lower than 1 
+   * means one worker per available processor.
+   */
+  public void setThreads(int threads) {
+    if (threads < 1) {
+      this.threads = Runtime.getRuntime().availableProcessors();
+    } else {
+      this.threads = threads;
+    }
+  }
+
+  /**
+   * Create a trigger with its own analyzers and the same classpaths as this 
+   * one. Analyzers and parsers are not meant to be shared among threads, so 
+   * each worker gets a fork. The peer-model index, cache, metrics and 
+   * listeners are shared.
+   */
+  public AnalysisTrigger fork() {
+    AnalysisTrigger worker = new AnalysisTrigger();
+    worker.addTypePaths(typelyzer.getPathNames());
+    worker.addModelPaths(modelyzer.getPathNames());
+    worker.addPeerPaths(nativelyzer.getPathNames());
+    worker.setStdLib(modelyzer.getStdLib());
+    worker.peermodels = peermodels;
+    worker.cache = cache;
+    worker.metrics = metrics;
+    worker.listeners = listeners;
+    worker.analyzers = new ArrayList<InfoAnalyzer>();
+
+    for (InfoAnalyzer analyzer : analyzers) {
+      try {
+        InfoAnalyzer copy = worker.createAnalyzer(
+                analyzer.getClass().getName());
+
+        if (!worker.isBuiltIn(copy)) {
+          copy.addPathNames(analyzer.getPathNames());
+        }
+        worker.analyzers.add(copy);
+      } catch (InvalidAnalyzerException ex) {
+        //--- it was already created once, so this should not happen.
+        throw new IllegalStateException(ex);
+      }
+    }
+    return worker;
+  }
+
   public CollectedInfo startAnalyses(CollectedInfo info, AnalysisType[] types)
           throws ClassFileNotFoundException {
     int mask = 0;
     for (AnalysisType type : types) {
-      mask |= type.weight;
+      mask |= type.getWeight();
     }
     return startAnalyses(info, mask);
   }
 
   public CollectedInfo startAnalyses(CollectedInfo info, int type)
           throws ClassFileNotFoundException {
-    CollectedInfo newInfo = info;
-
-    for (ClassInfo cls : newInfo.getParsed().values()) {
-      if (isAnalysisEnabled(type, AnalysisType.SUBTYPES.weight)) {
-        SubtypeInfo subtype = analyzeSubtype(cls, info);
-        
-        if (subtype != null) {
-          if (subtype.getType().equals("InstructionFactory")) {
-            if (isAnalysisEnabled(type, AnalysisType.IFACTORIES.weight)) {
-              newInfo.register(subtype);
-            }
-          } else if (subtype.getType().equals("Listener")) {
-            if (isAnalysisEnabled(type, AnalysisType.LISTENERS.weight)) {
-              newInfo.register(subtype);
-            }
-            //-- add more else-if for each type whether you want to filter 
-            // another subtype case.
-          } else {
-            newInfo.register(subtype);
+    supertypes.clear();
+    peermodels.clear();
+
+    if (cache != null) {
+      cache.reset();
+      cache.clearUsed();
+    }
+
+    return runAnalyses(info, info.getParsed().values(), type);
+  }
+
+  /**
+   * Update analyses after a rescan. Classes new, changed or missing in 
+   * <code>scanned</code> are found comparing content hashes and only them 
+   * and their transitive dependents are analyzed again; results of any other
+   * class are kept as they are.
+   * 
+   * @param scanned All classes parsed by the rescan.
+   * @return names of classes whose results were discarded.
+   */
+  public Set<String> reanalyze(CollectedInfo info, 
+                               Collection<ClassInfo> scanned, int type)
+          throws ClassFileNotFoundException {
+    Map<String, ClassInfo> current = new HashMap<String, ClassInfo>();
+
+    for (ClassInfo cls : scanned) {
+      current.put(cls.getName(), cls);
+    }
+
+    Set<String> affected = info.collectDependents(findChanged(info, 
+                                                              current));
+    List<ClassInfo> pending = new ArrayList<ClassInfo>();
+
+    for (String name : affected) {
+      info.unregister(name);
+      ClassInfo cls = current.get(name);
+
+      if (cls == null) {
+        info.getParsed().remove(name);
+      } else {
+        info.register(cls);
+        pending.add(cls);
+      }
+    }
+
+    supertypes.clear();
+    peermodels.clear();
+
+    if (cache != null) {
+      cache.reset();
+    }
+    runAnalyses(info, pending, type);
+    return affected;
+  }
+
+  /**
+   * Analyze the parsed classes of <code>info</code> reusing the results of 
+   * a previous run in <code>last</code>, which is left as it is. Classes 
+   * new, changed or missing since then are found comparing content hashes 
+   * and only them and their transitive dependents are analyzed; components 
+   * of any other class are taken from <code>last</code>.
+   * 
+   * @return names of classes whose previous results were discarded.
+   */
+  public Set<String> reanalyze(CollectedInfo last, CollectedInfo info, 
+                               int type) 
+          throws ClassFileNotFoundException {
+    Map<String, ClassInfo> current = new HashMap<String, ClassInfo>();
+
+    for (ClassInfo cls : info.getParsed().values()) {
+      current.put(cls.getName(), cls);
+    }
+
+    Set<String> affected = last.collectDependents(findChanged(last, 
+                                                              current));
+    List<ClassInfo> pending = new ArrayList<ClassInfo>();
+
+    for (ClassInfo cls : current.values()) {
+      String name = cls.getName();
+
+      if (affected.contains(name)) {
+        pending.add(cls);
+        continue;
+      }
+
+      //--- components are not changed once found, so sessions share them.
+      AnalysisContext ctx = new AnalysisContext(cls, this);
+      info.addDependency(cls.getSuperName(), name);
+      info.addDependency(ctx.getUnmangledName(), name);
+
+      if (last.isSubtype(name)) {
+        info.register(last.getSub(name));
+      }
+      if (last.isModel(name)) {
+        info.register(last.getModel(name));
+      }
+      if (last.isPeer(name)) {
+        info.register(last.getPeer(name));
+      }
+    }
+
+    supertypes.clear();
+    peermodels.clear();
+
+    if (cache != null) {
+      cache.reset();
+    }
+    runAnalyses(info, pending, type);
+    return affected;
+  }
+
+  /**
+   * Find classes new or changed in <code>current</code> or missing in it, 
+   * comparing them with parsed classes of <code>info</code>.
+   */
+  private List<String> findChanged(CollectedInfo info, 
+                                   Map<String, ClassInfo> current) {
+    List<String> changed = new ArrayList<String>();
+
+    for (ClassInfo cls : current.values()) {
+      ClassInfo old = info.getCls(cls.getName());
+
+      if (old == null 
+          || !AnalysisCache.hash(old).equals(AnalysisCache.hash(cls))) {
+        changed.add(cls.getName());
+      }
+    }
+
+    for (String name : info.getParsed().keySet()) {
+      if (!current.containsKey(name)) {
+        changed.add(name);
+      }
+    }
+    return changed;
+  }
+
+  protected CollectedInfo runAnalyses(CollectedInfo info, 
+                                      Collection<ClassInfo> classes, int type)
+          throws ClassFileNotFoundException {
+    if (threads > 1) {
+      return startParallelAnalyses(info, classes, type);
+    }
+
+    for (ClassInfo cls : classes) {
+      analyze(cls, info, type);
+    }
+    return info;
+  }
+
+  /**
+   * Run analyses on a pool of workers. Each worker takes the next given 
+   * class until all of them are analyzed and registers results in 
+   * <code>info</code>, which keeps them sorted.
+   */
+  protected CollectedInfo startParallelAnalyses(final CollectedInfo info, 
+                                                Collection<ClassInfo> parsed,
+                                                final int type)
+          throws ClassFileNotFoundException {
+    final ClassInfo[] classes = parsed.toArray(new ClassInfo[parsed.size()]);
+    final AtomicInteger next = new AtomicInteger();
+    ExecutorService pool = Executors.newFixedThreadPool(threads);
+    List<Future<Void>> workers = new ArrayList<Future<Void>>();
+
+    for (int i = 0; i < threads; ++i) {
+      final AnalysisTrigger worker = fork();
+
+      workers.add(pool.submit(new Callable<Void>() {
+
+        @Override
+        public Void call() throws ClassFileNotFoundException {
+          int idx = next.getAndIncrement();
+
+          while (idx < classes.length) {
+            worker.analyze(classes[idx], info, type);
+            idx = next.getAndIncrement();
           }
+          return null;
         }
+      }));
+    }
+
+    try {
+      for (Future<Void> worker : workers) {
+        worker.get();
       }
-      
-      if (isAnalysisEnabled(type, AnalysisType.MODELCLASSES.weight)) {
-        ModelClassInfo model = analyzeModelClass(cls, info);
+    } catch (InterruptedException ex) {
+      Thread.currentThread().interrupt();
+      throw new IllegalStateException("Analyses interrupted.", ex);
+    } catch (ExecutionException ex) {
+      Throwable cause = ex.getCause();
 
-        if (model != null) {
-          newInfo.register(model);
-        }
+      if (cause instanceof ClassFileNotFoundException) {
+        throw (ClassFileNotFoundException)cause;
+      } else if (cause instanceof RuntimeException) {
+        throw (RuntimeException)cause;
+      } else if (cause instanceof Error) {
+        throw (Error)cause;
       }
+      throw new IllegalStateException(cause);
+    } finally {
+      pool.shutdownNow();
+    }
+    return info;
+  }
+
+  /**
+   * Run enabled analyzers over a single class and register the components 
+   * found, notifying listeners of each one. The class is visited once and 
+   * all analyzers share its context.
+   */
+  public void analyze(ClassInfo cls, CollectedInfo info, int type)
+          throws ClassFileNotFoundException {
+    AnalysisContext ctx = new AnalysisContext(cls, this);
+    info.addDependency(cls.getSuperName(), cls.getName());
+    info.addDependency(ctx.getUnmangledName(), cls.getName());
 
-      if (isAnalysisEnabled(type, AnalysisType.NATIVEPEERS.weight)) {
-        NativePeerInfo peer = analyzeNativePeer(cls, info);
+    for (InfoAnalyzer analyzer : analyzers) {
+      if (isAnalysisEnabled(type, analyzer.getWeight())) {
+        JPFInfo component = analyze(analyzer, ctx, info);
 
-        if (peer != null) {
-          newInfo.register(peer);
+        if (component != null && analyzer.register(component, info, type)) {
+          fireComponentFound(component);
         }
       }
     }
-    return newInfo;
   }
 
-  public ModelClassInfo analyzeModelClass(ClassInfo cls, CollectedInfo info)
+  /**
+   * Run an analyzer over a visited class, unless the cache holds a result 
+   * still valid for it. Runs are timed as a phase named after the analyzer,
+   * with the components found as items.
+   */
+  protected JPFInfo analyze(InfoAnalyzer analyzer, AnalysisContext ctx, 
+                            CollectedInfo info)
+          throws ClassFileNotFoundException {
+    Metrics.Timer timer = metrics.start(analyzer.getClass().getSimpleName());
+    JPFInfo component = lookupOrAnalyze(analyzer, ctx, info);
+    timer.stop(component == null ? 0 : 1);
+    return component;
+  }
+
+  private JPFInfo lookupOrAnalyze(InfoAnalyzer analyzer, AnalysisContext ctx,
+                                  CollectedInfo info)
           throws ClassFileNotFoundException {
-    modelyzer.analyze(cls, info);
+    if (cache == null || !cache.isCacheable(analyzer)) {
+      return analyzer.analyze(ctx, info);
+    }
+
+    AnalysisCache.Entry entry = cache.lookup(analyzer, ctx, info);
 
-    if (modelyzer.wasFound()) {
-      return modelyzer.getResult();
+    if (entry != null) {
+      return entry.getComponent(ctx.getInfo());
     }
-    return null;
+
+    JPFInfo component = analyzer.analyze(ctx, info);
+    cache.store(analyzer, ctx, info, component);
+    return component;
   }
 
-  public NativePeerInfo analyzeNativePeer(ClassInfo cls, CollectedInfo info)
-          throws ClassFileNotFoundException {
-    nativelyzer.analyze(cls, info);
+  /**
+   * Get the component a class extends. Lookups are remembered until the 
+   * next call to <code>startAnalyses</code>, so classes sharing ancestors 
+   * don't search the classpath again.
+   * 
+   * @param name Classname of the superclass.
+   * @return supertype or <code>null</code> if it's not a component.
+   */
+  public SubtypeInfo resolveSupertype(String name, CollectedInfo info) {
+    if (name == null || name.isEmpty()) {
+      return null;
+    }
 
-    if (nativelyzer.wasFound()) {
-      return nativelyzer.getResult();
+    if (supertypes.containsKey(name)) {
+      return supertypes.get(name);
     }
-    return null;
+
+    SubtypeInfo type = typelyzer.loadType(name, info);
+    supertypes.put(name, type);
+    return type;
   }
 
-  public SubtypeInfo analyzeSubtype(ClassInfo cls, CollectedInfo info)
+  public ModelClassInfo analyzeModelClass(ClassInfo cls, CollectedInfo info)
           throws ClassFileNotFoundException {
-    typelyzer.analyze(cls, info);
+    return modelyzer.analyze(cls, info);
+  }
 
-    if (typelyzer.wasFound()) {
-      return typelyzer.getResult();
-    }
-    return null;
+  public NativePeerInfo analyzeNativePeer(ClassInfo cls, CollectedInfo info)
+          throws ClassFileNotFoundException {
+    return nativelyzer.analyze(cls, info);
+  }
+
+  public SubtypeInfo analyzeSubtype(ClassInfo cls, CollectedInfo info)
+          throws ClassFileNotFoundException {
+    return typelyzer.analyze(cls, info);
   }
 
   public boolean isAnalysisEnabled(int type, int mask) {
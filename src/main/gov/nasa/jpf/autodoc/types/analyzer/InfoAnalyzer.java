@@ -19,6 +19,7 @@
 
 package gov.nasa.jpf.autodoc.types.analyzer;
 
+import gov.nasa.jpf.autodoc.types.Metrics;
 import gov.nasa.jpf.autodoc.types.info.ClassInfo;
 import gov.nasa.jpf.autodoc.types.info.CollectedInfo;
 import gov.nasa.jpf.autodoc.types.info.JPFInfo;
@@ -26,29 +27,35 @@ import gov.nasa.jpf.autodoc.types.parser.ClassFileNotFoundException;
 import gov.nasa.jpf.autodoc.types.parser.ClassPath;
 import gov.nasa.jpf.autodoc.types.parser.Parser;
 import gov.nasa.jpf.autodoc.types.parser.TargetParser;
+import gov.nasa.jpf.classfile.ClassFileException;
 import java.util.LinkedHashSet;
 import java.util.Set;
 
 /**
- * Class that serves as an abstraction for analyzers.
+ * Class that serves as an abstraction for analyzers. Analyzers are registered 
+ * in the <code>AnalysisTrigger.analyzers</code> config property and must 
+ * provide a public constructor without arguments.
  * 
  * @author Carlos Uribe
  */
 public abstract class InfoAnalyzer {
 
-  protected boolean found = false;
   protected AnalysisTrigger trigger;
   protected ClassPath classpath = new ClassPath();
   protected Parser parser = new TargetParser();
 
+  public void setTrigger(AnalysisTrigger trigger) {
+    this.trigger = trigger;
+  }
+
   /**
-   * Check if analyzed <code>ClassInfo</code> matches the component and could
-   * be obtained extension mechanism information.
+   * Get the analysis options this analyzer belongs to. It runs only if some 
+   * of them are enabled.
    * 
-   * @return true if <code>ClassInfo</code> is a component.
+   * @return bitwise value of <code>AnalysisTrigger.AnalysisType</code>.
    */
-  public boolean wasFound() {
-    return found;
+  public int getWeight() {
+    return AnalysisTrigger.AnalysisType.ALL.getWeight();
   }
   
   public void addPathName(String pathname) {
@@ -63,20 +70,71 @@ public abstract class InfoAnalyzer {
     this.classpath = classpath;
   }
   
+  public String[] getPathNames() {
+    return classpath.getPathNames();
+  }
+  
   public boolean isLocationValid(ClassInfo classInfo, String location) {
     return classInfo.getLayer().equals(location);
   }
+
+  /**
+   * Get the metrics of the current run, disabled if there is no trigger.
+   */
+  protected Metrics getMetrics() {
+    return trigger == null ? Metrics.DISABLED : trigger.getMetrics();
+  }
+
+  /**
+   * Parse a class searched in the classpath of this analyzer. Searches are 
+   * timed as the <code>lookup</code> phase of the run.
+   */
+  protected ClassInfo lookup(String name) 
+          throws ClassFileException, ClassFileNotFoundException {
+    Metrics.Timer timer = getMetrics().start("lookup");
+
+    try {
+      return parser.parse(name, classpath);
+    } finally {
+      timer.stop(1);
+    }
+  }
   
   /**
    * Analyze <code>classinfo</code> and found the associated component to it.
+   * 
+   * @return the component found or <code>null</code> if <code>clsinfo</code>
+   *         is not a component.
    */
-  public abstract void analyze(ClassInfo clsinfo, CollectedInfo info)
+  public JPFInfo analyze(ClassInfo clsinfo, CollectedInfo info)
+          throws ClassFileNotFoundException {
+    return analyze(new AnalysisContext(clsinfo, trigger), info);
+  }
+
+  /**
+   * Analyze the class of a visit context and found the associated component 
+   * to it. Analyzers keep no state between calls, so the result is returned 
+   * instead of being stored.
+   * 
+   * @return the component found or <code>null</code> if the class is not a 
+   *         component.
+   */
+  public abstract JPFInfo analyze(AnalysisContext ctx, CollectedInfo info)
           throws ClassFileNotFoundException;
 
   /**
-   * Get analysis result.
+   * Store a component found by this analyzer. Listeners are notified only of
+   * components stored.
+   * 
+   * @param component Result of analysis.
+   * @param info Collected info where to register the component.
+   * @param type Bitwise value denoting enabled analyses.
+   * @return whether the component was stored or filtered out.
    */
-  public abstract JPFInfo getResult();
+  public boolean register(JPFInfo component, CollectedInfo info, int type) {
+    info.register(component);
+    return true;
+  }
   
   public Set<String> matchMethods(JPFInfo cls0, JPFInfo cls1) {
     return matchMethods(cls0.getInfo(), cls1.getInfo());
@@ -102,10 +160,8 @@ public abstract class InfoAnalyzer {
     Set<String> same = new LinkedHashSet<String>();
 
     for (String m0 : meths0) {
-      for (String m1 : meths1) {
-        if (m0.equals(m1) && !same.contains(m0)) {
-          same.add(m0);
-        }
+      if (meths1.contains(m0)) {
+        same.add(m0);
       }
     }
     return same;
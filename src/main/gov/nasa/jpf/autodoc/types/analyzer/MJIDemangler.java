@@ -0,0 +1,147 @@
+//
+// Copyright (C) 2014 United States Government as represented by the
+// Administrator of the National Aeronautics and Space Administration
+// (NASA).  All Rights Reserved.
+//
+// This software is distributed under the NASA Open Source Agreement
+// (NOSA), version 1.3.  The NOSA has been approved by the Open Source
+// Initiative.  See the file NOSA-1.3-JPF at the top of the distribution
+// directory tree for the complete NOSA document.
+//
+// THE SUBJECT SOFTWARE IS PROVIDED "AS IS" WITHOUT ANY WARRANTY OF ANY
+// KIND, EITHER EXPRESSED, IMPLIED, OR STATUTORY, INCLUDING, BUT NOT
+// LIMITED TO, ANY WARRANTY THAT THE SUBJECT SOFTWARE WILL CONFORM TO
+// SPECIFICATIONS, ANY IMPLIED WARRANTIES OF MERCHANTABILITY, FITNESS FOR
+// A PARTICULAR PURPOSE, OR FREEDOM FROM INFRINGEMENT, ANY WARRANTY THAT
+// THE SUBJECT SOFTWARE WILL BE ERROR FREE, OR ANY WARRANTY THAT
+// DOCUMENTATION, IF PROVIDED, WILL CONFORM TO THE SUBJECT SOFTWARE.
+//
+
+package gov.nasa.jpf.autodoc.types.analyzer;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Demangler of MJI method names. It gives the same result as joining 
+ * <code>Types.getJNIMethodName</code> and <code>Types.getJNISignature</code> 
+ * without MJIEnv parameters, but decodes in a single pass into a reusable 
+ * buffer. Results are remembered in a bounded cache of the instance, since 
+ * the same peer methods show up across projects.<p>
+ * Example: getName____Ljava_lang_String_2(Lgov/nasa/jpf/jvm/MJIEnv;I)I gives
+ * getName()Ljava/lang/String;
+ * 
+ * Instances are not thread safe, each analyzer has its own, and so its own
+ * cache, which needs no lock.
+ *
+ * @author Carlos Uribe
+ */
+public class MJIDemangler {
+
+  public static final int CACHE_SIZE = 4096;
+
+  private final Map<String, String> cache = 
+          new LinkedHashMap<String, String>(CACHE_SIZE, 0.75f, true) {
+
+    @Override
+    protected boolean removeEldestEntry(Map.Entry<String, String> eldest) {
+      return size() > CACHE_SIZE;
+    }
+  };
+
+  private final StringBuilder buf = new StringBuilder(128);
+
+  /**
+   * Get the unmangled name and signature of a peer method.
+   * 
+   * @param method Mangled method name, optionally followed by descriptor.
+   * @return unmangled method or <code>method</code> if it's not mangled.
+   */
+  public String demangle(String method) {
+    String unmangled = cache.get(method);
+
+    if (unmangled == null) {
+      unmangled = decode(method);
+      cache.put(method, unmangled);
+    }
+    return unmangled;
+  }
+
+  /**
+   * Decode a mangled method without looking at the cache. Escapes are 
+   * <code>_1</code> for '_', <code>_2</code> for ';', <code>_3</code> for 
+   * '[' and '_' for '/'. The second <code>__</code> closes the parameters; 
+   * if missing, the method is taken as void. Anything from the first '(' 
+   * following the parameters (the MJIEnv descriptor) is dropped.
+   */
+  public String decode(String method) {
+    int i = method.indexOf("__");
+
+    if (i <= 0) {
+      return method;
+    }
+
+    int len = method.length();
+    int end = method.indexOf("__", i + 2);
+    int close = -1;
+    int open = -1;
+    boolean ret = false;
+
+    buf.setLength(0);
+    buf.append(method, 0, i);
+    int base = buf.length();
+    buf.append('(');
+
+    for (i += 2; i < len; ++i) {
+      char c = method.charAt(i);
+
+      if (i == end) {
+        if (i + 2 >= len) {
+          break;
+        }
+        ++i;
+        c = ')';
+        ret = true;
+      } else if (c == '_') {
+        ++i;
+
+        if (i < len) {
+          c = method.charAt(i);
+
+          switch (c) {
+            case '1':
+              c = '_';
+              break;
+            case '2':
+              c = ';';
+              break;
+            case '3':
+              c = '[';
+              break;
+            default:
+              buf.append('/');
+          }
+        } else {
+          c = '/';
+        }
+      }
+
+      if (c == ')' && close < 0) {
+        close = buf.length();
+      } else if (c == '(' && close >= 0 && open < 0) {
+        open = buf.length();
+      }
+      buf.append(c);
+    }
+
+    if (!ret && close < 0) {
+      close = buf.length();
+    }
+    buf.setLength((open >= 0) ? open : close);
+    return buf.toString();
+  }
+
+  public void clearCache() {
+    cache.clear();
+  }
+}
@@ -24,6 +24,7 @@ import gov.nasa.jpf.autodoc.types.info.ModelClassInfo;
 import gov.nasa.jpf.autodoc.types.info.ClassInfo;
 import gov.nasa.jpf.autodoc.types.info.CollectedInfo;
 import gov.nasa.jpf.autodoc.types.parser.ClassFileNotFoundException;
+import gov.nasa.jpf.autodoc.types.parser.StdLibIndex;
 import gov.nasa.jpf.classfile.ClassFileException;
 
 /**
@@ -35,49 +36,81 @@ public class ModelClassAnalyzer extends InfoAnalyzer {
 
   public static final String TYPE = "ModelClass";
   public static final String LOCATION = "classes";
-  
-  private ModelClassInfo model = new ModelClassInfo();
+
+  private StdLibIndex stdlib;
+
+  public StdLibIndex getStdLib() {
+    return stdlib;
+  }
+
+  /**
+   * Set the index of JDK standard classes, looked up before the classpath.
+   */
+  public void setStdLib(StdLibIndex stdlib) {
+    this.stdlib = stdlib;
+  }
 
   @Override
-  public ModelClassInfo getResult() {
-    return model;
+  public int getWeight() {
+    return AnalysisTrigger.AnalysisType.MODELCLASSES.getWeight();
+  }
+
+  @Override
+  public ModelClassInfo analyze(ClassInfo clsinfo, CollectedInfo info) 
+          throws ClassFileNotFoundException {
+    return analyze(new AnalysisContext(clsinfo, trigger), info);
   }
 
   @Override
-  public void analyze(ClassInfo clsinfo, CollectedInfo info) 
+  public ModelClassInfo analyze(AnalysisContext ctx, CollectedInfo info) 
           throws ClassFileNotFoundException {
-    model = new ModelClassInfo();
-    String mdname = clsinfo.getName();
-    ClassInfo std = loadStandard(mdname, info);
+    ClassInfo clsinfo = ctx.getInfo();
+    ClassInfo std = loadNormalized(ctx.getNormalizedName());
 
     if (std != null) {
-      setup(clsinfo);
+      ModelClassInfo model = setup(clsinfo);
       model.setStdName(std.getName());
       model.setStdMethods(matchMethods(clsinfo, std));
-      found = true;
-    } else if (isLocationValid(clsinfo, LOCATION) && std == null) {
-      setup(clsinfo);
+      return model;
+    } else if (isLocationValid(clsinfo, LOCATION)) {
+      ModelClassInfo model = setup(clsinfo);
       model.setStdName("unknown");
-      found = true;
-    } else {
-      found = false;
+      return model;
     }
+    return null;
   }
   
   public ClassInfo loadStandard(String name, CollectedInfo info) {
+    return loadNormalized(NameUtils.normalizeName(name));
+  }
+
+  /**
+   * Load the standard class of a model given its named package classname.
+   */
+  protected ClassInfo loadNormalized(String stdname) {
+    if (stdlib != null) {
+      ClassInfo std = stdlib.lookup(stdname);
+
+      if (std != null) {
+        return std;
+      }
+    }
+
     try {
-      String stdname = NameUtils.normalizeName(name);
-      return parser.parse(stdname, classpath);
+      return lookup(stdname);
     } catch (NullPointerException ex) {
     } catch (ClassFileNotFoundException ex) {
     } catch (ClassFileException ex) {
       ex.printStackTrace(System.err);
     }
+    getMetrics().count("lookup.errors", 1);
     return null;
   }
   
-  private void setup(ClassInfo modelInfo) {
+  private ModelClassInfo setup(ClassInfo modelInfo) {
+    ModelClassInfo model = new ModelClassInfo();
     model.setType(TYPE);
     model.setInfo(modelInfo);
+    return model;
   }
 }
@@ -26,7 +26,6 @@ import gov.nasa.jpf.autodoc.types.info.CollectedInfo;
 import gov.nasa.jpf.autodoc.types.info.NativePeerInfo;
 import gov.nasa.jpf.autodoc.types.parser.ClassFileNotFoundException;
 import gov.nasa.jpf.classfile.ClassFileException;
-import gov.nasa.jpf.jvm.Types;
 import java.util.LinkedHashSet;
 import java.util.Set;
 
@@ -39,27 +38,35 @@ public class NativePeerAnalyzer extends InfoAnalyzer {
 
   public static final String TYPE = "NativePeerClass";
   public static final String LOCATION = "peers";
-  
-  private NativePeerInfo nativepeer = new NativePeerInfo();
+
+  private MJIDemangler demangler = new MJIDemangler();
+
+  public NativePeerAnalyzer() {
+  }
 
   public NativePeerAnalyzer(AnalysisTrigger trigger) {
     this.trigger = trigger;
   }
-  
+
   @Override
-  public NativePeerInfo getResult() {
-    return nativepeer;
+  public int getWeight() {
+    return AnalysisTrigger.AnalysisType.NATIVEPEERS.getWeight();
   }
 
   @Override
-  public void analyze(ClassInfo clsinfo, CollectedInfo info)
+  public NativePeerInfo analyze(ClassInfo clsinfo, CollectedInfo info)
           throws ClassFileNotFoundException {
-    nativepeer = new NativePeerInfo();
-    String mangled = clsinfo.getName();
+    return analyze(new AnalysisContext(clsinfo, trigger), info);
+  }
+
+  @Override
+  public NativePeerInfo analyze(AnalysisContext ctx, CollectedInfo info)
+          throws ClassFileNotFoundException {
+    ClassInfo clsinfo = ctx.getInfo();
     
-    if (NameUtils.isNameMangled(mangled)) {
-      String unmangled = unmangleName(mangled);
-      ModelClassInfo model = loadModel(unmangled, info);
+    if (ctx.isMangled()) {
+      NativePeerInfo nativepeer = setup(clsinfo);
+      ModelClassInfo model = loadModel(ctx.getUnmangledName(), info);
       
       if (model != null) {
         nativepeer.setModelName(model.getInfo().getName());
@@ -70,18 +77,29 @@ public class NativePeerAnalyzer extends InfoAnalyzer {
       } else {
         nativepeer.setModelName("unknown");
       }
-      setup(clsinfo);
-      found = true;
+      return nativepeer;
     } else if (isLocationValid(clsinfo, LOCATION)) {
-      setup(clsinfo);
+      NativePeerInfo nativepeer = setup(clsinfo);
       nativepeer.setModelName("unknown");
-      found = true;
-    } else {
-      found = false;
+      return nativepeer;
     }
+    return null;
   }
 
+  /**
+   * Get the model class of a native peer. Models are resolved once per run 
+   * through the trigger index, whether they are found or not.
+   */
   public ModelClassInfo loadModel(String name, CollectedInfo info) {
+    PeerModelIndex index = trigger.getPeerModels();
+
+    if (index.isResolved(name)) {
+      return index.getModel(name);
+    }
+    return index.putModel(name, findModel(name, info));
+  }
+
+  protected ModelClassInfo findModel(String name, CollectedInfo info) {
     if (info.isModel(name)) {
       return info.getModel(name);
     }
@@ -93,7 +111,7 @@ public class NativePeerAnalyzer extends InfoAnalyzer {
         cls = info.getCls(name);
       } else {
         String mdlname = NameUtils.normalizeName(name);
-        cls = parser.parse(mdlname, classpath);
+        cls = lookup(mdlname);
       }
       
       return trigger.analyzeModelClass(cls, info);
@@ -102,31 +120,19 @@ public class NativePeerAnalyzer extends InfoAnalyzer {
     } catch (ClassFileException ex) {
       ex.printStackTrace(System.err);
     }
+    getMetrics().count("lookup.errors", 1);
     return null;
   }
   
-  private void setup(ClassInfo peerInfo) {
+  private NativePeerInfo setup(ClassInfo peerInfo) {
+    NativePeerInfo nativepeer = new NativePeerInfo();
     nativepeer.setType(TYPE);
     nativepeer.setInfo(peerInfo);
+    return nativepeer;
   }
   
   public String unmangleName(String clsname) {
-    if (!NameUtils.isNameMangled(clsname)) {
-      return null;
-    }
-
-    String name = clsname;
-
-    if (clsname.contains(NameUtils.UNX_SEP)) {
-      name = clsname.substring(clsname.lastIndexOf(NameUtils.UNX_SEP) + 1);
-    }
-
-    if (name.endsWith("_TODO")) {
-      name = name.substring(0, name.indexOf("_TODO"));
-    }
-
-    name = name.substring(name.indexOf(NameUtils.MJI_SEP) + 1);
-    return name.replace(NameUtils.MJI_SEP, NameUtils.UNX_SEP);
+    return NameUtils.unmangleName(clsname);
   }
   
   public Set<String> unmangle(Set<String> methods) {
@@ -138,17 +144,10 @@ public class NativePeerAnalyzer extends InfoAnalyzer {
     return unmangled;
   }
   
+  /**
+   * Get name and signature of a peer method without MJIEnv parameters.
+   */
   public String unmangle(String method) {
-    String unmangled = Types.getJNIMethodName(method);
-    String sign = Types.getJNISignature(method);
-    
-    //--- remove MJIEnv parameters
-    if (sign != null) {
-      int i = sign.indexOf(")") + 1;
-      int j = sign.substring(i).indexOf("(") + i;
-      sign = sign.substring(0, j);
-      unmangled += sign;
-    }
-    return unmangled;
+    return demangler.demangle(method);
   }
 }
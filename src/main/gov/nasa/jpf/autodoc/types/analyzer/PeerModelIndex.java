@@ -0,0 +1,108 @@
+//
+// Copyright (C) 2014 United States Government as represented by the
+// Administrator of the National Aeronautics and Space Administration
+// (NASA).  All Rights Reserved.
+//
+// This software is distributed under the NASA Open Source Agreement
+// (NOSA), version 1.3.  The NOSA has been approved by the Open Source
+// Initiative.  See the file NOSA-1.3-JPF at the top of the distribution
+// directory tree for the complete NOSA document.
+//
+// THE SUBJECT SOFTWARE IS PROVIDED "AS IS" WITHOUT ANY WARRANTY OF ANY
+// KIND, EITHER EXPRESSED, IMPLIED, OR STATUTORY, INCLUDING, BUT NOT
+// LIMITED TO, ANY WARRANTY THAT THE SUBJECT SOFTWARE WILL CONFORM TO
+// SPECIFICATIONS, ANY IMPLIED WARRANTIES OF MERCHANTABILITY, FITNESS FOR
+// A PARTICULAR PURPOSE, OR FREEDOM FROM INFRINGEMENT, ANY WARRANTY THAT
+// THE SUBJECT SOFTWARE WILL BE ERROR FREE, OR ANY WARRANTY THAT
+// DOCUMENTATION, IF PROVIDED, WILL CONFORM TO THE SUBJECT SOFTWARE.
+//
+
+package gov.nasa.jpf.autodoc.types.analyzer;
+
+import gov.nasa.jpf.autodoc.types.NameUtils;
+import gov.nasa.jpf.autodoc.types.info.ModelClassInfo;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Index of native peers and the model classes they implement. Peer names are
+ * unmangled once (<code>_TODO</code> suffix included) and each model is 
+ * resolved once, even when it is not found, so peers sharing a model don't 
+ * parse nor analyze it again. It can be shared among workers.
+ *
+ * @author Carlos Uribe
+ */
+public class PeerModelIndex {
+
+  /** Marks models already searched but not found. */
+  private static final ModelClassInfo NONE = new ModelClassInfo();
+  private static final String UNMANGLED = "";
+
+  private final ConcurrentMap<String, String> names = 
+          new ConcurrentHashMap<String, String>();
+  private final ConcurrentMap<String, ModelClassInfo> models = 
+          new ConcurrentHashMap<String, ModelClassInfo>();
+
+  /**
+   * Get the model classname a native peer implements.
+   * 
+   * @param peer Classname of native peer.
+   * @return model classname or <code>null</code> if <code>peer</code> is not 
+   *         mangled.
+   */
+  public String getModelName(String peer) {
+    String name = names.get(peer);
+
+    if (name == null) {
+      name = NameUtils.unmangleName(peer);
+      names.putIfAbsent(peer, (name == null) ? UNMANGLED : name);
+      return name;
+    }
+    return (name == UNMANGLED) ? null : name;
+  }
+
+  public boolean isResolved(String model) {
+    return models.containsKey(model);
+  }
+
+  /**
+   * Get a model already resolved.
+   * 
+   * @return model or <code>null</code> if it was not found or not resolved.
+   */
+  public ModelClassInfo getModel(String model) {
+    ModelClassInfo found = models.get(model);
+    return (found == NONE) ? null : found;
+  }
+
+  /**
+   * Get the model implemented by a native peer, joining both indexes.
+   * 
+   * @return model or <code>null</code> if it is unknown.
+   */
+  public ModelClassInfo getModelOf(String peer) {
+    String model = getModelName(peer);
+    return (model == null) ? null : getModel(model);
+  }
+
+  /**
+   * Store the result of resolving a model. If another worker stored it 
+   * first, that result is kept and returned.
+   * 
+   * @param found Model found or <code>null</code> if there is none.
+   * @return model stored for <code>model</code> name.
+   */
+  public ModelClassInfo putModel(String model, ModelClassInfo found) {
+    ModelClassInfo prev = models.putIfAbsent(model, 
+                                             (found == null) ? NONE : found);
+    if (prev != null) {
+      return (prev == NONE) ? null : prev;
+    }
+    return found;
+  }
+
+  public void clear() {
+    names.clear();
+    models.clear();
+  }
+}
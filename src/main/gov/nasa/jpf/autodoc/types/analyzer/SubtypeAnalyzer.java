@@ -22,10 +22,9 @@ package gov.nasa.jpf.autodoc.types.analyzer;
 import gov.nasa.jpf.autodoc.types.info.SubtypeInfo;
 import gov.nasa.jpf.autodoc.types.info.ClassInfo;
 import gov.nasa.jpf.autodoc.types.info.CollectedInfo;
+import gov.nasa.jpf.autodoc.types.info.JPFInfo;
 import gov.nasa.jpf.autodoc.types.parser.ClassFileNotFoundException;
 import gov.nasa.jpf.classfile.ClassFileException;
-import java.util.LinkedHashSet;
-import java.util.Set;
 
 /**
  * Class to analyze hierarchy relationships between classes and components.
@@ -34,37 +33,61 @@ import java.util.Set;
  */
 public class SubtypeAnalyzer extends InfoAnalyzer {
 
-  private SubtypeInfo subtype = new SubtypeInfo();
-  private Set<String> buffer = new LinkedHashSet<String>();
+  public SubtypeAnalyzer() {
+  }
   
   public SubtypeAnalyzer(AnalysisTrigger trigger) {
     this.trigger = trigger;
   }
+
+  @Override
+  public int getWeight() {
+    return AnalysisTrigger.AnalysisType.SUBTYPES.getWeight();
+  }
   
   @Override
-  public SubtypeInfo getResult() {
-    return subtype;
+  public SubtypeInfo analyze(ClassInfo clsinfo, CollectedInfo info)
+          throws ClassFileNotFoundException {
+    return analyze(new AnalysisContext(clsinfo, trigger), info);
   }
   
   @Override
-  public void analyze(ClassInfo clsinfo, CollectedInfo info)
+  public SubtypeInfo analyze(AnalysisContext ctx, CollectedInfo info)
           throws ClassFileNotFoundException {
-    subtype = new SubtypeInfo();
-    String parent = clsinfo.getSuperName();
-    buffer.add(parent);
-    SubtypeInfo type = loadType(parent, info);
+    SubtypeInfo type = ctx.getSupertype(info);
     
     if (type != null) {
-      subtype.setInfo(clsinfo);
+      SubtypeInfo subtype = new SubtypeInfo();
+      subtype.setInfo(ctx.getInfo());
       subtype.setType(type.getType());
-      subtype.addAncestors(buffer);
-      subtype.addAncestors(type.getAncestors());
+      subtype.inheritAncestors(ctx.getInfo().getSuperName(), type);
       subtype.setSuperMethods(matchMethods(subtype, type));
-      found = true;
-    } else {
-      found = false;
+      return subtype;
+    }
+    return null;
+  }
+
+  /**
+   * Register subtypes filtering those kinds of types whose analysis is not
+   * enabled.
+   */
+  @Override
+  public boolean register(JPFInfo component, CollectedInfo info, int type) {
+    if (component.getType().equals("InstructionFactory")) {
+      if (!trigger.isAnalysisEnabled(type, 
+              AnalysisTrigger.AnalysisType.IFACTORIES.getWeight())) {
+        return false;
+      }
+    } else if (component.getType().equals("Listener")) {
+      if (!trigger.isAnalysisEnabled(type, 
+              AnalysisTrigger.AnalysisType.LISTENERS.getWeight())) {
+        return false;
+      }
+      //-- add more else-if for each type whether you want to filter 
+      // another subtype case.
     }
-    buffer.clear();
+    info.register(component);
+    return true;
   }
 
   public SubtypeInfo loadType(String name, CollectedInfo info) {
@@ -82,7 +105,7 @@ public class SubtypeAnalyzer extends InfoAnalyzer {
       if (info.isParsed(name)) {
         cls = info.getCls(name);
       } else {
-        cls = parser.parse(name, classpath);
+        cls = lookup(name);
       }
       return trigger.analyzeSubtype(cls, info);
     } catch (NullPointerException ex) {
@@ -90,6 +113,7 @@ public class SubtypeAnalyzer extends InfoAnalyzer {
     } catch (ClassFileException ex) {
       ex.printStackTrace(System.err);
     }
+    getMetrics().count("lookup.errors", 1);
     return null;
   }
 }
@@ -0,0 +1,53 @@
+//
+// Copyright (C) 2014 United States Government as represented by the
+// Administrator of the National Aeronautics and Space Administration
+// (NASA).  All Rights Reserved.
+//
+// This software is distributed under the NASA Open Source Agreement
+// (NOSA), version 1.3.  The NOSA has been approved by the Open Source
+// Initiative.  See the file NOSA-1.3-JPF at the top of the distribution
+// directory tree for the complete NOSA document.
+//
+// THE SUBJECT SOFTWARE IS PROVIDED "AS IS" WITHOUT ANY WARRANTY OF ANY
+// KIND, EITHER EXPRESSED, IMPLIED, OR STATUTORY, INCLUDING, BUT NOT
+// LIMITED TO, ANY WARRANTY THAT THE SUBJECT SOFTWARE WILL CONFORM TO
+// SPECIFICATIONS, ANY IMPLIED WARRANTIES OF MERCHANTABILITY, FITNESS FOR
+// A PARTICULAR PURPOSE, OR FREEDOM FROM INFRINGEMENT, ANY WARRANTY THAT
+// THE SUBJECT SOFTWARE WILL BE ERROR FREE, OR ANY WARRANTY THAT
+// DOCUMENTATION, IF PROVIDED, WILL CONFORM TO THE SUBJECT SOFTWARE.
+//
+
+package gov.nasa.jpf.autodoc.types.diff;
+
+import gov.nasa.jpf.autodoc.types.info.JPFInfo;
+import java.util.List;
+
+/**
+ * Receiver of differences between two snapshots of collected info, reported
+ * by {@link InfoDiff} as they are found and sorted by kind and classname.
+ *
+ * @author Carlos Uribe
+ */
+public interface DiffListener {
+
+  /**
+   * A component only in the new snapshot.
+   * 
+   * @param kind Kind of component: subtype, model or peer.
+   */
+  public void added(String kind, JPFInfo component);
+
+  /**
+   * A component only in the old snapshot.
+   */
+  public void removed(String kind, JPFInfo component);
+
+  /**
+   * A component in both snapshots with different details.
+   * 
+   * @param changes Description of each change, like <code>+own-methods 
+   *        run()V</code> or <code>model: unknown -> java/lang/Thread</code>.
+   */
+  public void changed(String kind, JPFInfo before, JPFInfo after, 
+                      List<String> changes);
+}
@@ -0,0 +1,80 @@
+//
+// Copyright (C) 2014 United States Government as represented by the
+// Administrator of the National Aeronautics and Space Administration
+// (NASA).  All Rights Reserved.
+//
+// This software is distributed under the NASA Open Source Agreement
+// (NOSA), version 1.3.  The NOSA has been approved by the Open Source
+// Initiative.  See the file NOSA-1.3-JPF at the top of the distribution
+// directory tree for the complete NOSA document.
+//
+// THE SUBJECT SOFTWARE IS PROVIDED "AS IS" WITHOUT ANY WARRANTY OF ANY
+// KIND, EITHER EXPRESSED, IMPLIED, OR STATUTORY, INCLUDING, BUT NOT
+// LIMITED TO, ANY WARRANTY THAT THE SUBJECT SOFTWARE WILL CONFORM TO
+// SPECIFICATIONS, ANY IMPLIED WARRANTIES OF MERCHANTABILITY, FITNESS FOR
+// A PARTICULAR PURPOSE, OR FREEDOM FROM INFRINGEMENT, ANY WARRANTY THAT
+// THE SUBJECT SOFTWARE WILL BE ERROR FREE, OR ANY WARRANTY THAT
+// DOCUMENTATION, IF PROVIDED, WILL CONFORM TO THE SUBJECT SOFTWARE.
+//
+
+package gov.nasa.jpf.autodoc.types.diff;
+
+import gov.nasa.jpf.autodoc.types.info.JPFInfo;
+import gov.nasa.jpf.autodoc.types.output.Writer;
+import java.util.List;
+
+/**
+ * Listener that writes each difference as soon as it is found, so a diff of 
+ * large snapshots goes to any output format without being kept.
+ *
+ * @author Carlos Uribe
+ */
+public class DiffWriter implements DiffListener {
+
+  private final Writer writer;
+  private int added = 0;
+  private int removed = 0;
+  private int changed = 0;
+
+  public DiffWriter(Writer writer) {
+    this.writer = writer;
+    writer.writeMinorSeparator("differences");
+  }
+
+  @Override
+  public void added(String kind, JPFInfo component) {
+    writer.writeln("[+] " + kind + ":\t" + component.getInfo().getName());
+    ++added;
+  }
+
+  @Override
+  public void removed(String kind, JPFInfo component) {
+    writer.writeln("[-] " + kind + ":\t" + component.getInfo().getName());
+    ++removed;
+  }
+
+  @Override
+  public void changed(String kind, JPFInfo before, JPFInfo after,
+                      List<String> changes) {
+    writer.writeln("[*] " + kind + ":\t" + after.getInfo().getName());
+    writer.indent();
+    writer.indent();
+
+    for (String change : changes) {
+      writer.writeln(change);
+    }
+    writer.unindent();
+    writer.unindent();
+    ++changed;
+  }
+
+  /**
+   * Write the number of differences of each sort.
+   */
+  public void writeSummary() {
+    writer.writeMinorSeparator("summary");
+    writer.detail("added", Integer.toString(added));
+    writer.detail("removed", Integer.toString(removed));
+    writer.detail("changed", Integer.toString(changed));
+  }
+}
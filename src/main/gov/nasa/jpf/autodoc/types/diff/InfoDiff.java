@@ -0,0 +1,198 @@
+//
+// Copyright (C) 2014 United States Government as represented by the
+// Administrator of the National Aeronautics and Space Administration
+// (NASA).  All Rights Reserved.
+//
+// This software is distributed under the NASA Open Source Agreement
+// (NOSA), version 1.3.  The NOSA has been approved by the Open Source
+// Initiative.  See the file NOSA-1.3-JPF at the top of the distribution
+// directory tree for the complete NOSA document.
+//
+// THE SUBJECT SOFTWARE IS PROVIDED "AS IS" WITHOUT ANY WARRANTY OF ANY
+// KIND, EITHER EXPRESSED, IMPLIED, OR STATUTORY, INCLUDING, BUT NOT
+// LIMITED TO, ANY WARRANTY THAT THE SUBJECT SOFTWARE WILL CONFORM TO
+// SPECIFICATIONS, ANY IMPLIED WARRANTIES OF MERCHANTABILITY, FITNESS FOR
+// A PARTICULAR PURPOSE, OR FREEDOM FROM INFRINGEMENT, ANY WARRANTY THAT
+// THE SUBJECT SOFTWARE WILL BE ERROR FREE, OR ANY WARRANTY THAT
+// DOCUMENTATION, IF PROVIDED, WILL CONFORM TO THE SUBJECT SOFTWARE.
+//
+
+package gov.nasa.jpf.autodoc.types.diff;
+
+import gov.nasa.jpf.autodoc.types.info.ClassInfo;
+import gov.nasa.jpf.autodoc.types.info.CollectedInfo;
+import gov.nasa.jpf.autodoc.types.info.JPFInfo;
+import gov.nasa.jpf.autodoc.types.info.ModelClassInfo;
+import gov.nasa.jpf.autodoc.types.info.NativePeerInfo;
+import gov.nasa.jpf.autodoc.types.info.SubtypeInfo;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.SortedMap;
+import java.util.TreeMap;
+
+/**
+ * Diff engine for snapshots of collected info, like those of two releases.
+ * Components of each kind are compared by merge-walking both maps sorted by
+ * classname, so a diff takes linear time and differences are streamed to a 
+ * {@link DiffListener} without being accumulated.
+ *
+ * @author Carlos Uribe
+ */
+public class InfoDiff {
+
+  public static final String SUBTYPE = "subtype";
+  public static final String MODEL = "model";
+  public static final String PEER = "peer";
+
+  private InfoDiff() {
+  }
+
+  /**
+   * Compare subtypes, models and peers of two snapshots.
+   * 
+   * @param before Old snapshot.
+   * @param after New snapshot.
+   * @param listener Receiver of differences.
+   * @return number of differences found.
+   */
+  public static int compare(CollectedInfo before, CollectedInfo after, 
+                            DiffListener listener) {
+    return compare(SUBTYPE, before.getSubtypes(), after.getSubtypes(), 
+                   listener) 
+           + compare(MODEL, before.getModels(), after.getModels(), listener)
+           + compare(PEER, before.getPeers(), after.getPeers(), listener);
+  }
+
+  /**
+   * Compare two maps of components of the same kind.
+   * 
+   * @return number of differences found.
+   */
+  public static <T extends JPFInfo> int compare(String kind, 
+          Map<String, T> before, Map<String, T> after, 
+          DiffListener listener) {
+    Iterator<Map.Entry<String, T>> olds = sorted(before).entrySet().iterator();
+    Iterator<Map.Entry<String, T>> news = sorted(after).entrySet().iterator();
+    Map.Entry<String, T> o = olds.hasNext() ? olds.next() : null;
+    Map.Entry<String, T> n = news.hasNext() ? news.next() : null;
+    int count = 0;
+
+    while (o != null || n != null) {
+      int cmp;
+
+      if (o == null) {
+        cmp = 1;
+      } else if (n == null) {
+        cmp = -1;
+      } else {
+        cmp = o.getKey().compareTo(n.getKey());
+      }
+
+      if (cmp < 0) {
+        listener.removed(kind, o.getValue());
+        ++count;
+      } else if (cmp > 0) {
+        listener.added(kind, n.getValue());
+        ++count;
+      } else {
+        List<String> changes = getChanges(o.getValue(), n.getValue());
+
+        if (!changes.isEmpty()) {
+          listener.changed(kind, o.getValue(), n.getValue(), changes);
+          ++count;
+        }
+      }
+
+      if (cmp <= 0) {
+        o = olds.hasNext() ? olds.next() : null;
+      }
+      if (cmp >= 0) {
+        n = news.hasNext() ? news.next() : null;
+      }
+    }
+    return count;
+  }
+
+  /**
+   * Describe the differences between two versions of a component, using 
+   * the labels of the writers.
+   * 
+   * @return list of changes, empty if both are equal.
+   */
+  public static List<String> getChanges(JPFInfo before, JPFInfo after) {
+    List<String> changes = new ArrayList<String>();
+    ClassInfo cls0 = before.getInfo();
+    ClassInfo cls1 = after.getInfo();
+
+    compare("type", before.getType(), after.getType(), changes);
+    compare("super", cls0.getSuperName(), cls1.getSuperName(), changes);
+    compare("flags", Integer.toString(cls0.getFlags()), 
+            Integer.toString(cls1.getFlags()), changes);
+
+    if (before instanceof SubtypeInfo && after instanceof SubtypeInfo) {
+      SubtypeInfo sub0 = (SubtypeInfo)before;
+      SubtypeInfo sub1 = (SubtypeInfo)after;
+      
+      if (!new ArrayList<String>(sub0.getAncestors()).equals(
+          new ArrayList<String>(sub1.getAncestors()))) {
+        changes.add("ancestors: " + sub0.getAncestors() + " -> " 
+                    + sub1.getAncestors());
+      }
+      compare("implemented-methods", sub0.getSuperMethods(), 
+              sub1.getSuperMethods(), changes);
+    } else if (before instanceof ModelClassInfo 
+               && after instanceof ModelClassInfo) {
+      ModelClassInfo model0 = (ModelClassInfo)before;
+      ModelClassInfo model1 = (ModelClassInfo)after;
+      
+      compare("modelled", model0.getStdName(), model1.getStdName(), changes);
+      compare("modelled-methods", model0.getStdMethods(), 
+              model1.getStdMethods(), changes);
+    } else if (before instanceof NativePeerInfo 
+               && after instanceof NativePeerInfo) {
+      NativePeerInfo peer0 = (NativePeerInfo)before;
+      NativePeerInfo peer1 = (NativePeerInfo)after;
+      
+      compare("model", peer0.getModelName(), peer1.getModelName(), changes);
+      compare("intercepted-methods", peer0.getModelMethods(), 
+              peer1.getModelMethods(), changes);
+    }
+
+    compare("interfaces", cls0.getInterfaces(), cls1.getInterfaces(), changes);
+    compare("own-methods", cls0.getMethods(), cls1.getMethods(), changes);
+    return changes;
+  }
+
+  private static void compare(String label, String before, String after,
+                              List<String> changes) {
+    if (before == null ? after != null : !before.equals(after)) {
+      changes.add(label + ": " + before + " -> " + after);
+    }
+  }
+
+  private static void compare(String label, Set<String> before, 
+                              Set<String> after, List<String> changes) {
+    for (String str : before) {
+      if (!after.contains(str)) {
+        changes.add("-" + label + " " + str);
+      }
+    }
+
+    for (String str : after) {
+      if (!before.contains(str)) {
+        changes.add("+" + label + " " + str);
+      }
+    }
+  }
+
+  private static <T> SortedMap<String, T> sorted(Map<String, T> map) {
+    if (map instanceof SortedMap 
+        && ((SortedMap<String, T>)map).comparator() == null) {
+      return (SortedMap<String, T>)map;
+    }
+    return new TreeMap<String, T>(map);
+  }
+}
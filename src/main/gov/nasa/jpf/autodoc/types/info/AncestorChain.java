@@ -0,0 +1,131 @@
+//
+// Copyright (C) 2014 United States Government as represented by the
+// Administrator of the National Aeronautics and Space Administration
+// (NASA).  All Rights Reserved.
+//
+// This software is distributed under the NASA Open Source Agreement
+// (NOSA), version 1.3.  The NOSA has been approved by the Open Source
+// Initiative.  See the file NOSA-1.3-JPF at the top of the distribution
+// directory tree for the complete NOSA document.
+//
+// THE SUBJECT SOFTWARE IS PROVIDED "AS IS" WITHOUT ANY WARRANTY OF ANY
+// KIND, EITHER EXPRESSED, IMPLIED, OR STATUTORY, INCLUDING, BUT NOT
+// LIMITED TO, ANY WARRANTY THAT THE SUBJECT SOFTWARE WILL CONFORM TO
+// SPECIFICATIONS, ANY IMPLIED WARRANTIES OF MERCHANTABILITY, FITNESS FOR
+// A PARTICULAR PURPOSE, OR FREEDOM FROM INFRINGEMENT, ANY WARRANTY THAT
+// THE SUBJECT SOFTWARE WILL BE ERROR FREE, OR ANY WARRANTY THAT
+// DOCUMENTATION, IF PROVIDED, WILL CONFORM TO THE SUBJECT SOFTWARE.
+//
+
+package gov.nasa.jpf.autodoc.types.info;
+
+import java.util.AbstractSet;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * Immutable list of ancestors of a subtype, from its direct superclass up to
+ * the registered type. Each chain points to the chain of its supertype, so
+ * subtypes of the same hierarchy share their common ancestors instead of 
+ * copying them.<p>
+ * A chain is also a read-only set of classnames in that order.
+ * 
+ * @author Carlos Uribe
+ */
+public final class AncestorChain extends AbstractSet<String> {
+
+  public static final AncestorChain EMPTY = new AncestorChain(null, null);
+
+  private final String name;
+  private final AncestorChain parent;
+  private final int size;
+
+  private AncestorChain(String name, AncestorChain parent) {
+    this.name = name;
+    this.parent = parent;
+    this.size = (parent == null) ? 0 : parent.size + 1;
+  }
+
+  /**
+   * Get a chain with <code>ancestor</code> as nearest ancestor followed by
+   * the ancestors of this chain, which is shared.
+   */
+  public AncestorChain push(String ancestor) {
+    return new AncestorChain(ancestor, this);
+  }
+
+  /**
+   * Get a chain with <code>ancestor</code> as farthest ancestor. Nodes of 
+   * this chain are copied, so this is meant for building chains from sets.
+   * 
+   * @return new chain or this chain if <code>ancestor</code> is already in.
+   */
+  public AncestorChain append(String ancestor) {
+    if (contains(ancestor)) {
+      return this;
+    }
+    return (parent == null) ? push(ancestor) 
+                            : parent.append(ancestor).push(name);
+  }
+
+  /**
+   * Build a chain with the classnames of a collection, in iteration order.
+   */
+  public static AncestorChain of(Iterable<String> ancestors) {
+    if (ancestors instanceof AncestorChain) {
+      return (AncestorChain) ancestors;
+    }
+
+    AncestorChain chain = EMPTY;
+    for (String ancestor : ancestors) {
+      chain = chain.append(ancestor);
+    }
+    return chain;
+  }
+
+  public AncestorChain getParent() {
+    return parent;
+  }
+
+  @Override
+  public boolean contains(Object o) {
+    for (AncestorChain c = this; c.parent != null; c = c.parent) {
+      if (c.name.equals(o)) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  @Override
+  public Iterator<String> iterator() {
+    return new Iterator<String>() {
+      private AncestorChain next = AncestorChain.this;
+
+      @Override
+      public boolean hasNext() {
+        return next.parent != null;
+      }
+
+      @Override
+      public String next() {
+        if (next.parent == null) {
+          throw new NoSuchElementException();
+        }
+        String ancestor = next.name;
+        next = next.parent;
+        return ancestor;
+      }
+
+      @Override
+      public void remove() {
+        throw new UnsupportedOperationException();
+      }
+    };
+  }
+
+  @Override
+  public int size() {
+    return size;
+  }
+}
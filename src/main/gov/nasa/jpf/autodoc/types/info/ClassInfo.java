@@ -31,13 +31,45 @@ import java.util.Set;
 public class ClassInfo implements Comparable<ClassInfo> {
 
   private int flags = 0;
-  private String name = new String();
-  private String superName = new String();
-  private Set<String> methods = new LinkedHashSet<String>();
-  private Set<String> interfaces = new LinkedHashSet<String>();
-  private String location = new String();
-  private String project = new String();
-  private String layer = new String();
+  private String name = "";
+  private String superName = "";
+  private Set<String> methods;
+  private Set<String> interfaces;
+  private String location = "";
+  private String project = "";
+  private String layer = "";
+
+  public ClassInfo() {
+    this(true);
+  }
+
+  /**
+   * Create a detached copy of a class. Sets are copied, strings are shared.
+   */
+  public ClassInfo(ClassInfo cls) {
+    this(true);
+    flags = cls.getFlags();
+    name = cls.getName();
+    superName = cls.getSuperName();
+    methods.addAll(cls.getMethods());
+    interfaces.addAll(cls.getInterfaces());
+    location = cls.getLocation();
+    project = cls.getProject();
+    layer = cls.getLayer();
+  }
+
+  /**
+   * Constructor for subclasses that keep class data elsewhere and override 
+   * getters, so they don't need their own method and interface sets.
+   * 
+   * @param sets Whether to create method and interface sets.
+   */
+  protected ClassInfo(boolean sets) {
+    if (sets) {
+      methods = new LinkedHashSet<String>();
+      interfaces = new LinkedHashSet<String>();
+    }
+  }
 
   /**
    * Get flags.
@@ -122,11 +154,11 @@ public class ClassInfo implements Comparable<ClassInfo> {
 
   @Override
   public int compareTo(ClassInfo o) {
-    return name.compareTo(o.name);
+    return getName().compareTo(o.getName());
   }
 
   @Override
   public String toString() {
-    return "ClassInfo{" + "flags=" + flags + ", name=" + name + ", superName=" + superName + ", methods=" + methods + ", interfaces=" + interfaces + ", location=" + location + ", project=" + project + ", layer=" + layer + '}';
+    return "ClassInfo{" + "flags=" + getFlags() + ", name=" + getName() + ", superName=" + getSuperName() + ", methods=" + getMethods() + ", interfaces=" + getInterfaces() + ", location=" + getLocation() + ", project=" + getProject() + ", layer=" + getLayer() + '}';
   }
 }
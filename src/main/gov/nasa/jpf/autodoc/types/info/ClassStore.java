@@ -0,0 +1,344 @@
+//
+// Copyright (C) 2014 United States Government as represented by the
+// Administrator of the National Aeronautics and Space Administration
+// (NASA).  All Rights Reserved.
+//
+// This software is distributed under the NASA Open Source Agreement
+// (NOSA), version 1.3.  The NOSA has been approved by the Open Source
+// Initiative.  See the file NOSA-1.3-JPF at the top of the distribution
+// directory tree for the complete NOSA document.
+//
+// THE SUBJECT SOFTWARE IS PROVIDED "AS IS" WITHOUT ANY WARRANTY OF ANY
+// KIND, EITHER EXPRESSED, IMPLIED, OR STATUTORY, INCLUDING, BUT NOT
+// LIMITED TO, ANY WARRANTY THAT THE SUBJECT SOFTWARE WILL CONFORM TO
+// SPECIFICATIONS, ANY IMPLIED WARRANTIES OF MERCHANTABILITY, FITNESS FOR
+// A PARTICULAR PURPOSE, OR FREEDOM FROM INFRINGEMENT, ANY WARRANTY THAT
+// THE SUBJECT SOFTWARE WILL BE ERROR FREE, OR ANY WARRANTY THAT
+// DOCUMENTATION, IF PROVIDED, WILL CONFORM TO THE SUBJECT SOFTWARE.
+//
+
+package gov.nasa.jpf.autodoc.types.info;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.io.UnsupportedEncodingException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+/**
+ * Append-only file of parsed classes, memory mapped in fixed-size segments, 
+ * so class data lives off the Java heap. Each appended class gets a reference 
+ * (segment and position) from where it is read through a flyweight view that
+ * decodes fields on request.<p>
+ * Record layout: flags, interface count, method count and the strings name, 
+ * supername, location, project, layer, interfaces and methods. Strings are 
+ * UTF-8 preceded by their length (u2), 0xFFFF being a <code>null</code> 
+ * string.
+ *
+ * @author Carlos Uribe
+ */
+public class ClassStore {
+
+  public static final int MAGIC = 0x4A434C53;
+  public static final int FORMAT = 1;
+  
+  private static final int SEGMENT_SIZE = 32 << 20;
+  private static final int NULL = 0xFFFF;
+
+  private final File file;
+  private final RandomAccessFile raf;
+  private volatile MappedByteBuffer[] segments = new MappedByteBuffer[0];
+  private volatile boolean closed = false;
+  private int position = SEGMENT_SIZE;
+  private int count = 0;
+  private long bytes = 0;
+  private final ByteArrayOutputStream record = new ByteArrayOutputStream();
+  private final DataOutputStream out = new DataOutputStream(record);
+
+  private ClassStore(File file) throws IOException {
+    this.file = file;
+    this.raf = new RandomAccessFile(file, "rw");
+  }
+
+  /**
+   * Create an empty store in a new file of <code>dir</code>, so sessions 
+   * running at the same time never map the same file. The file is deleted 
+   * on close or on exit.
+   */
+  public static ClassStore createTemp(File dir) throws IOException {
+    mkdirs(dir);
+    return create(File.createTempFile("parsed-", ".store", dir));
+  }
+
+  /**
+   * Create an empty store, replacing any previous one in <code>file</code>.
+   * The file is deleted on close or on exit.
+   */
+  public static ClassStore create(File file) throws IOException {
+    mkdirs(file.getAbsoluteFile().getParentFile());
+
+    ClassStore store = new ClassStore(file);
+    store.raf.setLength(0);
+    file.deleteOnExit();
+    
+    store.out.writeInt(MAGIC);
+    store.out.writeInt(FORMAT);
+    store.write();
+    return store;
+  }
+
+  private static void mkdirs(File dir) throws IOException {
+    if (dir != null && !dir.isDirectory() && !dir.mkdirs()) {
+      throw new IOException("Can't create folder " + dir);
+    }
+  }
+
+  public File getFile() {
+    return file;
+  }
+
+  public boolean isClosed() {
+    return closed;
+  }
+
+  /**
+   * Get the number of classes appended.
+   */
+  public synchronized int size() {
+    return count;
+  }
+
+  /**
+   * Get the number of bytes appended.
+   */
+  public synchronized long getByteCount() {
+    return bytes;
+  }
+
+  /**
+   * Append a class.
+   * 
+   * @return reference to read the class back.
+   * @throws IllegalStateException if the file can't grow.
+   */
+  public synchronized long append(ClassInfo cls) {
+    try {
+      Set<String> ifcs = cls.getInterfaces();
+      Set<String> methods = cls.getMethods();
+      
+      out.writeInt(cls.getFlags());
+      out.writeShort(ifcs.size());
+      out.writeShort(methods.size());
+      writeString(cls.getName());
+      writeString(cls.getSuperName());
+      writeString(cls.getLocation());
+      writeString(cls.getProject());
+      writeString(cls.getLayer());
+
+      for (String ifc : ifcs) {
+        writeString(ifc);
+      }
+
+      for (String method : methods) {
+        writeString(method);
+      }
+      ++count;
+      return write();
+    } catch (IOException ex) {
+      record.reset();
+      throw new IllegalStateException("Class not stored in " + file, ex);
+    }
+  }
+
+  /**
+   * Get a read-only view of a class appended to this store.
+   */
+  public ClassInfo get(long ref) {
+    return new StoredClass(ref);
+  }
+
+  /**
+   * Release and delete the file. Views of this store can't be read 
+   * afterwards.
+   */
+  public synchronized void close() throws IOException {
+    if (closed) {
+      return;
+    }
+    closed = true;
+    segments = new MappedByteBuffer[0];
+    raf.close();
+
+    if (!file.delete()) {
+      throw new IOException("Can't delete " + file);
+    }
+  }
+
+  /**
+   * Get the segment of a reference.
+   * 
+   * @throws IllegalStateException if the store was closed.
+   */
+  private MappedByteBuffer segment(long ref) {
+    if (closed) {
+      throw new IllegalStateException("Store closed: " + file);
+    }
+    return segments[(int)(ref >>> 32)];
+  }
+
+  /**
+   * Copy the pending record into the current segment, mapping a new segment 
+   * if it doesn't fit.
+   */
+  private long write() throws IOException {
+    int size = record.size();
+
+    if (size > SEGMENT_SIZE) {
+      throw new IOException("Class record too large: " + size + " bytes");
+    }
+
+    if (position + size > SEGMENT_SIZE) {
+      MappedByteBuffer[] segs = Arrays.copyOf(segments, segments.length + 1);
+      segs[segs.length - 1] = raf.getChannel().map(
+              FileChannel.MapMode.READ_WRITE, 
+              (long)SEGMENT_SIZE * (segs.length - 1), SEGMENT_SIZE);
+      segments = segs;
+      position = 0;
+    }
+
+    int segment = segments.length - 1;
+    ByteBuffer buf = segments[segment].duplicate();
+    buf.position(position);
+    buf.put(record.toByteArray());
+    record.reset();
+
+    long ref = ((long)segment << 32) | position;
+    position += size;
+    bytes += size;
+    return ref;
+  }
+
+  private void writeString(String str) throws IOException {
+    if (str == null) {
+      out.writeShort(NULL);
+      return;
+    }
+
+    byte[] utf = str.getBytes("UTF-8");
+
+    if (utf.length >= NULL) {
+      throw new IOException("String too long: " + str.substring(0, 64));
+    }
+    out.writeShort(utf.length);
+    out.write(utf);
+  }
+
+  private static String readString(ByteBuffer buf) {
+    int length = buf.getShort() & 0xFFFF;
+
+    if (length == NULL) {
+      return null;
+    }
+
+    byte[] utf = new byte[length];
+    buf.get(utf);
+
+    try {
+      return new String(utf, "UTF-8");
+    } catch (UnsupportedEncodingException ex) {
+      throw new IllegalStateException(ex);
+    }
+  }
+
+  private static void skipStrings(ByteBuffer buf, int n) {
+    for (int i = 0; i < n; ++i) {
+      int length = buf.getShort() & 0xFFFF;
+      buf.position(buf.position() + ((length == NULL) ? 0 : length));
+    }
+  }
+
+  /**
+   * Flyweight view of a stored class. It keeps only the reference and reads
+   * the mapped record on every call.
+   */
+  private final class StoredClass extends ClassView {
+
+    private final long ref;
+
+    StoredClass(long ref) {
+      this.ref = ref;
+    }
+
+    /**
+     * Get a buffer positioned at the n-th string of the record.
+     */
+    private ByteBuffer seek(int n) {
+      ByteBuffer buf = segment(ref).duplicate();
+      buf.position((int)ref + 8);
+      skipStrings(buf, n);
+      return buf;
+    }
+
+    private int getShort(int offset) {
+      return segment(ref).getShort((int)ref + offset) & 0xFFFF;
+    }
+
+    private Set<String> readStrings(int n, int offset) {
+      ByteBuffer buf = seek(n);
+      Set<String> strs = new LinkedHashSet<String>();
+
+      for (int i = getShort(offset); i > 0; --i) {
+        strs.add(readString(buf));
+      }
+      return Collections.unmodifiableSet(strs);
+    }
+
+    @Override
+    public int getFlags() {
+      return segment(ref).getInt((int)ref);
+    }
+
+    @Override
+    public String getName() {
+      return readString(seek(0));
+    }
+
+    @Override
+    public String getSuperName() {
+      return readString(seek(1));
+    }
+
+    @Override
+    public String getLocation() {
+      return readString(seek(2));
+    }
+
+    @Override
+    public String getProject() {
+      return readString(seek(3));
+    }
+
+    @Override
+    public String getLayer() {
+      return readString(seek(4));
+    }
+
+    @Override
+    public Set<String> getInterfaces() {
+      return readStrings(5, 4);
+    }
+
+    @Override
+    public Set<String> getMethods() {
+      return readStrings(5 + getShort(4), 6);
+    }
+  }
+}
@@ -0,0 +1,400 @@
+//
+// Copyright (C) 2014 United States Government as represented by the
+// Administrator of the National Aeronautics and Space Administration
+// (NASA).  All Rights Reserved.
+//
+// This software is distributed under the NASA Open Source Agreement
+// (NOSA), version 1.3.  The NOSA has been approved by the Open Source
+// Initiative.  See the file NOSA-1.3-JPF at the top of the distribution
+// directory tree for the complete NOSA document.
+//
+// THE SUBJECT SOFTWARE IS PROVIDED "AS IS" WITHOUT ANY WARRANTY OF ANY
+// KIND, EITHER EXPRESSED, IMPLIED, OR STATUTORY, INCLUDING, BUT NOT
+// LIMITED TO, ANY WARRANTY THAT THE SUBJECT SOFTWARE WILL CONFORM TO
+// SPECIFICATIONS, ANY IMPLIED WARRANTIES OF MERCHANTABILITY, FITNESS FOR
+// A PARTICULAR PURPOSE, OR FREEDOM FROM INFRINGEMENT, ANY WARRANTY THAT
+// THE SUBJECT SOFTWARE WILL BE ERROR FREE, OR ANY WARRANTY THAT
+// DOCUMENTATION, IF PROVIDED, WILL CONFORM TO THE SUBJECT SOFTWARE.
+//
+
+package gov.nasa.jpf.autodoc.types.info;
+
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+/**
+ * Compact store of parsed classes. Classes are rows of int columns and every
+ * string (names, locations, projects, layers, methods and interfaces) is an 
+ * id of a shared {@link NameTable}. Methods and interfaces of a row are runs 
+ * of ids in a single pool. Classes are read through lightweight read-only 
+ * <code>ClassInfo</code> views created on request.<p>
+ * Replacing a class appends a new row; rows are never modified once written,
+ * so views stay valid whatever is stored later.<p>
+ * Optionally, class data is appended to a {@link ClassStore} off the heap and
+ * the table keeps only class names and store references.<p>
+ * Classes are stored under a lock, but {@link #get(String)} and 
+ * {@link #contains(String)} take none: a name is indexed only after its row
+ * is written and arrays are published once filled, so analysis workers can
+ * read classes at the same time.
+ *
+ * @author Carlos Uribe
+ */
+public class ClassTable {
+
+  private static final int NAME = 0;
+  private static final int SUPER = 1;
+  private static final int FLAGS = 2;
+  private static final int LOCATION = 3;
+  private static final int PROJECT = 4;
+  private static final int LAYER = 5;
+  private static final int IFCS = 6;
+  private static final int METHODS = 7;
+  private static final int COLUMNS = 8;
+
+  private final NameTable names;
+  private final ClassStore store;
+  private final PackageTrie packages = new PackageTrie();
+  /** Row columns, row i starts at i * COLUMNS. */
+  private volatile int[] rows = new int[64 * COLUMNS];
+  private volatile int[] pool = new int[1024];
+  /** Store references of rows, if a store is used. */
+  private volatile long[] refs = new long[0];
+  /** Row + 1 of each name id, 0 if there is no class with that name. */
+  private volatile AtomicIntegerArray index = new AtomicIntegerArray(256);
+  private int nrows = 0;
+  private int npool = 0;
+  private int count = 0;
+
+  public ClassTable() {
+    this(new NameTable());
+  }
+
+  public ClassTable(NameTable names) {
+    this(names, null);
+  }
+
+  /**
+   * Create a table keeping class data in a store.
+   * 
+   * @param store Store of classes or <code>null</code> to keep them in rows.
+   */
+  public ClassTable(NameTable names, ClassStore store) {
+    this.names = names;
+    this.store = store;
+  }
+
+  public NameTable getDictionary() {
+    return names;
+  }
+
+  public ClassStore getStore() {
+    return store;
+  }
+
+  /**
+   * Store a class, replacing any other with the same name.
+   */
+  public synchronized void put(ClassInfo cls) {
+    if (store != null) {
+      if (refs.length <= nrows) {
+        refs = Arrays.copyOf(refs, Math.max(refs.length * 2, 64));
+      }
+      refs[nrows] = store.append(cls);
+      index(names.intern(cls.getName()), cls.getName());
+      return;
+    }
+
+    int nameId = names.intern(cls.getName());
+    int superId = (cls.getSuperName() == null) 
+                  ? -1 : names.intern(cls.getSuperName());
+    Set<String> ifcs = cls.getInterfaces();
+    Set<String> methods = cls.getMethods();
+
+    int[] r = ensureRows(nrows + 1);
+    int[] p = ensurePool(npool + 2 + ifcs.size() + methods.size());
+    int base = nrows * COLUMNS;
+
+    r[base + NAME] = nameId;
+    r[base + SUPER] = superId;
+    r[base + FLAGS] = cls.getFlags();
+    r[base + LOCATION] = names.intern(cls.getLocation());
+    r[base + PROJECT] = names.intern(cls.getProject());
+    r[base + LAYER] = names.intern(cls.getLayer());
+    r[base + IFCS] = npool;
+    npool = writeRun(p, npool, ifcs);
+    r[base + METHODS] = npool;
+    npool = writeRun(p, npool, methods);
+    index(nameId, cls.getName());
+  }
+
+  /**
+   * Point the name of a class to the last row.
+   */
+  private void index(int nameId, String name) {
+    AtomicIntegerArray idx = index;
+
+    if (idx.length() <= nameId) {
+      idx = new AtomicIntegerArray(Math.max(idx.length() * 2, nameId + 1));
+
+      for (int i = 0; i < index.length(); ++i) {
+        idx.set(i, index.get(i));
+      }
+      index = idx;
+    }
+    if (idx.get(nameId) == 0) {
+      packages.add(name, nameId);
+      ++count;
+    }
+    idx.set(nameId, ++nrows);
+  }
+
+  /**
+   * Get a read-only view of a class.
+   * 
+   * @return view or <code>null</code> if there is no class with that name.
+   */
+  public ClassInfo get(String name) {
+    int row = find(name);
+    if (row < 0) {
+      return null;
+    }
+    return (store == null) ? new Row(row) : store.get(refs[row]);
+  }
+
+  /**
+   * Check if a class is a view of some class table.
+   */
+  public static boolean isView(ClassInfo cls) {
+    return cls instanceof ClassView;
+  }
+
+  public boolean contains(String name) {
+    return find(name) >= 0;
+  }
+
+  public synchronized boolean remove(String name) {
+    int id = names.find(name);
+
+    if (id >= 0 && id < index.length() && index.get(id) != 0) {
+      index.set(id, 0);
+      packages.remove(name, id);
+      --count;
+      return true;
+    }
+    return false;
+  }
+
+  public synchronized int size() {
+    return count;
+  }
+
+  public synchronized void clear() {
+    rows = new int[64 * COLUMNS];
+    pool = new int[1024];
+    refs = new long[0];
+    index = new AtomicIntegerArray(256);
+    packages.clear();
+    nrows = 0;
+    npool = 0;
+    count = 0;
+  }
+
+  /**
+   * Get classnames in this table, sorted.
+   */
+  public synchronized String[] getNames() {
+    String[] sorted = new String[count];
+    int n = 0;
+
+    for (int id = 0; id < index.length(); ++id) {
+      if (index.get(id) != 0) {
+        sorted[n++] = names.get(id);
+      }
+    }
+    Arrays.sort(sorted);
+    return sorted;
+  }
+
+  /**
+   * Get classnames in a package, sorted.
+   * 
+   * @param pkg Package name with dots or slashes, empty for all packages.
+   * @param subpackages Whether to include classes of subpackages.
+   */
+  public synchronized String[] getNames(String pkg, boolean subpackages) {
+    int[] ids = packages.find(pkg, subpackages);
+    String[] sorted = new String[ids.length];
+
+    for (int i = 0; i < ids.length; ++i) {
+      sorted[i] = names.get(ids[i]);
+    }
+    Arrays.sort(sorted);
+    return sorted;
+  }
+
+  /**
+   * Get the row of a class. Rows, pool and references are read after the 
+   * index, so they already hold the row found.
+   */
+  private int find(String name) {
+    int id = (name == null) ? -1 : names.find(name);
+    AtomicIntegerArray idx = index;
+
+    if (id >= 0 && id < idx.length()) {
+      return idx.get(id) - 1;
+    }
+    return -1;
+  }
+
+  private int[] ensureRows(int n) {
+    if (rows.length < n * COLUMNS) {
+      rows = Arrays.copyOf(rows, Math.max(rows.length * 2, n * COLUMNS));
+    }
+    return rows;
+  }
+
+  private int[] ensurePool(int n) {
+    if (pool.length < n) {
+      pool = Arrays.copyOf(pool, Math.max(pool.length * 2, n));
+    }
+    return pool;
+  }
+
+  private int writeRun(int[] p, int pos, Set<String> strs) {
+    p[pos++] = strs.size();
+
+    for (String str : strs) {
+      p[pos++] = names.intern(str);
+    }
+    return pos;
+  }
+
+  /**
+   * Read-only view of a class row.
+   */
+  private final class Row extends ClassView {
+
+    private final int[] rows = ClassTable.this.rows;
+    private final int[] pool = ClassTable.this.pool;
+    private final int base;
+
+    Row(int row) {
+      this.base = row * COLUMNS;
+    }
+
+    private String column(int col) {
+      return names.get(rows[base + col]);
+    }
+
+    @Override
+    public int getFlags() {
+      return rows[base + FLAGS];
+    }
+
+    @Override
+    public String getName() {
+      return column(NAME);
+    }
+
+    @Override
+    public String getSuperName() {
+      int id = rows[base + SUPER];
+      return (id < 0) ? null : names.get(id);
+    }
+
+    @Override
+    public String getLocation() {
+      return column(LOCATION);
+    }
+
+    @Override
+    public String getProject() {
+      return column(PROJECT);
+    }
+
+    @Override
+    public String getLayer() {
+      return column(LAYER);
+    }
+
+    @Override
+    public Set<String> getInterfaces() {
+      return new Run(pool, rows[base + IFCS]);
+    }
+
+    @Override
+    public Set<String> getMethods() {
+      return new Run(pool, rows[base + METHODS]);
+    }
+  }
+
+  /**
+   * Read-only set over a run of ids in the pool, in insertion order.
+   */
+  private final class Run extends AbstractSet<String> {
+
+    private final int[] pool;
+    private final int start;
+    private final int size;
+
+    Run(int[] pool, int pos) {
+      this.pool = pool;
+      this.start = pos + 1;
+      this.size = pool[pos];
+    }
+
+    @Override
+    public int size() {
+      return size;
+    }
+
+    @Override
+    public boolean contains(Object o) {
+      if (!(o instanceof String)) {
+        return false;
+      }
+
+      int id = names.find((String)o);
+      if (id < 0) {
+        return false;
+      }
+
+      for (int i = start; i < start + size; ++i) {
+        if (pool[i] == id) {
+          return true;
+        }
+      }
+      return false;
+    }
+
+    @Override
+    public Iterator<String> iterator() {
+      return new Iterator<String>() {
+
+        private int pos = start;
+
+        @Override
+        public boolean hasNext() {
+          return pos < start + size;
+        }
+
+        @Override
+        public String next() {
+          if (!hasNext()) {
+            throw new NoSuchElementException();
+          }
+          return names.get(pool[pos++]);
+        }
+
+        @Override
+        public void remove() {
+          throw new UnsupportedOperationException("Read-only class.");
+        }
+      };
+    }
+  }
+}
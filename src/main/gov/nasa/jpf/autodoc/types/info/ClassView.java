@@ -0,0 +1,75 @@
+//
+// Copyright (C) 2014 United States Government as represented by the
+// Administrator of the National Aeronautics and Space Administration
+// (NASA).  All Rights Reserved.
+//
+// This software is distributed under the NASA Open Source Agreement
+// (NOSA), version 1.3.  The NOSA has been approved by the Open Source
+// Initiative.  See the file NOSA-1.3-JPF at the top of the distribution
+// directory tree for the complete NOSA document.
+//
+// THE SUBJECT SOFTWARE IS PROVIDED "AS IS" WITHOUT ANY WARRANTY OF ANY
+// KIND, EITHER EXPRESSED, IMPLIED, OR STATUTORY, INCLUDING, BUT NOT
+// LIMITED TO, ANY WARRANTY THAT THE SUBJECT SOFTWARE WILL CONFORM TO
+// SPECIFICATIONS, ANY IMPLIED WARRANTIES OF MERCHANTABILITY, FITNESS FOR
+// A PARTICULAR PURPOSE, OR FREEDOM FROM INFRINGEMENT, ANY WARRANTY THAT
+// THE SUBJECT SOFTWARE WILL BE ERROR FREE, OR ANY WARRANTY THAT
+// DOCUMENTATION, IF PROVIDED, WILL CONFORM TO THE SUBJECT SOFTWARE.
+//
+
+package gov.nasa.jpf.autodoc.types.info;
+
+import java.util.Set;
+
+/**
+ * Read-only class whose data is kept in a class table or store and read by 
+ * overridden getters.
+ *
+ * @author Carlos Uribe
+ */
+abstract class ClassView extends ClassInfo {
+
+  ClassView() {
+    super(false);
+  }
+
+  @Override
+  public void setFlags(int flags) {
+    throw new UnsupportedOperationException("Read-only class.");
+  }
+
+  @Override
+  public void setName(String name) {
+    throw new UnsupportedOperationException("Read-only class.");
+  }
+
+  @Override
+  public void setSuperName(String superName) {
+    throw new UnsupportedOperationException("Read-only class.");
+  }
+
+  @Override
+  public void setLocation(String location) {
+    throw new UnsupportedOperationException("Read-only class.");
+  }
+
+  @Override
+  public void setProject(String project) {
+    throw new UnsupportedOperationException("Read-only class.");
+  }
+
+  @Override
+  public void setLayer(String layer) {
+    throw new UnsupportedOperationException("Read-only class.");
+  }
+
+  @Override
+  public void setInterfaces(Set<String> interfaces) {
+    throw new UnsupportedOperationException("Read-only class.");
+  }
+
+  @Override
+  public void setMethods(Set<String> methods) {
+    throw new UnsupportedOperationException("Read-only class.");
+  }
+}
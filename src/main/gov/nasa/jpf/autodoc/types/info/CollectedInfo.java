@@ -19,29 +19,51 @@
 
 package gov.nasa.jpf.autodoc.types.info;
 
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.ArrayDeque;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.Iterator;
 import java.util.Map;
 import java.util.Set;
+import java.util.SortedMap;
 import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.ConcurrentSkipListSet;
 
 /**
- * Class to storeParsed collections of classes, parsed and analyzed.
+ * Class to storeParsed collections of classes, parsed and analyzed. Maps are
+ * sorted by classname and can be registered concurrently by analyzers. Parsed
+ * classes are kept in a compact {@link ClassTable}, optionally backed by a 
+ * {@link ClassStore} off the heap, and seen as a map view. It 
+ * also keeps which classes each analysis depended on, so only dependents of
+ * changed classes need to be analyzed again.
  *
  * @author Carlos Uribe <carlos.albert.uribe@gmail.com>
  */
 public class CollectedInfo {
 
-  private Map<String, ModelClassInfo> models = new TreeMap<String, ModelClassInfo>();
-  private Map<String, ClassInfo> parsed = new TreeMap<String, ClassInfo>();
-  private Map<String, NativePeerInfo> peers = new TreeMap<String, NativePeerInfo>();
-  private Map<String, SubtypeInfo> subtypes = new TreeMap<String, SubtypeInfo>();
-  private Map<String, SubtypeInfo> types = new TreeMap<String, SubtypeInfo>();
+  private Map<String, ModelClassInfo> models = new ConcurrentSkipListMap<String, ModelClassInfo>();
+  private ClassTable parsed = new ClassTable();
+  private Map<String, NativePeerInfo> peers = new ConcurrentSkipListMap<String, NativePeerInfo>();
+  private Map<String, SubtypeInfo> subtypes = new ConcurrentSkipListMap<String, SubtypeInfo>();
+  private Map<String, SubtypeInfo> types = new ConcurrentSkipListMap<String, SubtypeInfo>();
+  private ConcurrentMap<String, Set<String>> dependents = new ConcurrentHashMap<String, Set<String>>();
 
   public Map<String, ModelClassInfo> getModels() {
     return models;
   }
 
+  /**
+   * Get parsed classes as a map view sorted by classname. Classes read from 
+   * it are read-only.
+   */
   public Map<String, ClassInfo> getParsed() {
-    return parsed;
+    return new ParsedView();
   }
 
   public Map<String, NativePeerInfo> getPeers() {
@@ -57,48 +79,101 @@ public class CollectedInfo {
   }
 
   public void setModels(Map<String, ModelClassInfo> models) {
-    this.models = models;
+    this.models = new ConcurrentSkipListMap<String, ModelClassInfo>(models);
   }
 
   public void setParsed(Map<String, ClassInfo> parsed) {
-    this.parsed = parsed;
+    ClassTable table = new ClassTable(this.parsed.getDictionary(), 
+                                      this.parsed.getStore());
+
+    for (ClassInfo cls : parsed.values()) {
+      table.put(cls);
+    }
+    this.parsed = table;
   }
 
   public void setPeers(Map<String, NativePeerInfo> peers) {
-    this.peers = peers;
+    this.peers = new ConcurrentSkipListMap<String, NativePeerInfo>(peers);
   }
 
   public void setSubtypes(Map<String, SubtypeInfo> subtypes) {
-    this.subtypes = subtypes;
+    this.subtypes = new ConcurrentSkipListMap<String, SubtypeInfo>(subtypes);
   }
 
   public void setTypes(Map<String, SubtypeInfo> types) {
-    this.types = types;
+    this.types = new ConcurrentSkipListMap<String, SubtypeInfo>(types);
+  }
+
+  /**
+   * Keep data of parsed classes in a memory-mapped store instead of the heap.
+   * Classes already parsed are moved to the store.
+   */
+  public void useStore(ClassStore store) {
+    ClassTable table = new ClassTable(parsed.getDictionary(), store);
+
+    for (String name : parsed.getNames()) {
+      table.put(parsed.get(name));
+    }
+    parsed = table;
+  }
+
+  public ClassStore getStore() {
+    return parsed.getStore();
   }
 
   public void register(ModelClassInfo model) {
+    detach(model);
     models.put(model.getInfo().getName(), model);
   }
 
   public void register(ClassInfo parsed) {
-    this.parsed.put(parsed.getName(), parsed);
+    this.parsed.put(parsed);
   }
 
   public void register(NativePeerInfo peer) {
+    detach(peer);
     peers.put(peer.getInfo().getName(), peer);
   }
 
   public void register(SubtypeInfo subtype) {
+    detach(subtype);
     subtypes.put(subtype.getInfo().getName(), subtype);
   }
 
+  /**
+   * Register a component found by an analyzer in the collection of its kind.
+   * 
+   * @throws IllegalArgumentException if component kind is unknown.
+   */
+  public void register(JPFInfo component) {
+    if (component instanceof SubtypeInfo) {
+      register((SubtypeInfo)component);
+    } else if (component instanceof ModelClassInfo) {
+      register((ModelClassInfo)component);
+    } else if (component instanceof NativePeerInfo) {
+      register((NativePeerInfo)component);
+    } else {
+      throw new IllegalArgumentException("Unknown component: " + component);
+    }
+  }
+
+  /**
+   * Give a component its own copy of a class viewed from the parsed table,
+   * so it is kept and written like any other class.
+   */
+  private void detach(JPFInfo component) {
+    if (ClassTable.isView(component.getInfo())) {
+      component.setInfo(new ClassInfo(component.getInfo()));
+    }
+  }
+
   public void registerType(SubtypeInfo type) {
     types.put(type.getInfo().getName(), type);
   }
 
   public void storeParsed(Set<ClassInfo> parsed) {
     for (ClassInfo cls : parsed) {
-      this.parsed.put(cls.getName(), cls);
+      this.parsed.put(cls);
     }
   }
 
@@ -108,6 +183,82 @@ public class CollectedInfo {
     }
   }
 
+  /**
+   * Record that analysis of <code>dependent</code> relies on the class 
+   * <code>dependency</code>, like a superclass or the model of a peer.
+   */
+  public void addDependency(String dependency, String dependent) {
+    if (dependency == null || dependency.isEmpty()) {
+      return;
+    }
+
+    Set<String> set = dependents.get(dependency);
+
+    if (set == null) {
+      set = new ConcurrentSkipListSet<String>();
+      Set<String> prev = dependents.putIfAbsent(dependency, set);
+      set = (prev == null) ? set : prev;
+    }
+    set.add(dependent);
+  }
+
+  /**
+   * Get classes whose analysis relies directly on <code>name</code>.
+   */
+  public Set<String> getDependents(String name) {
+    Set<String> set = dependents.get(name);
+    return (set == null) ? new TreeSet<String>() : set;
+  }
+
+  /**
+   * Get the given classes and all those depending on them, directly or not.
+   */
+  public Set<String> collectDependents(Collection<String> names) {
+    Set<String> found = new TreeSet<String>(names);
+    Deque<String> pending = new ArrayDeque<String>(names);
+
+    while (!pending.isEmpty()) {
+      for (String dependent : getDependents(pending.poll())) {
+        if (found.add(dependent)) {
+          pending.add(dependent);
+        }
+      }
+    }
+    return found;
+  }
+
+  /**
+   * Get the components of a map whose classes are in a package or in its 
+   * subpackages, looked up in the package trie of parsed classes.<p>
+   * Example: inPackage(getSubtypes(), "gov.nasa.jpf.listener")
+   * 
+   * @param components Map of components, like subtypes, models or peers.
+   * @param pkg Package name with dots or slashes.
+   * @return sorted map of the components found.
+   */
+  public <T> SortedMap<String, T> inPackage(Map<String, T> components, 
+                                            String pkg) {
+    SortedMap<String, T> found = new TreeMap<String, T>();
+
+    for (String name : parsed.getNames(pkg, true)) {
+      T component = components.get(name);
+
+      if (component != null) {
+        found.put(name, component);
+      }
+    }
+    return found;
+  }
+
+  /**
+   * Forget the results of analyses of a class, keeping it parsed.
+   */
+  public void unregister(String name) {
+    subtypes.remove(name);
+    models.remove(name);
+    peers.remove(name);
+  }
+
   public boolean isModel(String name) {
     if (name != null) {
       return models.containsKey(name);
@@ -118,7 +269,7 @@ public class CollectedInfo {
 
   public boolean isParsed(String name) {
     if (name != null) {
-      return parsed.containsKey(name);
+      return parsed.contains(name);
     }
 
     return false;
@@ -167,4 +318,81 @@ public class CollectedInfo {
   public SubtypeInfo getType(String name) {
     return types.get(name);
   }
+
+  /**
+   * Map view of parsed classes.
+   */
+  private class ParsedView extends AbstractMap<String, ClassInfo> {
+
+    @Override
+    public int size() {
+      return parsed.size();
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+      return (key instanceof String) && parsed.contains((String)key);
+    }
+
+    @Override
+    public ClassInfo get(Object key) {
+      return (key instanceof String) ? parsed.get((String)key) : null;
+    }
+
+    @Override
+    public ClassInfo put(String key, ClassInfo value) {
+      ClassInfo prev = parsed.get(key);
+      parsed.put(value);
+      return prev;
+    }
+
+    @Override
+    public ClassInfo remove(Object key) {
+      ClassInfo prev = get(key);
+
+      if (prev != null) {
+        parsed.remove((String)key);
+      }
+      return prev;
+    }
+
+    @Override
+    public Set<Map.Entry<String, ClassInfo>> entrySet() {
+      final ClassTable table = parsed;
+      final String[] names = table.getNames();
+
+      return new AbstractSet<Map.Entry<String, ClassInfo>>() {
+
+        @Override
+        public int size() {
+          return names.length;
+        }
+
+        @Override
+        public Iterator<Map.Entry<String, ClassInfo>> iterator() {
+          return new Iterator<Map.Entry<String, ClassInfo>>() {
+
+            private int i = 0;
+
+            @Override
+            public boolean hasNext() {
+              return i < names.length;
+            }
+
+            @Override
+            public Map.Entry<String, ClassInfo> next() {
+              String name = names[i++];
+              return new SimpleImmutableEntry<String, ClassInfo>(name, 
+                      table.get(name));
+            }
+
+            @Override
+            public void remove() {
+              table.remove(names[i - 1]);
+            }
+          };
+        }
+      };
+    }
+  }
 }
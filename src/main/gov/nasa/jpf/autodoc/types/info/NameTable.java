@@ -0,0 +1,269 @@
+//
+// Copyright (C) 2014 United States Government as represented by the
+// Administrator of the National Aeronautics and Space Administration
+// (NASA).  All Rights Reserved.
+//
+// This software is distributed under the NASA Open Source Agreement
+// (NOSA), version 1.3.  The NOSA has been approved by the Open Source
+// Initiative.  See the file NOSA-1.3-JPF at the top of the distribution
+// directory tree for the complete NOSA document.
+//
+// THE SUBJECT SOFTWARE IS PROVIDED "AS IS" WITHOUT ANY WARRANTY OF ANY
+// KIND, EITHER EXPRESSED, IMPLIED, OR STATUTORY, INCLUDING, BUT NOT
+// LIMITED TO, ANY WARRANTY THAT THE SUBJECT SOFTWARE WILL CONFORM TO
+// SPECIFICATIONS, ANY IMPLIED WARRANTIES OF MERCHANTABILITY, FITNESS FOR
+// A PARTICULAR PURPOSE, OR FREEDOM FROM INFRINGEMENT, ANY WARRANTY THAT
+// THE SUBJECT SOFTWARE WILL BE ERROR FREE, OR ANY WARRANTY THAT
+// DOCUMENTATION, IF PROVIDED, WILL CONFORM TO THE SUBJECT SOFTWARE.
+//
+
+package gov.nasa.jpf.autodoc.types.info;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+/**
+ * Dictionary of strings such as classnames, locations or method signatures. 
+ * Each different string is kept once and identified by an int, so tables 
+ * can store ids instead of strings.<p>
+ * Strings are front coded in blocks of {@link #BLOCK}: each one keeps only 
+ * the suffix it doesn't share with the previous string of its block, which 
+ * pays off for classnames and descriptors added in package order. Lookups 
+ * go through an open addressing hash of ids and equality checks decode into
+ * a per-thread buffer, so they don't allocate.<p>
+ * Strings are added under a lock, but lookups take none: a slot is set only
+ * after the arrays holding its string are published, and a grown hash is 
+ * published once filled, so analysis workers can look up names at the same 
+ * time.
+ *
+ * @author Carlos Uribe
+ */
+public class NameTable {
+
+  public static final int BLOCK = 16;
+
+  /**
+   * Arrays of the table. A new state is published when arrays grow, so 
+   * readers never need a lock.
+   */
+  private static final class State {
+
+    final char[] chars;
+    final int[] offsets;
+    final int[] prefixes;
+    final int[] lengths;
+    final int[] hashes;
+
+    State(int nchars, int nids) {
+      chars = new char[nchars];
+      offsets = new int[nids];
+      prefixes = new int[nids];
+      lengths = new int[nids];
+      hashes = new int[nids];
+    }
+
+    State(State s, int nchars, int nids) {
+      chars = Arrays.copyOf(s.chars, nchars);
+      offsets = Arrays.copyOf(s.offsets, nids);
+      prefixes = Arrays.copyOf(s.prefixes, nids);
+      lengths = Arrays.copyOf(s.lengths, nids);
+      hashes = Arrays.copyOf(s.hashes, nids);
+    }
+  }
+
+  private static final ThreadLocal<char[]> buffer = new ThreadLocal<char[]>() {
+
+    @Override
+    protected char[] initialValue() {
+      return new char[256];
+    }
+  };
+
+  private volatile State state = new State(4096, 256);
+  /** Open addressing slots holding id + 1, or 0 if empty. */
+  private volatile AtomicIntegerArray slots = new AtomicIntegerArray(512);
+  private int nchars = 0;
+  private int size = 0;
+  private String last = "";
+
+  /**
+   * Get the id of a string, adding it if new.
+   */
+  public synchronized int intern(String str) {
+    int id = find(str);
+
+    if (id < 0) {
+      id = add(str);
+    }
+    return id;
+  }
+
+  /**
+   * Get the id of a string.
+   * 
+   * @return id or -1 if the string was never interned.
+   */
+  public int find(String str) {
+    AtomicIntegerArray slts = slots;
+    int hash = str.hashCode();
+    int mask = slts.length() - 1;
+    int slot;
+
+    for (int i = mix(hash) & mask; (slot = slts.get(i)) != 0; 
+         i = (i + 1) & mask) {
+      int id = slot - 1;
+
+      //--- state is read after the slot, so it already holds the id.
+      if (state.hashes[id] == hash && equals(id, str)) {
+        return id;
+      }
+    }
+    return -1;
+  }
+
+  /**
+   * Get the string of an id given by this table.
+   */
+  public String get(int id) {
+    State s = state;
+    char[] buf = decode(s, id);
+    return new String(buf, 0, s.prefixes[id] + s.lengths[id]);
+  }
+
+  /**
+   * Check if the string of an id equals <code>str</code> without decoding
+   * it to a new string.
+   */
+  public boolean equals(int id, CharSequence str) {
+    State s = state;
+    int len = s.prefixes[id] + s.lengths[id];
+
+    if (len != str.length()) {
+      return false;
+    }
+
+    char[] buf = decode(s, id);
+    for (int i = 0; i < len; ++i) {
+      if (buf[i] != str.charAt(i)) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Check if the string of an id starts with <code>prefix</code> without
+   * decoding it to a new string.
+   */
+  public boolean startsWith(int id, CharSequence prefix) {
+    State s = state;
+    int len = prefix.length();
+
+    if (s.prefixes[id] + s.lengths[id] < len) {
+      return false;
+    }
+
+    char[] buf = decode(s, id);
+    for (int i = 0; i < len; ++i) {
+      if (buf[i] != prefix.charAt(i)) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  public synchronized int size() {
+    return size;
+  }
+
+  /**
+   * Get the number of chars stored, a measure of the table footprint.
+   */
+  public synchronized int getCharCount() {
+    return nchars;
+  }
+
+  private int add(String str) {
+    int id = size;
+    int prefix = 0;
+
+    if (id % BLOCK != 0) {
+      int max = Math.min(last.length(), str.length());
+
+      while (prefix < max && last.charAt(prefix) == str.charAt(prefix)) {
+        ++prefix;
+      }
+    }
+
+    int suffix = str.length() - prefix;
+    State s = state;
+
+    if (id == s.offsets.length || nchars + suffix > s.chars.length) {
+      s = new State(s, Math.max(s.chars.length * 2, nchars + suffix), 
+                    (id == s.offsets.length) ? id * 2 : s.offsets.length);
+    }
+
+    str.getChars(prefix, str.length(), s.chars, nchars);
+    s.offsets[id] = nchars;
+    s.prefixes[id] = prefix;
+    s.lengths[id] = suffix;
+    s.hashes[id] = str.hashCode();
+    nchars += suffix;
+    state = s;
+
+    if ((size + 1) * 2 > slots.length()) {
+      rehash(slots.length() * 2);
+    }
+    insert(slots, id);
+    ++size;
+    last = str;
+    return id;
+  }
+
+  private void insert(AtomicIntegerArray slts, int id) {
+    int mask = slts.length() - 1;
+    int i = mix(state.hashes[id]) & mask;
+
+    while (slts.get(i) != 0) {
+      i = (i + 1) & mask;
+    }
+    slts.set(i, id + 1);
+  }
+
+  /**
+   * Fill a larger hash and then publish it.
+   */
+  private void rehash(int capacity) {
+    AtomicIntegerArray slts = new AtomicIntegerArray(capacity);
+
+    for (int id = 0; id < size; ++id) {
+      insert(slts, id);
+    }
+    slots = slts;
+  }
+
+  private static int mix(int hash) {
+    return hash ^ (hash >>> 16);
+  }
+
+  /**
+   * Decode a string into the buffer of the current thread, replaying its 
+   * block from the head.
+   */
+  private static char[] decode(State s, int id) {
+    char[] buf = buffer.get();
+    int head = id - id % BLOCK;
+
+    for (int k = head; k <= id; ++k) {
+      int len = s.prefixes[k] + s.lengths[k];
+
+      if (len > buf.length) {
+        buf = Arrays.copyOf(buf, Math.max(len, buf.length * 2));
+        buffer.set(buf);
+      }
+      System.arraycopy(s.chars, s.offsets[k], buf, s.prefixes[k], 
+                       s.lengths[k]);
+    }
+    return buf;
+  }
+}
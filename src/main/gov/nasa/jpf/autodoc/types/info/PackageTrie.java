@@ -0,0 +1,165 @@
+//
+// Copyright (C) 2014 United States Government as represented by the
+// Administrator of the National Aeronautics and Space Administration
+// (NASA).  All Rights Reserved.
+//
+// This software is distributed under the NASA Open Source Agreement
+// (NOSA), version 1.3.  The NOSA has been approved by the Open Source
+// Initiative.  See the file NOSA-1.3-JPF at the top of the distribution
+// directory tree for the complete NOSA document.
+//
+// THE SUBJECT SOFTWARE IS PROVIDED "AS IS" WITHOUT ANY WARRANTY OF ANY
+// KIND, EITHER EXPRESSED, IMPLIED, OR STATUTORY, INCLUDING, BUT NOT
+// LIMITED TO, ANY WARRANTY THAT THE SUBJECT SOFTWARE WILL CONFORM TO
+// SPECIFICATIONS, ANY IMPLIED WARRANTIES OF MERCHANTABILITY, FITNESS FOR
+// A PARTICULAR PURPOSE, OR FREEDOM FROM INFRINGEMENT, ANY WARRANTY THAT
+// THE SUBJECT SOFTWARE WILL BE ERROR FREE, OR ANY WARRANTY THAT
+// DOCUMENTATION, IF PROVIDED, WILL CONFORM TO THE SUBJECT SOFTWARE.
+//
+
+package gov.nasa.jpf.autodoc.types.info;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Trie of packages holding the ids of the classes in each one, to answer 
+ * prefix queries like all classes in <code>gov.nasa.jpf.listener</code> 
+ * without scanning every classname. Packages are given either with dots or
+ * slashes.
+ *
+ * @author Carlos Uribe
+ */
+public class PackageTrie {
+
+  private static final class Node {
+
+    final Map<String, Node> children = new TreeMap<String, Node>();
+    int[] ids = new int[0];
+    int count = 0;
+
+    void add(int id) {
+      if (count == ids.length) {
+        ids = Arrays.copyOf(ids, Math.max(4, count * 2));
+      }
+      ids[count++] = id;
+    }
+
+    boolean remove(int id) {
+      for (int i = 0; i < count; ++i) {
+        if (ids[i] == id) {
+          ids[i] = ids[--count];
+          return true;
+        }
+      }
+      return false;
+    }
+  }
+
+  private Node root = new Node();
+
+  /**
+   * Add a class given its classfile internal name and id.
+   */
+  public synchronized void add(String classname, int id) {
+    Node node = root;
+
+    for (String segment : getSegments(classname, true)) {
+      Node child = node.children.get(segment);
+
+      if (child == null) {
+        child = new Node();
+        node.children.put(segment, child);
+      }
+      node = child;
+    }
+    node.add(id);
+  }
+
+  public synchronized boolean remove(String classname, int id) {
+    Node node = find(getSegments(classname, true));
+    return node != null && node.remove(id);
+  }
+
+  public synchronized void clear() {
+    root = new Node();
+  }
+
+  /**
+   * Get ids of classes in a package.
+   * 
+   * @param pkg Package name, empty for all packages.
+   * @param subpackages Whether to include classes of subpackages.
+   * @return ids of classes found.
+   */
+  public synchronized int[] find(String pkg, boolean subpackages) {
+    Node node = find(getSegments(pkg, false));
+
+    if (node == null) {
+      return new int[0];
+    }
+
+    int[] found = new int[subpackages ? count(node) : node.count];
+    collect(node, found, 0, subpackages);
+    return found;
+  }
+
+  /**
+   * Get names of direct subpackages of a package.
+   */
+  public synchronized String[] getSubpackages(String pkg) {
+    Node node = find(getSegments(pkg, false));
+
+    if (node == null) {
+      return new String[0];
+    }
+    return node.children.keySet().toArray(new String[node.children.size()]);
+  }
+
+  private Node find(String[] segments) {
+    Node node = root;
+
+    for (int i = 0; i < segments.length && node != null; ++i) {
+      node = node.children.get(segments[i]);
+    }
+    return node;
+  }
+
+  private int count(Node node) {
+    int n = node.count;
+
+    for (Node child : node.children.values()) {
+      n += count(child);
+    }
+    return n;
+  }
+
+  private int collect(Node node, int[] found, int pos, boolean subpackages) {
+    System.arraycopy(node.ids, 0, found, pos, node.count);
+    pos += node.count;
+
+    if (subpackages) {
+      for (Node child : node.children.values()) {
+        pos = collect(child, found, pos, true);
+      }
+    }
+    return pos;
+  }
+
+  /**
+   * Split a package or classname in package segments.
+   * 
+   * @param isClass Whether <code>name</code> ends with a simple classname,
+   *                which is left out.
+   */
+  private static String[] getSegments(String name, boolean isClass) {
+    String path = name.replace('.', '/');
+
+    if (isClass) {
+      int idx = path.lastIndexOf('/');
+      path = (idx < 0) ? "" : path.substring(0, idx);
+    }
+    return path.isEmpty() ? new String[0] : path.split("/");
+  }
+}
@@ -19,6 +19,8 @@
 
 package gov.nasa.jpf.autodoc.types.info;
 
+import java.util.AbstractSet;
+import java.util.Iterator;
 import java.util.LinkedHashSet;
 import java.util.Set;
 
@@ -30,10 +32,40 @@ import java.util.Set;
  */
 public class SubtypeInfo extends JPFInfo {
 
-  private Set<String> ancestors = new LinkedHashSet<String>();
+  private AncestorChain ancestors = AncestorChain.EMPTY;
   private Set<String> superMethods = new LinkedHashSet<String>();
 
+  /**
+   * Get a view of the ancestors. Adding to the view appends to the chain, 
+   * as the unmarshaller does when reading components back.
+   */
   public Set<String> getAncestors() {
+    return new AbstractSet<String>() {
+      @Override
+      public Iterator<String> iterator() {
+        return ancestors.iterator();
+      }
+
+      @Override
+      public int size() {
+        return ancestors.size();
+      }
+
+      @Override
+      public boolean contains(Object o) {
+        return ancestors.contains(o);
+      }
+
+      @Override
+      public boolean add(String ancestor) {
+        int size = ancestors.size();
+        addAncestor(ancestor);
+        return size != ancestors.size();
+      }
+    };
+  }
+
+  public AncestorChain getAncestorChain() {
     return ancestors;
   }
 
@@ -42,7 +74,7 @@ public class SubtypeInfo extends JPFInfo {
   }
 
   public void setAncestors(Set<String> ancestors) {
-    this.ancestors = ancestors;
+    this.ancestors = AncestorChain.of(ancestors);
   }
 
   public void setSuperMethods(Set<String> superMethods) {
@@ -50,11 +82,25 @@ public class SubtypeInfo extends JPFInfo {
   }
   
   public void addAncestor(String ancestor) {
-    ancestors.add(ancestor);
+    ancestors = ancestors.append(ancestor);
   }
   
-  public void addAncestors(Set<String> ancestors) {
-    this.ancestors.addAll(ancestors);
+  public void addAllAncestors(Set<String> ancestors) {
+    if (this.ancestors.isEmpty()) {
+      this.ancestors = AncestorChain.of(ancestors);
+    } else {
+      for (String ancestor : ancestors) {
+        addAncestor(ancestor);
+      }
+    }
+  }
+
+  /**
+   * Set the ancestors of a direct subtype of <code>supertype</code>, sharing 
+   * the chain of the supertype.
+   */
+  public void inheritAncestors(String superName, SubtypeInfo supertype) {
+    ancestors = supertype.ancestors.push(superName);
   }
 
   @Override
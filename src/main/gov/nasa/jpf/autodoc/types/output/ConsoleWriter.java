@@ -31,4 +31,11 @@ public class ConsoleWriter extends TextualWriter implements Writer {
   public ConsoleWriter() {
     super(new PrintWriter(System.out, true));
   }
+
+  /**
+   * Create a console on a given stream, e.g. to answer a remote client.
+   */
+  public ConsoleWriter(PrintWriter pw) {
+    super(pw);
+  }
 }
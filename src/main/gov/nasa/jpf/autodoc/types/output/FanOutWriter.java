@@ -0,0 +1,285 @@
+//
+// Copyright (C) 2014 United States Government as represented by the
+// Administrator of the National Aeronautics and Space Administration
+// (NASA).  All Rights Reserved.
+//
+// This software is distributed under the NASA Open Source Agreement
+// (NOSA), version 1.3.  The NOSA has been approved by the Open Source
+// Initiative.  See the file NOSA-1.3-JPF at the top of the distribution
+// directory tree for the complete NOSA document.
+//
+// THE SUBJECT SOFTWARE IS PROVIDED "AS IS" WITHOUT ANY WARRANTY OF ANY
+// KIND, EITHER EXPRESSED, IMPLIED, OR STATUTORY, INCLUDING, BUT NOT
+// LIMITED TO, ANY WARRANTY THAT THE SUBJECT SOFTWARE WILL CONFORM TO
+// SPECIFICATIONS, ANY IMPLIED WARRANTIES OF MERCHANTABILITY, FITNESS FOR
+// A PARTICULAR PURPOSE, OR FREEDOM FROM INFRINGEMENT, ANY WARRANTY THAT
+// THE SUBJECT SOFTWARE WILL BE ERROR FREE, OR ANY WARRANTY THAT
+// DOCUMENTATION, IF PROVIDED, WILL CONFORM TO THE SUBJECT SOFTWARE.
+//
+
+package gov.nasa.jpf.autodoc.types.output;
+
+import gov.nasa.jpf.autodoc.types.info.CollectedInfo;
+import gov.nasa.jpf.autodoc.types.info.ModelClassInfo;
+import gov.nasa.jpf.autodoc.types.info.NativePeerInfo;
+import gov.nasa.jpf.autodoc.types.info.SubtypeInfo;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Output driver that walks collected info once and sends each component to 
+ * all its sinks, so enabled formats are written in a single pass. 
+ * <p>
+ * An asynchronous sink gets its events through a bounded queue and writes 
+ * them on its own thread, so formats are written at the same time and the 
+ * pass takes about as long as the slowest sink. Collected info must not be 
+ * modified until {@link #write} returns.
+ * 
+ * @author Carlos Uribe
+ */
+public class FanOutWriter {
+
+  /** Events queued for an asynchronous sink before the walk blocks. */
+  public static final int QUEUE_SIZE = 256;
+
+  private final List<InfoSink> sinks = new ArrayList<InfoSink>();
+  private final List<AsyncSink> async = new ArrayList<AsyncSink>();
+
+  public void addSink(InfoSink sink) {
+    sinks.add(sink);
+  }
+
+  /**
+   * Add a sink, written on its own thread if <code>async</code> is set.
+   */
+  public void addSink(InfoSink sink, boolean async) {
+    if (async) {
+      AsyncSink queued = new AsyncSink(sink);
+      this.async.add(queued);
+      sinks.add(queued);
+    } else {
+      sinks.add(sink);
+    }
+  }
+
+  public int getSinkCount() {
+    return sinks.size();
+  }
+
+  /**
+   * Send all components to every sink and wait until all of them are 
+   * written.
+   * 
+   * @throws RuntimeException thrown by a sink on its own thread.
+   */
+  public void write(CollectedInfo info) {
+    for (AsyncSink sink : async) {
+      sink.start();
+    }
+
+    try {
+      section(InfoSink.Section.SUBTYPES);
+
+      int i = 0;
+      for (Map.Entry<String, SubtypeInfo> e : info.getSubtypes().entrySet()) {
+        for (InfoSink sink : sinks) {
+          sink.writeSubtype(i, e.getKey(), e.getValue());
+        }
+        ++i;
+      }
+
+      section(InfoSink.Section.MODELS);
+
+      i = 0;
+      for (Map.Entry<String, ModelClassInfo> e : info.getModels().entrySet()) {
+        for (InfoSink sink : sinks) {
+          sink.writeModel(i, e.getKey(), e.getValue());
+        }
+        ++i;
+      }
+
+      section(InfoSink.Section.PEERS);
+
+      i = 0;
+      for (Map.Entry<String, NativePeerInfo> e : info.getPeers().entrySet()) {
+        for (InfoSink sink : sinks) {
+          sink.writePeer(i, e.getKey(), e.getValue());
+        }
+        ++i;
+      }
+    } finally {
+      for (InfoSink sink : sinks) {
+        sink.endInfo();
+      }
+    }
+
+    for (AsyncSink sink : async) {
+      sink.await();
+    }
+  }
+
+  private void section(InfoSink.Section section) {
+    for (InfoSink sink : sinks) {
+      sink.startSection(section);
+    }
+  }
+
+  /**
+   * Sink that queues events for another sink written by a worker thread. 
+   * The worker ends after <code>endInfo</code>.
+   */
+  static class AsyncSink implements InfoSink, Runnable {
+
+    private static final Runnable END = new Runnable() {
+      @Override
+      public void run() {
+      }
+    };
+
+    private final InfoSink target;
+    private final BlockingQueue<Runnable> events = 
+            new ArrayBlockingQueue<Runnable>(QUEUE_SIZE);
+    private Thread worker;
+    private volatile Throwable failure;
+
+    AsyncSink(InfoSink target) {
+      this.target = target;
+    }
+
+    void start() {
+      failure = null;
+      worker = new Thread(this, "sink-" + target.getClass().getSimpleName());
+      worker.setDaemon(true);
+      worker.start();
+    }
+
+    /**
+     * Wait for the worker to write all queued events.
+     */
+    void await() {
+      boolean interrupted = false;
+
+      while (worker.isAlive()) {
+        try {
+          worker.join();
+        } catch (InterruptedException ex) {
+          interrupted = true;
+        }
+      }
+
+      if (interrupted) {
+        Thread.currentThread().interrupt();
+      }
+
+      if (failure instanceof Error) {
+        throw (Error)failure;
+      } else if (failure != null) {
+        throw (RuntimeException)failure;
+      }
+    }
+
+    @Override
+    public void run() {
+      try {
+        for (Runnable event = events.take(); event != END; 
+             event = events.take()) {
+          if (failure == null) {
+            event.run();
+          }
+        }
+      } catch (InterruptedException ex) {
+        Thread.currentThread().interrupt();
+      }
+    }
+
+    /**
+     * Queue an event, waiting while the queue is full as long as the worker 
+     * is alive to take it.
+     */
+    private void queue(Runnable event) {
+      try {
+        while (!events.offer(event, 100, TimeUnit.MILLISECONDS)) {
+          if (!worker.isAlive()) {
+            throw new IllegalStateException("Sink stopped: " 
+                    + target.getClass().getSimpleName(), failure);
+          }
+        }
+      } catch (InterruptedException ex) {
+        Thread.currentThread().interrupt();
+        throw new IllegalStateException("Output interrupted", ex);
+      }
+    }
+
+    /**
+     * Run an event on the target, keeping the first failure to be thrown by 
+     * <code>await</code>. Errors are kept too, so the worker goes on taking 
+     * events and the walk never waits on a full queue.
+     */
+    private abstract class Event implements Runnable {
+
+      @Override
+      public void run() {
+        try {
+          fire();
+        } catch (Throwable ex) {
+          failure = ex;
+        }
+      }
+
+      abstract void fire();
+    }
+
+    public void startSection(final Section section) {
+      queue(new Event() {
+        @Override
+        void fire() {
+          target.startSection(section);
+        }
+      });
+    }
+
+    public void writeSubtype(final int idx, final String name, 
+            final SubtypeInfo subtype) {
+      queue(new Event() {
+        @Override
+        void fire() {
+          target.writeSubtype(idx, name, subtype);
+        }
+      });
+    }
+
+    public void writeModel(final int idx, final String name, 
+            final ModelClassInfo model) {
+      queue(new Event() {
+        @Override
+        void fire() {
+          target.writeModel(idx, name, model);
+        }
+      });
+    }
+
+    public void writePeer(final int idx, final String name, 
+            final NativePeerInfo peer) {
+      queue(new Event() {
+        @Override
+        void fire() {
+          target.writePeer(idx, name, peer);
+        }
+      });
+    }
+
+    public void endInfo() {
+      queue(new Event() {
+        @Override
+        void fire() {
+          target.endInfo();
+        }
+      });
+      queue(END);
+    }
+  }
+}
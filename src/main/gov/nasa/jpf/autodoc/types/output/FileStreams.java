@@ -0,0 +1,232 @@
+//
+// Copyright (C) 2014 United States Government as represented by the
+// Administrator of the National Aeronautics and Space Administration
+// (NASA).  All Rights Reserved.
+//
+// This software is distributed under the NASA Open Source Agreement
+// (NOSA), version 1.3.  The NOSA has been approved by the Open Source
+// Initiative.  See the file NOSA-1.3-JPF at the top of the distribution
+// directory tree for the complete NOSA document.
+//
+// THE SUBJECT SOFTWARE IS PROVIDED "AS IS" WITHOUT ANY WARRANTY OF ANY
+// KIND, EITHER EXPRESSED, IMPLIED, OR STATUTORY, INCLUDING, BUT NOT
+// LIMITED TO, ANY WARRANTY THAT THE SUBJECT SOFTWARE WILL CONFORM TO
+// SPECIFICATIONS, ANY IMPLIED WARRANTIES OF MERCHANTABILITY, FITNESS FOR
+// A PARTICULAR PURPOSE, OR FREEDOM FROM INFRINGEMENT, ANY WARRANTY THAT
+// THE SUBJECT SOFTWARE WILL BE ERROR FREE, OR ANY WARRANTY THAT
+// DOCUMENTATION, IF PROVIDED, WILL CONFORM TO THE SUBJECT SOFTWARE.
+//
+
+package gov.nasa.jpf.autodoc.types.output;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Streams of output and input files. Files named with the gzip extension 
+ * are compressed on a background thread while written, and compressed input 
+ * files are detected by their content, whatever their name.
+ * 
+ * @author Carlos Uribe
+ */
+public class FileStreams {
+
+  /** Extension of compressed files. */
+  public static final String GZIP_EXT = ".gz";
+
+  private static final int CHUNK_SIZE = 1 << 16;
+  private static final int CHUNKS = 4;
+
+  public static boolean isCompressed(String filename) {
+    return filename.endsWith(GZIP_EXT);
+  }
+
+  /**
+   * Get the name of a file, with the gzip extension added if it must be 
+   * compressed and it has not one.
+   */
+  public static String getFilename(String filename, boolean compress) {
+    if (compress && !isCompressed(filename)) {
+      return filename + GZIP_EXT;
+    }
+    return filename;
+  }
+
+  /**
+   * Open a buffered stream to write a file, compressed if it is named with 
+   * the gzip extension.
+   */
+  public static OutputStream openOutput(String filename) throws IOException {
+    if (isCompressed(filename)) {
+      return new GZIPWorkerStream(new FileOutputStream(filename));
+    }
+    return new BufferedOutputStream(new FileOutputStream(filename), 
+                                    CHUNK_SIZE);
+  }
+
+  /**
+   * Open a buffered stream to read a file, uncompressing it if it starts 
+   * with the gzip magic number.
+   */
+  public static InputStream openInput(String filename) throws IOException {
+    BufferedInputStream in = 
+            new BufferedInputStream(new FileInputStream(filename), CHUNK_SIZE);
+
+    try {
+      in.mark(2);
+      int magic = in.read() | (in.read() << 8);
+      in.reset();
+
+      if (magic == GZIPInputStream.GZIP_MAGIC) {
+        return new GZIPInputStream(in, CHUNK_SIZE);
+      }
+      return in;
+    } catch (IOException ex) {
+      in.close();
+      throw ex;
+    }
+  }
+
+  /**
+   * Stream that hands full chunks to a worker thread, which compresses them 
+   * to the file. Failures of the worker are thrown by the next write or by 
+   * close.
+   */
+  static class GZIPWorkerStream extends OutputStream implements Runnable {
+
+    private static final byte[] END = new byte[0];
+
+    private final OutputStream file;
+    private final BlockingQueue<byte[]> chunks = 
+            new ArrayBlockingQueue<byte[]>(CHUNKS);
+    private final Thread worker;
+    private volatile IOException failure;
+    private byte[] chunk = new byte[CHUNK_SIZE];
+    private int count;
+    private boolean closed;
+
+    GZIPWorkerStream(OutputStream file) {
+      this.file = file;
+      worker = new Thread(this, "gzip");
+      worker.setDaemon(true);
+      worker.start();
+    }
+
+    @Override
+    public void run() {
+      try {
+        OutputStream out = new GZIPOutputStream(file, CHUNK_SIZE);
+
+        try {
+          for (byte[] data = chunks.take(); data != END; 
+               data = chunks.take()) {
+            out.write(data);
+          }
+        } finally {
+          out.close();
+        }
+      } catch (IOException ex) {
+        failure = ex;
+        chunks.clear();
+      } catch (InterruptedException ex) {
+        failure = new InterruptedIOException("Compression interrupted");
+      }
+    }
+
+    @Override
+    public void write(int b) throws IOException {
+      if (count == chunk.length) {
+        send();
+      }
+      chunk[count++] = (byte)b;
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) throws IOException {
+      while (len > 0) {
+        if (count == chunk.length) {
+          send();
+        }
+
+        int n = Math.min(len, chunk.length - count);
+        System.arraycopy(b, off, chunk, count, n);
+        count += n;
+        off += n;
+        len -= n;
+      }
+    }
+
+    /**
+     * Chunks are only handed over when full or on close, so flushing keeps 
+     * compression effective.
+     */
+    @Override
+    public void flush() throws IOException {
+      check();
+    }
+
+    @Override
+    public void close() throws IOException {
+      if (closed) {
+        return;
+      }
+      closed = true;
+
+      if (count > 0) {
+        send();
+      }
+      put(END);
+
+      try {
+        worker.join();
+      } catch (InterruptedException ex) {
+        Thread.currentThread().interrupt();
+        throw new InterruptedIOException("Compression interrupted");
+      }
+      check();
+    }
+
+    private void send() throws IOException {
+      byte[] full = chunk;
+
+      if (count < full.length) {
+        full = new byte[count];
+        System.arraycopy(chunk, 0, full, 0, count);
+      } else {
+        chunk = new byte[CHUNK_SIZE];
+      }
+      put(full);
+      count = 0;
+    }
+
+    private void put(byte[] data) throws IOException {
+      check();
+
+      try {
+        while (!chunks.offer(data, 100, TimeUnit.MILLISECONDS)) {
+          check();
+        }
+      } catch (InterruptedException ex) {
+        Thread.currentThread().interrupt();
+        throw new InterruptedIOException("Compression interrupted");
+      }
+    }
+
+    private void check() throws IOException {
+      if (failure != null) {
+        throw failure;
+      }
+    }
+  }
+}
@@ -19,14 +19,11 @@
 
 package gov.nasa.jpf.autodoc.types.output;
 
-import gov.nasa.jpf.autodoc.types.info.CollectedInfo;
 import gov.nasa.jpf.autodoc.types.info.ModelClassInfo;
 import gov.nasa.jpf.autodoc.types.info.NativePeerInfo;
 import gov.nasa.jpf.autodoc.types.info.SubtypeInfo;
-import java.io.FileNotFoundException;
-import java.io.FileOutputStream;
+import java.io.IOException;
 import java.io.PrintWriter;
-import java.util.Map;
 import java.util.Set;
 
 /**
@@ -36,8 +33,15 @@ import java.util.Set;
  */
 public class GoogleWikiWriter extends TextualWriter implements Writer {
 
-  public GoogleWikiWriter(String filename) throws FileNotFoundException {
-    super(new PrintWriter(new FileOutputStream(filename), true));
+  public GoogleWikiWriter(String filename) throws IOException {
+    super(openFile(filename));
+  }
+
+  /**
+   * Create a writer to a given stream, e.g. to render in memory.
+   */
+  public GoogleWikiWriter(PrintWriter pw) {
+    super(pw);
   }
 
   @Override
@@ -54,54 +58,63 @@ public class GoogleWikiWriter extends TextualWriter implements Writer {
   }
 
   @Override
-  public void writeDetailedInfo(CollectedInfo info) {
-    writeMinorSeparator("Types");
-
-    for (Map.Entry<String, SubtypeInfo> e : info.getSubtypes().entrySet()) {
-      writeln("==" + e.getKey() + "==");
-      writeColoredType(e.getValue().getType());
-      detail("location", "`" + e.getValue().getInfo().getLocation() + "`");
-      detail("project", "_" + e.getValue().getInfo().getProject() + "_");
-      detail("layer", e.getValue().getInfo().getLayer());
-      detail("flags", "`" + Integer.toString(e.getValue().getInfo().getFlags()) + "`");
-      writeCollection("ancestors", e.getValue().getAncestors());
-      writeCollection("interfaces", e.getValue().getInfo().getInterfaces());
-      writeCollection("implemented-methods", e.getValue().getSuperMethods());
-      writeCollection("own-methods", e.getValue().getInfo().getMethods());
-      writeln();
+  public void startSection(Section section) {
+    switch (section) {
+      case SUBTYPES:
+        writeMinorSeparator("Types");
+        break;
+      case MODELS:
+        writeMinorSeparator("Model classes");
+        break;
+      case PEERS:
+        writeMinorSeparator("Native peers");
+        break;
     }
+  }
 
-    writeMinorSeparator("Model classes");
-
-    for (Map.Entry<String, ModelClassInfo> e : info.getModels().entrySet()) {
-      writeln("==" + e.getKey() + "==");
-      writeColoredType("ModelClass");
-      detail("model", "`" + e.getValue().getStdName() + "`");
-      detail("location", "`" + e.getValue().getInfo().getLocation() + "`");
-      detail("project", "_" + e.getValue().getInfo().getProject() + "_");
-      detail("layer", e.getValue().getInfo().getLayer());
-      detail("flags", "`" + Integer.toString(e.getValue().getInfo().getFlags()) + "`");
-      writeCollection("interfaces", e.getValue().getInfo().getInterfaces());
-      writeCollection("modelled-methods", e.getValue().getStdMethods());
-      writeCollection("own-methods", e.getValue().getInfo().getMethods());
-      writeln();
-    }
+  @Override
+  public void writeSubtype(int idx, String name, SubtypeInfo subtype) {
+    writeln("==" + name + "==");
+    writeColoredType(subtype.getType());
+    detail("location", "`" + subtype.getInfo().getLocation() + "`");
+    detail("project", "_" + subtype.getInfo().getProject() + "_");
+    detail("layer", subtype.getInfo().getLayer());
+    detail("flags", "`" + Integer.toString(subtype.getInfo().getFlags()) + "`");
+    writeCollection("ancestors", subtype.getAncestors());
+    writeCollection("interfaces", subtype.getInfo().getInterfaces());
+    writeCollection("implemented-methods", subtype.getSuperMethods());
+    writeCollection("own-methods", subtype.getInfo().getMethods());
+    writeln();
+  }
 
-    writeMinorSeparator("Native peers");
-
-    for (Map.Entry<String, NativePeerInfo> e : info.getPeers().entrySet()) {
-      writeln("==" + e.getKey() + "==");
-      writeColoredType("NativePeer");
-      detail("model", "`" + e.getValue().getModelName() + "`");
-      detail("location", "`" + e.getValue().getInfo().getLocation() + "`");
-      detail("project", "_" + e.getValue().getInfo().getProject() + "_");
-      detail("layer", e.getValue().getInfo().getLayer());
-      detail("flags", "`" + Integer.toString(e.getValue().getInfo().getFlags()) + "`");
-      writeCollection("interfaces", e.getValue().getInfo().getInterfaces());
-      writeCollection("intercepted-methods", e.getValue().getModelMethods());
-      writeCollection("own-methods", e.getValue().getInfo().getMethods());
-      writeln();
-    }
+  @Override
+  public void writeModel(int idx, String name, ModelClassInfo model) {
+    writeln("==" + name + "==");
+    writeColoredType("ModelClass");
+    detail("model", "`" + model.getStdName() + "`");
+    detail("location", "`" + model.getInfo().getLocation() + "`");
+    detail("project", "_" + model.getInfo().getProject() + "_");
+    detail("layer", model.getInfo().getLayer());
+    detail("flags", "`" + Integer.toString(model.getInfo().getFlags()) + "`");
+    writeCollection("interfaces", model.getInfo().getInterfaces());
+    writeCollection("modelled-methods", model.getStdMethods());
+    writeCollection("own-methods", model.getInfo().getMethods());
+    writeln();
+  }
+
+  @Override
+  public void writePeer(int idx, String name, NativePeerInfo peer) {
+    writeln("==" + name + "==");
+    writeColoredType("NativePeer");
+    detail("model", "`" + peer.getModelName() + "`");
+    detail("location", "`" + peer.getInfo().getLocation() + "`");
+    detail("project", "_" + peer.getInfo().getProject() + "_");
+    detail("layer", peer.getInfo().getLayer());
+    detail("flags", "`" + Integer.toString(peer.getInfo().getFlags()) + "`");
+    writeCollection("interfaces", peer.getInfo().getInterfaces());
+    writeCollection("intercepted-methods", peer.getModelMethods());
+    writeCollection("own-methods", peer.getInfo().getMethods());
+    writeln();
   }
 
   public void writeColoredType(String type) {
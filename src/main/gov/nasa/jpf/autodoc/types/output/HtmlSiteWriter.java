@@ -0,0 +1,638 @@
+//
+// Copyright (C) 2014 United States Government as represented by the
+// Administrator of the National Aeronautics and Space Administration
+// (NASA).  All Rights Reserved.
+//
+// This software is distributed under the NASA Open Source Agreement
+// (NOSA), version 1.3.  The NOSA has been approved by the Open Source
+// Initiative.  See the file NOSA-1.3-JPF at the top of the distribution
+// directory tree for the complete NOSA document.
+//
+// THE SUBJECT SOFTWARE IS PROVIDED "AS IS" WITHOUT ANY WARRANTY OF ANY
+// KIND, EITHER EXPRESSED, IMPLIED, OR STATUTORY, INCLUDING, BUT NOT
+// LIMITED TO, ANY WARRANTY THAT THE SUBJECT SOFTWARE WILL CONFORM TO
+// SPECIFICATIONS, ANY IMPLIED WARRANTIES OF MERCHANTABILITY, FITNESS FOR
+// A PARTICULAR PURPOSE, OR FREEDOM FROM INFRINGEMENT, ANY WARRANTY THAT
+// THE SUBJECT SOFTWARE WILL BE ERROR FREE, OR ANY WARRANTY THAT
+// DOCUMENTATION, IF PROVIDED, WILL CONFORM TO THE SUBJECT SOFTWARE.
+//
+
+package gov.nasa.jpf.autodoc.types.output;
+
+import gov.nasa.jpf.autodoc.types.NameUtils;
+import gov.nasa.jpf.autodoc.types.info.ClassInfo;
+import gov.nasa.jpf.autodoc.types.info.CollectedInfo;
+import gov.nasa.jpf.autodoc.types.info.JPFInfo;
+import gov.nasa.jpf.autodoc.types.info.ModelClassInfo;
+import gov.nasa.jpf.autodoc.types.info.NativePeerInfo;
+import gov.nasa.jpf.autodoc.types.info.SubtypeInfo;
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Writer of collected info as a static HTML site: an index page, a page per 
+ * project and per component type, and a page per subtype, model class and 
+ * native peer, linked by ancestors, subclasses and model/peer relations.
+ * <p>
+ * Pages are rendered on a pool of worker threads. The hash of each page is 
+ * kept in a manifest in the site folder, so on later runs only pages whose 
+ * content changed are written again and pages of vanished components are 
+ * removed.
+ * 
+ * @author Carlos Uribe
+ */
+public class HtmlSiteWriter {
+
+  /** File listing the hash of each page of a site. */
+  public static final String MANIFEST = ".pages";
+
+  private static final String SUBTYPES = "subtypes";
+  private static final String MODELS = "models";
+  private static final String PEERS = "peers";
+
+  private final File dir;
+  private int threads = 1;
+  private int pages;
+  private int written;
+
+  //--- read-only while rendering
+  private CollectedInfo info;
+  private Map<String, Set<String>> subclasses;
+  private Map<String, Set<String>> peersOf;
+
+  public HtmlSiteWriter(File dir) {
+    this.dir = dir;
+  }
+
+  public File getDir() {
+    return dir;
+  }
+
+  public int getThreads() {
+    return threads;
+  }
+
+  /**
+   * Set the number of worker threads to render pages. A value lower than 1 
+   * means one thread per available processor.
+   */
+  public void setThreads(int threads) {
+    if (threads < 1) {
+      this.threads = Runtime.getRuntime().availableProcessors();
+    } else {
+      this.threads = threads;
+    }
+  }
+
+  /**
+   * Get the number of pages of the last site written.
+   */
+  public int getPageCount() {
+    return pages;
+  }
+
+  /**
+   * Get the number of pages actually written in the last run, those new or 
+   * whose content changed.
+   */
+  public int getWrittenCount() {
+    return written;
+  }
+
+  /**
+   * Write the site of collected info, replacing only changed pages.
+   */
+  public void write(CollectedInfo info) throws IOException {
+    this.info = info;
+    subclasses = new HashMap<String, Set<String>>();
+    peersOf = new HashMap<String, Set<String>>();
+
+    for (SubtypeInfo subtype : info.getSubtypes().values()) {
+      relate(subclasses, subtype.getInfo().getSuperName(), 
+             subtype.getInfo().getName());
+    }
+
+    for (NativePeerInfo peer : info.getPeers().values()) {
+      relate(peersOf, peer.getModelName(), peer.getInfo().getName());
+    }
+
+    new File(dir, SUBTYPES).mkdirs();
+    new File(dir, MODELS).mkdirs();
+    new File(dir, PEERS).mkdirs();
+
+    final Map<String, String> old = readManifest();
+    final Map<String, String> hashes = new ConcurrentHashMap<String, String>();
+    List<Callable<Boolean>> tasks = new ArrayList<Callable<Boolean>>();
+
+    for (final Map.Entry<String, Page> e : listPages().entrySet()) {
+      tasks.add(new Callable<Boolean>() {
+        @Override
+        public Boolean call() throws IOException {
+          return writePage(e.getKey(), e.getValue(), old, hashes);
+        }
+      });
+    }
+
+    ExecutorService pool = Executors.newFixedThreadPool(threads);
+    written = 0;
+
+    try {
+      for (Future<Boolean> result : pool.invokeAll(tasks)) {
+        if (result.get()) {
+          ++written;
+        }
+      }
+    } catch (InterruptedException ex) {
+      Thread.currentThread().interrupt();
+      throw new IOException("Site writing interrupted", ex);
+    } catch (ExecutionException ex) {
+      if (ex.getCause() instanceof IOException) {
+        throw (IOException)ex.getCause();
+      }
+      throw new RuntimeException(ex.getCause());
+    } finally {
+      pool.shutdown();
+    }
+
+    for (String page : old.keySet()) {
+      File file = new File(dir, page);
+
+      //--- the manifest may be edited, never delete out of the site.
+      if (!hashes.containsKey(page) && isInSite(file)) {
+        file.delete();
+      }
+    }
+
+    pages = hashes.size();
+    writeManifest(hashes);
+    this.info = null;
+  }
+
+  /**
+   * Content of a page, rendered by a worker.
+   */
+  private interface Page {
+    void render(PrintWriter pw);
+  }
+
+  /**
+   * Map every page of the site to its renderer, by path in the site.
+   */
+  private Map<String, Page> listPages() {
+    Map<String, Page> site = new TreeMap<String, Page>();
+    final Map<String, Map<String, JPFInfo>> projects = 
+            new TreeMap<String, Map<String, JPFInfo>>();
+    final Map<String, Map<String, JPFInfo>> categories = 
+            new TreeMap<String, Map<String, JPFInfo>>();
+
+    addPages(site, SUBTYPES, info.getSubtypes(), projects, categories);
+    addPages(site, MODELS, info.getModels(), projects, categories);
+    addPages(site, PEERS, info.getPeers(), projects, categories);
+
+    for (final Map.Entry<String, Map<String, JPFInfo>> e 
+         : projects.entrySet()) {
+      site.put(projectPage(e.getKey()), new Page() {
+        @Override
+        public void render(PrintWriter pw) {
+          renderList(pw, "Project " + label(e.getKey()), e.getValue());
+        }
+      });
+    }
+
+    for (final Map.Entry<String, Map<String, JPFInfo>> e 
+         : categories.entrySet()) {
+      site.put(categoryPage(e.getKey()), new Page() {
+        @Override
+        public void render(PrintWriter pw) {
+          renderList(pw, "Type " + label(e.getKey()), e.getValue());
+        }
+      });
+    }
+
+    site.put("index.html", new Page() {
+      @Override
+      public void render(PrintWriter pw) {
+        renderIndex(pw, projects, categories);
+      }
+    });
+    return site;
+  }
+
+  private void addPages(Map<String, Page> site, String folder, 
+          Map<String, ? extends JPFInfo> components, 
+          Map<String, Map<String, JPFInfo>> projects, 
+          Map<String, Map<String, JPFInfo>> categories) {
+    for (final Map.Entry<String, ? extends JPFInfo> e 
+         : components.entrySet()) {
+      final JPFInfo component = e.getValue();
+      String page = componentPage(folder, e.getKey());
+
+      site.put(page, new Page() {
+        @Override
+        public void render(PrintWriter pw) {
+          renderComponent(pw, e.getKey(), component);
+        }
+      });
+      group(projects, component.getInfo().getProject(), page, component);
+      group(categories, component.getType(), page, component);
+    }
+  }
+
+  /**
+   * Add a component to a group, by its page since a class may be more than 
+   * one kind of component.
+   */
+  private static void group(Map<String, Map<String, JPFInfo>> groups, 
+          String group, String page, JPFInfo component) {
+    String key = (group == null) ? "" : group;
+    Map<String, JPFInfo> members = groups.get(key);
+
+    if (members == null) {
+      members = new TreeMap<String, JPFInfo>();
+      groups.put(key, members);
+    }
+    members.put(page, component);
+  }
+
+  private static void relate(Map<String, Set<String>> relations, String from, 
+          String to) {
+    if (from == null) {
+      return;
+    }
+
+    Set<String> related = relations.get(from);
+
+    if (related == null) {
+      related = new TreeSet<String>();
+      relations.put(from, related);
+    }
+    related.add(to);
+  }
+
+  /**
+   * Render a page and write it if its hash is not the one of the last run 
+   * or the file is missing.
+   * 
+   * @return whether the page was written.
+   */
+  private boolean writePage(String path, Page page, Map<String, String> old, 
+          Map<String, String> hashes) throws IOException {
+    StringWriter str = new StringWriter();
+    PrintWriter pw = new PrintWriter(str);
+    page.render(pw);
+    pw.flush();
+
+    byte[] content = str.toString().getBytes("UTF-8");
+    String hash = hash(content);
+    File file = new File(dir, path);
+    hashes.put(path, hash);
+
+    if (hash.equals(old.get(path)) && file.isFile()) {
+      return false;
+    }
+
+    OutputStream out = new FileOutputStream(file);
+
+    try {
+      out.write(content);
+    } finally {
+      out.close();
+    }
+    return true;
+  }
+
+  private static String hash(byte[] content) {
+    try {
+      MessageDigest md = MessageDigest.getInstance("SHA-1");
+      StringBuilder hex = new StringBuilder();
+
+      for (byte b : md.digest(content)) {
+        hex.append(Character.forDigit((b >> 4) & 0xF, 16));
+        hex.append(Character.forDigit(b & 0xF, 16));
+      }
+      return hex.toString();
+    } catch (NoSuchAlgorithmException ex) {
+      throw new IllegalStateException(ex);
+    }
+  }
+
+  /**
+   * Check if a file resolves to a path inside the site folder.
+   */
+  private boolean isInSite(File file) throws IOException {
+    String site = dir.getCanonicalPath() + File.separator;
+    return file.getCanonicalPath().startsWith(site);
+  }
+
+  private Map<String, String> readManifest() throws IOException {
+    Map<String, String> hashes = new HashMap<String, String>();
+    File file = new File(dir, MANIFEST);
+
+    if (!file.isFile()) {
+      return hashes;
+    }
+
+    BufferedReader reader = new BufferedReader(new InputStreamReader(
+            new FileInputStream(file), "UTF-8"));
+
+    try {
+      for (String line = reader.readLine(); line != null; 
+           line = reader.readLine()) {
+        int sep = line.indexOf(' ');
+
+        if (sep > 0) {
+          hashes.put(line.substring(sep + 1), line.substring(0, sep));
+        }
+      }
+    } finally {
+      reader.close();
+    }
+    return hashes;
+  }
+
+  private void writeManifest(Map<String, String> hashes) throws IOException {
+    PrintWriter pw = new PrintWriter(new OutputStreamWriter(
+            new FileOutputStream(new File(dir, MANIFEST)), "UTF-8"));
+
+    try {
+      for (Map.Entry<String, String> e 
+           : new TreeMap<String, String>(hashes).entrySet()) {
+        pw.print(e.getValue());
+        pw.print(' ');
+        pw.print(e.getKey());
+        pw.print('\n');
+      }
+    } finally {
+      pw.close();
+    }
+  }
+
+  //--- rendering
+
+  private void renderIndex(PrintWriter pw, 
+          Map<String, Map<String, JPFInfo>> projects, 
+          Map<String, Map<String, JPFInfo>> categories) {
+    startPage(pw, "JPF components");
+    pw.println("<p>" + info.getSubtypes().size() + " types, " 
+               + info.getModels().size() + " model classes, " 
+               + info.getPeers().size() + " native peers.</p>");
+    pw.println("<h2>Projects</h2>");
+    pw.println("<ul>");
+
+    for (Map.Entry<String, Map<String, JPFInfo>> e : projects.entrySet()) {
+      pw.println("<li><a href=\"" + projectPage(e.getKey()) + "\">" 
+                 + escape(label(e.getKey())) + "</a> (" 
+                 + e.getValue().size() + ")</li>");
+    }
+    pw.println("</ul>");
+    pw.println("<h2>Types</h2>");
+    pw.println("<ul>");
+
+    for (Map.Entry<String, Map<String, JPFInfo>> e : categories.entrySet()) {
+      pw.println("<li><a href=\"" + categoryPage(e.getKey()) + "\">" 
+                 + escape(label(e.getKey())) + "</a> (" 
+                 + e.getValue().size() + ")</li>");
+    }
+    pw.println("</ul>");
+    endPage(pw);
+  }
+
+  private void renderList(PrintWriter pw, String title, 
+          Map<String, JPFInfo> components) {
+    startPage(pw, title);
+    pw.println("<p><a href=\"index.html\">index</a></p>");
+    pw.println("<table>");
+    pw.println("<tr><th>class</th><th>type</th><th>project</th></tr>");
+
+    for (Map.Entry<String, JPFInfo> e : components.entrySet()) {
+      pw.println("<tr><td><a href=\"" + e.getKey() + "\"><code>" 
+                 + escape(NameUtils.normalizeName(
+                          e.getValue().getInfo().getName())) 
+                 + "</code></a></td><td>" 
+                 + escape(e.getValue().getType()) + "</td><td>" 
+                 + escape(e.getValue().getInfo().getProject()) 
+                 + "</td></tr>");
+    }
+    pw.println("</table>");
+    endPage(pw);
+  }
+
+  private void renderComponent(PrintWriter pw, String name, 
+          JPFInfo component) {
+    ClassInfo cls = component.getInfo();
+    startPage(pw, NameUtils.normalizeName(name));
+    pw.println("<p><a href=\"../index.html\">index</a> | <a href=\"../" 
+               + projectPage(cls.getProject()) + "\">project " 
+               + escape(label(cls.getProject())) + "</a> | <a href=\"../" 
+               + categoryPage(component.getType()) + "\">type " 
+               + escape(label(component.getType())) + "</a></p>");
+    pw.println("<dl>");
+    detail(pw, "type", component.getType());
+    detail(pw, "super", cls.getSuperName(), "../");
+
+    if (component instanceof ModelClassInfo) {
+      detail(pw, "model", ((ModelClassInfo)component).getStdName());
+    } else if (component instanceof NativePeerInfo) {
+      detail(pw, "model", ((NativePeerInfo)component).getModelName(), "../");
+    }
+    detail(pw, "location", cls.getLocation());
+    detail(pw, "project", cls.getProject());
+    detail(pw, "layer", cls.getLayer());
+    detail(pw, "flags", Integer.toString(cls.getFlags()));
+    pw.println("</dl>");
+
+    if (component instanceof SubtypeInfo) {
+      SubtypeInfo subtype = (SubtypeInfo)component;
+      writeLinks(pw, "ancestors", subtype.getAncestors());
+      writeLinks(pw, "subclasses", subclasses.get(name));
+      writeCollection(pw, "interfaces", cls.getInterfaces());
+      writeCollection(pw, "implemented-methods", subtype.getSuperMethods());
+    } else if (component instanceof ModelClassInfo) {
+      writeLinks(pw, "native-peers", peersOf.get(name));
+      writeCollection(pw, "interfaces", cls.getInterfaces());
+      writeCollection(pw, "modelled-methods", 
+                      ((ModelClassInfo)component).getStdMethods());
+    } else if (component instanceof NativePeerInfo) {
+      writeCollection(pw, "interfaces", cls.getInterfaces());
+      writeCollection(pw, "intercepted-methods", 
+                      ((NativePeerInfo)component).getModelMethods());
+    }
+    writeCollection(pw, "own-methods", cls.getMethods());
+    endPage(pw);
+  }
+
+  private static void startPage(PrintWriter pw, String title) {
+    pw.println("<!DOCTYPE html>");
+    pw.println("<html>");
+    pw.println("<head>");
+    pw.println("<meta charset=\"UTF-8\">");
+    pw.println("<title>" + escape(title) + "</title>");
+    pw.println("</head>");
+    pw.println("<body>");
+    pw.println("<h1>" + escape(title) + "</h1>");
+  }
+
+  private static void endPage(PrintWriter pw) {
+    pw.println("</body>");
+    pw.println("</html>");
+  }
+
+  private void detail(PrintWriter pw, String name, String value) {
+    if (value != null && !value.isEmpty()) {
+      pw.println("<dt>" + name + "</dt><dd><code>" + escape(value) 
+                 + "</code></dd>");
+    }
+  }
+
+  private void detail(PrintWriter pw, String name, String cls, String root) {
+    if (cls != null && !cls.isEmpty()) {
+      pw.println("<dt>" + name + "</dt><dd>" + link(cls, root) + "</dd>");
+    }
+  }
+
+  private void writeLinks(PrintWriter pw, String name, Set<String> classes) {
+    if (classes == null || classes.isEmpty()) {
+      return;
+    }
+
+    pw.println("<h2>" + name + "</h2>");
+    pw.println("<ul>");
+
+    for (String cls : classes) {
+      pw.println("<li>" + link(cls, "../") + "</li>");
+    }
+    pw.println("</ul>");
+  }
+
+  private static void writeCollection(PrintWriter pw, String name, 
+          Set<String> set) {
+    if (set == null || set.isEmpty()) {
+      return;
+    }
+
+    pw.println("<h2>" + name + "</h2>");
+    pw.println("<ol>");
+
+    for (String e : set) {
+      pw.println("<li><code>" + escape(e) + "</code></li>");
+    }
+    pw.println("</ol>");
+  }
+
+  /**
+   * Link a class to its page, if it is a component. 
+   */
+  private String link(String cls, String root) {
+    String folder = null;
+
+    if (info.isSubtype(cls)) {
+      folder = SUBTYPES;
+    } else if (info.isModel(cls)) {
+      folder = MODELS;
+    } else if (info.isPeer(cls)) {
+      folder = PEERS;
+    }
+
+    String text = "<code>" + escape(NameUtils.normalizeName(cls)) + "</code>";
+
+    if (folder == null) {
+      return text;
+    }
+    return "<a href=\"" + root + componentPage(folder, cls) + "\">" + text 
+           + "</a>";
+  }
+
+  private static String componentPage(String folder, String cls) {
+    return folder + "/" + fileName(NameUtils.normalizeName(cls)) + ".html";
+  }
+
+  private static String projectPage(String project) {
+    return "project-" + fileName(project) + ".html";
+  }
+
+  private static String categoryPage(String type) {
+    return "type-" + fileName(type) + ".html";
+  }
+
+  private static String label(String group) {
+    return (group == null || group.isEmpty()) ? "(none)" : group;
+  }
+
+  /**
+   * Get a portable file name, with characters other than letters, digits, 
+   * dots, hyphens and dollars replaced by <code>~</code> and their code in 
+   * hex, so distinct names never share a file.
+   */
+  static String fileName(String name) {
+    if (name == null || name.isEmpty()) {
+      return "~";
+    }
+
+    StringBuilder str = new StringBuilder(name.length());
+
+    for (int i = 0; i < name.length(); ++i) {
+      char c = name.charAt(i);
+
+      if ((c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') 
+          || (c >= '0' && c <= '9') || c == '.' || c == '-' || c == '$') {
+        str.append(c);
+      } else {
+        str.append('~').append(String.format("%04x", (int)c));
+      }
+    }
+    return str.toString();
+  }
+
+  private static String escape(String text) {
+    if (text == null) {
+      return "";
+    }
+
+    StringBuilder str = new StringBuilder(text.length());
+
+    for (int i = 0; i < text.length(); ++i) {
+      char c = text.charAt(i);
+
+      switch (c) {
+        case '&':
+          str.append("&amp;");
+          break;
+        case '<':
+          str.append("&lt;");
+          break;
+        case '>':
+          str.append("&gt;");
+          break;
+        case '"':
+          str.append("&quot;");
+          break;
+        default:
+          str.append(c);
+      }
+    }
+    return str.toString();
+  }
+}
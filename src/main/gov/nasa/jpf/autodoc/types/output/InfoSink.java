@@ -0,0 +1,54 @@
+//
+// Copyright (C) 2014 United States Government as represented by the
+// Administrator of the National Aeronautics and Space Administration
+// (NASA).  All Rights Reserved.
+//
+// This software is distributed under the NASA Open Source Agreement
+// (NOSA), version 1.3.  The NOSA has been approved by the Open Source
+// Initiative.  See the file NOSA-1.3-JPF at the top of the distribution
+// directory tree for the complete NOSA document.
+//
+// THE SUBJECT SOFTWARE IS PROVIDED "AS IS" WITHOUT ANY WARRANTY OF ANY
+// KIND, EITHER EXPRESSED, IMPLIED, OR STATUTORY, INCLUDING, BUT NOT
+// LIMITED TO, ANY WARRANTY THAT THE SUBJECT SOFTWARE WILL CONFORM TO
+// SPECIFICATIONS, ANY IMPLIED WARRANTIES OF MERCHANTABILITY, FITNESS FOR
+// A PARTICULAR PURPOSE, OR FREEDOM FROM INFRINGEMENT, ANY WARRANTY THAT
+// THE SUBJECT SOFTWARE WILL BE ERROR FREE, OR ANY WARRANTY THAT
+// DOCUMENTATION, IF PROVIDED, WILL CONFORM TO THE SUBJECT SOFTWARE.
+//
+
+package gov.nasa.jpf.autodoc.types.output;
+
+import gov.nasa.jpf.autodoc.types.info.ModelClassInfo;
+import gov.nasa.jpf.autodoc.types.info.NativePeerInfo;
+import gov.nasa.jpf.autodoc.types.info.SubtypeInfo;
+
+/**
+ * Receiver of the components of collected info, one event per component. 
+ * Sections come in order: subtypes, model classes and native peers, and each 
+ * is started even if it has no components.
+ * 
+ * @author Carlos Uribe
+ */
+public interface InfoSink {
+
+  public enum Section {
+    SUBTYPES, MODELS, PEERS
+  }
+
+  public void startSection(Section section);
+
+  /**
+   * @param idx Position of the subtype in its section.
+   */
+  public void writeSubtype(int idx, String name, SubtypeInfo subtype);
+
+  public void writeModel(int idx, String name, ModelClassInfo model);
+
+  public void writePeer(int idx, String name, NativePeerInfo peer);
+
+  /**
+   * Called after the last section, so buffered output can be flushed.
+   */
+  public void endInfo();
+}
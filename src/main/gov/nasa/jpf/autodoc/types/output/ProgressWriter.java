@@ -0,0 +1,148 @@
+//
+// Copyright (C) 2014 United States Government as represented by the
+// Administrator of the National Aeronautics and Space Administration
+// (NASA).  All Rights Reserved.
+//
+// This software is distributed under the NASA Open Source Agreement
+// (NOSA), version 1.3.  The NOSA has been approved by the Open Source
+// Initiative.  See the file NOSA-1.3-JPF at the top of the distribution
+// directory tree for the complete NOSA document.
+//
+// THE SUBJECT SOFTWARE IS PROVIDED "AS IS" WITHOUT ANY WARRANTY OF ANY
+// KIND, EITHER EXPRESSED, IMPLIED, OR STATUTORY, INCLUDING, BUT NOT
+// LIMITED TO, ANY WARRANTY THAT THE SUBJECT SOFTWARE WILL CONFORM TO
+// SPECIFICATIONS, ANY IMPLIED WARRANTIES OF MERCHANTABILITY, FITNESS FOR
+// A PARTICULAR PURPOSE, OR FREEDOM FROM INFRINGEMENT, ANY WARRANTY THAT
+// THE SUBJECT SOFTWARE WILL BE ERROR FREE, OR ANY WARRANTY THAT
+// DOCUMENTATION, IF PROVIDED, WILL CONFORM TO THE SUBJECT SOFTWARE.
+//
+
+package gov.nasa.jpf.autodoc.types.output;
+
+import gov.nasa.jpf.autodoc.types.analyzer.AnalysisListener;
+import gov.nasa.jpf.autodoc.types.info.JPFInfo;
+import gov.nasa.jpf.autodoc.types.info.SubtypeInfo;
+import java.io.IOException;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+
+/**
+ * Listener that writes each component as soon as analyses find it: a NDJSON 
+ * line flushed to a file and, optionally, a line to a textual writer. If the 
+ * run fails, components found until then are kept in the file. Lines come in 
+ * the order components are found, so the file is meant to be replaced by the 
+ * sorted output once analyses are done.
+ * <p>
+ * Components are queued and written by a worker thread, so analyses notifying
+ * them don't wait for the disk. The queue is unbounded, but components are 
+ * held by collected info anyway. <code>close</code> waits until all of them 
+ * are written.
+ * <p>
+ * I/O errors do not stop analyses: the first one is kept and nothing else is
+ * written to the file.
+ * 
+ * @author Carlos Uribe
+ */
+public class ProgressWriter implements AnalysisListener, Runnable {
+
+  private static final JPFInfo END = new SubtypeInfo();
+
+  private final StreamingJSONWriter json;
+  private final Writer text;
+  private final BlockingQueue<JPFInfo> found = 
+          new LinkedBlockingQueue<JPFInfo>();
+  private final Thread worker;
+  private volatile IOException error;
+  private volatile int count = 0;
+  private boolean closed = false;
+
+  /**
+   * Create the writer and start its worker.
+   * 
+   * @param json NDJSON writer.
+   * @param text Writer to report components or <code>null</code>.
+   */
+  public ProgressWriter(StreamingJSONWriter json, Writer text) {
+    this.json = json;
+    this.text = text;
+    worker = new Thread(this, "progress");
+    worker.setDaemon(true);
+    worker.start();
+  }
+
+  /**
+   * Queue a component to be written. Listeners are notified one at a time, 
+   * so only one thread updates the count.
+   */
+  @Override
+  public void componentFound(JPFInfo component) {
+    ++count;
+    found.add(component);
+  }
+
+  @Override
+  public void run() {
+    try {
+      for (JPFInfo component = found.take(); component != END; 
+           component = found.take()) {
+        write(component);
+      }
+    } catch (InterruptedException ex) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  private void write(JPFInfo component) {
+    if (text != null) {
+      text.writeParam("found " + component.getType(), 
+                      component.getInfo().getName());
+    }
+
+    if (error == null) {
+      try {
+        json.writeLine(component);
+      } catch (IOException ex) {
+        error = ex;
+      }
+    }
+  }
+
+  /**
+   * Get the number of components found so far.
+   */
+  public int getCount() {
+    return count;
+  }
+
+  /**
+   * @return first I/O error or <code>null</code> if all lines were written.
+   */
+  public IOException getError() {
+    return error;
+  }
+
+  /**
+   * Wait for the worker to write all queued components and close the file.
+   */
+  public synchronized void close() throws IOException {
+    if (closed) {
+      return;
+    }
+    closed = true;
+    found.add(END);
+    boolean interrupted = false;
+
+    while (worker.isAlive()) {
+      try {
+        worker.join();
+      } catch (InterruptedException ex) {
+        interrupted = true;
+      }
+    }
+
+    if (interrupted) {
+      Thread.currentThread().interrupt();
+    }
+    json.close();
+  }
+}
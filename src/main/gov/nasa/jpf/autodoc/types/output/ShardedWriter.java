@@ -0,0 +1,352 @@
+//
+// Copyright (C) 2014 United States Government as represented by the
+// Administrator of the National Aeronautics and Space Administration
+// (NASA).  All Rights Reserved.
+//
+// This software is distributed under the NASA Open Source Agreement
+// (NOSA), version 1.3.  The NOSA has been approved by the Open Source
+// Initiative.  See the file NOSA-1.3-JPF at the top of the distribution
+// directory tree for the complete NOSA document.
+//
+// THE SUBJECT SOFTWARE IS PROVIDED "AS IS" WITHOUT ANY WARRANTY OF ANY
+// KIND, EITHER EXPRESSED, IMPLIED, OR STATUTORY, INCLUDING, BUT NOT
+// LIMITED TO, ANY WARRANTY THAT THE SUBJECT SOFTWARE WILL CONFORM TO
+// SPECIFICATIONS, ANY IMPLIED WARRANTIES OF MERCHANTABILITY, FITNESS FOR
+// A PARTICULAR PURPOSE, OR FREEDOM FROM INFRINGEMENT, ANY WARRANTY THAT
+// THE SUBJECT SOFTWARE WILL BE ERROR FREE, OR ANY WARRANTY THAT
+// DOCUMENTATION, IF PROVIDED, WILL CONFORM TO THE SUBJECT SOFTWARE.
+//
+
+package gov.nasa.jpf.autodoc.types.output;
+
+import gov.nasa.jpf.autodoc.types.info.CollectedInfo;
+import gov.nasa.jpf.autodoc.types.info.JPFInfo;
+import java.io.BufferedReader;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Writer of collected info split in a file per project or per component 
+ * type, plus an index file listing them. Shards are named after the index, 
+ * e.g. <code>jpf-types-jpf-core.md</code> for <code>jpf-types.md</code>.
+ * <p>
+ * Shards are rendered in memory on a pool of worker threads and a file is 
+ * only written if its content changed, so unchanged shards keep their 
+ * timestamps and don't show up in version control. Shards written are kept
+ * in a manifest next to the index, e.g. <code>.jpf-types.md.shards</code>,
+ * so shards of keys no longer found are deleted on later runs.
+ * 
+ * @author Carlos Uribe
+ */
+public class ShardedWriter {
+
+  public static final String MANIFEST_EXT = ".shards";
+
+  /** Component property files are split by. */
+  public enum Key {
+    PROJECT, TYPE;
+
+    /**
+     * @return key of a name, <code>PROJECT</code> if empty or 
+     *         <code>null</code> if unknown.
+     */
+    public static Key of(String name) {
+      if (name == null || name.trim().isEmpty()) {
+        return PROJECT;
+      }
+
+      for (Key key : values()) {
+        if (key.name().equalsIgnoreCase(name.trim())) {
+          return key;
+        }
+      }
+      return null;
+    }
+
+    String get(JPFInfo component) {
+      String value = (this == PROJECT) 
+                     ? component.getInfo().getProject() : component.getType();
+      return (value == null) ? "" : value;
+    }
+  }
+
+  private final String filename;
+  private final WriterFactory.Format format;
+  private final Key key;
+  private int threads = 1;
+  private int shards;
+  private int written;
+
+  /**
+   * @param filename Name of the index file.
+   */
+  public ShardedWriter(String filename, WriterFactory.Format format, 
+                       Key key) {
+    this.filename = filename;
+    this.format = format;
+    this.key = key;
+  }
+
+  /**
+   * Set the number of worker threads to render shards. A value lower than 1 
+   * means one thread per available processor.
+   */
+  public void setThreads(int threads) {
+    if (threads < 1) {
+      this.threads = Runtime.getRuntime().availableProcessors();
+    } else {
+      this.threads = threads;
+    }
+  }
+
+  /**
+   * Get the number of shards of the last run, without the index.
+   */
+  public int getShardCount() {
+    return shards;
+  }
+
+  /**
+   * Get the number of files actually written in the last run, including the
+   * index.
+   */
+  public int getWrittenCount() {
+    return written;
+  }
+
+  /**
+   * Get the file of a shard. Keys are made portable the way site pages are,
+   * so distinct keys, even empty ones, never share a file.
+   */
+  public String getShardName(String shard) {
+    String name = filename;
+    String ext = "";
+
+    if (FileStreams.isCompressed(name)) {
+      name = name.substring(0, name.length() - FileStreams.GZIP_EXT.length());
+      ext = FileStreams.GZIP_EXT;
+    }
+
+    int dot = name.lastIndexOf('.');
+
+    if (dot > name.lastIndexOf(File.separatorChar) && dot > 0) {
+      ext = name.substring(dot) + ext;
+      name = name.substring(0, dot);
+    }
+    return name + "-" + HtmlSiteWriter.fileName(shard) + ext;
+  }
+
+  /**
+   * Get the manifest listing the shards written, hidden next to the index.
+   */
+  public File getManifest() {
+    File index = new File(filename);
+    return new File(index.getAbsoluteFile().getParentFile(), 
+                    "." + index.getName() + MANIFEST_EXT);
+  }
+
+  /**
+   * Write the shards of collected info and their index, leaving alone files 
+   * whose content is unchanged and deleting shards of the previous run that
+   * are gone.
+   */
+  public void write(CollectedInfo info) throws IOException {
+    final Map<String, CollectedInfo> parts = split(info);
+    Set<String> old = readManifest();
+    Set<String> current = new TreeSet<String>();
+    List<Callable<Boolean>> tasks = new ArrayList<Callable<Boolean>>();
+
+    for (final Map.Entry<String, CollectedInfo> e : parts.entrySet()) {
+      //--- two tasks writing a file at once would lose a shard.
+      if (!current.add(new File(getShardName(e.getKey())).getName())) {
+        throw new IllegalStateException("Shards share a file: " 
+                                        + getShardName(e.getKey()));
+      }
+      tasks.add(new Callable<Boolean>() {
+        @Override
+        public Boolean call() throws IOException {
+          StringWriter str = new StringWriter();
+          Writer writer = WriterFactory.createWriter(format, 
+                                                      new PrintWriter(str));
+          writer.writeDetailedInfo(e.getValue());
+          return update(getShardName(e.getKey()), str.toString());
+        }
+      });
+    }
+
+    ExecutorService pool = Executors.newFixedThreadPool(threads);
+    written = 0;
+
+    try {
+      for (Future<Boolean> result : pool.invokeAll(tasks)) {
+        if (result.get()) {
+          ++written;
+        }
+      }
+    } catch (InterruptedException ex) {
+      Thread.currentThread().interrupt();
+      throw new IOException("Shard writing interrupted", ex);
+    } catch (ExecutionException ex) {
+      if (ex.getCause() instanceof IOException) {
+        throw (IOException)ex.getCause();
+      }
+      throw new RuntimeException(ex.getCause());
+    } finally {
+      pool.shutdown();
+    }
+
+    File dir = getManifest().getParentFile();
+
+    for (String shard : old) {
+      //--- only plain names in the folder, whatever the manifest holds.
+      if (!current.contains(shard) && new File(shard).getName().equals(shard)
+          && !shard.equals("..")) {
+        new File(dir, shard).delete();
+      }
+    }
+
+    shards = parts.size();
+    writeManifest(current);
+
+    if (update(filename, renderIndex(parts))) {
+      ++written;
+    }
+  }
+
+  /**
+   * Split components by key, keeping their order in each shard.
+   */
+  private Map<String, CollectedInfo> split(CollectedInfo info) {
+    Map<String, CollectedInfo> parts = new TreeMap<String, CollectedInfo>();
+
+    for (Map<String, ? extends JPFInfo> components : Arrays.asList(
+         info.getSubtypes(), info.getModels(), info.getPeers())) {
+      for (JPFInfo component : components.values()) {
+        String shard = key.get(component);
+        CollectedInfo part = parts.get(shard);
+
+        if (part == null) {
+          part = new CollectedInfo();
+          parts.put(shard, part);
+        }
+        part.register(component);
+      }
+    }
+    return parts;
+  }
+
+  private Set<String> readManifest() throws IOException {
+    Set<String> names = new TreeSet<String>();
+    File file = getManifest();
+
+    if (!file.isFile()) {
+      return names;
+    }
+
+    BufferedReader reader = new BufferedReader(new InputStreamReader(
+            new FileInputStream(file), "UTF-8"));
+
+    try {
+      for (String line = reader.readLine(); line != null; 
+           line = reader.readLine()) {
+        if (!line.isEmpty()) {
+          names.add(line);
+        }
+      }
+    } finally {
+      reader.close();
+    }
+    return names;
+  }
+
+  private void writeManifest(Set<String> names) throws IOException {
+    PrintWriter pw = new PrintWriter(new OutputStreamWriter(
+            new FileOutputStream(getManifest()), "UTF-8"));
+
+    try {
+      for (String name : names) {
+        pw.print(name);
+        pw.print('\n');
+      }
+    } finally {
+      pw.close();
+    }
+  }
+
+  private String renderIndex(Map<String, CollectedInfo> parts) {
+    StringWriter str = new StringWriter();
+    Writer writer = WriterFactory.createWriter(format, new PrintWriter(str));
+    writer.writeMajorSeparator(key.name().toLowerCase() + " shards");
+
+    for (Map.Entry<String, CollectedInfo> e : parts.entrySet()) {
+      CollectedInfo part = e.getValue();
+      int count = part.getSubtypes().size() + part.getModels().size() 
+                  + part.getPeers().size();
+      writer.writeParam(e.getKey().isEmpty() ? "(none)" : e.getKey(), 
+              new File(getShardName(e.getKey())).getName() + " (" + count 
+              + " components)");
+    }
+    writer.endInfo();
+    return str.toString();
+  }
+
+  /**
+   * Write content to a file unless it already holds the same. Content is 
+   * always encoded in UTF-8, both to compare and to write.
+   * 
+   * @return whether the file was written.
+   */
+  private static boolean update(String file, String content) 
+          throws IOException {
+    byte[] bytes = content.getBytes("UTF-8");
+
+    if (new File(file).isFile() && Arrays.equals(bytes, read(file))) {
+      return false;
+    }
+
+    OutputStream out = FileStreams.openOutput(file);
+
+    try {
+      out.write(bytes);
+    } finally {
+      out.close();
+    }
+    return true;
+  }
+
+  private static byte[] read(String file) throws IOException {
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    InputStream in = FileStreams.openInput(file);
+    byte[] buf = new byte[8192];
+
+    try {
+      for (int n = in.read(buf); n > 0; n = in.read(buf)) {
+        bytes.write(buf, 0, n);
+      }
+    } finally {
+      in.close();
+    }
+    return bytes.toByteArray();
+  }
+}
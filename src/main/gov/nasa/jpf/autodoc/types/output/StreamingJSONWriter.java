@@ -0,0 +1,278 @@
+//
+// Copyright (C) 2014 United States Government as represented by the
+// Administrator of the National Aeronautics and Space Administration
+// (NASA).  All Rights Reserved.
+//
+// This software is distributed under the NASA Open Source Agreement
+// (NOSA), version 1.3.  The NOSA has been approved by the Open Source
+// Initiative.  See the file NOSA-1.3-JPF at the top of the distribution
+// directory tree for the complete NOSA document.
+//
+// THE SUBJECT SOFTWARE IS PROVIDED "AS IS" WITHOUT ANY WARRANTY OF ANY
+// KIND, EITHER EXPRESSED, IMPLIED, OR STATUTORY, INCLUDING, BUT NOT
+// LIMITED TO, ANY WARRANTY THAT THE SUBJECT SOFTWARE WILL CONFORM TO
+// SPECIFICATIONS, ANY IMPLIED WARRANTIES OF MERCHANTABILITY, FITNESS FOR
+// A PARTICULAR PURPOSE, OR FREEDOM FROM INFRINGEMENT, ANY WARRANTY THAT
+// THE SUBJECT SOFTWARE WILL BE ERROR FREE, OR ANY WARRANTY THAT
+// DOCUMENTATION, IF PROVIDED, WILL CONFORM TO THE SUBJECT SOFTWARE.
+//
+
+package gov.nasa.jpf.autodoc.types.output;
+
+import gov.nasa.jpf.autodoc.types.info.ClassInfo;
+import gov.nasa.jpf.autodoc.types.info.CollectedInfo;
+import gov.nasa.jpf.autodoc.types.info.JPFInfo;
+import gov.nasa.jpf.autodoc.types.info.ModelClassInfo;
+import gov.nasa.jpf.autodoc.types.info.NativePeerInfo;
+import gov.nasa.jpf.autodoc.types.info.SubtypeInfo;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Writer of collected info as JSON. Components are written one by one as 
+ * they are walked, so memory use does not grow with their number. Fields are 
+ * named as the elements of the XML output.
+ * <p>
+ * A JSON document holds the arrays <code>subtypes</code>, <code>models</code>
+ * and <code>peers</code>, with a component per line. In NDJSON mode each line 
+ * is a whole document for a single component, which carries its section in a 
+ * <code>kind</code> field, so consumers may process it line by line.
+ * 
+ * @author Carlos Uribe
+ */
+public class StreamingJSONWriter {
+
+  private static final char[] HEX = "0123456789abcdef".toCharArray();
+
+  private final Writer out;
+  private final boolean lines;
+
+  /**
+   * @param out Buffered stream to write to.
+   * @param lines Whether to write NDJSON instead of a JSON document.
+   */
+  public StreamingJSONWriter(Writer out, boolean lines) {
+    this.out = out;
+    this.lines = lines;
+  }
+
+  public boolean isLines() {
+    return lines;
+  }
+
+  /**
+   * Write subtypes, models and peers of collected info.
+   */
+  public void write(CollectedInfo info) throws IOException {
+    if (!lines) {
+      out.write("{\n");
+    }
+
+    writeSection("subtypes", StreamingXMLReader.SUBTYPE, info.getSubtypes(), 
+                 true);
+    writeSection("models", StreamingXMLReader.MODEL, info.getModels(), true);
+    writeSection("peers", StreamingXMLReader.PEER, info.getPeers(), false);
+
+    if (!lines) {
+      out.write("}\n");
+    }
+    out.flush();
+  }
+
+  /**
+   * Write a single component as an NDJSON line and flush it, so it is kept 
+   * even if the process ends before other components are written.
+   * 
+   * @throws IllegalStateException if not writing NDJSON.
+   */
+  public void writeLine(JPFInfo component) throws IOException {
+    if (!lines) {
+      throw new IllegalStateException("Not an NDJSON writer");
+    }
+
+    String kind;
+
+    if (component instanceof SubtypeInfo) {
+      kind = StreamingXMLReader.SUBTYPE;
+    } else if (component instanceof ModelClassInfo) {
+      kind = StreamingXMLReader.MODEL;
+    } else {
+      kind = StreamingXMLReader.PEER;
+    }
+
+    writeComponent(kind, component.getInfo().getName(), component);
+    out.write('\n');
+    out.flush();
+  }
+
+  public void close() throws IOException {
+    out.close();
+  }
+
+  private void writeSection(String name, String kind, 
+          Map<String, ? extends JPFInfo> components, boolean more) 
+          throws IOException {
+    if (!lines) {
+      out.write("\"" + name + "\": [");
+    }
+
+    boolean first = true;
+
+    for (Map.Entry<String, ? extends JPFInfo> e : components.entrySet()) {
+      if (!lines) {
+        out.write(first ? "\n  " : ",\n  ");
+      }
+      writeComponent(kind, e.getKey(), e.getValue());
+
+      if (lines) {
+        out.write('\n');
+      }
+      first = false;
+    }
+
+    if (!lines) {
+      out.write(first ? "]" : "\n]");
+      out.write(more ? ",\n" : "\n");
+    }
+  }
+
+  private void writeComponent(String kind, String key, JPFInfo component) 
+          throws IOException {
+    out.write('{');
+
+    if (lines) {
+      writeField("kind", kind);
+      out.write(',');
+    }
+    writeField("key", key);
+    out.write(',');
+    writeField("type", component.getType());
+
+    if (component instanceof SubtypeInfo) {
+      SubtypeInfo subtype = (SubtypeInfo)component;
+      out.write(',');
+      writeField("ancestors", subtype.getAncestors());
+      out.write(',');
+      writeField("super-methods", subtype.getSuperMethods());
+    } else if (component instanceof ModelClassInfo) {
+      ModelClassInfo model = (ModelClassInfo)component;
+      out.write(',');
+      writeField("std-name", model.getStdName());
+      out.write(',');
+      writeField("std-methods", model.getStdMethods());
+    } else if (component instanceof NativePeerInfo) {
+      NativePeerInfo peer = (NativePeerInfo)component;
+      out.write(',');
+      writeField("model-name", peer.getModelName());
+      out.write(',');
+      writeField("model-methods", peer.getModelMethods());
+    }
+
+    out.write(',');
+    writeString("info");
+    out.write(':');
+    writeClass(component.getInfo());
+    out.write('}');
+  }
+
+  private void writeClass(ClassInfo cls) throws IOException {
+    if (cls == null) {
+      out.write("null");
+      return;
+    }
+
+    out.write('{');
+    writeField("name", cls.getName());
+    out.write(',');
+    writeField("super-name", cls.getSuperName());
+    out.write(",\"flags\":" + cls.getFlags() + ",");
+    writeField("layer", cls.getLayer());
+    out.write(',');
+    writeField("project", cls.getProject());
+    out.write(',');
+    writeField("location", cls.getLocation());
+    out.write(',');
+    writeField("methods", cls.getMethods());
+    out.write(',');
+    writeField("interfaces", cls.getInterfaces());
+    out.write('}');
+  }
+
+  private void writeField(String name, String value) throws IOException {
+    writeString(name);
+    out.write(':');
+    writeString(value);
+  }
+
+  private void writeField(String name, Set<String> values) 
+          throws IOException {
+    writeString(name);
+    out.write(':');
+
+    if (values == null) {
+      out.write("null");
+      return;
+    }
+
+    out.write('[');
+    boolean first = true;
+
+    for (String value : values) {
+      if (!first) {
+        out.write(',');
+      }
+      writeString(value);
+      first = false;
+    }
+    out.write(']');
+  }
+
+  private void writeString(String str) throws IOException {
+    if (str == null) {
+      out.write("null");
+      return;
+    }
+
+    out.write('"');
+    int start = 0;
+
+    for (int i = 0; i < str.length(); ++i) {
+      char c = str.charAt(i);
+
+      if (c >= 0x20 && c != '"' && c != '\\' && c != '\u2028' 
+          && c != '\u2029') {
+        continue;
+      }
+      out.write(str, start, i - start);
+      start = i + 1;
+
+      switch (c) {
+        case '"':
+          out.write("\\\"");
+          break;
+        case '\\':
+          out.write("\\\\");
+          break;
+        case '\n':
+          out.write("\\n");
+          break;
+        case '\r':
+          out.write("\\r");
+          break;
+        case '\t':
+          out.write("\\t");
+          break;
+        default:
+          out.write("\\u");
+          out.write(HEX[(c >> 12) & 0xF]);
+          out.write(HEX[(c >> 8) & 0xF]);
+          out.write(HEX[(c >> 4) & 0xF]);
+          out.write(HEX[c & 0xF]);
+      }
+    }
+    out.write(str, start, str.length() - start);
+    out.write('"');
+  }
+}
@@ -0,0 +1,285 @@
+//
+// Copyright (C) 2014 United States Government as represented by the
+// Administrator of the National Aeronautics and Space Administration
+// (NASA).  All Rights Reserved.
+//
+// This software is distributed under the NASA Open Source Agreement
+// (NOSA), version 1.3.  The NOSA has been approved by the Open Source
+// Initiative.  See the file NOSA-1.3-JPF at the top of the distribution
+// directory tree for the complete NOSA document.
+//
+// THE SUBJECT SOFTWARE IS PROVIDED "AS IS" WITHOUT ANY WARRANTY OF ANY
+// KIND, EITHER EXPRESSED, IMPLIED, OR STATUTORY, INCLUDING, BUT NOT
+// LIMITED TO, ANY WARRANTY THAT THE SUBJECT SOFTWARE WILL CONFORM TO
+// SPECIFICATIONS, ANY IMPLIED WARRANTIES OF MERCHANTABILITY, FITNESS FOR
+// A PARTICULAR PURPOSE, OR FREEDOM FROM INFRINGEMENT, ANY WARRANTY THAT
+// THE SUBJECT SOFTWARE WILL BE ERROR FREE, OR ANY WARRANTY THAT
+// DOCUMENTATION, IF PROVIDED, WILL CONFORM TO THE SUBJECT SOFTWARE.
+//
+
+package gov.nasa.jpf.autodoc.types.output;
+
+import gov.nasa.jpf.autodoc.types.info.ClassInfo;
+import gov.nasa.jpf.autodoc.types.info.CollectedInfo;
+import gov.nasa.jpf.autodoc.types.info.JPFInfo;
+import gov.nasa.jpf.autodoc.types.info.ModelClassInfo;
+import gov.nasa.jpf.autodoc.types.info.NativePeerInfo;
+import gov.nasa.jpf.autodoc.types.info.SubtypeInfo;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Reader;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+
+/**
+ * Pull reader of the <code>jpf-components</code> XML schema written by 
+ * {@link StreamingXMLWriter}. Components are created directly from the 
+ * stream, so no mapping nor reflection is needed. The kind of a component is 
+ * given by its element, hence files written when the info classes were in 
+ * another package are read too.
+ * <p>
+ * Reading may be restricted to some sections (<code>subtype</code>, 
+ * <code>model-class</code>, <code>native-peer</code>) or projects; items of 
+ * other sections are skipped without being built.
+ * 
+ * @author Carlos Uribe
+ */
+public class StreamingXMLReader {
+
+  /** Sections of the schema, named as their elements. */
+  public static final String SUBTYPE = "subtype";
+  public static final String MODEL = "model-class";
+  public static final String PEER = "native-peer";
+
+  private static final XMLInputFactory factory = XMLInputFactory.newInstance();
+
+  static {
+    factory.setProperty(XMLInputFactory.IS_COALESCING, Boolean.TRUE);
+    factory.setProperty(XMLInputFactory.SUPPORT_DTD, Boolean.FALSE);
+    factory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, 
+                        Boolean.FALSE);
+  }
+
+  private Set<String> sections;
+  private Set<String> projects;
+
+  /**
+   * Read only items of the given sections. No section means all of them.
+   */
+  public StreamingXMLReader setSections(String... sections) {
+    this.sections = (sections.length == 0) 
+                    ? null : new HashSet<String>(Arrays.asList(sections));
+    return this;
+  }
+
+  /**
+   * Read only components of the given projects. No project means all of 
+   * them.
+   */
+  public StreamingXMLReader setProjects(String... projects) {
+    this.projects = (projects.length == 0) 
+                    ? null : new HashSet<String>(Arrays.asList(projects));
+    return this;
+  }
+
+  /**
+   * Read all collected info of a file, compressed or not.
+   * 
+   * @param xmlFile Path to a XML file or empty for the default file.
+   */
+  public static CollectedInfo read(String xmlFile) 
+          throws IOException, XMLStreamException {
+    String file = (xmlFile == null || xmlFile.isEmpty()) 
+                  ? XMLReaderWriter.DEF_XML_FILE : xmlFile;
+    InputStream in = FileStreams.openInput(file);
+
+    try {
+      return new StreamingXMLReader().read(in);
+    } finally {
+      in.close();
+    }
+  }
+
+  /**
+   * Read collected info from a stream. The encoding is taken from the XML 
+   * declaration.
+   */
+  public CollectedInfo read(InputStream in) throws XMLStreamException {
+    XMLStreamReader xml = factory.createXMLStreamReader(in);
+
+    try {
+      return read(xml);
+    } finally {
+      xml.close();
+    }
+  }
+
+  public CollectedInfo read(Reader in) throws XMLStreamException {
+    XMLStreamReader xml = factory.createXMLStreamReader(in);
+
+    try {
+      return read(xml);
+    } finally {
+      xml.close();
+    }
+  }
+
+  private CollectedInfo read(XMLStreamReader xml) throws XMLStreamException {
+    CollectedInfo info = new CollectedInfo();
+
+    xml.nextTag();
+    xml.require(XMLStreamConstants.START_ELEMENT, null, "jpf-components");
+
+    while (xml.nextTag() == XMLStreamConstants.START_ELEMENT) {
+      String section = xml.getLocalName();
+
+      if (sections != null && !sections.contains(section)) {
+        skip(xml);
+      } else if (SUBTYPE.equals(section)) {
+        readItem(xml, new SubtypeInfo(), info.getSubtypes());
+      } else if (MODEL.equals(section)) {
+        readItem(xml, new ModelClassInfo(), info.getModels());
+      } else if (PEER.equals(section)) {
+        readItem(xml, new NativePeerInfo(), info.getPeers());
+      } else {
+        throw new XMLStreamException("Unknown section: " + section, 
+                                     xml.getLocation());
+      }
+    }
+    return info;
+  }
+
+  /**
+   * Read a map item: a key and the component it is mapped to.
+   */
+  private <T extends JPFInfo> void readItem(XMLStreamReader xml, T component, 
+          Map<String, T> components) throws XMLStreamException {
+    String key = null;
+
+    while (xml.nextTag() == XMLStreamConstants.START_ELEMENT) {
+      if ("key".equals(xml.getLocalName())) {
+        key = xml.getElementText();
+      } else if ("value".equals(xml.getLocalName())) {
+        readComponent(xml, component);
+      } else {
+        skip(xml);
+      }
+    }
+
+    if (key == null) {
+      throw new XMLStreamException("Missing key", xml.getLocation());
+    }
+
+    if (projects == null 
+        || projects.contains(component.getInfo().getProject())) {
+      components.put(key, component);
+    }
+  }
+
+  private void readComponent(XMLStreamReader xml, JPFInfo component) 
+          throws XMLStreamException {
+    while (xml.nextTag() == XMLStreamConstants.START_ELEMENT) {
+      String tag = xml.getLocalName();
+
+      if ("type".equals(tag)) {
+        component.setType(xml.getElementText());
+      } else if ("info".equals(tag)) {
+        component.setInfo(readClass(xml));
+      } else if (component instanceof SubtypeInfo) {
+        readSubtype(xml, tag, (SubtypeInfo)component);
+      } else if (component instanceof ModelClassInfo) {
+        readModel(xml, tag, (ModelClassInfo)component);
+      } else if (component instanceof NativePeerInfo) {
+        readPeer(xml, tag, (NativePeerInfo)component);
+      } else {
+        skip(xml);
+      }
+    }
+  }
+
+  private void readSubtype(XMLStreamReader xml, String tag, 
+          SubtypeInfo subtype) throws XMLStreamException {
+    if ("ancestors".equals(tag)) {
+      subtype.addAncestor(xml.getElementText());
+    } else if ("super-methods".equals(tag)) {
+      subtype.getSuperMethods().add(xml.getElementText());
+    } else {
+      skip(xml);
+    }
+  }
+
+  private void readModel(XMLStreamReader xml, String tag, 
+          ModelClassInfo model) throws XMLStreamException {
+    if ("std-name".equals(tag)) {
+      model.setStdName(xml.getElementText());
+    } else if ("std-methods".equals(tag)) {
+      model.getStdMethods().add(xml.getElementText());
+    } else {
+      skip(xml);
+    }
+  }
+
+  private void readPeer(XMLStreamReader xml, String tag, 
+          NativePeerInfo peer) throws XMLStreamException {
+    if ("model-name".equals(tag)) {
+      peer.setModelName(xml.getElementText());
+    } else if ("model-methods".equals(tag)) {
+      peer.getModelMethods().add(xml.getElementText());
+    } else {
+      skip(xml);
+    }
+  }
+
+  private ClassInfo readClass(XMLStreamReader xml) throws XMLStreamException {
+    ClassInfo cls = new ClassInfo();
+    String flags = xml.getAttributeValue(null, "flags");
+
+    if (flags != null) {
+      cls.setFlags(Integer.parseInt(flags));
+    }
+
+    while (xml.nextTag() == XMLStreamConstants.START_ELEMENT) {
+      String tag = xml.getLocalName();
+
+      if ("location".equals(tag)) {
+        cls.setLocation(xml.getElementText());
+      } else if ("methods".equals(tag)) {
+        cls.getMethods().add(xml.getElementText());
+      } else if ("name".equals(tag)) {
+        cls.setName(xml.getElementText());
+      } else if ("layer".equals(tag)) {
+        cls.setLayer(xml.getElementText());
+      } else if ("super-name".equals(tag)) {
+        cls.setSuperName(xml.getElementText());
+      } else if ("project".equals(tag)) {
+        cls.setProject(xml.getElementText());
+      } else if ("interfaces".equals(tag)) {
+        cls.getInterfaces().add(xml.getElementText());
+      } else {
+        skip(xml);
+      }
+    }
+    return cls;
+  }
+
+  /**
+   * Skip the current element and all its content.
+   */
+  private void skip(XMLStreamReader xml) throws XMLStreamException {
+    for (int depth = 1; depth > 0; ) {
+      int event = xml.next();
+
+      if (event == XMLStreamConstants.START_ELEMENT) {
+        ++depth;
+      } else if (event == XMLStreamConstants.END_ELEMENT) {
+        --depth;
+      }
+    }
+  }
+}
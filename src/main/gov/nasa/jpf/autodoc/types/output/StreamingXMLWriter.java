@@ -0,0 +1,226 @@
+//
+// Copyright (C) 2014 United States Government as represented by the
+// Administrator of the National Aeronautics and Space Administration
+// (NASA).  All Rights Reserved.
+//
+// This software is distributed under the NASA Open Source Agreement
+// (NOSA), version 1.3.  The NOSA has been approved by the Open Source
+// Initiative.  See the file NOSA-1.3-JPF at the top of the distribution
+// directory tree for the complete NOSA document.
+//
+// THE SUBJECT SOFTWARE IS PROVIDED "AS IS" WITHOUT ANY WARRANTY OF ANY
+// KIND, EITHER EXPRESSED, IMPLIED, OR STATUTORY, INCLUDING, BUT NOT
+// LIMITED TO, ANY WARRANTY THAT THE SUBJECT SOFTWARE WILL CONFORM TO
+// SPECIFICATIONS, ANY IMPLIED WARRANTIES OF MERCHANTABILITY, FITNESS FOR
+// A PARTICULAR PURPOSE, OR FREEDOM FROM INFRINGEMENT, ANY WARRANTY THAT
+// THE SUBJECT SOFTWARE WILL BE ERROR FREE, OR ANY WARRANTY THAT
+// DOCUMENTATION, IF PROVIDED, WILL CONFORM TO THE SUBJECT SOFTWARE.
+//
+
+package gov.nasa.jpf.autodoc.types.output;
+
+import gov.nasa.jpf.autodoc.types.info.ClassInfo;
+import gov.nasa.jpf.autodoc.types.info.CollectedInfo;
+import gov.nasa.jpf.autodoc.types.info.JPFInfo;
+import gov.nasa.jpf.autodoc.types.info.ModelClassInfo;
+import gov.nasa.jpf.autodoc.types.info.NativePeerInfo;
+import gov.nasa.jpf.autodoc.types.info.SubtypeInfo;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Writer of the <code>jpf-components</code> XML schema defined by 
+ * mapping.xml. Components are written one by one to a buffered stream, 
+ * without reflection nor an in-memory document, and the result is the same 
+ * as the Castor marshaller's, so {@link XMLReaderWriter} can read it back.
+ * 
+ * @author Carlos Uribe
+ */
+public class StreamingXMLWriter {
+
+  private static final String HEADER = 
+          "<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n";
+  private static final String ROOT = "jpf-components";
+  private static final String MAP_ITEM = 
+          " xmlns:xsi=\"http://www.w3.org/2001/XMLSchema-instance\"\n"
+          + "        xmlns:java=\"http://java.sun.com\" "
+          + "xsi:type=\"java:org.exolab.castor.mapping.MapItem\">\n";
+  private static final String STRING = " xsi:type=\"java:java.lang.String\"";
+  private static final String INDENT = "                ";
+
+  private final Writer out;
+
+  public StreamingXMLWriter(Writer out) {
+    this.out = out;
+  }
+
+  /**
+   * Write collected info to a file.
+   * 
+   * @param xmlFile Path to a XML file or empty for the default file. It is 
+   *        compressed if named with the gzip extension.
+   * @return path of the file written.
+   */
+  public static String write(CollectedInfo info, String xmlFile) 
+          throws IOException {
+    String file = (xmlFile == null || xmlFile.isEmpty()) 
+                  ? XMLReaderWriter.DEF_XML_FILE : xmlFile;
+    Writer writer = new BufferedWriter(new OutputStreamWriter(
+            FileStreams.openOutput(file), "UTF-8"));
+
+    try {
+      new StreamingXMLWriter(writer).write(info);
+    } finally {
+      writer.close();
+    }
+    return file;
+  }
+
+  /**
+   * Write subtypes, models and peers of collected info.
+   */
+  public void write(CollectedInfo info) throws IOException {
+    out.write(HEADER);
+
+    if (info.getSubtypes().isEmpty() && info.getModels().isEmpty() 
+        && info.getPeers().isEmpty()) {
+      out.write("<" + ROOT + "/>\n");
+      out.flush();
+      return;
+    }
+
+    out.write("<" + ROOT + ">\n");
+
+    for (Map.Entry<String, SubtypeInfo> e : info.getSubtypes().entrySet()) {
+      SubtypeInfo subtype = e.getValue();
+      startItem("subtype", e.getKey(), subtype);
+      writeCollection("ancestors", subtype.getAncestors());
+      writeCollection("super-methods", subtype.getSuperMethods());
+      endItem("subtype", subtype);
+    }
+
+    for (Map.Entry<String, ModelClassInfo> e : info.getModels().entrySet()) {
+      ModelClassInfo model = e.getValue();
+      startItem("model-class", e.getKey(), model);
+      writeElement("std-name", model.getStdName());
+      writeCollection("std-methods", model.getStdMethods());
+      endItem("model-class", model);
+    }
+
+    for (Map.Entry<String, NativePeerInfo> e : info.getPeers().entrySet()) {
+      NativePeerInfo peer = e.getValue();
+      startItem("native-peer", e.getKey(), peer);
+      writeElement("model-name", peer.getModelName());
+      writeCollection("model-methods", peer.getModelMethods());
+      endItem("native-peer", peer);
+    }
+
+    out.write("</" + ROOT + ">\n");
+    out.flush();
+  }
+
+  private void startItem(String tag, String key, JPFInfo component) 
+          throws IOException {
+    out.write(INDENT, 0, 4);
+    out.write("<" + tag + MAP_ITEM);
+    out.write(INDENT, 0, 8);
+    out.write("<key" + STRING + ">");
+    escape(key);
+    out.write("</key>\n");
+    out.write(INDENT, 0, 8);
+    out.write("<value xsi:type=\"java:" + component.getClass().getName() 
+              + "\">\n");
+  }
+
+  private void endItem(String tag, JPFInfo component) throws IOException {
+    writeElement("type", component.getType());
+    writeClass(component.getInfo());
+    out.write(INDENT, 0, 8);
+    out.write("</value>\n");
+    out.write(INDENT, 0, 4);
+    out.write("</" + tag + ">\n");
+  }
+
+  private void writeClass(ClassInfo cls) throws IOException {
+    if (cls == null) {
+      return;
+    }
+
+    out.write(INDENT, 0, 12);
+    out.write("<info flags=\"" + cls.getFlags() + "\">\n");
+    writeElement("location", cls.getLocation(), 16);
+    writeCollection("methods", cls.getMethods(), 16);
+    writeElement("name", cls.getName(), 16);
+    writeElement("layer", cls.getLayer(), 16);
+    writeElement("super-name", cls.getSuperName(), 16);
+    writeElement("project", cls.getProject(), 16);
+    writeCollection("interfaces", cls.getInterfaces(), 16);
+    out.write(INDENT, 0, 12);
+    out.write("</info>\n");
+  }
+
+  private void writeElement(String tag, String text) throws IOException {
+    writeElement(tag, text, 12);
+  }
+
+  private void writeElement(String tag, String text, int indent) 
+          throws IOException {
+    if (text == null) {
+      return;
+    }
+
+    out.write(INDENT, 0, indent);
+    out.write("<" + tag + ">");
+    escape(text);
+    out.write("</" + tag + ">\n");
+  }
+
+  private void writeCollection(String tag, Set<String> strs) 
+          throws IOException {
+    writeCollection(tag, strs, 12);
+  }
+
+  private void writeCollection(String tag, Set<String> strs, int indent) 
+          throws IOException {
+    if (strs == null) {
+      return;
+    }
+
+    for (String str : strs) {
+      out.write(INDENT, 0, indent);
+      out.write("<" + tag + STRING + ">");
+      escape(str);
+      out.write("</" + tag + ">\n");
+    }
+  }
+
+  private void escape(String text) throws IOException {
+    int start = 0;
+
+    for (int i = 0; i < text.length(); ++i) {
+      String entity;
+
+      switch (text.charAt(i)) {
+        case '&':
+          entity = "&amp;";
+          break;
+        case '<':
+          entity = "&lt;";
+          break;
+        case '>':
+          entity = "&gt;";
+          break;
+        default:
+          continue;
+      }
+      out.write(text, start, i - start);
+      out.write(entity);
+      start = i + 1;
+    }
+    out.write(text, start, text.length() - start);
+  }
+}
@@ -19,7 +19,6 @@
 
 package gov.nasa.jpf.autodoc.types.output;
 
-import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.PrintWriter;
 
@@ -31,6 +30,13 @@ import java.io.PrintWriter;
 public class TextFileWriter extends TextualWriter implements Writer {
 
   public TextFileWriter(String filename) throws IOException {
-    super(new PrintWriter(new FileOutputStream(filename), true));
+    super(openFile(filename));
+  }
+
+  /**
+   * Create a writer to a given stream, e.g. to render in memory.
+   */
+  public TextFileWriter(PrintWriter pw) {
+    super(pw);
   }
 }
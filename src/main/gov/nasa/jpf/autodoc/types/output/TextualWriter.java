@@ -23,6 +23,9 @@ import gov.nasa.jpf.autodoc.types.info.CollectedInfo;
 import gov.nasa.jpf.autodoc.types.info.ModelClassInfo;
 import gov.nasa.jpf.autodoc.types.info.NativePeerInfo;
 import gov.nasa.jpf.autodoc.types.info.SubtypeInfo;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
 import java.io.PrintWriter;
 import java.util.Date;
 import java.util.Map.Entry;
@@ -32,7 +35,21 @@ import java.util.Set;
  * 
  * @author Carlos Uribe
  */
-public abstract class TextualWriter {
+public abstract class TextualWriter implements InfoSink {
+  
+  /** Size of the buffer of file writers. */
+  public static final int BUFFER_SIZE = 1 << 16;
+  
+  /** Indentation by level, two spaces per level. */
+  private static final String[] INDENTS = new String[32];
+  
+  static {
+    INDENTS[0] = "";
+    
+    for (int i = 1; i < INDENTS.length; ++i) {
+      INDENTS[i] = INDENTS[i - 1] + "  ";
+    }
+  }
   
   protected PrintWriter pw;
   protected int indentLevel = 0;
@@ -41,6 +58,16 @@ public abstract class TextualWriter {
     this.pw = pw;
   }
   
+  /**
+   * Open a buffered writer to a file, compressed if named with the gzip 
+   * extension. It is not flushed on each line, so it must be flushed or 
+   * disabled after writing.
+   */
+  protected static PrintWriter openFile(String filename) throws IOException {
+    return new PrintWriter(new BufferedWriter(new OutputStreamWriter(
+            FileStreams.openOutput(filename)), BUFFER_SIZE));
+  }
+  
   public void disable() {
     pw.close();
   }
@@ -68,11 +95,15 @@ public abstract class TextualWriter {
   }
 
   public String getIndent() {
-    String ind = new String();
-    for (int i = 0; i < indentLevel; ++i) {
-      ind += "  ";
+    if (indentLevel < INDENTS.length) {
+      return INDENTS[indentLevel];
+    }
+    
+    StringBuilder ind = new StringBuilder(INDENTS[INDENTS.length - 1]);
+    for (int i = INDENTS.length - 1; i < indentLevel; ++i) {
+      ind.append("  ");
     }
-    return ind;
+    return ind.toString();
   }
 
   public void putIndent() {
@@ -178,71 +209,99 @@ public abstract class TextualWriter {
   }
   
   public void writeDetailedInfo(CollectedInfo info) {
-    writeMinorSeparator("components");
+    startSection(Section.SUBTYPES);
     
     int i = 0;
     for (Entry<String, SubtypeInfo> e : info.getSubtypes().entrySet()) {
-      writeln("[" + i + "] class:\t" + e.getKey());
-      indent();
-      indent();
-      detail("type", e.getValue().getType());
-      writeCollection("ancestors", e.getValue().getAncestors());
-      writeCollection("interfaces", e.getValue().getInfo().getInterfaces());
-      writeCollection("implemented-methods", e.getValue().getSuperMethods());
-      writeCollection("own-methods", e.getValue().getInfo().getMethods());
-      detail("location", e.getValue().getInfo().getLocation());
-      detail("project", e.getValue().getInfo().getProject());
-      detail("layer", e.getValue().getInfo().getLayer());
-      detail("flags", Integer.toString(e.getValue().getInfo().getFlags()));
-      unindent();
-      unindent();
-      writeln();
-      ++i;
+      writeSubtype(i++, e.getKey(), e.getValue());
     }
     
-    writeMinorSeparator("model classes");
+    startSection(Section.MODELS);
     
     i = 0;
     for (Entry<String, ModelClassInfo> e : info.getModels().entrySet()) {
-      writeln("[" + i + "] class:\t" + e.getKey());
-      indent();
-      indent();
-      detail("modelled", e.getValue().getStdName());
-      writeCollection("interfaces", e.getValue().getInfo().getInterfaces());
-      writeCollection("modelled-methods", e.getValue().getStdMethods());
-      writeCollection("own-methods", e.getValue().getInfo().getMethods());
-      detail("location", e.getValue().getInfo().getLocation());
-      detail("project", e.getValue().getInfo().getProject());
-      detail("layer", e.getValue().getInfo().getLayer());
-      detail("flags", Integer.toString(e.getValue().getInfo().getFlags()));
-      unindent();
-      unindent();
-      writeln();
-      ++i;
+      writeModel(i++, e.getKey(), e.getValue());
     }
     
-    writeMinorSeparator("native peers");
+    startSection(Section.PEERS);
     
     i = 0;
     for (Entry<String, NativePeerInfo> e : info.getPeers().entrySet()) {
-      writeln("[" + i + "] peer:\t" + e.getKey());
-      indent();
-      indent();
-      detail("model", e.getValue().getModelName());
-      writeCollection("interfaces", e.getValue().getInfo().getInterfaces());
-      writeCollection("intercepted-methods", e.getValue().getModelMethods());
-      writeCollection("own-methods", e.getValue().getInfo().getMethods());
-      detail("location", e.getValue().getInfo().getLocation());
-      detail("project", e.getValue().getInfo().getProject());
-      detail("layer", e.getValue().getInfo().getLayer());
-      detail("flags", Integer.toString(e.getValue().getInfo().getFlags()));
-      unindent();
-      unindent();
-      writeln();
-      ++i;
+      writePeer(i++, e.getKey(), e.getValue());
+    }
+    endInfo();
+  }
+  
+  public void startSection(Section section) {
+    switch (section) {
+      case SUBTYPES:
+        writeMinorSeparator("components");
+        break;
+      case MODELS:
+        writeMinorSeparator("model classes");
+        break;
+      case PEERS:
+        writeMinorSeparator("native peers");
+        break;
     }
   }
   
+  public void writeSubtype(int idx, String name, SubtypeInfo subtype) {
+    writeln("[" + idx + "] class:\t" + name);
+    indent();
+    indent();
+    detail("type", subtype.getType());
+    writeCollection("ancestors", subtype.getAncestors());
+    writeCollection("interfaces", subtype.getInfo().getInterfaces());
+    writeCollection("implemented-methods", subtype.getSuperMethods());
+    writeCollection("own-methods", subtype.getInfo().getMethods());
+    detail("location", subtype.getInfo().getLocation());
+    detail("project", subtype.getInfo().getProject());
+    detail("layer", subtype.getInfo().getLayer());
+    detail("flags", Integer.toString(subtype.getInfo().getFlags()));
+    unindent();
+    unindent();
+    writeln();
+  }
+  
+  public void writeModel(int idx, String name, ModelClassInfo model) {
+    writeln("[" + idx + "] class:\t" + name);
+    indent();
+    indent();
+    detail("modelled", model.getStdName());
+    writeCollection("interfaces", model.getInfo().getInterfaces());
+    writeCollection("modelled-methods", model.getStdMethods());
+    writeCollection("own-methods", model.getInfo().getMethods());
+    detail("location", model.getInfo().getLocation());
+    detail("project", model.getInfo().getProject());
+    detail("layer", model.getInfo().getLayer());
+    detail("flags", Integer.toString(model.getInfo().getFlags()));
+    unindent();
+    unindent();
+    writeln();
+  }
+  
+  public void writePeer(int idx, String name, NativePeerInfo peer) {
+    writeln("[" + idx + "] peer:\t" + name);
+    indent();
+    indent();
+    detail("model", peer.getModelName());
+    writeCollection("interfaces", peer.getInfo().getInterfaces());
+    writeCollection("intercepted-methods", peer.getModelMethods());
+    writeCollection("own-methods", peer.getInfo().getMethods());
+    detail("location", peer.getInfo().getLocation());
+    detail("project", peer.getInfo().getProject());
+    detail("layer", peer.getInfo().getLayer());
+    detail("flags", Integer.toString(peer.getInfo().getFlags()));
+    unindent();
+    unindent();
+    writeln();
+  }
+  
+  public void endInfo() {
+    pw.flush();
+  }
+  
   public void detail(String name, String value) {
     if (!value.isEmpty() && !(value == null)) {
       writeln(name + ":\t" + value);
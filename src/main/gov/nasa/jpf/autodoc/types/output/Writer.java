@@ -27,7 +27,7 @@ import java.io.PrintWriter;
  * 
  * @author Carlos Uribe
  */
-public interface Writer {
+public interface Writer extends InfoSink {
 
   public PrintWriter getPrintWriter();
   
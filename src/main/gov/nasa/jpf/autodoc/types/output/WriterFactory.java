@@ -19,7 +19,11 @@
 
 package gov.nasa.jpf.autodoc.types.output;
 
+import java.io.BufferedWriter;
+import java.io.File;
 import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
 
 /**
  * Class to create output objects.
@@ -28,10 +32,19 @@ import java.io.IOException;
  */
 public class WriterFactory {
 
+  /** Formats of textual writers. */
+  public enum Format {
+    TEXT, WIKI, MARKDOWN
+  }
+
   public static ConsoleWriter createConsole() {
     return new ConsoleWriter();
   }
 
+  public static ConsoleWriter createConsole(PrintWriter pw) {
+    return new ConsoleWriter(pw);
+  }
+
   public static TextFileWriter createFileWriter(String filename)
           throws IOException {
     return new TextFileWriter(filename);
@@ -46,4 +59,41 @@ public class WriterFactory {
           throws IOException {
     return new MarkdownWriter(filename);
   }
+
+  /**
+   * Create a textual writer of a format to a given stream.
+   */
+  public static Writer createWriter(Format format, PrintWriter pw) {
+    switch (format) {
+      case WIKI:
+        return new GoogleWikiWriter(pw);
+      case MARKDOWN:
+        return new MarkdownWriter(pw);
+      default:
+        return new TextFileWriter(pw);
+    }
+  }
+
+  /**
+   * Create a JSON writer to a UTF-8 file, compressed if named with the gzip 
+   * extension. It must be closed after writing.
+   * 
+   * @param lines Whether to write NDJSON, one component per line.
+   */
+  public static StreamingJSONWriter createJSONWriter(String filename, 
+          boolean lines) throws IOException {
+    return new StreamingJSONWriter(new BufferedWriter(new OutputStreamWriter(
+            FileStreams.openOutput(filename), "UTF-8")), lines);
+  }
+
+  /**
+   * Create a writer of a HTML site in a folder.
+   * 
+   * @param threads Worker threads to render pages, 0 for one per processor.
+   */
+  public static HtmlSiteWriter createSiteWriter(String dirname, int threads) {
+    HtmlSiteWriter site = new HtmlSiteWriter(new File(dirname));
+    site.setThreads(threads);
+    return site;
+  }
 }
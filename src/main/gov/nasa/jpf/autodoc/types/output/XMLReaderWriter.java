@@ -20,9 +20,11 @@
 package gov.nasa.jpf.autodoc.types.output;
 
 import gov.nasa.jpf.autodoc.types.info.CollectedInfo;
-import java.io.FileReader;
-import java.io.FileWriter;
 import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Reader;
+import java.io.Writer;
 import org.exolab.castor.mapping.Mapping;
 import org.exolab.castor.mapping.MappingException;
 import org.exolab.castor.xml.MarshalException;
@@ -33,7 +35,9 @@ import org.exolab.castor.xml.XMLContext;
 
 /**
  * Class to marshal and unmarshal XML code handling component information.
- * This class uses a Castor marshaller/unmarshaller to write/read XML.
+ * This class uses a Castor marshaller/unmarshaller to write/read XML. The
+ * tool writes XML with {@link StreamingXMLWriter} and reads it with
+ * {@link StreamingXMLReader}, which handle the same XML.
  * 
  * @author Carlos Uribe [carlos.albert.uribe@gmail.com]
  */
@@ -77,11 +81,16 @@ public class XMLReaderWriter {
       file = xmlFile;
     }
     
-    FileWriter writer = new FileWriter(file);
-    Marshaller marshaller = context.createMarshaller();
-    marshaller.setProperty("org.exolab.castor.indent", "true");
-    marshaller.setWriter(writer);
-    marshaller.marshal(info);
+    Writer writer = new OutputStreamWriter(FileStreams.openOutput(file));
+    
+    try {
+      Marshaller marshaller = context.createMarshaller();
+      marshaller.setProperty("org.exolab.castor.indent", "true");
+      marshaller.setWriter(writer);
+      marshaller.marshal(info);
+    } finally {
+      writer.close();
+    }
   }
   
   /**
@@ -98,9 +107,14 @@ public class XMLReaderWriter {
       file = xmlFile;
     }
     
-    FileReader reader = new FileReader(file);
-    Unmarshaller unmarshaller = context.createUnmarshaller();
-    unmarshaller.setClass(CollectedInfo.class);
-    return (CollectedInfo)unmarshaller.unmarshal(reader);
+    Reader reader = new InputStreamReader(FileStreams.openInput(file));
+    
+    try {
+      Unmarshaller unmarshaller = context.createUnmarshaller();
+      unmarshaller.setClass(CollectedInfo.class);
+      return (CollectedInfo)unmarshaller.unmarshal(reader);
+    } finally {
+      reader.close();
+    }
   }
 }
@@ -0,0 +1,146 @@
+//
+// Copyright (C) 2014 United States Government as represented by the
+// Administrator of the National Aeronautics and Space Administration
+// (NASA).  All Rights Reserved.
+//
+// This software is distributed under the NASA Open Source Agreement
+// (NOSA), version 1.3.  The NOSA has been approved by the Open Source
+// Initiative.  See the file NOSA-1.3-JPF at the top of the distribution
+// directory tree for the complete NOSA document.
+//
+// THE SUBJECT SOFTWARE IS PROVIDED "AS IS" WITHOUT ANY WARRANTY OF ANY
+// KIND, EITHER EXPRESSED, IMPLIED, OR STATUTORY, INCLUDING, BUT NOT
+// LIMITED TO, ANY WARRANTY THAT THE SUBJECT SOFTWARE WILL CONFORM TO
+// SPECIFICATIONS, ANY IMPLIED WARRANTIES OF MERCHANTABILITY, FITNESS FOR
+// A PARTICULAR PURPOSE, OR FREEDOM FROM INFRINGEMENT, ANY WARRANTY THAT
+// THE SUBJECT SOFTWARE WILL BE ERROR FREE, OR ANY WARRANTY THAT
+// DOCUMENTATION, IF PROVIDED, WILL CONFORM TO THE SUBJECT SOFTWARE.
+//
+
+package gov.nasa.jpf.autodoc.types.parser;
+
+import gov.nasa.jpf.autodoc.types.info.ClassInfo;
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+
+/**
+ * Minimal classfile reader that collects classname, superclassname, flags, 
+ * interfaces and methods. Unlike <code>gov.nasa.jpf.classfile.ClassFile</code>
+ * it knows every constant pool tag up to current classfile versions, so it 
+ * can read standard classes of any JDK.
+ *
+ * @author Carlos Uribe
+ */
+public class ClassInfoReader {
+
+  public static final int MAGIC = 0xCAFEBABE;
+
+  /**
+   * Read a classfile from its byte data.
+   * 
+   * @return classinfo without location, project nor layer.
+   * @throws IOException if data is truncated or not a valid classfile.
+   */
+  public ClassInfo read(byte[] cfdata) throws IOException {
+    DataInputStream in = new DataInputStream(new ByteArrayInputStream(cfdata));
+
+    if (in.readInt() != MAGIC) {
+      throw new IOException("Not a classfile.");
+    }
+    in.readUnsignedShort();
+    in.readUnsignedShort();
+
+    int count = in.readUnsignedShort();
+    String[] utf8 = new String[count];
+    int[] classes = new int[count];
+
+    for (int i = 1; i < count; ++i) {
+      int tag = in.readUnsignedByte();
+
+      switch (tag) {
+        case 1:   // Utf8
+          utf8[i] = in.readUTF();
+          break;
+        case 7:   // Class
+          classes[i] = in.readUnsignedShort();
+          break;
+        case 8:   // String
+        case 16:  // MethodType
+        case 19:  // Module
+        case 20:  // Package
+          in.readUnsignedShort();
+          break;
+        case 15:  // MethodHandle
+          in.readUnsignedByte();
+          in.readUnsignedShort();
+          break;
+        case 3:   // Integer
+        case 4:   // Float
+        case 9:   // Fieldref
+        case 10:  // Methodref
+        case 11:  // InterfaceMethodref
+        case 12:  // NameAndType
+        case 17:  // Dynamic
+        case 18:  // InvokeDynamic
+          in.readInt();
+          break;
+        case 5:   // Long
+        case 6:   // Double
+          in.readLong();
+          ++i;
+          break;
+        default:
+          throw new IOException("Illegal constpool tag: " + tag);
+      }
+    }
+
+    ClassInfo info = new ClassInfo();
+    info.setFlags(in.readUnsignedShort());
+    info.setName(utf8[classes[in.readUnsignedShort()]]);
+
+    int superIdx = in.readUnsignedShort();
+    info.setSuperName((superIdx == 0) ? null : utf8[classes[superIdx]]);
+
+    int ifcs = in.readUnsignedShort();
+    for (int i = 0; i < ifcs; ++i) {
+      info.getInterfaces().add(utf8[classes[in.readUnsignedShort()]]);
+    }
+
+    skipMembers(in);
+
+    int methods = in.readUnsignedShort();
+    for (int i = 0; i < methods; ++i) {
+      in.readUnsignedShort();
+      String name = utf8[in.readUnsignedShort()];
+      String descriptor = utf8[in.readUnsignedShort()];
+      info.getMethods().add(name + descriptor);
+      skipAttributes(in);
+    }
+    return info;
+  }
+
+  private void skipMembers(DataInputStream in) throws IOException {
+    int count = in.readUnsignedShort();
+
+    for (int i = 0; i < count; ++i) {
+      in.readUnsignedShort();
+      in.readUnsignedShort();
+      in.readUnsignedShort();
+      skipAttributes(in);
+    }
+  }
+
+  private void skipAttributes(DataInputStream in) throws IOException {
+    int count = in.readUnsignedShort();
+
+    for (int i = 0; i < count; ++i) {
+      in.readUnsignedShort();
+      int len = in.readInt();
+
+      if (in.skipBytes(len) != len) {
+        throw new IOException("Truncated classfile.");
+      }
+    }
+  }
+}
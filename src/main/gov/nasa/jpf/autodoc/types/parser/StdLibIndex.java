@@ -0,0 +1,366 @@
+//
+// Copyright (C) 2014 United States Government as represented by the
+// Administrator of the National Aeronautics and Space Administration
+// (NASA).  All Rights Reserved.
+//
+// This software is distributed under the NASA Open Source Agreement
+// (NOSA), version 1.3.  The NOSA has been approved by the Open Source
+// Initiative.  See the file NOSA-1.3-JPF at the top of the distribution
+// directory tree for the complete NOSA document.
+//
+// THE SUBJECT SOFTWARE IS PROVIDED "AS IS" WITHOUT ANY WARRANTY OF ANY
+// KIND, EITHER EXPRESSED, IMPLIED, OR STATUTORY, INCLUDING, BUT NOT
+// LIMITED TO, ANY WARRANTY THAT THE SUBJECT SOFTWARE WILL CONFORM TO
+// SPECIFICATIONS, ANY IMPLIED WARRANTIES OF MERCHANTABILITY, FITNESS FOR
+// A PARTICULAR PURPOSE, OR FREEDOM FROM INFRINGEMENT, ANY WARRANTY THAT
+// THE SUBJECT SOFTWARE WILL BE ERROR FREE, OR ANY WARRANTY THAT
+// DOCUMENTATION, IF PROVIDED, WILL CONFORM TO THE SUBJECT SOFTWARE.
+//
+
+package gov.nasa.jpf.autodoc.types.parser;
+
+import gov.nasa.jpf.autodoc.types.NameUtils;
+import gov.nasa.jpf.autodoc.types.info.ClassInfo;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.RandomAccessFile;
+import java.io.UnsupportedEncodingException;
+import java.net.URI;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.FileSystem;
+import java.nio.file.FileSystems;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.Enumeration;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.jar.JarEntry;
+import java.util.jar.JarFile;
+
+/**
+ * On-disk index of the standard classes of the running JDK. It is built once
+ * per <code>java.version</code> from the boot classpath (rt.jar) or, if there
+ * is none, from the <code>jrt:/</code> runtime image. The file is memory 
+ * mapped and classes are found by binary search over a sorted offset table,
+ * so no jar is opened nor classfile parsed when looking for standard classes.
+ * <p>
+ * File layout: magic, format, java version, source, class count, table of 
+ * record offsets sorted by classname and records (name, supername, flags, 
+ * interfaces, methods). Strings are UTF-8 preceded by their length (u2).
+ *
+ * @author Carlos Uribe
+ */
+public class StdLibIndex {
+
+  public static final int MAGIC = 0x4A444B58;
+  public static final int FORMAT = 1;
+
+  private final File file;
+  private final ByteBuffer data;
+  private final String version;
+  private final String source;
+  private final int count;
+  private final int table;
+
+  /**
+   * Map an index file.
+   * 
+   * @throws IOException if the file can't be read or is not an index.
+   */
+  public StdLibIndex(File file) throws IOException {
+    this.file = file;
+    RandomAccessFile raf = new RandomAccessFile(file, "r");
+
+    try {
+      FileChannel channel = raf.getChannel();
+      data = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+    } finally {
+      raf.close();
+    }
+
+    ByteBuffer buf = data.duplicate();
+    try {
+      if (buf.getInt() != MAGIC || buf.getInt() != FORMAT) {
+        throw new IOException("Not a standard library index: " + file);
+      }
+      version = readString(buf);
+      source = readString(buf);
+      count = buf.getInt();
+      table = buf.position();
+    } catch (RuntimeException ex) {
+      throw new IOException("Corrupt standard library index: " + file);
+    }
+  }
+
+  /**
+   * Get the index of the running JDK stored in <code>dir</code>, building it 
+   * first if it doesn't exist or belongs to another Java version.
+   */
+  public static StdLibIndex open(File dir) throws IOException {
+    String version = System.getProperty("java.version");
+    File idx = new File(dir, "jdk-" + version + ".idx");
+
+    if (idx.isFile()) {
+      try {
+        StdLibIndex index = new StdLibIndex(idx);
+
+        if (version.equals(index.getVersion())) {
+          return index;
+        }
+      } catch (IOException ex) {
+        //--- stale or corrupt index, build it again.
+      }
+    }
+    build(idx);
+    return new StdLibIndex(idx);
+  }
+
+  /**
+   * Read standard classes of the running JDK and write them to an index.
+   */
+  public static void build(File idx) throws IOException {
+    SortedMap<String, ClassInfo> classes = new TreeMap<String, ClassInfo>();
+    String boot = System.getProperty("sun.boot.class.path");
+    String source;
+
+    if (boot != null) {
+      source = boot;
+      readBootPath(boot, classes);
+    } else {
+      source = "jrt:/";
+      readRuntimeImage(classes);
+    }
+
+    if (classes.isEmpty()) {
+      throw new IOException("No standard classes found in " + source);
+    }
+    write(idx, System.getProperty("java.version"), source, classes);
+  }
+
+  public File getFile() {
+    return file;
+  }
+
+  public String getVersion() {
+    return version;
+  }
+
+  public String getSource() {
+    return source;
+  }
+
+  public int size() {
+    return count;
+  }
+
+  /**
+   * Find a standard class.
+   * 
+   * @param classname Named package classname or classfile internal name.
+   * @return classinfo or <code>null</code> if it is not a standard class.
+   */
+  public ClassInfo lookup(String classname) {
+    String name = classname.replace(NameUtils.PCK_SEP, NameUtils.UNX_SEP);
+    ByteBuffer buf = data.duplicate();
+    int lo = 0;
+    int hi = count - 1;
+
+    while (lo <= hi) {
+      int mid = (lo + hi) >>> 1;
+      buf.position(buf.getInt(table + 4 * mid));
+      int cmp = readString(buf).compareTo(name);
+
+      if (cmp < 0) {
+        lo = mid + 1;
+      } else if (cmp > 0) {
+        hi = mid - 1;
+      } else {
+        return readRecord(buf, name);
+      }
+    }
+    return null;
+  }
+
+  private ClassInfo readRecord(ByteBuffer buf, String name) {
+    ClassInfo info = new ClassInfo();
+    info.setName(name);
+    info.setLocation(source);
+
+    String supername = readString(buf);
+    info.setSuperName(supername.isEmpty() ? null : supername);
+    info.setFlags(buf.getInt());
+
+    for (int i = buf.getShort() & 0xFFFF; i > 0; --i) {
+      info.getInterfaces().add(readString(buf));
+    }
+
+    for (int i = buf.getShort() & 0xFFFF; i > 0; --i) {
+      info.getMethods().add(readString(buf));
+    }
+    return info;
+  }
+
+  private static String readString(ByteBuffer buf) {
+    byte[] bytes = new byte[buf.getShort() & 0xFFFF];
+    buf.get(bytes);
+
+    try {
+      return new String(bytes, "UTF-8");
+    } catch (UnsupportedEncodingException ex) {
+      throw new IllegalStateException(ex);
+    }
+  }
+
+  private static void writeString(DataOutputStream out, String str) 
+          throws IOException {
+    byte[] bytes = str.getBytes("UTF-8");
+    out.writeShort(bytes.length);
+    out.write(bytes);
+  }
+
+  private static void write(File idx, String version, String source,
+                            SortedMap<String, ClassInfo> classes) 
+          throws IOException {
+    ByteArrayOutputStream header = new ByteArrayOutputStream();
+    DataOutputStream hout = new DataOutputStream(header);
+    hout.writeInt(MAGIC);
+    hout.writeInt(FORMAT);
+    writeString(hout, version);
+    writeString(hout, source);
+    hout.writeInt(classes.size());
+
+    ByteArrayOutputStream records = new ByteArrayOutputStream();
+    DataOutputStream rout = new DataOutputStream(records);
+    int base = header.size() + 4 * classes.size();
+
+    for (ClassInfo cls : classes.values()) {
+      hout.writeInt(base + records.size());
+      writeString(rout, cls.getName());
+      writeString(rout, (cls.getSuperName() == null) ? "" 
+                                                      : cls.getSuperName());
+      rout.writeInt(cls.getFlags());
+      rout.writeShort(cls.getInterfaces().size());
+      for (String ifc : cls.getInterfaces()) {
+        writeString(rout, ifc);
+      }
+      rout.writeShort(cls.getMethods().size());
+      for (String method : cls.getMethods()) {
+        writeString(rout, method);
+      }
+    }
+
+    File dir = idx.getAbsoluteFile().getParentFile();
+    if (!dir.isDirectory() && !dir.mkdirs()) {
+      throw new IOException("Cannot create directory " + dir);
+    }
+
+    //--- write aside and replace at once, so a broken build never replaces 
+    // an index and runs building it at once don't share a file.
+    File tmp = File.createTempFile(idx.getName(), ".tmp", dir);
+    boolean moved = false;
+
+    try {
+      DataOutputStream out = new DataOutputStream(new BufferedOutputStream(
+              new FileOutputStream(tmp)));
+      try {
+        header.writeTo(out);
+        records.writeTo(out);
+      } finally {
+        out.close();
+      }
+      Files.move(tmp.toPath(), idx.toPath(), 
+                 StandardCopyOption.REPLACE_EXISTING, 
+                 StandardCopyOption.ATOMIC_MOVE);
+      moved = true;
+    } finally {
+      if (!moved) {
+        tmp.delete();
+      }
+    }
+  }
+
+  private static void readBootPath(String boot, Map<String, ClassInfo> classes)
+          throws IOException {
+    ClassInfoReader reader = new ClassInfoReader();
+
+    for (String pathname : boot.split(File.pathSeparator)) {
+      if (!NameUtils.isJarFilename(pathname) || !new File(pathname).isFile()) {
+        continue;
+      }
+
+      JarFile jar = new JarFile(pathname);
+      try {
+        for (Enumeration<JarEntry> e = jar.entries(); e.hasMoreElements();) {
+          JarEntry entry = e.nextElement();
+
+          if (isStdClass(entry.getName())) {
+            InputStream in = jar.getInputStream(entry);
+            try {
+              add(reader.read(readAll(in)), classes);
+            } finally {
+              in.close();
+            }
+          }
+        }
+      } finally {
+        jar.close();
+      }
+    }
+  }
+
+  private static void readRuntimeImage(final Map<String, ClassInfo> classes)
+          throws IOException {
+    final ClassInfoReader reader = new ClassInfoReader();
+    FileSystem jrt;
+
+    try {
+      jrt = FileSystems.getFileSystem(URI.create("jrt:/"));
+    } catch (RuntimeException ex) {
+      throw new IOException("No runtime image found: " + ex);
+    }
+
+    Files.walkFileTree(jrt.getPath("/modules"), new SimpleFileVisitor<Path>() {
+
+      @Override
+      public FileVisitResult visitFile(Path file, BasicFileAttributes attrs)
+              throws IOException {
+        if (isStdClass(file.toString())) {
+          add(reader.read(Files.readAllBytes(file)), classes);
+        }
+        return FileVisitResult.CONTINUE;
+      }
+    });
+  }
+
+  private static boolean isStdClass(String filename) {
+    return filename.endsWith(".class") && !filename.endsWith("module-info.class")
+           && !filename.endsWith("package-info.class");
+  }
+
+  private static void add(ClassInfo cls, Map<String, ClassInfo> classes) {
+    if (!classes.containsKey(cls.getName())) {
+      classes.put(cls.getName(), cls);
+    }
+  }
+
+  private static byte[] readAll(InputStream in) throws IOException {
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    byte[] buf = new byte[8192];
+
+    for (int n = in.read(buf); n >= 0; n = in.read(buf)) {
+      out.write(buf, 0, n);
+    }
+    return out.toByteArray();
+  }
+}
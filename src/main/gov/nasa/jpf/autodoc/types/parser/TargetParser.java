@@ -19,8 +19,10 @@
 
 package gov.nasa.jpf.autodoc.types.parser;
 
+import gov.nasa.jpf.autodoc.types.Metrics;
 import gov.nasa.jpf.autodoc.types.info.ClassInfo;
 import gov.nasa.jpf.classfile.ClassFileException;
+import java.io.File;
 import java.util.ArrayList;
 import java.util.List;
 
@@ -32,11 +34,22 @@ import java.util.List;
 public class TargetParser implements Parser {
 
   private ClassFileParser parser = new ClassFileParser();
+  private Metrics metrics = Metrics.DISABLED;
+
+  /**
+   * Set the metrics where parsing of files and bytes is timed and classes 
+   * not parsed are counted.
+   */
+  public void setMetrics(Metrics metrics) {
+    this.metrics = metrics;
+  }
 
   @Override
   public ClassInfo parse(String file) throws ClassFileException {
-    parser.parse(file);
-    return parser.getClassInfo();
+    Metrics.Timer timer = metrics.start("parse");
+    ClassInfo parsed = parseFile(file);
+    timer.stop(1);
+    return parsed;
   }
 
   @Override
@@ -56,11 +69,13 @@ public class TargetParser implements Parser {
   @Override
   public List<ClassInfo> parse(List<String> filelist)
           throws ClassFileException {
+    Metrics.Timer timer = metrics.start("parse");
     List<ClassInfo> parsed = new ArrayList<ClassInfo>();
 
     for (String file : filelist) {
-      parsed.add(parse(file));
+      parsed.add(parseFile(file));
     }
+    timer.stop(parsed.size());
     return parsed;
   }
   
@@ -77,6 +92,7 @@ public class TargetParser implements Parser {
   
   @Override
   public List<ClassInfo> parseBytes(List<byte[]> datalist) {
+    Metrics.Timer timer = metrics.start("parse");
     List<ClassInfo> parsed = new ArrayList<ClassInfo>();
     
     for (byte[] data : datalist) {
@@ -85,9 +101,22 @@ public class TargetParser implements Parser {
         parsed.add(parser.getClassInfo());
       } catch (ClassFileException ex) {
         //--- TODO: illegal constpool tag exception when parsing some classes.
-        //--- Log here
+        metrics.count("parse.errors", 1);
       }
     }
+    timer.stop(parsed.size());
     return parsed;
   }
+
+  /**
+   * Parse a classfile on disk, counting it as read.
+   */
+  private ClassInfo parseFile(String file) throws ClassFileException {
+    if (metrics.isEnabled()) {
+      metrics.count("read.files", 1);
+      metrics.count("read.bytes", new File(file).length());
+    }
+    parser.parse(file);
+    return parser.getClassInfo();
+  }
 }
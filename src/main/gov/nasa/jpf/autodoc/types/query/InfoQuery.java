@@ -0,0 +1,350 @@
+//
+// Copyright (C) 2014 United States Government as represented by the
+// Administrator of the National Aeronautics and Space Administration
+// (NASA).  All Rights Reserved.
+//
+// This software is distributed under the NASA Open Source Agreement
+// (NOSA), version 1.3.  The NOSA has been approved by the Open Source
+// Initiative.  See the file NOSA-1.3-JPF at the top of the distribution
+// directory tree for the complete NOSA document.
+//
+// THE SUBJECT SOFTWARE IS PROVIDED "AS IS" WITHOUT ANY WARRANTY OF ANY
+// KIND, EITHER EXPRESSED, IMPLIED, OR STATUTORY, INCLUDING, BUT NOT
+// LIMITED TO, ANY WARRANTY THAT THE SUBJECT SOFTWARE WILL CONFORM TO
+// SPECIFICATIONS, ANY IMPLIED WARRANTIES OF MERCHANTABILITY, FITNESS FOR
+// A PARTICULAR PURPOSE, OR FREEDOM FROM INFRINGEMENT, ANY WARRANTY THAT
+// THE SUBJECT SOFTWARE WILL BE ERROR FREE, OR ANY WARRANTY THAT
+// DOCUMENTATION, IF PROVIDED, WILL CONFORM TO THE SUBJECT SOFTWARE.
+//
+
+package gov.nasa.jpf.autodoc.types.query;
+
+import gov.nasa.jpf.autodoc.types.info.ClassInfo;
+import gov.nasa.jpf.autodoc.types.info.CollectedInfo;
+import gov.nasa.jpf.autodoc.types.info.JPFInfo;
+import gov.nasa.jpf.autodoc.types.info.ModelClassInfo;
+import gov.nasa.jpf.autodoc.types.info.NativePeerInfo;
+import gov.nasa.jpf.autodoc.types.info.SubtypeInfo;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Query engine over collected components. Secondary indexes map every value 
+ * of a field to the set of components having it, so a query is evaluated by
+ * intersecting bit sets instead of visiting components.<p>
+ * Indexes are built once from a snapshot of <code>CollectedInfo</code> and 
+ * are read-only afterwards, so a query can be shared between threads.
+ * 
+ * @author Carlos Uribe
+ */
+public class InfoQuery {
+
+  /**
+   * Indexed fields of components.
+   */
+  public enum Field {
+    
+    /** Kind of component: subtype, model or peer. */
+    KIND,
+    /** Classname of the component. */
+    NAME,
+    /** Package of the component, including subpackages. */
+    PACKAGE,
+    /** JPF project where the component was found. */
+    PROJECT,
+    /** Layer where the component was found: main, peers, classes... */
+    LAYER,
+    /** Category of component: Listener, ModelClass, NativePeerClass... */
+    TYPE,
+    /** Ancestor of a subtype. */
+    ANCESTOR,
+    /** Model class, itself for models and the modelled class for peers. */
+    MODEL,
+    /** Interface implemented by the component. */
+    INTERFACE;
+
+    /**
+     * Get the field with the given name, ignoring case.
+     */
+    public static Field of(String name) throws InvalidQueryException {
+      for (Field field : values()) {
+        if (field.name().equalsIgnoreCase(name.trim())) {
+          return field;
+        }
+      }
+      throw new InvalidQueryException("unknown query field '" + name + "'");
+    }
+
+    boolean isClassName() {
+      return this == NAME || this == PACKAGE || this == ANCESTOR 
+             || this == MODEL || this == INTERFACE;
+    }
+  }
+  
+  public static final String SUBTYPE = "subtype";
+  public static final String MODEL = "model";
+  public static final String PEER = "peer";
+
+  /**
+   * Conjunction of field filters. A filter matches components having any of 
+   * its values.
+   */
+  public static class Filter {
+
+    private final Map<Field, List<String>> terms = 
+            new LinkedHashMap<Field, List<String>>();
+
+    public Filter where(Field field, String... values) {
+      List<String> vals = terms.get(field);
+      
+      if (vals == null) {
+        vals = new ArrayList<String>();
+        terms.put(field, vals);
+      }
+      
+      for (String value : values) {
+        vals.add(field.isClassName() ? value.trim().replace('.', '/') 
+                                     : value.trim());
+      }
+      return this;
+    }
+
+    public Map<Field, List<String>> getTerms() {
+      return terms;
+    }
+
+    /**
+     * Parse a query expression like 
+     * <code>kind=peer,model=java.lang.Thread</code>. Filters are separated by 
+     * commas and alternative values by <code>|</code>.
+     */
+    public static Filter parse(String expression) 
+            throws InvalidQueryException {
+      Filter filter = new Filter();
+      
+      for (String term : expression.split(",")) {
+        if (term.trim().isEmpty()) {
+          continue;
+        }
+        
+        int eq = term.indexOf('=');
+        
+        if (eq <= 0 || eq == term.length() - 1) {
+          throw new InvalidQueryException("malformed query filter '" + term 
+                                          + "', expected field=value");
+        }
+        filter.where(Field.of(term.substring(0, eq)), 
+                     term.substring(eq + 1).split("\\|"));
+      }
+      return filter;
+    }
+
+    @Override
+    public String toString() {
+      return terms.toString();
+    }
+  }
+
+  private final JPFInfo[] components;
+  private final String[] names;
+  private final int[] sorted;
+  private final Map<Field, Map<String, BitSet>> indexes = 
+          new EnumMap<Field, Map<String, BitSet>>(Field.class);
+
+  /**
+   * Build indexes over the subtypes, models and peers of <code>info</code>.
+   */
+  public InfoQuery(CollectedInfo info) {
+    int size = info.getSubtypes().size() + info.getModels().size() 
+               + info.getPeers().size();
+    components = new JPFInfo[size];
+    names = new String[size];
+    
+    for (Field field : Field.values()) {
+      indexes.put(field, new HashMap<String, BitSet>());
+    }
+
+    int id = 0;
+    
+    for (SubtypeInfo subtype : info.getSubtypes().values()) {
+      add(id, SUBTYPE, subtype);
+      
+      for (String ancestor : subtype.getAncestors()) {
+        index(Field.ANCESTOR, ancestor, id);
+      }
+      ++id;
+    }
+    
+    for (ModelClassInfo model : info.getModels().values()) {
+      add(id, MODEL, model);
+      index(Field.MODEL, model.getInfo().getName(), id);
+      ++id;
+    }
+    
+    for (NativePeerInfo peer : info.getPeers().values()) {
+      add(id, PEER, peer);
+      index(Field.MODEL, peer.getModelName(), id);
+      ++id;
+    }
+    
+    //--- order by name for package ranges.
+    Integer[] order = new Integer[size];
+    
+    for (int i = 0; i < size; ++i) {
+      order[i] = i;
+    }
+    Arrays.sort(order, new Comparator<Integer>() {
+
+      @Override
+      public int compare(Integer o1, Integer o2) {
+        return names[o1].compareTo(names[o2]);
+      }
+    });
+    sorted = new int[size];
+    
+    for (int i = 0; i < size; ++i) {
+      sorted[i] = order[i];
+    }
+  }
+
+  private void add(int id, String kind, JPFInfo component) {
+    ClassInfo cls = component.getInfo();
+    components[id] = component;
+    names[id] = cls.getName();
+    
+    index(Field.KIND, kind, id);
+    index(Field.NAME, cls.getName(), id);
+    index(Field.PROJECT, cls.getProject(), id);
+    index(Field.LAYER, cls.getLayer(), id);
+    index(Field.TYPE, component.getType(), id);
+    
+    for (String iface : cls.getInterfaces()) {
+      index(Field.INTERFACE, iface, id);
+    }
+  }
+
+  private void index(Field field, String value, int id) {
+    Map<String, BitSet> index = indexes.get(field);
+    BitSet ids = index.get(value);
+    
+    if (ids == null) {
+      ids = new BitSet(components.length);
+      index.put(value, ids);
+    }
+    ids.set(id);
+  }
+
+  public int size() {
+    return components.length;
+  }
+
+  /**
+   * Get the distinct values of an indexed field.
+   */
+  public List<String> getValues(Field field) {
+    if (field == Field.PACKAGE) {
+      return new ArrayList<String>();
+    }
+    
+    List<String> values = new ArrayList<String>(indexes.get(field).keySet());
+    Collections.sort(values);
+    return values;
+  }
+
+  /**
+   * Get the kind of a component: subtype, model or peer.
+   */
+  public String getKind(JPFInfo component) {
+    if (component instanceof SubtypeInfo) {
+      return SUBTYPE;
+    } else if (component instanceof ModelClassInfo) {
+      return MODEL;
+    }
+    return PEER;
+  }
+
+  /**
+   * Find components matching all filters of a query expression.
+   * 
+   * @see Filter#parse(java.lang.String) 
+   */
+  public List<JPFInfo> select(String expression) throws InvalidQueryException {
+    return select(Filter.parse(expression));
+  }
+
+  /**
+   * Find components matching all filters.
+   * 
+   * @return matching components, subtypes first, then models and peers, each
+   *         sorted by name.
+   */
+  public List<JPFInfo> select(Filter filter) {
+    BitSet matches = new BitSet(components.length);
+    matches.set(0, components.length);
+    
+    for (Map.Entry<Field, List<String>> term : filter.getTerms().entrySet()) {
+      matches.and(match(term.getKey(), term.getValue()));
+    }
+    
+    List<JPFInfo> found = new ArrayList<JPFInfo>(matches.cardinality());
+    
+    for (int id = matches.nextSetBit(0); id >= 0; 
+         id = matches.nextSetBit(id + 1)) {
+      found.add(components[id]);
+    }
+    return found;
+  }
+
+  /**
+   * Get the components having any of the given values of a field.
+   */
+  public BitSet match(Field field, List<String> values) {
+    BitSet ids = new BitSet(components.length);
+    
+    for (String value : values) {
+      if (field == Field.PACKAGE) {
+        matchPackage(value, ids);
+      } else {
+        BitSet found = indexes.get(field).get(value);
+        
+        if (found != null) {
+          ids.or(found);
+        }
+      }
+    }
+    return ids;
+  }
+
+  /**
+   * Set the components of a package and its subpackages, which are a range 
+   * of names sorted.
+   */
+  private void matchPackage(String pkg, BitSet ids) {
+    String prefix = pkg.endsWith("/") ? pkg : pkg + "/";
+    int lo = 0;
+    int hi = sorted.length;
+    
+    while (lo < hi) {
+      int mid = (lo + hi) >>> 1;
+      
+      if (names[sorted[mid]].compareTo(prefix) < 0) {
+        lo = mid + 1;
+      } else {
+        hi = mid;
+      }
+    }
+    
+    for (int i = lo; i < sorted.length 
+                     && names[sorted[i]].startsWith(prefix); ++i) {
+      ids.set(sorted[i]);
+    }
+  }
+}
@@ -20,6 +20,7 @@
 package gov.nasa.jpf.autodoc.types.scanner;
 
 import gov.nasa.jpf.autodoc.types.FileNotLoadedException;
+import gov.nasa.jpf.autodoc.types.Metrics;
 import gov.nasa.jpf.autodoc.types.NameUtils;
 import java.io.File;
 import java.io.FileInputStream;
@@ -41,6 +42,14 @@ import java.util.zip.ZipFile;
 public class ArchiveReader {
 
   private ZipFile archive;
+  private Metrics metrics = Metrics.DISABLED;
+
+  /**
+   * Set the metrics where archives, entries and bytes read are counted.
+   */
+  public void setMetrics(Metrics metrics) {
+    this.metrics = metrics;
+  }
 
   /**
    * Load an archive from a file path.
@@ -49,6 +58,7 @@ public class ArchiveReader {
    */
   public void load(String path) throws IOException {
     archive = new ZipFile(path);
+    metrics.count("read.archives", 1);
   }
 
   /**
@@ -59,6 +69,7 @@ public class ArchiveReader {
    */
   public void load(File file) throws ZipException, IOException {
     archive = new ZipFile(file);
+    metrics.count("read.archives", 1);
   }
 
   /**
@@ -134,6 +145,8 @@ public class ArchiveReader {
    */
   public byte[] readEntry(ZipFile file, ZipEntry entry) throws IOException {
     InputStream stream = file.getInputStream(entry);
+    metrics.count("read.entries", 1);
+    metrics.count("read.bytes", entry.getSize());
     return read(stream, (int)entry.getSize());
   }
 
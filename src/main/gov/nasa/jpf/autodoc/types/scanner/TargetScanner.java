@@ -20,6 +20,7 @@
 package gov.nasa.jpf.autodoc.types.scanner;
 
 import gov.nasa.jpf.autodoc.types.FileNotLoadedException;
+import gov.nasa.jpf.autodoc.types.Metrics;
 import gov.nasa.jpf.autodoc.types.NameUtils;
 import gov.nasa.jpf.autodoc.types.info.ClassInfo;
 import gov.nasa.jpf.autodoc.types.parser.ClassFileNotFoundException;
@@ -44,6 +45,7 @@ public class TargetScanner implements Scanner {
 
   private Parser parser;
   private Set<ClassInfo> info = new TreeSet<ClassInfo>();
+  private Metrics metrics = Metrics.DISABLED;
 
   public enum ScanType {
 
@@ -66,6 +68,14 @@ public class TargetScanner implements Scanner {
     this.parser = parser;
   }
 
+  /**
+   * Set the metrics where walks of directories and reads of archives are 
+   * timed. Parsing is timed by the parser itself.
+   */
+  public void setMetrics(Metrics metrics) {
+    this.metrics = metrics;
+  }
+
   @Override
   public Set<ClassInfo> getScanned() {
     return info;
@@ -103,6 +113,7 @@ public class TargetScanner implements Scanner {
     ProjectScanner pScanner = new ProjectScanner(this);
     ArchiveReader aReader = new ArchiveReader();
     ScanData data = new ScanData();
+    aReader.setMetrics(metrics);
     
     if ((targets == null) || (targets.length == 0)) {
       data = pScanner.scanAll(scanType);
@@ -116,8 +127,11 @@ public class TargetScanner implements Scanner {
           info.add(parser.parse(target, classpath));
         } else if (NameUtils.isJarFilename(target) 
                    || NameUtils.isZipFilename(target)) {
+          Metrics.Timer timer = metrics.start("read");
           aReader.load(target);
-          info.addAll(parser.parseBytes(aReader.readClassFiles()));
+          List<byte[]> read = aReader.readClassFiles();
+          timer.stop(read.size());
+          info.addAll(parser.parseBytes(read));
         } else if (pScanner.checkName(target)) {
           data = pScanner.scan(target, scanType);
           info.addAll(parser.parse(data.getFilelist()));
@@ -168,13 +182,16 @@ public class TargetScanner implements Scanner {
    */
   public List<byte[]> resolve(Set<String> archives)
           throws IOException, FileNotLoadedException, ClassFileException {
+    Metrics.Timer timer = metrics.start("read");
     ArchiveReader aReader = new ArchiveReader();
     List<byte[]> data = new ArrayList<byte[]>();
+    aReader.setMetrics(metrics);
 
     for (String file : archives) {
       aReader.load(file);
       data.addAll(aReader.readClassFiles());
     }
+    timer.stop(data.size());
     return data;
   }
 
@@ -229,9 +246,11 @@ public class TargetScanner implements Scanner {
    */
   @Override
   public Set<String> fetch(String target, FilenameFilter filter) {
+    Metrics.Timer timer = metrics.start("walk");
     Set<String> files = new TreeSet<String>();
     File path = new File(target);
     files.addAll(seek(path, filter));
+    timer.stop(files.size());
     return files;
   }
 
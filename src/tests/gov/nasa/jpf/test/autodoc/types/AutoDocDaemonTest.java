@@ -0,0 +1,131 @@
+//
+// Copyright (C) 2014 United States Government as represented by the
+// Administrator of the National Aeronautics and Space Administration
+// (NASA).  All Rights Reserved.
+//
+// This software is distributed under the NASA Open Source Agreement
+// (NOSA), version 1.3.  The NOSA has been approved by the Open Source
+// Initiative.  See the file NOSA-1.3-JPF at the top of the distribution
+// directory tree for the complete NOSA document.
+//
+// THE SUBJECT SOFTWARE IS PROVIDED "AS IS" WITHOUT ANY WARRANTY OF ANY
+// KIND, EITHER EXPRESSED, IMPLIED, OR STATUTORY, INCLUDING, BUT NOT
+// LIMITED TO, ANY WARRANTY THAT THE SUBJECT SOFTWARE WILL CONFORM TO
+// SPECIFICATIONS, ANY IMPLIED WARRANTIES OF MERCHANTABILITY, FITNESS FOR
+// A PARTICULAR PURPOSE, OR FREEDOM FROM INFRINGEMENT, ANY WARRANTY THAT
+// THE SUBJECT SOFTWARE WILL BE ERROR FREE, OR ANY WARRANTY THAT
+// DOCUMENTATION, IF PROVIDED, WILL CONFORM TO THE SUBJECT SOFTWARE.
+//
+
+package gov.nasa.jpf.test.autodoc.types;
+
+import gov.nasa.jpf.autodoc.types.AutoDocDaemon;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.nio.file.Files;
+import java.nio.file.attribute.PosixFilePermissions;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ *
+ * @author Carlos Uribe
+ */
+public class AutoDocDaemonTest {
+
+  public AutoDocDaemonTest() {
+  }
+
+  /**
+   * Test of handle(String, PrintWriter) method, of class AutoDocDaemon.
+   */
+  @Test
+  public void testHandle() {
+    System.out.println("method> handle(String, PrintWriter)");
+
+    AutoDocDaemon daemon = new AutoDocDaemon();
+    StringWriter out = new StringWriter();
+
+    //--- output files are relative to the daemon, so others are refused.
+    String other = System.getProperty("java.io.tmpdir") + "/jpfadt-other";
+    assertEquals(2, daemon.handle(other + "\tlib/jpf.jar", 
+                                  new PrintWriter(out)));
+    assertTrue(out.toString().contains("Daemon runs in"));
+    assertFalse(daemon.isStopped());
+
+    assertEquals(0, daemon.handle("\t" + AutoDocDaemon.STOP, 
+                                  new PrintWriter(out)));
+    assertTrue(daemon.isStopped());
+  }
+
+  /**
+   * Test of handle(String, PrintWriter) method, of class AutoDocDaemon, with
+   * a token.
+   */
+  @Test
+  public void testHandleToken() {
+    System.out.println("method> handle(String, PrintWriter)");
+
+    String token = AutoDocDaemon.createToken();
+    AutoDocDaemon daemon = new AutoDocDaemon(token);
+    StringWriter out = new StringWriter();
+    assertEquals(32, token.length());
+
+    assertEquals(2, daemon.handle("\t" + AutoDocDaemon.STOP, 
+                                  new PrintWriter(out)));
+    assertEquals(2, daemon.handle("x" + token + "\t\t" + AutoDocDaemon.STOP,
+                                  new PrintWriter(out)));
+    assertEquals(2, daemon.handle(token, new PrintWriter(out)));
+    assertTrue(out.toString().contains("Invalid daemon token"));
+    assertFalse(daemon.isStopped());
+
+    assertEquals(0, daemon.handle(token + "\t\t" + AutoDocDaemon.STOP, 
+                                  new PrintWriter(out)));
+    assertTrue(daemon.isStopped());
+  }
+
+  /**
+   * Test of writeToken(File) method, of class AutoDocDaemon.
+   */
+  @Test
+  public void testWriteToken() throws Exception {
+    System.out.println("method> writeToken(File)");
+
+    File file = new File("build/tests/daemon.token");
+    file.getParentFile().mkdirs();
+    String token = AutoDocDaemon.createToken();
+    new AutoDocDaemon(token).writeToken(file);
+    new AutoDocDaemon(token).writeToken(file);
+
+    assertEquals(token, new String(Files.readAllBytes(file.toPath()), 
+                                   "UTF-8"));
+    assertEquals("rw-------", PosixFilePermissions.toString(
+            Files.getPosixFilePermissions(file.toPath())));
+    assertTrue(file.delete());
+  }
+
+  /**
+   * Test of serve(InputStream, OutputStream, boolean) method, of class 
+   * AutoDocDaemon.
+   */
+  @Test
+  public void testServe() throws Exception {
+    System.out.println("method> serve(InputStream, OutputStream, boolean)");
+
+    String requests = "/\tx\n\t" + AutoDocDaemon.STOP + "\n\t-h\n";
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    AutoDocDaemon daemon = new AutoDocDaemon();
+    daemon.serve(new ByteArrayInputStream(requests.getBytes("UTF-8")), out, 
+                 false);
+
+    //--- each answer ends with its status, none is served after stopping.
+    String[] lines = out.toString("UTF-8").split("\n");
+    assertEquals(AutoDocDaemon.END + "2", lines[1]);
+    assertEquals("daemon stopped", lines[2]);
+    assertEquals(AutoDocDaemon.END + "0", lines[3]);
+    assertEquals(4, lines.length);
+  }
+}
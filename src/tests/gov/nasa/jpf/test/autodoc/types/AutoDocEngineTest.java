@@ -0,0 +1,173 @@
+//
+// Copyright (C) 2014 United States Government as represented by the
+// Administrator of the National Aeronautics and Space Administration
+// (NASA).  All Rights Reserved.
+//
+// This software is distributed under the NASA Open Source Agreement
+// (NOSA), version 1.3.  The NOSA has been approved by the Open Source
+// Initiative.  See the file NOSA-1.3-JPF at the top of the distribution
+// directory tree for the complete NOSA document.
+//
+// THE SUBJECT SOFTWARE IS PROVIDED "AS IS" WITHOUT ANY WARRANTY OF ANY
+// KIND, EITHER EXPRESSED, IMPLIED, OR STATUTORY, INCLUDING, BUT NOT
+// LIMITED TO, ANY WARRANTY THAT THE SUBJECT SOFTWARE WILL CONFORM TO
+// SPECIFICATIONS, ANY IMPLIED WARRANTIES OF MERCHANTABILITY, FITNESS FOR
+// A PARTICULAR PURPOSE, OR FREEDOM FROM INFRINGEMENT, ANY WARRANTY THAT
+// THE SUBJECT SOFTWARE WILL BE ERROR FREE, OR ANY WARRANTY THAT
+// DOCUMENTATION, IF PROVIDED, WILL CONFORM TO THE SUBJECT SOFTWARE.
+//
+
+package gov.nasa.jpf.test.autodoc.types;
+
+import gov.nasa.jpf.autodoc.types.AutoDocEngine;
+import gov.nasa.jpf.autodoc.types.AutoDocTool.Options;
+import gov.nasa.jpf.autodoc.types.info.CollectedInfo;
+import gov.nasa.jpf.autodoc.types.output.Writer;
+import gov.nasa.jpf.autodoc.types.output.WriterFactory;
+import java.io.File;
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ *
+ * @author Carlos Uribe
+ */
+public class AutoDocEngineTest {
+
+  private static final String[] QUERY = { "-q", "kind=peer", "lib/jpf.jar", 
+                                          "lib/jpf-classes.jar" };
+
+  public AutoDocEngineTest() {
+  }
+
+  private static Writer createConsole(StringWriter out) {
+    return WriterFactory.createConsole(new PrintWriter(out));
+  }
+
+  /**
+   * Test of run() method, of class AutoDocEngine.
+   */
+  @Test
+  public void testRun() throws Exception {
+    System.out.println("method> run()");
+
+    StringWriter out = new StringWriter();
+    StringWriter md = new StringWriter();
+    File ndjson = new File("build/tests/engine.ndjson");
+    ndjson.delete();
+
+    AutoDocEngine engine = new AutoDocEngine.Builder()
+            .args("-oN", ndjson.getPath())
+            .options(Options.ANALYZE_ALL, Options.JAR_FILES, Options.NDJSON)
+            .targets("lib/jpf-classes.jar")
+            .console(createConsole(out))
+            .sink(WriterFactory.createWriter(WriterFactory.Format.MARKDOWN, 
+                                             new PrintWriter(md)))
+            .build();
+
+    assertEquals(0, engine.run());
+    CollectedInfo info = engine.getInfo();
+    assertTrue(info.getModels().size() > 0);
+    assertTrue(ndjson.isFile());
+    assertTrue(out.toString().contains("writing ndjson to"));
+
+    String name = info.getModels().keySet().iterator().next();
+    assertTrue(md.toString().contains(name));
+  }
+
+  /**
+   * Test of run() method, of class AutoDocEngine, with a previous session 
+   * over the same targets.
+   */
+  @Test
+  public void testRunIncremental() throws Exception {
+    System.out.println("method> run() incremental");
+
+    AutoDocEngine.Shared shared = new AutoDocEngine.Shared();
+    AutoDocEngine first = new AutoDocEngine.Builder().args(QUERY)
+            .console(createConsole(new StringWriter())).shared(shared)
+            .build();
+    assertEquals(0, first.run());
+    CollectedInfo expected = first.getInfo();
+    String name = expected.getPeers().keySet().iterator().next();
+
+    //--- nothing changed, results are taken from the first session.
+    AutoDocEngine second = new AutoDocEngine.Builder().args(QUERY)
+            .console(createConsole(new StringWriter())).shared(shared)
+            .build();
+    assertEquals(0, second.run());
+    CollectedInfo info = second.getInfo();
+    assertNotSame(expected, info);
+    assertSame(expected.getPeer(name), info.getPeer(name));
+    assertEquals(expected.getPeers().keySet(), info.getPeers().keySet());
+    assertEquals(expected.getModels().keySet(), info.getModels().keySet());
+    assertEquals(expected.getSubtypes().keySet(), 
+                 info.getSubtypes().keySet());
+
+    //--- other targets are analyzed from scratch.
+    AutoDocEngine other = new AutoDocEngine.Builder()
+            .args("-q", "kind=peer", "lib/jpf-classes.jar", "lib/jpf.jar")
+            .console(createConsole(new StringWriter())).shared(shared)
+            .build();
+    assertEquals(0, other.run());
+    assertNotSame(expected.getPeer(name), other.getInfo().getPeer(name));
+    assertEquals(expected.getPeers().keySet(), 
+                 other.getInfo().getPeers().keySet());
+  }
+
+  /**
+   * Test of run() method, of class AutoDocEngine, with concurrent sessions.
+   */
+  @Test
+  public void testConcurrentRun() throws Exception {
+    System.out.println("method> run() concurrent");
+
+    final AutoDocEngine.Shared shared = new AutoDocEngine.Shared();
+    AutoDocEngine first = new AutoDocEngine.Builder().args(QUERY)
+            .console(createConsole(new StringWriter())).shared(shared)
+            .build();
+    assertEquals(0, first.run());
+    CollectedInfo expected = first.getInfo();
+    assertTrue(expected.getPeers().size() > 0);
+
+    ExecutorService pool = Executors.newFixedThreadPool(3);
+    List<Future<CollectedInfo>> sessions = 
+            new ArrayList<Future<CollectedInfo>>();
+
+    for (int i = 0; i < 3; ++i) {
+      sessions.add(pool.submit(new Callable<CollectedInfo>() {
+
+        @Override
+        public CollectedInfo call() throws Exception {
+          AutoDocEngine engine = new AutoDocEngine.Builder().args(QUERY)
+                  .console(createConsole(new StringWriter())).shared(shared)
+                  .build();
+          assertEquals(0, engine.run());
+          return engine.getInfo();
+        }
+      }));
+    }
+
+    try {
+      for (Future<CollectedInfo> session : sessions) {
+        CollectedInfo info = session.get();
+        assertNotSame(expected, info);
+        assertEquals(expected.getPeers().keySet(), info.getPeers().keySet());
+        assertEquals(expected.getModels().keySet(), 
+                     info.getModels().keySet());
+        assertEquals(expected.getSubtypes().keySet(), 
+                     info.getSubtypes().keySet());
+      }
+    } finally {
+      pool.shutdown();
+    }
+  }
+}
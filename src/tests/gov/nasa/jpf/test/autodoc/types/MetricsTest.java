@@ -0,0 +1,100 @@
+//
+// Copyright (C) 2014 United States Government as represented by the
+// Administrator of the National Aeronautics and Space Administration
+// (NASA).  All Rights Reserved.
+//
+// This software is distributed under the NASA Open Source Agreement
+// (NOSA), version 1.3.  The NOSA has been approved by the Open Source
+// Initiative.  See the file NOSA-1.3-JPF at the top of the distribution
+// directory tree for the complete NOSA document.
+//
+// THE SUBJECT SOFTWARE IS PROVIDED "AS IS" WITHOUT ANY WARRANTY OF ANY
+// KIND, EITHER EXPRESSED, IMPLIED, OR STATUTORY, INCLUDING, BUT NOT
+// LIMITED TO, ANY WARRANTY THAT THE SUBJECT SOFTWARE WILL CONFORM TO
+// SPECIFICATIONS, ANY IMPLIED WARRANTIES OF MERCHANTABILITY, FITNESS FOR
+// A PARTICULAR PURPOSE, OR FREEDOM FROM INFRINGEMENT, ANY WARRANTY THAT
+// THE SUBJECT SOFTWARE WILL BE ERROR FREE, OR ANY WARRANTY THAT
+// DOCUMENTATION, IF PROVIDED, WILL CONFORM TO THE SUBJECT SOFTWARE.
+//
+
+package gov.nasa.jpf.test.autodoc.types;
+
+import gov.nasa.jpf.autodoc.types.Metrics;
+import java.io.StringWriter;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ *
+ * @author Carlos Uribe
+ */
+public class MetricsTest {
+
+  public MetricsTest() {
+  }
+
+  /**
+   * Test of start(String) method, of class Metrics.
+   */
+  @Test
+  public void testStart() {
+    System.out.println("method> start(String)");
+
+    Metrics metrics = new Metrics(true);
+    metrics.start("parse").stop(3);
+    metrics.start("parse").stop(2);
+    metrics.start("scan").stop();
+
+    Metrics.Phase parse = metrics.getPhase("parse");
+    assertEquals(2, parse.getRuns());
+    assertEquals(5, parse.getItems());
+    assertTrue(parse.getWallTime() >= 0);
+    assertEquals("parse", metrics.getPhases().get(0).getName());
+    assertEquals("scan", metrics.getPhases().get(1).getName());
+
+    Metrics.DISABLED.start("parse").stop(1);
+    assertNull(Metrics.DISABLED.getPhase("parse"));
+  }
+
+  /**
+   * Test of count(String, long) method, of class Metrics.
+   */
+  @Test
+  public void testCount() {
+    System.out.println("method> count(String, long)");
+
+    Metrics metrics = new Metrics(true);
+    metrics.count("read.bytes", 10);
+    metrics.count("read.bytes", 32);
+    assertEquals(42, metrics.getCount("read.bytes"));
+    assertEquals(0, metrics.getCount("read.files"));
+
+    Metrics.DISABLED.count("read.bytes", 10);
+    assertEquals(0, Metrics.DISABLED.getCount("read.bytes"));
+  }
+
+  /**
+   * Test of write(Writer) method, of class Metrics.
+   */
+  @Test
+  public void testWrite() throws Exception {
+    System.out.println("method> write(Writer)");
+
+    Metrics metrics = new Metrics(true);
+    metrics.start("parse").stop(4);
+    metrics.start("configure").stop();
+    metrics.count("parse.errors", 1);
+
+    StringWriter out = new StringWriter();
+    metrics.write(out);
+    String json = out.toString();
+
+    assertTrue(json.startsWith("{\n\"phases\": ["));
+    assertTrue(json.contains("{\"name\": \"parse\", \"runs\": 1, "));
+    assertTrue(json.contains("\"items\": 4, \"itemsPerSec\": "));
+    assertTrue(json.contains("\"items\": 0}"));
+    assertTrue(json.contains("\"parse.errors\": 1"));
+    assertTrue(json.contains("\"memory\": {\"heapUsed\": "));
+    assertTrue(json.endsWith("}\n}\n"));
+  }
+}
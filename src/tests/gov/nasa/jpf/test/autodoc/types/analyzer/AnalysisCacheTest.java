@@ -0,0 +1,222 @@
+//
+// Copyright (C) 2014 United States Government as represented by the
+// Administrator of the National Aeronautics and Space Administration
+// (NASA).  All Rights Reserved.
+//
+// This software is distributed under the NASA Open Source Agreement
+// (NOSA), version 1.3.  The NOSA has been approved by the Open Source
+// Initiative.  See the file NOSA-1.3-JPF at the top of the distribution
+// directory tree for the complete NOSA document.
+//
+// THE SUBJECT SOFTWARE IS PROVIDED "AS IS" WITHOUT ANY WARRANTY OF ANY
+// KIND, EITHER EXPRESSED, IMPLIED, OR STATUTORY, INCLUDING, BUT NOT
+// LIMITED TO, ANY WARRANTY THAT THE SUBJECT SOFTWARE WILL CONFORM TO
+// SPECIFICATIONS, ANY IMPLIED WARRANTIES OF MERCHANTABILITY, FITNESS FOR
+// A PARTICULAR PURPOSE, OR FREEDOM FROM INFRINGEMENT, ANY WARRANTY THAT
+// THE SUBJECT SOFTWARE WILL BE ERROR FREE, OR ANY WARRANTY THAT
+// DOCUMENTATION, IF PROVIDED, WILL CONFORM TO THE SUBJECT SOFTWARE.
+//
+
+package gov.nasa.jpf.test.autodoc.types.analyzer;
+
+import gov.nasa.jpf.autodoc.types.analyzer.AnalysisCache;
+import gov.nasa.jpf.autodoc.types.analyzer.AnalysisTrigger;
+import gov.nasa.jpf.autodoc.types.analyzer.AnalysisTrigger.AnalysisType;
+import gov.nasa.jpf.autodoc.types.info.ClassInfo;
+import gov.nasa.jpf.autodoc.types.info.CollectedInfo;
+import gov.nasa.jpf.autodoc.types.info.SubtypeInfo;
+import java.io.File;
+import java.util.ArrayList;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ *
+ * @author Carlos Uribe
+ */
+public class AnalysisCacheTest {
+
+  private static final String ADAPTER = "gov/nasa/jpf/ListenerAdapter";
+
+  private AnalysisTrigger trigger;
+  private AnalysisCache cache;
+  private File file;
+
+  public AnalysisCacheTest() {
+  }
+
+  @Before
+  public void setUp() throws Exception {
+    file = File.createTempFile("analyses-", ".cache");
+    file.delete();
+
+    trigger = new AnalysisTrigger();
+    cache = new AnalysisCache(file, "test");
+    trigger.setCache(cache);
+  }
+
+  @After
+  public void tearDown() throws Exception {
+    file.delete();
+  }
+
+  private ClassInfo createClass(String name, String superName, 
+                                String method) {
+    ClassInfo cls = new ClassInfo();
+    cls.setName(name);
+    cls.setSuperName(superName);
+    cls.getMethods().add(method + "()V");
+    return cls;
+  }
+
+  private CollectedInfo analyze(ClassInfo... classes) throws Exception {
+    CollectedInfo info = new CollectedInfo();
+    SubtypeInfo type = new SubtypeInfo();
+    type.setInfo(createClass(ADAPTER, "java/lang/Object", "stateAdvanced"));
+    info.registerType(type);
+
+    for (ClassInfo cls : classes) {
+      info.register(cls);
+    }
+    return trigger.startAnalyses(info, AnalysisType.ALL.getWeight());
+  }
+
+  private CollectedInfo analyze(String aMethod, String bMethod) 
+          throws Exception {
+    return analyze(createClass("A", ADAPTER, aMethod),
+                   createClass("B", "A", bMethod),
+                   createClass("C", "java/lang/Object", "run"));
+  }
+
+  /**
+   * Test of lookup(InfoAnalyzer, AnalysisContext, CollectedInfo) method, of 
+   * class AnalysisCache.
+   */
+  @Test
+  public void testLookup() throws Exception {
+    System.out.println("method> lookup(InfoAnalyzer, AnalysisContext, "
+                       + "CollectedInfo)");
+
+    CollectedInfo info = analyze("stateAdvanced", "stateAdvanced");
+    int lookups = cache.getMisses();
+    assertEquals(0, cache.getHits());
+    assertEquals(lookups, cache.size());
+
+    //--- same classes again, every result is reused.
+    CollectedInfo cached = analyze("stateAdvanced", "stateAdvanced");
+    System.out.println("  hits: " + cache.getHits());
+    assertEquals(lookups, cache.getHits());
+    assertEquals(lookups, cache.getMisses());
+    assertEquals(info.getSubtypes().keySet(), 
+                 cached.getSubtypes().keySet());
+    assertEquals(new ArrayList<String>(info.getSub("B").getAncestorChain()),
+                 new ArrayList<String>(cached.getSub("B").getAncestorChain()));
+    assertEquals(info.getSub("B").getSuperMethods(), 
+                 cached.getSub("B").getSuperMethods());
+  }
+
+  /**
+   * Test of lookup(InfoAnalyzer, AnalysisContext, CollectedInfo) method, of 
+   * class AnalysisCache, after classes change.
+   */
+  @Test
+  public void testLookupChanged() throws Exception {
+    System.out.println("method> lookup(InfoAnalyzer, AnalysisContext, "
+                       + "CollectedInfo) changed");
+
+    analyze("stateAdvanced", "stateAdvanced");
+    int lookups = cache.getMisses();
+    int perClass = lookups / 3;
+
+    //--- only results of the changed class are dropped.
+    analyze("stateAdvanced", "stateBacktracked");
+    assertEquals(lookups + perClass, cache.getMisses());
+    assertEquals(lookups - perClass, cache.getHits());
+
+    //--- a changed superclass drops results of its subclasses too.
+    int misses = cache.getMisses();
+    int hits = cache.getHits();
+    CollectedInfo info = analyze("searchStarted", "stateBacktracked");
+    System.out.println("  misses: " + (cache.getMisses() - misses));
+    assertEquals(misses + 2 * perClass, cache.getMisses());
+    assertEquals(hits + perClass, cache.getHits());
+    assertTrue(info.isSubtype("B"));
+    assertEquals(perClass * 3, cache.size());
+  }
+
+  /**
+   * Test of load(File, String) method, of class AnalysisCache.
+   */
+  @Test
+  public void testLoad() throws Exception {
+    System.out.println("method> load(File, String)");
+
+    analyze("stateAdvanced", "stateAdvanced");
+    int lookups = cache.getMisses();
+    cache.save();
+    assertTrue(file.isFile());
+
+    AnalysisCache loaded = AnalysisCache.load(file, "test");
+    assertEquals(lookups, loaded.size());
+
+    //--- results loaded are reused as they were.
+    trigger.setCache(loaded);
+    CollectedInfo info = analyze("stateAdvanced", "stateAdvanced");
+    assertEquals(lookups, loaded.getHits());
+    assertEquals(0, loaded.getMisses());
+    assertTrue(info.isSubtype("A"));
+    assertTrue(info.isSubtype("B"));
+    assertFalse(info.isSubtype("C"));
+
+    //--- other analyzers, paths or types, nothing is kept.
+    loaded = AnalysisCache.load(file, "other");
+    System.out.println("  size: " + loaded.size());
+    assertEquals(0, loaded.size());
+  }
+
+  /**
+   * Test of save() method, of class AnalysisCache.
+   */
+  @Test
+  public void testSave() throws Exception {
+    System.out.println("method> save()");
+
+    analyze("stateAdvanced", "stateAdvanced");
+    int perClass = cache.getUsed() / 3;
+    cache.save();
+    assertEquals(perClass * 3, AnalysisCache.load(file, "test").size());
+
+    //--- C is gone, so are its entries.
+    analyze(createClass("A", ADAPTER, "stateAdvanced"),
+            createClass("B", "A", "stateAdvanced"));
+    assertEquals(perClass * 2, cache.getUsed());
+    cache.save();
+
+    AnalysisCache loaded = AnalysisCache.load(file, "test");
+    System.out.println("  size: " + loaded.size());
+    assertEquals(perClass * 2, loaded.size());
+  }
+
+  /**
+   * Test of fingerprint(AnalysisTrigger, CollectedInfo) method, of class 
+   * AnalysisCache.
+   */
+  @Test
+  public void testFingerprint() throws Exception {
+    System.out.println("method> fingerprint(AnalysisTrigger, CollectedInfo)");
+
+    CollectedInfo info = analyze("stateAdvanced", "stateAdvanced");
+    String fingerprint = AnalysisCache.fingerprint(trigger, info);
+    assertEquals(fingerprint, AnalysisCache.fingerprint(trigger, info));
+
+    CollectedInfo other = analyze();
+    SubtypeInfo type = new SubtypeInfo();
+    type.setInfo(createClass("gov/nasa/jpf/PropertyListenerAdapter", 
+                             ADAPTER, "check"));
+    other.registerType(type);
+    assertFalse(fingerprint.equals(AnalysisCache.fingerprint(trigger, 
+                                                             other)));
+  }
+}
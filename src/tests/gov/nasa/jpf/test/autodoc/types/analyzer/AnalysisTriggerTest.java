@@ -0,0 +1,300 @@
+//
+// Copyright (C) 2014 United States Government as represented by the
+// Administrator of the National Aeronautics and Space Administration
+// (NASA).  All Rights Reserved.
+//
+// This software is distributed under the NASA Open Source Agreement
+// (NOSA), version 1.3.  The NOSA has been approved by the Open Source
+// Initiative.  See the file NOSA-1.3-JPF at the top of the distribution
+// directory tree for the complete NOSA document.
+//
+// THE SUBJECT SOFTWARE IS PROVIDED "AS IS" WITHOUT ANY WARRANTY OF ANY
+// KIND, EITHER EXPRESSED, IMPLIED, OR STATUTORY, INCLUDING, BUT NOT
+// LIMITED TO, ANY WARRANTY THAT THE SUBJECT SOFTWARE WILL CONFORM TO
+// SPECIFICATIONS, ANY IMPLIED WARRANTIES OF MERCHANTABILITY, FITNESS FOR
+// A PARTICULAR PURPOSE, OR FREEDOM FROM INFRINGEMENT, ANY WARRANTY THAT
+// THE SUBJECT SOFTWARE WILL BE ERROR FREE, OR ANY WARRANTY THAT
+// DOCUMENTATION, IF PROVIDED, WILL CONFORM TO THE SUBJECT SOFTWARE.
+//
+
+package gov.nasa.jpf.test.autodoc.types.analyzer;
+
+import gov.nasa.jpf.autodoc.types.analyzer.AnalysisCache;
+import gov.nasa.jpf.autodoc.types.analyzer.AnalysisListener;
+import gov.nasa.jpf.autodoc.types.analyzer.AnalysisTrigger;
+import gov.nasa.jpf.autodoc.types.analyzer.AnalysisTrigger.AnalysisType;
+import gov.nasa.jpf.autodoc.types.analyzer.InvalidAnalyzerException;
+import gov.nasa.jpf.autodoc.types.analyzer.NativePeerAnalyzer;
+import gov.nasa.jpf.autodoc.types.info.ClassInfo;
+import gov.nasa.jpf.autodoc.types.info.CollectedInfo;
+import gov.nasa.jpf.autodoc.types.info.JPFInfo;
+import gov.nasa.jpf.autodoc.types.info.SubtypeInfo;
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import org.junit.Before;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ *
+ * @author Carlos Uribe
+ */
+public class AnalysisTriggerTest {
+
+  private static final String ADAPTER = "gov/nasa/jpf/ListenerAdapter";
+
+  private AnalysisTrigger trigger;
+  private CollectedInfo info;
+
+  public AnalysisTriggerTest() {
+  }
+
+  @Before
+  public void setUp() throws Exception {
+    trigger = new AnalysisTrigger();
+    info = new CollectedInfo();
+
+    SubtypeInfo type = new SubtypeInfo();
+    type.setInfo(createClass(ADAPTER, "java/lang/Object", "stateAdvanced"));
+    type.setType("Listener");
+    info.registerType(type);
+
+    info.register(createClass("A", ADAPTER, "stateAdvanced"));
+    info.register(createClass("B", "A", "stateAdvanced"));
+    info.register(createClass("C", "java/lang/Object", "run"));
+    trigger.startAnalyses(info, AnalysisType.ALL.getWeight());
+  }
+
+  private ClassInfo createClass(String name, String superName, 
+                                String method) {
+    ClassInfo cls = new ClassInfo();
+    cls.setName(name);
+    cls.setSuperName(superName);
+    cls.getMethods().add(method + "()V");
+    return cls;
+  }
+
+  /**
+   * Test of reanalyze(CollectedInfo, Collection, int) method, of class 
+   * AnalysisTrigger.
+   */
+  @Test
+  public void testReanalyze() throws Exception {
+    System.out.println("method> reanalyze(CollectedInfo, Collection, int)");
+
+    assertTrue(info.isSubtype("A"));
+    assertTrue(info.isSubtype("B"));
+    assertFalse(info.isSubtype("C"));
+    SubtypeInfo b = info.getSub("B");
+
+    //--- A no longer extends the adapter, so B isn't a listener either.
+    List<ClassInfo> scanned = new ArrayList<ClassInfo>();
+    scanned.add(createClass("A", "java/lang/Object", "stateAdvanced"));
+    scanned.add(createClass("B", "A", "stateAdvanced"));
+    scanned.add(createClass("C", "java/lang/Object", "run"));
+
+    Set<String> affected = trigger.reanalyze(info, scanned, 
+                                             AnalysisType.ALL.getWeight());
+    System.out.println("  affected: " + affected);
+    assertEquals(2, affected.size());
+    assertFalse(info.isSubtype("A"));
+    assertFalse(info.isSubtype("B"));
+
+    //--- back again, unchanged classes are left as they are.
+    scanned.set(0, createClass("A", ADAPTER, "stateAdvanced"));
+    affected = trigger.reanalyze(info, scanned, AnalysisType.ALL.getWeight());
+    assertFalse(affected.contains("C"));
+    assertTrue(info.isSubtype("B"));
+    assertNotSame(b, info.getSub("B"));
+
+    b = info.getSub("B");
+    scanned.set(2, createClass("C", "java/lang/Object", "stop"));
+    affected = trigger.reanalyze(info, scanned, AnalysisType.ALL.getWeight());
+    assertEquals(1, affected.size());
+    assertSame(b, info.getSub("B"));
+  }
+
+  /**
+   * Test of reanalyze(CollectedInfo, CollectedInfo, int) method, of class 
+   * AnalysisTrigger.
+   */
+  @Test
+  public void testReanalyzeLast() throws Exception {
+    System.out.println("method> reanalyze(CollectedInfo, CollectedInfo, int)");
+
+    List<ClassInfo> classes = new ArrayList<ClassInfo>();
+    classes.add(createClass("A", ADAPTER, "stateAdvanced"));
+    classes.add(createClass("B", "A", "stateBacktracked"));
+    classes.add(createClass("C", "java/lang/Object", "run"));
+    CollectedInfo current = new CollectedInfo();
+    current.registerType(info.getType(ADAPTER));
+
+    for (ClassInfo cls : classes) {
+      current.register(cls);
+    }
+
+    //--- only B changed, A is taken as it was and last is left alone.
+    SubtypeInfo b = info.getSub("B");
+    Set<String> affected = trigger.reanalyze(info, current, 
+                                             AnalysisType.ALL.getWeight());
+    System.out.println("  affected: " + affected);
+    assertEquals(1, affected.size());
+    assertTrue(affected.contains("B"));
+    assertSame(info.getSub("A"), current.getSub("A"));
+    assertNotSame(b, current.getSub("B"));
+    assertSame(b, info.getSub("B"));
+    assertFalse(current.isSubtype("C"));
+    assertEquals(info.getDependents("A"), current.getDependents("A"));
+  }
+
+  /**
+   * Test of addListener(AnalysisListener) method, of class AnalysisTrigger.
+   */
+  @Test
+  public void testAddListener() throws Exception {
+    System.out.println("method> addListener(AnalysisListener)");
+
+    final List<String> found = new ArrayList<String>();
+    AnalysisListener listener = new AnalysisListener() {
+
+      @Override
+      public void componentFound(JPFInfo component) {
+        found.add(component.getInfo().getName());
+      }
+    };
+
+    trigger.addListener(listener);
+    trigger.setThreads(2);
+    trigger.startAnalyses(info, AnalysisType.ALL.getWeight());
+    System.out.println("  found: " + found);
+    assertEquals(2, found.size());
+    assertTrue(found.contains("A"));
+    assertTrue(found.contains("B"));
+
+    //--- removed listeners are not notified.
+    trigger.removeListener(listener);
+    trigger.startAnalyses(info, AnalysisType.ALL.getWeight());
+    assertEquals(2, found.size());
+  }
+
+  /**
+   * Test of addListener(AnalysisListener) method, of class AnalysisTrigger, 
+   * with components filtered out.
+   */
+  @Test
+  public void testAddListenerFiltered() throws Exception {
+    System.out.println("method> addListener(AnalysisListener) filtered");
+
+    final List<String> found = new ArrayList<String>();
+    trigger.addListener(new AnalysisListener() {
+
+      @Override
+      public void componentFound(JPFInfo component) {
+        found.add(component.getInfo().getName());
+      }
+    });
+
+    //--- listeners are found but not kept, so they are not notified.
+    List<ClassInfo> classes = new ArrayList<ClassInfo>();
+    classes.add(createClass("A", ADAPTER, "stateAdvanced"));
+    classes.add(createClass("B", "A", "stateAdvanced"));
+    CollectedInfo collected = analyzeAll(classes, 1, 
+                                         AnalysisType.IFACTORIES.getWeight());
+    System.out.println("  found: " + found);
+    assertTrue(collected.getSubtypes().isEmpty());
+    assertTrue(found.isEmpty());
+
+    collected = analyzeAll(classes, 1, AnalysisType.LISTENERS.getWeight());
+    assertEquals(collected.getSubtypes().size(), found.size());
+    assertEquals(2, found.size());
+  }
+
+  /**
+   * Test of setAnalyzers(String[]) method, of class AnalysisTrigger.
+   */
+  @Test
+  public void testSetAnalyzers() throws Exception {
+    System.out.println("method> setAnalyzers(String[])");
+
+    trigger.setAnalyzers(new String[] { NativePeerAnalyzer.class.getName() });
+    assertEquals(1, trigger.getAnalyzers().size());
+    assertTrue(trigger.isBuiltIn(trigger.getAnalyzers().get(0)));
+
+    String[] invalid = { "gov.nasa.jpf.NoAnalyzer", "java.lang.String", 
+                         "java.lang.Integer", "java.lang.Runnable" };
+
+    for (String classname : invalid) {
+      try {
+        trigger.setAnalyzers(new String[] { classname });
+        fail("analyzer created: " + classname);
+      } catch (InvalidAnalyzerException ex) {
+        assertTrue(ex.getMessage().endsWith(classname));
+      }
+    }
+    assertEquals(1, trigger.getAnalyzers().size());
+  }
+
+  /**
+   * Test of setThreads(int) method, of class AnalysisTrigger.
+   */
+  @Test
+  public void testSetThreads() throws Exception {
+    System.out.println("method> setThreads(int)");
+
+    //--- chains of subtypes, with subclasses before and after superclasses.
+    List<ClassInfo> classes = new ArrayList<ClassInfo>();
+    for (int i = 0; i < 200; ++i) {
+      String superName = (i % 10 == 0) ? ADAPTER 
+                         : (i % 10 == 9) ? "java/lang/Object" 
+                         : "p/K" + (i - 1);
+      classes.add(createClass("p/K" + i, superName, "m" + i));
+    }
+    Collections.reverse(classes.subList(100, 200));
+
+    CollectedInfo sequential = analyzeAll(classes, 1);
+    File file = File.createTempFile("analyses-", ".cache");
+    file.delete();
+    trigger.setCache(new AnalysisCache(file, "test"));
+
+    //--- the last runs take results stored by the parallel ones.
+    for (int threads : new int[] { 2, 4, 8, 1, 8 }) {
+      CollectedInfo parallel = analyzeAll(classes, threads);
+      assertEquals(sequential.getSubtypes().keySet(), 
+                   parallel.getSubtypes().keySet());
+      assertEquals(sequential.getModels().keySet(), 
+                   parallel.getModels().keySet());
+      assertEquals(sequential.getPeers().keySet(), 
+                   parallel.getPeers().keySet());
+
+      for (SubtypeInfo sub : sequential.getSubtypes().values()) {
+        SubtypeInfo other = parallel.getSub(sub.getInfo().getName());
+        assertEquals(new ArrayList<String>(sub.getAncestorChain()), 
+                     new ArrayList<String>(other.getAncestorChain()));
+        assertEquals(sub.getSuperMethods(), other.getSuperMethods());
+      }
+    }
+    System.out.println("  subtypes: " + sequential.getSubtypes().size());
+    assertEquals(180, sequential.getSubtypes().size());
+    assertTrue(trigger.getCache().getHits() > 0);
+  }
+
+  private CollectedInfo analyzeAll(List<ClassInfo> classes, int threads) 
+          throws Exception {
+    return analyzeAll(classes, threads, AnalysisType.ALL.getWeight());
+  }
+
+  private CollectedInfo analyzeAll(List<ClassInfo> classes, int threads, 
+                                   int type) throws Exception {
+    CollectedInfo collected = new CollectedInfo();
+    collected.registerType(info.getType(ADAPTER));
+
+    for (ClassInfo cls : classes) {
+      collected.register(cls);
+    }
+    trigger.setThreads(threads);
+    return trigger.startAnalyses(collected, type);
+  }
+}
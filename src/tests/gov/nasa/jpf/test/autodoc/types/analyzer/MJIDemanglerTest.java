@@ -0,0 +1,123 @@
+//
+// Copyright (C) 2014 United States Government as represented by the
+// Administrator of the National Aeronautics and Space Administration
+// (NASA).  All Rights Reserved.
+//
+// This software is distributed under the NASA Open Source Agreement
+// (NOSA), version 1.3.  The NOSA has been approved by the Open Source
+// Initiative.  See the file NOSA-1.3-JPF at the top of the distribution
+// directory tree for the complete NOSA document.
+//
+// THE SUBJECT SOFTWARE IS PROVIDED "AS IS" WITHOUT ANY WARRANTY OF ANY
+// KIND, EITHER EXPRESSED, IMPLIED, OR STATUTORY, INCLUDING, BUT NOT
+// LIMITED TO, ANY WARRANTY THAT THE SUBJECT SOFTWARE WILL CONFORM TO
+// SPECIFICATIONS, ANY IMPLIED WARRANTIES OF MERCHANTABILITY, FITNESS FOR
+// A PARTICULAR PURPOSE, OR FREEDOM FROM INFRINGEMENT, ANY WARRANTY THAT
+// THE SUBJECT SOFTWARE WILL BE ERROR FREE, OR ANY WARRANTY THAT
+// DOCUMENTATION, IF PROVIDED, WILL CONFORM TO THE SUBJECT SOFTWARE.
+//
+
+package gov.nasa.jpf.test.autodoc.types.analyzer;
+
+import gov.nasa.jpf.autodoc.types.analyzer.MJIDemangler;
+import gov.nasa.jpf.autodoc.types.info.ClassInfo;
+import gov.nasa.jpf.autodoc.types.parser.Parser;
+import gov.nasa.jpf.autodoc.types.parser.TargetParser;
+import gov.nasa.jpf.jvm.Types;
+import java.util.Enumeration;
+import java.util.jar.JarEntry;
+import java.util.jar.JarFile;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ *
+ * @author Carlos Uribe
+ */
+public class MJIDemanglerTest {
+
+  private static final String[] JARS = { "lib/jpf.jar", "lib/jpf-classes.jar" };
+
+  public MJIDemanglerTest() {
+  }
+
+  /**
+   * Former unmangling of NativePeerAnalyzer, based on Types.
+   */
+  private static String unmangle(String method) {
+    String unmangled = Types.getJNIMethodName(method);
+    String sign = Types.getJNISignature(method);
+
+    if (sign != null) {
+      int i = sign.indexOf(")") + 1;
+      int j = sign.substring(i).indexOf("(") + i;
+      sign = sign.substring(0, j);
+      unmangled += sign;
+    }
+    return unmangled;
+  }
+
+  /**
+   * Test of decode(String) method, of class MJIDemangler.
+   */
+  @Test
+  public void testDecode() {
+    System.out.println("method> decode(String)");
+
+    String[] methods = { 
+      "getName____Ljava_lang_String_2(Lgov/nasa/jpf/jvm/MJIEnv;I)I",
+      "arraycopy__Ljava_lang_Object_2ILjava_lang_Object_2II__V",
+      "sort___3I__V(Lgov/nasa/jpf/jvm/MJIEnv;II)V",
+      "my_1method__I__Z", "noSignature(I)V", "__init", "x__", "x___",
+      "x__I__", "x__I(Lenv;I)V", "x__a_b_", "x__I)__V(I)"
+    };
+    MJIDemangler demangler = new MJIDemangler();
+
+    for (String method : methods) {
+      String unmangled = demangler.decode(method);
+      System.out.println("  " + method + " -> " + unmangled);
+      assertEquals(unmangle(method), unmangled);
+    }
+  }
+
+  /**
+   * Test of demangle(String) method, of class MJIDemangler, against Types 
+   * over all peer methods of JPF libraries.
+   */
+  @Test
+  public void testDemangle_Peers() throws Exception {
+    System.out.println("method> demangle(String)");
+
+    Parser parser = new TargetParser();
+    MJIDemangler demangler = new MJIDemangler();
+    int count = 0;
+
+    for (String jar : JARS) {
+      JarFile file = new JarFile(jar);
+
+      try {
+        for (Enumeration<JarEntry> e = file.entries(); e.hasMoreElements();) {
+          String name = e.nextElement().getName();
+
+          if (name.contains("/JPF_") && name.endsWith(".class")) {
+            name = name.substring(0, name.length() - 6).replace('/', '.');
+            ClassInfo cls = parser.parse(name, new String[] { jar });
+
+            for (String method : cls.getMethods()) {
+              assertEquals(method, unmangle(method), 
+                           demangler.demangle(method));
+              //--- second time comes from cache
+              assertEquals(method, unmangle(method), 
+                           demangler.demangle(method));
+              ++count;
+            }
+          }
+        }
+      } finally {
+        file.close();
+      }
+    }
+    System.out.println("  methods: " + count);
+    assertTrue(count > 0);
+  }
+}
@@ -0,0 +1,112 @@
+//
+// Copyright (C) 2014 United States Government as represented by the
+// Administrator of the National Aeronautics and Space Administration
+// (NASA).  All Rights Reserved.
+//
+// This software is distributed under the NASA Open Source Agreement
+// (NOSA), version 1.3.  The NOSA has been approved by the Open Source
+// Initiative.  See the file NOSA-1.3-JPF at the top of the distribution
+// directory tree for the complete NOSA document.
+//
+// THE SUBJECT SOFTWARE IS PROVIDED "AS IS" WITHOUT ANY WARRANTY OF ANY
+// KIND, EITHER EXPRESSED, IMPLIED, OR STATUTORY, INCLUDING, BUT NOT
+// LIMITED TO, ANY WARRANTY THAT THE SUBJECT SOFTWARE WILL CONFORM TO
+// SPECIFICATIONS, ANY IMPLIED WARRANTIES OF MERCHANTABILITY, FITNESS FOR
+// A PARTICULAR PURPOSE, OR FREEDOM FROM INFRINGEMENT, ANY WARRANTY THAT
+// THE SUBJECT SOFTWARE WILL BE ERROR FREE, OR ANY WARRANTY THAT
+// DOCUMENTATION, IF PROVIDED, WILL CONFORM TO THE SUBJECT SOFTWARE.
+//
+
+package gov.nasa.jpf.test.autodoc.types.diff;
+
+import gov.nasa.jpf.autodoc.types.diff.DiffListener;
+import gov.nasa.jpf.autodoc.types.diff.InfoDiff;
+import gov.nasa.jpf.autodoc.types.info.ClassInfo;
+import gov.nasa.jpf.autodoc.types.info.CollectedInfo;
+import gov.nasa.jpf.autodoc.types.info.JPFInfo;
+import gov.nasa.jpf.autodoc.types.info.NativePeerInfo;
+import gov.nasa.jpf.autodoc.types.info.SubtypeInfo;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ *
+ * @author Carlos Uribe
+ */
+public class InfoDiffTest {
+
+  public InfoDiffTest() {
+  }
+
+  private static SubtypeInfo createSubtype(String name, String... methods) {
+    ClassInfo cls = new ClassInfo();
+    cls.setName(name);
+    cls.getMethods().addAll(Arrays.asList(methods));
+
+    SubtypeInfo subtype = new SubtypeInfo();
+    subtype.setInfo(cls);
+    subtype.setType("Listener");
+    subtype.addAncestor("gov/nasa/jpf/ListenerAdapter");
+    return subtype;
+  }
+
+  private static NativePeerInfo createPeer(String name, String model) {
+    ClassInfo cls = new ClassInfo();
+    cls.setName(name);
+
+    NativePeerInfo peer = new NativePeerInfo();
+    peer.setInfo(cls);
+    peer.setType("NativePeerClass");
+    peer.setModelName(model);
+    return peer;
+  }
+
+  /**
+   * Test of compare(CollectedInfo, CollectedInfo, DiffListener) method, of 
+   * class InfoDiff.
+   */
+  @Test
+  public void testCompare() {
+    System.out.println("method> compare(CollectedInfo, CollectedInfo, "
+                       + "DiffListener)");
+
+    CollectedInfo before = new CollectedInfo();
+    before.register(createSubtype("a/A", "run()V"));
+    before.register(createSubtype("a/B", "run()V"));
+    before.register(createSubtype("a/D"));
+    before.register(createPeer("a/JPF_a_M", "unknown"));
+
+    CollectedInfo after = new CollectedInfo();
+    after.register(createSubtype("a/B", "run()V", "stop()V"));
+    after.register(createSubtype("a/C"));
+    after.register(createSubtype("a/D"));
+    after.register(createPeer("a/JPF_a_M", "a/M"));
+
+    final List<String> found = new ArrayList<String>();
+    int count = InfoDiff.compare(before, after, new DiffListener() {
+
+      @Override
+      public void added(String kind, JPFInfo component) {
+        found.add("+" + component.getInfo().getName());
+      }
+
+      @Override
+      public void removed(String kind, JPFInfo component) {
+        found.add("-" + component.getInfo().getName());
+      }
+
+      @Override
+      public void changed(String kind, JPFInfo before, JPFInfo after,
+                          List<String> changes) {
+        found.add("*" + after.getInfo().getName() + " " + changes);
+      }
+    });
+
+    assertEquals(4, count);
+    assertEquals(Arrays.asList("-a/A", "*a/B [+own-methods stop()V]", "+a/C",
+                               "*a/JPF_a_M [model: unknown -> a/M]"), found);
+  }
+}
@@ -0,0 +1,112 @@
+//
+// Copyright (C) 2014 United States Government as represented by the
+// Administrator of the National Aeronautics and Space Administration
+// (NASA).  All Rights Reserved.
+//
+// This software is distributed under the NASA Open Source Agreement
+// (NOSA), version 1.3.  The NOSA has been approved by the Open Source
+// Initiative.  See the file NOSA-1.3-JPF at the top of the distribution
+// directory tree for the complete NOSA document.
+//
+// THE SUBJECT SOFTWARE IS PROVIDED "AS IS" WITHOUT ANY WARRANTY OF ANY
+// KIND, EITHER EXPRESSED, IMPLIED, OR STATUTORY, INCLUDING, BUT NOT
+// LIMITED TO, ANY WARRANTY THAT THE SUBJECT SOFTWARE WILL CONFORM TO
+// SPECIFICATIONS, ANY IMPLIED WARRANTIES OF MERCHANTABILITY, FITNESS FOR
+// A PARTICULAR PURPOSE, OR FREEDOM FROM INFRINGEMENT, ANY WARRANTY THAT
+// THE SUBJECT SOFTWARE WILL BE ERROR FREE, OR ANY WARRANTY THAT
+// DOCUMENTATION, IF PROVIDED, WILL CONFORM TO THE SUBJECT SOFTWARE.
+//
+
+package gov.nasa.jpf.test.autodoc.types.info;
+
+import gov.nasa.jpf.autodoc.types.info.AncestorChain;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ *
+ * @author Carlos Uribe
+ */
+public class AncestorChainTest {
+
+  public AncestorChainTest() {
+  }
+
+  /**
+   * Test of push(String) method, of class AncestorChain.
+   */
+  @Test
+  public void testPush() {
+    System.out.println("method> push(String)");
+
+    AncestorChain type = AncestorChain.EMPTY.push("T");
+    AncestorChain a = type.push("A");
+    AncestorChain b = type.push("B");
+
+    assertEquals(Arrays.asList("A", "T"), new ArrayList<String>(a));
+    assertEquals(Arrays.asList("B", "T"), new ArrayList<String>(b));
+    assertSame(type, a.getParent());
+    assertSame(type, b.getParent());
+    assertEquals(2, a.size());
+    assertTrue(a.contains("T"));
+    assertFalse(a.contains("B"));
+    assertEquals(0, AncestorChain.EMPTY.size());
+    assertTrue(AncestorChain.EMPTY.isEmpty());
+  }
+
+  /**
+   * Test of append(String) method, of class AncestorChain.
+   */
+  @Test
+  public void testAppend() {
+    System.out.println("method> append(String)");
+
+    AncestorChain chain = AncestorChain.EMPTY.append("A");
+    chain = chain.append("B").append("C");
+    System.out.println("  chain: " + chain);
+    assertEquals(Arrays.asList("A", "B", "C"), new ArrayList<String>(chain));
+    assertEquals(3, chain.size());
+
+    //--- classnames already in leave the chain as it is.
+    assertSame(chain, chain.append("B"));
+    assertSame(chain, chain.append("C"));
+
+    //--- the original chain is not changed.
+    AncestorChain longer = chain.append("D");
+    assertEquals(3, chain.size());
+    assertEquals(Arrays.asList("A", "B", "C", "D"), 
+                 new ArrayList<String>(longer));
+  }
+
+  /**
+   * Test of of(Iterable) method, of class AncestorChain.
+   */
+  @Test
+  public void testOf() {
+    System.out.println("method> of(Iterable)");
+
+    List<String> names = Arrays.asList("A", "B", "A", "C", "B");
+    Set<String> expected = new LinkedHashSet<String>(names);
+    AncestorChain chain = AncestorChain.of(names);
+
+    assertEquals(new ArrayList<String>(expected), 
+                 new ArrayList<String>(chain));
+    assertEquals(expected, chain);
+    assertEquals(expected.hashCode(), chain.hashCode());
+    assertSame(chain, AncestorChain.of(chain));
+    assertSame(AncestorChain.EMPTY, 
+               AncestorChain.of(new ArrayList<String>()));
+
+    try {
+      chain.add("D");
+      fail("chain changed");
+    } catch (UnsupportedOperationException ex) {
+      assertEquals(3, chain.size());
+    }
+  }
+}
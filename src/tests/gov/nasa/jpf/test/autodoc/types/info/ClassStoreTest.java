@@ -0,0 +1,139 @@
+//
+// Copyright (C) 2014 United States Government as represented by the
+// Administrator of the National Aeronautics and Space Administration
+// (NASA).  All Rights Reserved.
+//
+// This software is distributed under the NASA Open Source Agreement
+// (NOSA), version 1.3.  The NOSA has been approved by the Open Source
+// Initiative.  See the file NOSA-1.3-JPF at the top of the distribution
+// directory tree for the complete NOSA document.
+//
+// THE SUBJECT SOFTWARE IS PROVIDED "AS IS" WITHOUT ANY WARRANTY OF ANY
+// KIND, EITHER EXPRESSED, IMPLIED, OR STATUTORY, INCLUDING, BUT NOT
+// LIMITED TO, ANY WARRANTY THAT THE SUBJECT SOFTWARE WILL CONFORM TO
+// SPECIFICATIONS, ANY IMPLIED WARRANTIES OF MERCHANTABILITY, FITNESS FOR
+// A PARTICULAR PURPOSE, OR FREEDOM FROM INFRINGEMENT, ANY WARRANTY THAT
+// THE SUBJECT SOFTWARE WILL BE ERROR FREE, OR ANY WARRANTY THAT
+// DOCUMENTATION, IF PROVIDED, WILL CONFORM TO THE SUBJECT SOFTWARE.
+//
+
+package gov.nasa.jpf.test.autodoc.types.info;
+
+import gov.nasa.jpf.autodoc.types.info.ClassInfo;
+import gov.nasa.jpf.autodoc.types.info.ClassStore;
+import java.io.File;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ *
+ * @author Carlos Uribe
+ */
+public class ClassStoreTest {
+
+  private static final File DIR = new File("build/tests/store");
+
+  public ClassStoreTest() {
+  }
+
+  private static ClassInfo createClass(int i) {
+    ClassInfo cls = new ClassInfo();
+    Set<String> ifcs = new LinkedHashSet<String>();
+    Set<String> methods = new LinkedHashSet<String>();
+    ifcs.add("gov/nasa/jpf/JPFListener");
+    methods.add("run()V");
+    methods.add("get" + i + "(I)Ljava/lang/String;");
+
+    cls.setName("gov/nasa/jpf/listener/Listener" + i);
+    cls.setSuperName(i % 2 == 0 ? "java/lang/Object" : null);
+    cls.setFlags(0x21);
+    cls.setLocation("build/jpf.jar");
+    cls.setProject("jpf-core");
+    cls.setLayer("main");
+    cls.setInterfaces(ifcs);
+    cls.setMethods(methods);
+    return cls;
+  }
+
+  /**
+   * Test of append(ClassInfo) and get(long) methods, of class ClassStore.
+   */
+  @Test
+  public void testAppend() throws Exception {
+    System.out.println("method> append(ClassInfo)");
+
+    ClassStore store = ClassStore.createTemp(DIR);
+    List<Long> refs = new ArrayList<Long>();
+
+    try {
+      for (int i = 0; i < 100; ++i) {
+        refs.add(store.append(createClass(i)));
+      }
+      assertEquals(100, store.size());
+
+      for (int i = 0; i < 100; ++i) {
+        ClassInfo expected = createClass(i);
+        ClassInfo stored = store.get(refs.get(i));
+        assertEquals(expected.getName(), stored.getName());
+        assertEquals(expected.getSuperName(), stored.getSuperName());
+        assertEquals(expected.getFlags(), stored.getFlags());
+        assertEquals(expected.getLocation(), stored.getLocation());
+        assertEquals(expected.getProject(), stored.getProject());
+        assertEquals(expected.getLayer(), stored.getLayer());
+        assertEquals(expected.getInterfaces(), stored.getInterfaces());
+        assertEquals(expected.getMethods(), stored.getMethods());
+      }
+    } finally {
+      store.close();
+    }
+  }
+
+  /**
+   * Test of createTemp(File) method, of class ClassStore.
+   */
+  @Test
+  public void testCreateTemp() throws Exception {
+    System.out.println("method> createTemp(File)");
+
+    ClassStore store0 = ClassStore.createTemp(DIR);
+    ClassStore store1 = ClassStore.createTemp(DIR);
+
+    try {
+      assertFalse(store0.getFile().equals(store1.getFile()));
+      long ref = store0.append(createClass(0));
+      store1.append(createClass(1));
+      assertEquals(createClass(0).getName(), store0.get(ref).getName());
+    } finally {
+      store0.close();
+      store1.close();
+    }
+  }
+
+  /**
+   * Test of close() method, of class ClassStore.
+   */
+  @Test
+  public void testClose() throws Exception {
+    System.out.println("method> close()");
+
+    ClassStore store = ClassStore.createTemp(DIR);
+    ClassInfo view = store.get(store.append(createClass(0)));
+    File file = store.getFile();
+    assertTrue(file.isFile());
+
+    store.close();
+    store.close();
+    assertTrue(store.isClosed());
+    assertFalse(file.exists());
+
+    try {
+      view.getName();
+      fail("closed store read");
+    } catch (IllegalStateException ex) {
+    }
+  }
+}
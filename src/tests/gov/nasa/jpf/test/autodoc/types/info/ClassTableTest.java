@@ -0,0 +1,202 @@
+//
+// Copyright (C) 2014 United States Government as represented by the
+// Administrator of the National Aeronautics and Space Administration
+// (NASA).  All Rights Reserved.
+//
+// This software is distributed under the NASA Open Source Agreement
+// (NOSA), version 1.3.  The NOSA has been approved by the Open Source
+// Initiative.  See the file NOSA-1.3-JPF at the top of the distribution
+// directory tree for the complete NOSA document.
+//
+// THE SUBJECT SOFTWARE IS PROVIDED "AS IS" WITHOUT ANY WARRANTY OF ANY
+// KIND, EITHER EXPRESSED, IMPLIED, OR STATUTORY, INCLUDING, BUT NOT
+// LIMITED TO, ANY WARRANTY THAT THE SUBJECT SOFTWARE WILL CONFORM TO
+// SPECIFICATIONS, ANY IMPLIED WARRANTIES OF MERCHANTABILITY, FITNESS FOR
+// A PARTICULAR PURPOSE, OR FREEDOM FROM INFRINGEMENT, ANY WARRANTY THAT
+// THE SUBJECT SOFTWARE WILL BE ERROR FREE, OR ANY WARRANTY THAT
+// DOCUMENTATION, IF PROVIDED, WILL CONFORM TO THE SUBJECT SOFTWARE.
+//
+
+package gov.nasa.jpf.test.autodoc.types.info;
+
+import gov.nasa.jpf.autodoc.types.info.ClassInfo;
+import gov.nasa.jpf.autodoc.types.info.ClassTable;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ *
+ * @author Carlos Uribe
+ */
+public class ClassTableTest {
+
+  private static final String[] PACKAGES = { "gov/nasa/jpf/", 
+          "gov/nasa/jpf/vm/", "gov/nasa/jpf/vm/choice/", 
+          "gov/nasa/jpf/listener/", "" };
+
+  public ClassTableTest() {
+  }
+
+  private static ClassInfo createClass(Random random, String name) {
+    ClassInfo cls = new ClassInfo();
+    Set<String> ifcs = new LinkedHashSet<String>();
+    Set<String> methods = new LinkedHashSet<String>();
+
+    for (int i = random.nextInt(3); i > 0; --i) {
+      ifcs.add("gov/nasa/jpf/Ifc" + random.nextInt(5));
+    }
+
+    for (int i = random.nextInt(6); i > 0; --i) {
+      methods.add("m" + random.nextInt(20) + "()V");
+    }
+    cls.setName(name);
+    cls.setSuperName(random.nextBoolean() ? "java/lang/Object" : null);
+    cls.setFlags(random.nextInt(0x1000));
+    cls.setLocation("build/jpf" + random.nextInt(3) + ".jar");
+    cls.setProject("jpf-core");
+    cls.setLayer(random.nextBoolean() ? "main" : "peers");
+    cls.setInterfaces(ifcs);
+    cls.setMethods(methods);
+    return cls;
+  }
+
+  private static void assertSameClass(ClassInfo expected, ClassInfo cls) {
+    assertEquals(expected.getName(), cls.getName());
+    assertEquals(expected.getSuperName(), cls.getSuperName());
+    assertEquals(expected.getFlags(), cls.getFlags());
+    assertEquals(expected.getLocation(), cls.getLocation());
+    assertEquals(expected.getProject(), cls.getProject());
+    assertEquals(expected.getLayer(), cls.getLayer());
+    assertEquals(new ArrayList<String>(expected.getInterfaces()), 
+                 new ArrayList<String>(cls.getInterfaces()));
+    assertEquals(new ArrayList<String>(expected.getMethods()), 
+                 new ArrayList<String>(cls.getMethods()));
+  }
+
+  /**
+   * Get names of a map in a package, as ClassTable does.
+   */
+  private static String[] getNames(Map<String, ClassInfo> map, String pkg, 
+                                   boolean subpackages) {
+    Set<String> sorted = new TreeSet<String>();
+
+    for (String name : map.keySet()) {
+      int slash = name.lastIndexOf('/');
+      String clspkg = name.substring(0, slash + 1);
+
+      if (subpackages ? clspkg.startsWith(pkg) : clspkg.equals(pkg)) {
+        sorted.add(name);
+      }
+    }
+    return sorted.toArray(new String[sorted.size()]);
+  }
+
+  /**
+   * Test of put(ClassInfo), get(String), remove(String) and 
+   * getNames(String, boolean) methods, of class ClassTable, against a map.
+   */
+  @Test
+  public void testAgainstMap() {
+    System.out.println("method> put(ClassInfo)");
+
+    Random random = new Random(42);
+    ClassTable table = new ClassTable();
+    Map<String, ClassInfo> map = new HashMap<String, ClassInfo>();
+
+    for (int i = 0; i < 5000; ++i) {
+      String name = PACKAGES[random.nextInt(PACKAGES.length)] + "Class" 
+                    + random.nextInt(400);
+      int op = random.nextInt(10);
+
+      if (op < 6) {
+        ClassInfo cls = createClass(random, name);
+        table.put(cls);
+        map.put(name, cls);
+      } else if (op < 8) {
+        assertEquals(map.remove(name) != null, table.remove(name));
+      } else {
+        ClassInfo cls = table.get(name);
+        assertEquals(map.containsKey(name), table.contains(name));
+
+        if (map.containsKey(name)) {
+          assertSameClass(map.get(name), cls);
+        } else {
+          assertNull(cls);
+        }
+      }
+      assertEquals(map.size(), table.size());
+    }
+
+    for (Map.Entry<String, ClassInfo> e : map.entrySet()) {
+      assertSameClass(e.getValue(), table.get(e.getKey()));
+    }
+
+    for (String pkg : PACKAGES) {
+      assertArrayEquals(getNames(map, pkg, true), table.getNames(pkg, true));
+      assertArrayEquals(getNames(map, pkg, false), 
+                        table.getNames(pkg, false));
+    }
+    assertArrayEquals(getNames(map, "", true), table.getNames());
+  }
+
+  /**
+   * Test of get(String) method, of class ClassTable, while another thread 
+   * puts classes.
+   */
+  @Test
+  public void testGetConcurrent() throws Exception {
+    System.out.println("method> get(String)");
+
+    final ClassTable table = new ClassTable();
+    final int n = 20000;
+    ExecutorService pool = Executors.newFixedThreadPool(3);
+    List<Future<Integer>> readers = new ArrayList<Future<Integer>>();
+
+    try {
+      for (int t = 0; t < 3; ++t) {
+        readers.add(pool.submit(new Callable<Integer>() {
+
+          @Override
+          public Integer call() {
+            int found = 0;
+
+            while (table.size() < n) {
+              for (int i = 0; i < table.size(); i += 7) {
+                ClassInfo cls = table.get("gov/nasa/jpf/Class" + i);
+                assertEquals("gov/nasa/jpf/Class" + i, cls.getName());
+                assertEquals("build/jpf.jar", cls.getLocation());
+                ++found;
+              }
+            }
+            return found;
+          }
+        }));
+      }
+
+      for (int i = 0; i < n; ++i) {
+        ClassInfo cls = new ClassInfo();
+        cls.setName("gov/nasa/jpf/Class" + i);
+        cls.setLocation("build/jpf.jar");
+        table.put(cls);
+      }
+
+      for (Future<Integer> reader : readers) {
+        assertTrue(reader.get() >= 0);
+      }
+    } finally {
+      pool.shutdownNow();
+    }
+  }
+}
@@ -0,0 +1,151 @@
+//
+// Copyright (C) 2014 United States Government as represented by the
+// Administrator of the National Aeronautics and Space Administration
+// (NASA).  All Rights Reserved.
+//
+// This software is distributed under the NASA Open Source Agreement
+// (NOSA), version 1.3.  The NOSA has been approved by the Open Source
+// Initiative.  See the file NOSA-1.3-JPF at the top of the distribution
+// directory tree for the complete NOSA document.
+//
+// THE SUBJECT SOFTWARE IS PROVIDED "AS IS" WITHOUT ANY WARRANTY OF ANY
+// KIND, EITHER EXPRESSED, IMPLIED, OR STATUTORY, INCLUDING, BUT NOT
+// LIMITED TO, ANY WARRANTY THAT THE SUBJECT SOFTWARE WILL CONFORM TO
+// SPECIFICATIONS, ANY IMPLIED WARRANTIES OF MERCHANTABILITY, FITNESS FOR
+// A PARTICULAR PURPOSE, OR FREEDOM FROM INFRINGEMENT, ANY WARRANTY THAT
+// THE SUBJECT SOFTWARE WILL BE ERROR FREE, OR ANY WARRANTY THAT
+// DOCUMENTATION, IF PROVIDED, WILL CONFORM TO THE SUBJECT SOFTWARE.
+//
+
+package gov.nasa.jpf.test.autodoc.types.info;
+
+import gov.nasa.jpf.autodoc.types.info.ClassInfo;
+import gov.nasa.jpf.autodoc.types.info.ClassTable;
+import gov.nasa.jpf.autodoc.types.info.NameTable;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ *
+ * @author Carlos Uribe
+ */
+public class NameTableTest {
+
+  public NameTableTest() {
+  }
+
+  /**
+   * Test of intern(String) and get(int) methods, of class NameTable.
+   */
+  @Test
+  public void testIntern() {
+    System.out.println("method> intern(String)");
+
+    NameTable table = new NameTable();
+    List<String> strs = new ArrayList<String>();
+
+    for (int i = 0; i < 1000; ++i) {
+      strs.add("gov/nasa/jpf/vm/Class" + (i % 7) + "$" + i);
+      strs.add("gov/nasa/jpf/" + i);
+      strs.add("");
+    }
+
+    for (String str : strs) {
+      int id = table.intern(str);
+      assertEquals(id, table.intern(str));
+      assertEquals(str, table.get(id));
+      assertTrue(table.equals(id, str));
+      assertFalse(table.equals(id, str + "x"));
+    }
+    assertEquals(2001, table.size());
+    assertEquals(-1, table.find("gov/nasa/jpf/vm"));
+
+    int id = table.find("gov/nasa/jpf/vm/Class3$10");
+    assertTrue(table.startsWith(id, "gov/nasa/jpf/vm/"));
+    assertFalse(table.startsWith(id, "gov/nasa/jpf/listener/"));
+    System.out.println("  chars: " + table.getCharCount());
+  }
+
+  /**
+   * Test of find(String) method, of class NameTable, while another thread 
+   * interns strings.
+   */
+  @Test
+  public void testFindConcurrent() throws Exception {
+    System.out.println("method> find(String)");
+
+    final NameTable table = new NameTable();
+    final int n = 20000;
+    ExecutorService pool = Executors.newFixedThreadPool(4);
+    List<Future<Integer>> readers = new ArrayList<Future<Integer>>();
+
+    try {
+      for (int t = 0; t < 3; ++t) {
+        readers.add(pool.submit(new Callable<Integer>() {
+
+          @Override
+          public Integer call() {
+            int found = 0;
+
+            while (table.size() < n) {
+              int size = table.size();
+
+              for (int i = 0; i < size; ++i) {
+                int id = table.find("gov/nasa/jpf/Name" + i);
+                assertEquals(i, id);
+                assertEquals("gov/nasa/jpf/Name" + i, table.get(id));
+                ++found;
+              }
+            }
+            return found;
+          }
+        }));
+      }
+
+      for (int i = 0; i < n; ++i) {
+        assertEquals(i, table.intern("gov/nasa/jpf/Name" + i));
+      }
+
+      for (Future<Integer> reader : readers) {
+        assertTrue(reader.get() >= 0);
+      }
+    } finally {
+      pool.shutdownNow();
+    }
+    assertEquals(n - 1, table.find("gov/nasa/jpf/Name" + (n - 1)));
+  }
+
+  /**
+   * Test of getNames(String, boolean) method, of class ClassTable.
+   */
+  @Test
+  public void testGetNames() {
+    System.out.println("method> getNames(String, boolean)");
+
+    ClassTable table = new ClassTable();
+    String[] names = { "gov/nasa/jpf/listener/BudgetChecker", 
+                       "gov/nasa/jpf/listener/CoverageAnalyzer",
+                       "gov/nasa/jpf/listener/util/Helper",
+                       "gov/nasa/jpf/vm/ClassInfo", "Main" };
+
+    for (String name : names) {
+      ClassInfo cls = new ClassInfo();
+      cls.setName(name);
+      table.put(cls);
+    }
+    table.remove("gov/nasa/jpf/listener/CoverageAnalyzer");
+
+    assertArrayEquals(new String[] { "gov/nasa/jpf/listener/BudgetChecker", 
+                                     "gov/nasa/jpf/listener/util/Helper" },
+                      table.getNames("gov.nasa.jpf.listener", true));
+    assertEquals(1, table.getNames("gov/nasa/jpf/listener", false).length);
+    assertEquals(4, table.getNames("", true).length);
+    assertEquals(0, table.getNames("gov.nasa.jpf.report", true).length);
+  }
+}
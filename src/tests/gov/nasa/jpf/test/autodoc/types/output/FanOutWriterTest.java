@@ -0,0 +1,152 @@
+//
+// Copyright (C) 2014 United States Government as represented by the
+// Administrator of the National Aeronautics and Space Administration
+// (NASA).  All Rights Reserved.
+//
+// This software is distributed under the NASA Open Source Agreement
+// (NOSA), version 1.3.  The NOSA has been approved by the Open Source
+// Initiative.  See the file NOSA-1.3-JPF at the top of the distribution
+// directory tree for the complete NOSA document.
+//
+// THE SUBJECT SOFTWARE IS PROVIDED "AS IS" WITHOUT ANY WARRANTY OF ANY
+// KIND, EITHER EXPRESSED, IMPLIED, OR STATUTORY, INCLUDING, BUT NOT
+// LIMITED TO, ANY WARRANTY THAT THE SUBJECT SOFTWARE WILL CONFORM TO
+// SPECIFICATIONS, ANY IMPLIED WARRANTIES OF MERCHANTABILITY, FITNESS FOR
+// A PARTICULAR PURPOSE, OR FREEDOM FROM INFRINGEMENT, ANY WARRANTY THAT
+// THE SUBJECT SOFTWARE WILL BE ERROR FREE, OR ANY WARRANTY THAT
+// DOCUMENTATION, IF PROVIDED, WILL CONFORM TO THE SUBJECT SOFTWARE.
+//
+
+package gov.nasa.jpf.test.autodoc.types.output;
+
+import gov.nasa.jpf.autodoc.types.info.ClassInfo;
+import gov.nasa.jpf.autodoc.types.info.CollectedInfo;
+import gov.nasa.jpf.autodoc.types.info.ModelClassInfo;
+import gov.nasa.jpf.autodoc.types.info.NativePeerInfo;
+import gov.nasa.jpf.autodoc.types.info.SubtypeInfo;
+import gov.nasa.jpf.autodoc.types.output.ConsoleWriter;
+import gov.nasa.jpf.autodoc.types.output.FanOutWriter;
+import gov.nasa.jpf.autodoc.types.output.InfoSink;
+import gov.nasa.jpf.autodoc.types.output.MarkdownWriter;
+import gov.nasa.jpf.autodoc.types.output.StreamingXMLReader;
+import gov.nasa.jpf.autodoc.types.output.Writer;
+import java.io.File;
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ *
+ * @author Carlos Uribe
+ */
+public class FanOutWriterTest {
+
+  private static final String REF = 
+          "src/tests/gov/nasa/jpf/test/autodoc/types/output/jpf-core.xml";
+
+  public FanOutWriterTest() {
+  }
+
+  private static StringWriter redirect(Writer writer) {
+    StringWriter str = new StringWriter();
+
+    if (!(writer instanceof ConsoleWriter)) {
+      writer.getPrintWriter().close();
+    }
+    writer.setPrintWriter(new PrintWriter(str));
+    return str;
+  }
+
+  private static void check(CollectedInfo info, boolean async) 
+          throws Exception {
+    File md = new File("build/tests/fanout.md");
+    Writer[] writers = { 
+      new ConsoleWriter(), new MarkdownWriter(md.getPath()) 
+    };
+    Writer[] expected = { 
+      new ConsoleWriter(), new MarkdownWriter(md.getPath()) 
+    };
+    FanOutWriter fanout = new FanOutWriter();
+    StringWriter[] results = new StringWriter[writers.length];
+
+    for (int i = 0; i < writers.length; ++i) {
+      results[i] = redirect(writers[i]);
+      fanout.addSink(writers[i], async);
+    }
+    fanout.write(info);
+
+    for (int i = 0; i < writers.length; ++i) {
+      StringWriter str = redirect(expected[i]);
+      expected[i].writeDetailedInfo(info);
+      assertEquals(str.toString(), results[i].toString());
+    }
+    md.delete();
+  }
+
+  /**
+   * Test of write(CollectedInfo) method, of class FanOutWriter.
+   */
+  @Test
+  public void testWrite() throws Exception {
+    System.out.println("method> write(CollectedInfo)");
+
+    CollectedInfo info = StreamingXMLReader.read(REF);
+    check(info, false);
+    check(info, true);
+    check(new CollectedInfo(), true);
+  }
+
+  /**
+   * Test of write(CollectedInfo) method, of class FanOutWriter, with an 
+   * asynchronous sink failing with an error.
+   */
+  @Test(timeout = 30000)
+  public void testWriteError() throws Exception {
+    System.out.println("method> write(CollectedInfo) error");
+
+    //--- more components than the queue holds.
+    CollectedInfo info = new CollectedInfo();
+    for (int i = 0; i < 4 * FanOutWriter.QUEUE_SIZE; ++i) {
+      ClassInfo cls = new ClassInfo();
+      cls.setName("p/C" + i);
+      SubtypeInfo subtype = new SubtypeInfo();
+      subtype.setInfo(cls);
+      subtype.setType("Listener");
+      info.register(subtype);
+    }
+
+    FanOutWriter fanout = new FanOutWriter();
+    fanout.addSink(new InfoSink() {
+
+      @Override
+      public void startSection(Section section) {
+      }
+
+      @Override
+      public void writeSubtype(int idx, String name, SubtypeInfo subtype) {
+        throw new StackOverflowError("sink " + idx);
+      }
+
+      @Override
+      public void writeModel(int idx, String name, ModelClassInfo model) {
+      }
+
+      @Override
+      public void writePeer(int idx, String name, NativePeerInfo peer) {
+      }
+
+      @Override
+      public void endInfo() {
+      }
+    }, true);
+
+    try {
+      fanout.write(info);
+      fail("error not thrown");
+    } catch (StackOverflowError ex) {
+      System.out.println("  thrown: " + ex.getMessage());
+      assertEquals("sink 0", ex.getMessage());
+    }
+  }
+}
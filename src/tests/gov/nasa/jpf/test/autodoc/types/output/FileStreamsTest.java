@@ -0,0 +1,125 @@
+//
+// Copyright (C) 2014 United States Government as represented by the
+// Administrator of the National Aeronautics and Space Administration
+// (NASA).  All Rights Reserved.
+//
+// This software is distributed under the NASA Open Source Agreement
+// (NOSA), version 1.3.  The NOSA has been approved by the Open Source
+// Initiative.  See the file NOSA-1.3-JPF at the top of the distribution
+// directory tree for the complete NOSA document.
+//
+// THE SUBJECT SOFTWARE IS PROVIDED "AS IS" WITHOUT ANY WARRANTY OF ANY
+// KIND, EITHER EXPRESSED, IMPLIED, OR STATUTORY, INCLUDING, BUT NOT
+// LIMITED TO, ANY WARRANTY THAT THE SUBJECT SOFTWARE WILL CONFORM TO
+// SPECIFICATIONS, ANY IMPLIED WARRANTIES OF MERCHANTABILITY, FITNESS FOR
+// A PARTICULAR PURPOSE, OR FREEDOM FROM INFRINGEMENT, ANY WARRANTY THAT
+// THE SUBJECT SOFTWARE WILL BE ERROR FREE, OR ANY WARRANTY THAT
+// DOCUMENTATION, IF PROVIDED, WILL CONFORM TO THE SUBJECT SOFTWARE.
+//
+
+package gov.nasa.jpf.test.autodoc.types.output;
+
+import gov.nasa.jpf.autodoc.types.output.FileStreams;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Random;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ *
+ * @author Carlos Uribe
+ */
+public class FileStreamsTest {
+
+  public FileStreamsTest() {
+  }
+
+  private static byte[] createData() {
+    byte[] data = new byte[1 << 20];
+    Random random = new Random(42);
+
+    //--- compressible, as text output is.
+    for (int i = 0; i < data.length; ++i) {
+      data[i] = (byte)('a' + random.nextInt(4));
+    }
+    return data;
+  }
+
+  private static void write(String filename, byte[] data) throws Exception {
+    OutputStream out = FileStreams.openOutput(filename);
+
+    try {
+      //--- single bytes and blocks crossing chunks.
+      out.write(data, 0, 10);
+      out.write(data[10]);
+      out.write(data, 11, 100000);
+      out.write(data, 100011, data.length - 100011);
+    } finally {
+      out.close();
+    }
+  }
+
+  private static byte[] read(InputStream in) throws Exception {
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    byte[] buf = new byte[4096];
+
+    try {
+      for (int n = in.read(buf); n > 0; n = in.read(buf)) {
+        bytes.write(buf, 0, n);
+      }
+    } finally {
+      in.close();
+    }
+    return bytes.toByteArray();
+  }
+
+  /**
+   * Test of openOutput(String) and openInput(String) methods, of class 
+   * FileStreams.
+   */
+  @Test
+  public void testOpen() throws Exception {
+    System.out.println("method> openOutput(String)");
+
+    byte[] data = createData();
+    File plain = new File("build/tests/streams.txt");
+    File gzip = new File("build/tests/streams.txt.gz");
+
+    write(plain.getPath(), data);
+    write(gzip.getPath(), data);
+
+    assertEquals(data.length, plain.length());
+    assertTrue(gzip.length() < data.length / 2);
+    assertArrayEquals(data, read(new FileInputStream(plain)));
+
+    System.out.println("method> openInput(String)");
+
+    assertArrayEquals(data, read(FileStreams.openInput(plain.getPath())));
+    assertArrayEquals(data, read(FileStreams.openInput(gzip.getPath())));
+
+    //--- compressed files are found by content, not by name.
+    File renamed = new File("build/tests/streams.bin");
+    renamed.delete();
+    assertTrue(gzip.renameTo(renamed));
+    assertArrayEquals(data, read(FileStreams.openInput(renamed.getPath())));
+
+    plain.delete();
+    renamed.delete();
+  }
+
+  /**
+   * Test of getFilename(String, boolean) method, of class FileStreams.
+   */
+  @Test
+  public void testGetFilename() {
+    System.out.println("method> getFilename(String, boolean)");
+
+    assertEquals("a.xml", FileStreams.getFilename("a.xml", false));
+    assertEquals("a.xml.gz", FileStreams.getFilename("a.xml", true));
+    assertEquals("a.xml.gz", FileStreams.getFilename("a.xml.gz", true));
+  }
+}
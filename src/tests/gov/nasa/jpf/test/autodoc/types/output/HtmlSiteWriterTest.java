@@ -0,0 +1,201 @@
+//
+// Copyright (C) 2014 United States Government as represented by the
+// Administrator of the National Aeronautics and Space Administration
+// (NASA).  All Rights Reserved.
+//
+// This software is distributed under the NASA Open Source Agreement
+// (NOSA), version 1.3.  The NOSA has been approved by the Open Source
+// Initiative.  See the file NOSA-1.3-JPF at the top of the distribution
+// directory tree for the complete NOSA document.
+//
+// THE SUBJECT SOFTWARE IS PROVIDED "AS IS" WITHOUT ANY WARRANTY OF ANY
+// KIND, EITHER EXPRESSED, IMPLIED, OR STATUTORY, INCLUDING, BUT NOT
+// LIMITED TO, ANY WARRANTY THAT THE SUBJECT SOFTWARE WILL CONFORM TO
+// SPECIFICATIONS, ANY IMPLIED WARRANTIES OF MERCHANTABILITY, FITNESS FOR
+// A PARTICULAR PURPOSE, OR FREEDOM FROM INFRINGEMENT, ANY WARRANTY THAT
+// THE SUBJECT SOFTWARE WILL BE ERROR FREE, OR ANY WARRANTY THAT
+// DOCUMENTATION, IF PROVIDED, WILL CONFORM TO THE SUBJECT SOFTWARE.
+//
+
+package gov.nasa.jpf.test.autodoc.types.output;
+
+import gov.nasa.jpf.autodoc.types.info.CollectedInfo;
+import gov.nasa.jpf.autodoc.types.info.JPFInfo;
+import gov.nasa.jpf.autodoc.types.output.HtmlSiteWriter;
+import gov.nasa.jpf.autodoc.types.output.StreamingXMLReader;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.file.Files;
+import java.util.HashSet;
+import java.util.Set;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ *
+ * @author Carlos Uribe
+ */
+public class HtmlSiteWriterTest {
+
+  private static final String REF = 
+          "src/tests/gov/nasa/jpf/test/autodoc/types/output/jpf-core.xml";
+
+  public HtmlSiteWriterTest() {
+  }
+
+  private static int countGroups(CollectedInfo info) {
+    Set<String> projects = new HashSet<String>();
+    Set<String> types = new HashSet<String>();
+
+    for (JPFInfo c : info.getSubtypes().values()) {
+      projects.add(c.getInfo().getProject());
+      types.add(c.getType());
+    }
+
+    for (JPFInfo c : info.getModels().values()) {
+      projects.add(c.getInfo().getProject());
+      types.add(c.getType());
+    }
+
+    for (JPFInfo c : info.getPeers().values()) {
+      projects.add(c.getInfo().getProject());
+      types.add(c.getType());
+    }
+    return projects.size() + types.size();
+  }
+
+  private static void delete(File file) {
+    if (file.isDirectory()) {
+      for (File f : file.listFiles()) {
+        delete(f);
+      }
+    }
+    file.delete();
+  }
+
+  /**
+   * Test of write(CollectedInfo) method, of class HtmlSiteWriter.
+   */
+  @Test
+  public void testWrite() throws Exception {
+    System.out.println("method> write(CollectedInfo)");
+
+    File dir = new File("build/tests/site");
+    delete(dir);
+
+    CollectedInfo info = StreamingXMLReader.read(REF);
+    int components = info.getSubtypes().size() + info.getModels().size() 
+                     + info.getPeers().size();
+    HtmlSiteWriter site = new HtmlSiteWriter(dir);
+    site.setThreads(4);
+    site.write(info);
+
+    assertEquals(components + countGroups(info) + 1, site.getPageCount());
+    assertEquals(site.getPageCount(), site.getWrittenCount());
+    assertTrue(new File(dir, "index.html").isFile());
+
+    String name = info.getPeers().keySet().iterator().next();
+    File page = new File(dir, "peers/" + name.replace('/', '.') + ".html");
+    assertTrue(page.isFile());
+
+    //--- nothing changed, nothing written.
+    site.write(StreamingXMLReader.read(REF));
+    assertEquals(0, site.getWrittenCount());
+
+    //--- a removed peer changes its lists and its page goes away.
+    info.getPeers().remove(name);
+    site.write(info);
+    assertEquals(components + countGroups(info), site.getPageCount());
+    assertTrue(site.getWrittenCount() > 0);
+    assertTrue(site.getWrittenCount() < site.getPageCount());
+    assertFalse(page.exists());
+  }
+
+  /**
+   * Test of write(CollectedInfo) method, of class HtmlSiteWriter, with 
+   * projects whose names differ only in characters replaced.
+   */
+  @Test
+  public void testWriteGroups() throws Exception {
+    System.out.println("method> write(CollectedInfo) groups");
+
+    File dir = new File("build/tests/site-groups");
+    delete(dir);
+
+    CollectedInfo info = StreamingXMLReader.read(REF);
+    String[] projects = { "a b", "a_b", "a/b", "" };
+    int i = 0;
+
+    for (JPFInfo peer : info.getPeers().values()) {
+      peer.getInfo().setProject(projects[i++ % projects.length]);
+    }
+
+    HtmlSiteWriter site = new HtmlSiteWriter(dir);
+    site.write(info);
+
+    //--- a page per project, each one titled after its own project.
+    Set<String> pages = new HashSet<String>();
+    for (File file : dir.listFiles()) {
+      if (file.getName().startsWith("project-")) {
+        pages.add(file.getName());
+      }
+    }
+    Set<String> expected = new HashSet<String>();
+    for (JPFInfo c : info.getSubtypes().values()) {
+      expected.add(String.valueOf(c.getInfo().getProject()));
+    }
+    for (JPFInfo c : info.getModels().values()) {
+      expected.add(String.valueOf(c.getInfo().getProject()));
+    }
+    for (JPFInfo c : info.getPeers().values()) {
+      expected.add(String.valueOf(c.getInfo().getProject()));
+    }
+    System.out.println("  pages: " + pages);
+    assertEquals(expected.size(), pages.size());
+
+    for (String project : new String[] { "a b", "a_b", "a/b" }) {
+      String page = null;
+      for (String name : pages) {
+        String html = new String(Files.readAllBytes(
+                new File(dir, name).toPath()), "UTF-8");
+        if (html.contains("Project " + project + "<")) {
+          assertNull(page);
+          page = name;
+        }
+      }
+      assertNotNull(project, page);
+    }
+  }
+
+  /**
+   * Test of write(CollectedInfo) method, of class HtmlSiteWriter, with a 
+   * manifest listing pages out of the site.
+   */
+  @Test
+  public void testWriteManifest() throws Exception {
+    System.out.println("method> write(CollectedInfo) manifest");
+
+    File dir = new File("build/tests/site-manifest");
+    delete(dir);
+    dir.mkdirs();
+    File outside = new File("build/tests/site-outside.html");
+    outside.createNewFile();
+
+    //--- pages of a previous run that resolve out of the folder.
+    Writer manifest = new OutputStreamWriter(new FileOutputStream(
+            new File(dir, HtmlSiteWriter.MANIFEST)), "UTF-8");
+    manifest.write("0 ../site-outside.html\n");
+    manifest.write("0 " + outside.getAbsolutePath() + "\n");
+    manifest.write("0 peers/../../site-outside.html\n");
+    manifest.close();
+
+    HtmlSiteWriter site = new HtmlSiteWriter(dir);
+    site.write(StreamingXMLReader.read(REF));
+    System.out.println("  pages: " + site.getPageCount());
+    assertTrue(outside.isFile());
+    assertTrue(new File(dir, "index.html").isFile());
+    outside.delete();
+  }
+}
@@ -0,0 +1,119 @@
+//
+// Copyright (C) 2014 United States Government as represented by the
+// Administrator of the National Aeronautics and Space Administration
+// (NASA).  All Rights Reserved.
+//
+// This software is distributed under the NASA Open Source Agreement
+// (NOSA), version 1.3.  The NOSA has been approved by the Open Source
+// Initiative.  See the file NOSA-1.3-JPF at the top of the distribution
+// directory tree for the complete NOSA document.
+//
+// THE SUBJECT SOFTWARE IS PROVIDED "AS IS" WITHOUT ANY WARRANTY OF ANY
+// KIND, EITHER EXPRESSED, IMPLIED, OR STATUTORY, INCLUDING, BUT NOT
+// LIMITED TO, ANY WARRANTY THAT THE SUBJECT SOFTWARE WILL CONFORM TO
+// SPECIFICATIONS, ANY IMPLIED WARRANTIES OF MERCHANTABILITY, FITNESS FOR
+// A PARTICULAR PURPOSE, OR FREEDOM FROM INFRINGEMENT, ANY WARRANTY THAT
+// THE SUBJECT SOFTWARE WILL BE ERROR FREE, OR ANY WARRANTY THAT
+// DOCUMENTATION, IF PROVIDED, WILL CONFORM TO THE SUBJECT SOFTWARE.
+//
+
+package gov.nasa.jpf.test.autodoc.types.output;
+
+import gov.nasa.jpf.autodoc.types.info.CollectedInfo;
+import gov.nasa.jpf.autodoc.types.info.JPFInfo;
+import gov.nasa.jpf.autodoc.types.output.ProgressWriter;
+import gov.nasa.jpf.autodoc.types.output.StreamingJSONWriter;
+import gov.nasa.jpf.autodoc.types.output.StreamingXMLReader;
+import java.io.FilterWriter;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ *
+ * @author Carlos Uribe
+ */
+public class ProgressWriterTest {
+
+  private static final String REF = 
+          "src/tests/gov/nasa/jpf/test/autodoc/types/output/jpf-core.xml";
+
+  public ProgressWriterTest() {
+  }
+
+  /**
+   * Test of componentFound(JPFInfo) method, of class ProgressWriter.
+   */
+  @Test
+  public void testComponentFound() throws Exception {
+    System.out.println("method> componentFound(JPFInfo)");
+
+    CollectedInfo info = StreamingXMLReader.read(REF);
+    List<JPFInfo> components = new ArrayList<JPFInfo>();
+    components.addAll(info.getSubtypes().values());
+    components.addAll(info.getModels().values());
+    components.addAll(info.getPeers().values());
+
+    //--- a file that blocks on flush until released.
+    final CountDownLatch release = new CountDownLatch(1);
+    StringWriter str = new StringWriter() {
+
+      @Override
+      public void flush() {
+        try {
+          release.await();
+        } catch (InterruptedException ex) {
+          Thread.currentThread().interrupt();
+        }
+      }
+    };
+
+    ProgressWriter progress = new ProgressWriter(
+            new StreamingJSONWriter(str, true), null);
+
+    //--- components are taken while the file is blocked.
+    for (JPFInfo component : components) {
+      progress.componentFound(component);
+    }
+    assertEquals(components.size(), progress.getCount());
+
+    release.countDown();
+    progress.close();
+    progress.close();
+    System.out.println("  found: " + progress.getCount());
+    assertNull(progress.getError());
+    assertEquals(components.size(), str.toString().split("\n").length);
+  }
+
+  /**
+   * Test of getError() method, of class ProgressWriter.
+   */
+  @Test
+  public void testGetError() throws Exception {
+    System.out.println("method> getError()");
+
+    CollectedInfo info = StreamingXMLReader.read(REF);
+    Writer failing = new FilterWriter(new StringWriter()) {
+
+      @Override
+      public void flush() throws IOException {
+        throw new IOException("disk full");
+      }
+    };
+
+    ProgressWriter progress = new ProgressWriter(
+            new StreamingJSONWriter(failing, true), null);
+    for (JPFInfo component : info.getPeers().values()) {
+      progress.componentFound(component);
+    }
+    progress.close();
+
+    assertEquals(info.getPeers().size(), progress.getCount());
+    assertEquals("disk full", progress.getError().getMessage());
+  }
+}
@@ -0,0 +1,211 @@
+//
+// Copyright (C) 2014 United States Government as represented by the
+// Administrator of the National Aeronautics and Space Administration
+// (NASA).  All Rights Reserved.
+//
+// This software is distributed under the NASA Open Source Agreement
+// (NOSA), version 1.3.  The NOSA has been approved by the Open Source
+// Initiative.  See the file NOSA-1.3-JPF at the top of the distribution
+// directory tree for the complete NOSA document.
+//
+// THE SUBJECT SOFTWARE IS PROVIDED "AS IS" WITHOUT ANY WARRANTY OF ANY
+// KIND, EITHER EXPRESSED, IMPLIED, OR STATUTORY, INCLUDING, BUT NOT
+// LIMITED TO, ANY WARRANTY THAT THE SUBJECT SOFTWARE WILL CONFORM TO
+// SPECIFICATIONS, ANY IMPLIED WARRANTIES OF MERCHANTABILITY, FITNESS FOR
+// A PARTICULAR PURPOSE, OR FREEDOM FROM INFRINGEMENT, ANY WARRANTY THAT
+// THE SUBJECT SOFTWARE WILL BE ERROR FREE, OR ANY WARRANTY THAT
+// DOCUMENTATION, IF PROVIDED, WILL CONFORM TO THE SUBJECT SOFTWARE.
+//
+
+package gov.nasa.jpf.test.autodoc.types.output;
+
+import gov.nasa.jpf.autodoc.types.info.CollectedInfo;
+import gov.nasa.jpf.autodoc.types.info.JPFInfo;
+import gov.nasa.jpf.autodoc.types.output.ShardedWriter;
+import gov.nasa.jpf.autodoc.types.output.StreamingXMLReader;
+import gov.nasa.jpf.autodoc.types.output.WriterFactory;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.util.HashSet;
+import java.util.Set;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ *
+ * @author Carlos Uribe
+ */
+public class ShardedWriterTest {
+
+  private static final String REF = 
+          "src/tests/gov/nasa/jpf/test/autodoc/types/output/jpf-core.xml";
+
+  public ShardedWriterTest() {
+  }
+
+  private static int countTypes(CollectedInfo info) {
+    Set<String> types = new HashSet<String>();
+
+    for (JPFInfo c : info.getSubtypes().values()) {
+      types.add(c.getType());
+    }
+
+    for (JPFInfo c : info.getModels().values()) {
+      types.add(c.getType());
+    }
+
+    for (JPFInfo c : info.getPeers().values()) {
+      types.add(c.getType());
+    }
+    return types.size();
+  }
+
+  /**
+   * Test of of(String) method, of class ShardedWriter.Key.
+   */
+  @Test
+  public void testKeyOf() {
+    System.out.println("method> Key.of(String)");
+
+    assertEquals(ShardedWriter.Key.PROJECT, ShardedWriter.Key.of(null));
+    assertEquals(ShardedWriter.Key.PROJECT, ShardedWriter.Key.of(""));
+    assertEquals(ShardedWriter.Key.TYPE, ShardedWriter.Key.of("Type"));
+    assertNull(ShardedWriter.Key.of("layer"));
+  }
+
+  /**
+   * Test of getShardName(String) method, of class ShardedWriter.
+   */
+  @Test
+  public void testGetShardName() {
+    System.out.println("method> getShardName(String)");
+
+    ShardedWriter shards = new ShardedWriter("out/jpf-types.md.gz", 
+            WriterFactory.Format.MARKDOWN, ShardedWriter.Key.PROJECT);
+    assertEquals("out/jpf-types-jpf-core.md.gz", 
+                 shards.getShardName("jpf-core"));
+
+    shards = new ShardedWriter("types", WriterFactory.Format.TEXT, 
+                               ShardedWriter.Key.TYPE);
+    assertEquals("types-Listener", shards.getShardName("Listener"));
+  }
+
+  /**
+   * Test of write(CollectedInfo) method, of class ShardedWriter, with keys 
+   * that differ only in characters replaced.
+   */
+  @Test
+  public void testWriteKeys() throws Exception {
+    System.out.println("method> write(CollectedInfo) keys");
+
+    File dir = new File("build/tests/shards-keys");
+    dir.mkdirs();
+    for (File f : dir.listFiles()) {
+      f.delete();
+    }
+
+    CollectedInfo info = StreamingXMLReader.read(REF);
+    String[] projects = { "a b", "a_b", "" };
+    int i = 0;
+
+    for (JPFInfo peer : info.getPeers().values()) {
+      peer.getInfo().setProject(projects[i++ % projects.length]);
+    }
+
+    ShardedWriter shards = new ShardedWriter("build/tests/shards-keys/p.txt", 
+            WriterFactory.Format.TEXT, ShardedWriter.Key.PROJECT);
+    shards.setThreads(4);
+    shards.write(info);
+
+    //--- a file per shard, plus the index and the manifest.
+    Set<String> names = new HashSet<String>();
+    for (String project : projects) {
+      assertTrue(names.add(shards.getShardName(project)));
+      assertTrue(new File(shards.getShardName(project)).isFile());
+    }
+    System.out.println("  shards: " + names);
+    assertEquals(shards.getShardCount() + 2, dir.listFiles().length);
+    assertEquals(shards.getShardCount() + 1, shards.getWrittenCount());
+  }
+
+  /**
+   * Test of write(CollectedInfo) method, of class ShardedWriter.
+   */
+  @Test
+  public void testWrite() throws Exception {
+    System.out.println("method> write(CollectedInfo)");
+
+    File dir = new File("build/tests/shards");
+    dir.mkdirs();
+    for (File f : dir.listFiles()) {
+      f.delete();
+    }
+
+    CollectedInfo info = StreamingXMLReader.read(REF);
+    ShardedWriter shards = new ShardedWriter("build/tests/shards/types.txt", 
+            WriterFactory.Format.TEXT, ShardedWriter.Key.TYPE);
+    shards.setThreads(4);
+    shards.write(info);
+
+    assertEquals(countTypes(info), shards.getShardCount());
+    assertEquals(shards.getShardCount() + 1, shards.getWrittenCount());
+    assertTrue(new File(dir, "types.txt").isFile());
+
+    //--- nothing changed, nothing written.
+    shards.write(StreamingXMLReader.read(REF));
+    assertEquals(0, shards.getWrittenCount());
+
+    //--- a removed peer rewrites its shard and the index only.
+    String name = info.getPeers().keySet().iterator().next();
+    info.getPeers().remove(name);
+    shards.write(info);
+    assertEquals(2, shards.getWrittenCount());
+    assertTrue(shards.getManifest().isFile());
+  }
+
+  /**
+   * Test of write(CollectedInfo) method, of class ShardedWriter, when shards
+   * are gone.
+   */
+  @Test
+  public void testWriteRemoved() throws Exception {
+    System.out.println("method> write(CollectedInfo) removed");
+
+    File dir = new File("build/tests/shards-removed");
+    dir.mkdirs();
+    for (File f : dir.listFiles()) {
+      f.delete();
+    }
+    File outside = new File("build/tests/shards-outside.txt");
+    outside.createNewFile();
+
+    CollectedInfo info = StreamingXMLReader.read(REF);
+    ShardedWriter shards = new ShardedWriter(
+            "build/tests/shards-removed/types.txt", 
+            WriterFactory.Format.TEXT, ShardedWriter.Key.TYPE);
+    shards.write(info);
+    int count = shards.getShardCount();
+
+    //--- peers are gone, so is their shard.
+    String type = info.getPeers().values().iterator().next().getType();
+    File shard = new File(shards.getShardName(type));
+    assertTrue(shard.isFile());
+    info.getPeers().clear();
+
+    //--- entries out of the folder are never deleted.
+    Writer manifest = new OutputStreamWriter(
+            new FileOutputStream(shards.getManifest(), true), "UTF-8");
+    manifest.write("../shards-outside.txt\n..\n");
+    manifest.close();
+
+    shards.write(info);
+    System.out.println("  shards: " + shards.getShardCount());
+    assertEquals(count - 1, shards.getShardCount());
+    assertFalse(shard.exists());
+    assertTrue(outside.isFile());
+    assertEquals(shards.getShardCount() + 2, dir.listFiles().length);
+    outside.delete();
+  }
+}
@@ -0,0 +1,148 @@
+//
+// Copyright (C) 2014 United States Government as represented by the
+// Administrator of the National Aeronautics and Space Administration
+// (NASA).  All Rights Reserved.
+//
+// This software is distributed under the NASA Open Source Agreement
+// (NOSA), version 1.3.  The NOSA has been approved by the Open Source
+// Initiative.  See the file NOSA-1.3-JPF at the top of the distribution
+// directory tree for the complete NOSA document.
+//
+// THE SUBJECT SOFTWARE IS PROVIDED "AS IS" WITHOUT ANY WARRANTY OF ANY
+// KIND, EITHER EXPRESSED, IMPLIED, OR STATUTORY, INCLUDING, BUT NOT
+// LIMITED TO, ANY WARRANTY THAT THE SUBJECT SOFTWARE WILL CONFORM TO
+// SPECIFICATIONS, ANY IMPLIED WARRANTIES OF MERCHANTABILITY, FITNESS FOR
+// A PARTICULAR PURPOSE, OR FREEDOM FROM INFRINGEMENT, ANY WARRANTY THAT
+// THE SUBJECT SOFTWARE WILL BE ERROR FREE, OR ANY WARRANTY THAT
+// DOCUMENTATION, IF PROVIDED, WILL CONFORM TO THE SUBJECT SOFTWARE.
+//
+
+package gov.nasa.jpf.test.autodoc.types.output;
+
+import gov.nasa.jpf.autodoc.types.info.CollectedInfo;
+import gov.nasa.jpf.autodoc.types.info.NativePeerInfo;
+import gov.nasa.jpf.autodoc.types.info.SubtypeInfo;
+import gov.nasa.jpf.autodoc.types.output.StreamingJSONWriter;
+import gov.nasa.jpf.autodoc.types.output.StreamingXMLReader;
+import java.io.File;
+import java.io.StringWriter;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ *
+ * @author Carlos Uribe
+ */
+public class StreamingJSONWriterTest {
+
+  public StreamingJSONWriterTest() {
+  }
+
+  private static CollectedInfo createInfo() {
+    CollectedInfo info = new CollectedInfo();
+
+    SubtypeInfo subtype = new SubtypeInfo();
+    subtype.setType("Listener");
+    subtype.addAncestor("a/Base");
+    subtype.getInfo().setName("a/B");
+    subtype.getInfo().setSuperName("a/Base");
+    subtype.getInfo().setFlags(33);
+    subtype.getInfo().setProject("p \"q\"\\r");
+    subtype.getInfo().getMethods().add("<init>()V");
+    info.register(subtype);
+
+    NativePeerInfo peer = new NativePeerInfo();
+    peer.setType("NativePeerClass");
+    peer.setModelName(null);
+    peer.getInfo().setName("JPF_a_C");
+    peer.getInfo().setLocation("C:\\x\ty");
+    info.register(peer);
+    return info;
+  }
+
+  private static String write(CollectedInfo info, boolean lines) 
+          throws Exception {
+    StringWriter writer = new StringWriter();
+    new StreamingJSONWriter(writer, lines).write(info);
+    return writer.toString();
+  }
+
+  /**
+   * Test of write(CollectedInfo) method, of class StreamingJSONWriter.
+   */
+  @Test
+  public void testWrite() throws Exception {
+    System.out.println("method> write(CollectedInfo)");
+
+    assertEquals("{\n\"subtypes\": [],\n\"models\": [],\n\"peers\": []\n}\n", 
+                 write(new CollectedInfo(), false));
+
+    String subtype = "{\"key\":\"a/B\",\"type\":\"Listener\","
+            + "\"ancestors\":[\"a/Base\"],\"super-methods\":[],"
+            + "\"info\":{\"name\":\"a/B\",\"super-name\":\"a/Base\","
+            + "\"flags\":33,\"layer\":\"\",\"project\":\"p \\\"q\\\"\\\\r\","
+            + "\"location\":\"\",\"methods\":[\"<init>()V\"],"
+            + "\"interfaces\":[]}}";
+    String peer = "{\"key\":\"JPF_a_C\",\"type\":\"NativePeerClass\","
+            + "\"model-name\":null,\"model-methods\":[],"
+            + "\"info\":{\"name\":\"JPF_a_C\",\"super-name\":\"\","
+            + "\"flags\":0,\"layer\":\"\",\"project\":\"\","
+            + "\"location\":\"C:\\\\x\\ty\",\"methods\":[],"
+            + "\"interfaces\":[]}}";
+
+    assertEquals("{\n\"subtypes\": [\n  " + subtype + "\n],\n"
+                 + "\"models\": [],\n\"peers\": [\n  " + peer + "\n]\n}\n", 
+                 write(createInfo(), false));
+  }
+
+  /**
+   * Test of write(CollectedInfo) method in NDJSON mode, of class 
+   * StreamingJSONWriter.
+   */
+  @Test
+  public void testWriteLines() throws Exception {
+    System.out.println("method> write(CollectedInfo) ndjson");
+
+    assertEquals("", write(new CollectedInfo(), true));
+
+    File ref = new File(
+            "src/tests/gov/nasa/jpf/test/autodoc/types/output/jpf-core.xml");
+    CollectedInfo info = StreamingXMLReader.read(ref.getPath());
+    String[] lines = write(info, true).split("\n");
+
+    assertEquals(info.getSubtypes().size() + info.getModels().size() 
+                 + info.getPeers().size(), lines.length);
+    assertTrue(lines[0].startsWith("{\"kind\":\"subtype\",\"key\":"));
+    assertTrue(lines[lines.length - 1].startsWith(
+            "{\"kind\":\"native-peer\",\"key\":"));
+
+    for (String line : lines) {
+      assertTrue(line.endsWith("}}"));
+    }
+  }
+
+  /**
+   * Test of writeLine(JPFInfo) method, of class StreamingJSONWriter.
+   */
+  @Test
+  public void testWriteLine() throws Exception {
+    System.out.println("method> writeLine(JPFInfo)");
+
+    CollectedInfo info = createInfo();
+    StringWriter out = new StringWriter();
+    StreamingJSONWriter json = new StreamingJSONWriter(out, true);
+    json.writeLine(info.getPeers().get("JPF_a_C"));
+    json.writeLine(info.getSubtypes().get("a/B"));
+
+    //--- lines as found, each one the same as in the whole document.
+    String[] lines = write(info, true).split("\n");
+    assertEquals(lines[1] + "\n" + lines[0] + "\n", out.toString());
+
+    try {
+      new StreamingJSONWriter(out, false).writeLine(
+              info.getPeers().get("JPF_a_C"));
+      fail("JSON writer should not write lines");
+    } catch (IllegalStateException ex) {
+    }
+  }
+}
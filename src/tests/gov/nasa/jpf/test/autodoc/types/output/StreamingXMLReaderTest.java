@@ -0,0 +1,194 @@
+//
+// Copyright (C) 2014 United States Government as represented by the
+// Administrator of the National Aeronautics and Space Administration
+// (NASA).  All Rights Reserved.
+//
+// This software is distributed under the NASA Open Source Agreement
+// (NOSA), version 1.3.  The NOSA has been approved by the Open Source
+// Initiative.  See the file NOSA-1.3-JPF at the top of the distribution
+// directory tree for the complete NOSA document.
+//
+// THE SUBJECT SOFTWARE IS PROVIDED "AS IS" WITHOUT ANY WARRANTY OF ANY
+// KIND, EITHER EXPRESSED, IMPLIED, OR STATUTORY, INCLUDING, BUT NOT
+// LIMITED TO, ANY WARRANTY THAT THE SUBJECT SOFTWARE WILL CONFORM TO
+// SPECIFICATIONS, ANY IMPLIED WARRANTIES OF MERCHANTABILITY, FITNESS FOR
+// A PARTICULAR PURPOSE, OR FREEDOM FROM INFRINGEMENT, ANY WARRANTY THAT
+// THE SUBJECT SOFTWARE WILL BE ERROR FREE, OR ANY WARRANTY THAT
+// DOCUMENTATION, IF PROVIDED, WILL CONFORM TO THE SUBJECT SOFTWARE.
+//
+
+package gov.nasa.jpf.test.autodoc.types.output;
+
+import gov.nasa.jpf.autodoc.types.info.CollectedInfo;
+import gov.nasa.jpf.autodoc.types.info.NativePeerInfo;
+import gov.nasa.jpf.autodoc.types.info.SubtypeInfo;
+import gov.nasa.jpf.autodoc.types.output.StreamingXMLReader;
+import gov.nasa.jpf.autodoc.types.output.StreamingXMLWriter;
+import gov.nasa.jpf.autodoc.types.output.XMLReaderWriter;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.util.ArrayList;
+import java.util.List;
+import org.exolab.castor.mapping.Mapping;
+import org.exolab.castor.xml.Unmarshaller;
+import org.exolab.castor.xml.XMLContext;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ *
+ * @author Carlos Uribe
+ */
+public class StreamingXMLReaderTest {
+
+  private static final String REFS = 
+          "src/tests/gov/nasa/jpf/test/autodoc/types/output/";
+  private static final int ROUNDS = 5;
+
+  public StreamingXMLReaderTest() {
+  }
+
+  private static List<String> loadReferences() throws Exception {
+    List<String> xmls = new ArrayList<String>();
+
+    for (File ref : new File(REFS).listFiles()) {
+      if (!ref.getName().endsWith(".xml")) {
+        continue;
+      }
+
+      Reader reader = new InputStreamReader(new FileInputStream(ref), "UTF-8");
+      StringBuilder str = new StringBuilder();
+      char[] buf = new char[8192];
+
+      try {
+        for (int n = reader.read(buf); n > 0; n = reader.read(buf)) {
+          str.append(buf, 0, n);
+        }
+      } finally {
+        reader.close();
+      }
+      xmls.add(str.toString());
+    }
+    return xmls;
+  }
+
+  private static XMLContext createContext() throws Exception {
+    Mapping mapping = new Mapping();
+    mapping.loadMapping(XMLReaderWriter.DEF_MAP_FILE);
+    XMLContext context = new XMLContext();
+    context.addMapping(mapping);
+    return context;
+  }
+
+  private static CollectedInfo unmarshal(XMLContext context, String xml) 
+          throws Exception {
+    //--- references were written when info classes had another package.
+    String renamed = xml.replace("gov.nasa.jpf.autodoc.info.", 
+                                 "gov.nasa.jpf.autodoc.types.info.");
+    Unmarshaller unmarshaller = context.createUnmarshaller();
+    unmarshaller.setClass(CollectedInfo.class);
+    return (CollectedInfo)unmarshaller.unmarshal(new StringReader(renamed));
+  }
+
+  private static String write(CollectedInfo info) throws Exception {
+    StringWriter writer = new StringWriter();
+    new StreamingXMLWriter(writer).write(info);
+    return writer.toString();
+  }
+
+  /**
+   * Test of read(Reader) method, of class StreamingXMLReader.
+   */
+  @Test
+  public void testRead() throws Exception {
+    System.out.println("method> read(Reader)");
+
+    XMLContext context = createContext();
+    List<String> xmls = loadReferences();
+    assertFalse(xmls.isEmpty());
+
+    for (String xml : xmls) {
+      CollectedInfo expected = unmarshal(context, xml);
+      CollectedInfo result = 
+              new StreamingXMLReader().read(new StringReader(xml));
+
+      assertEquals(write(expected), write(result));
+    }
+
+    //--- throughput against castor on the same documents.
+    long chars = 0;
+    long castor = System.nanoTime();
+
+    for (int i = 0; i < ROUNDS; ++i) {
+      for (String xml : xmls) {
+        unmarshal(context, xml);
+        chars += xml.length();
+      }
+    }
+    castor = System.nanoTime() - castor;
+
+    long stream = System.nanoTime();
+
+    for (int i = 0; i < ROUNDS; ++i) {
+      for (String xml : xmls) {
+        new StreamingXMLReader().read(new StringReader(xml));
+      }
+    }
+    stream = System.nanoTime() - stream;
+
+    System.out.println("  castor: " + (chars * 1000 / castor) + " chars/us"
+                       + ", streaming: " + (chars * 1000 / stream) 
+                       + " chars/us");
+  }
+
+  /**
+   * Test of setSections(String...) and setProjects(String...) methods, of 
+   * class StreamingXMLReader.
+   */
+  @Test
+  public void testReadFiltered() throws Exception {
+    System.out.println("method> setSections(String...)");
+
+    for (String xml : loadReferences()) {
+      CollectedInfo all = new StreamingXMLReader().read(new StringReader(xml));
+      CollectedInfo peers = new StreamingXMLReader()
+              .setSections(StreamingXMLReader.PEER)
+              .read(new StringReader(xml));
+
+      assertTrue(peers.getSubtypes().isEmpty());
+      assertTrue(peers.getModels().isEmpty());
+      assertEquals(all.getPeers().keySet(), peers.getPeers().keySet());
+
+      for (NativePeerInfo peer : peers.getPeers().values()) {
+        assertEquals(all.getPeer(peer.getInfo().getName()).getModelMethods(), 
+                     peer.getModelMethods());
+      }
+    }
+
+    System.out.println("method> setProjects(String...)");
+
+    for (String xml : loadReferences()) {
+      CollectedInfo all = new StreamingXMLReader().read(new StringReader(xml));
+
+      if (all.getSubtypes().isEmpty()) {
+        continue;
+      }
+
+      String project = 
+              all.getSubtypes().values().iterator().next().getInfo().getProject();
+      CollectedInfo some = new StreamingXMLReader()
+              .setProjects(project)
+              .read(new StringReader(xml));
+
+      assertFalse(some.getSubtypes().isEmpty());
+
+      for (SubtypeInfo subtype : some.getSubtypes().values()) {
+        assertEquals(project, subtype.getInfo().getProject());
+      }
+    }
+  }
+}
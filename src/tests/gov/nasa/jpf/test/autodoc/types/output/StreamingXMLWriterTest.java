@@ -0,0 +1,156 @@
+//
+// Copyright (C) 2014 United States Government as represented by the
+// Administrator of the National Aeronautics and Space Administration
+// (NASA).  All Rights Reserved.
+//
+// This software is distributed under the NASA Open Source Agreement
+// (NOSA), version 1.3.  The NOSA has been approved by the Open Source
+// Initiative.  See the file NOSA-1.3-JPF at the top of the distribution
+// directory tree for the complete NOSA document.
+//
+// THE SUBJECT SOFTWARE IS PROVIDED "AS IS" WITHOUT ANY WARRANTY OF ANY
+// KIND, EITHER EXPRESSED, IMPLIED, OR STATUTORY, INCLUDING, BUT NOT
+// LIMITED TO, ANY WARRANTY THAT THE SUBJECT SOFTWARE WILL CONFORM TO
+// SPECIFICATIONS, ANY IMPLIED WARRANTIES OF MERCHANTABILITY, FITNESS FOR
+// A PARTICULAR PURPOSE, OR FREEDOM FROM INFRINGEMENT, ANY WARRANTY THAT
+// THE SUBJECT SOFTWARE WILL BE ERROR FREE, OR ANY WARRANTY THAT
+// DOCUMENTATION, IF PROVIDED, WILL CONFORM TO THE SUBJECT SOFTWARE.
+//
+
+package gov.nasa.jpf.test.autodoc.types.output;
+
+import gov.nasa.jpf.autodoc.types.info.ClassInfo;
+import gov.nasa.jpf.autodoc.types.info.CollectedInfo;
+import gov.nasa.jpf.autodoc.types.info.NativePeerInfo;
+import gov.nasa.jpf.autodoc.types.info.SubtypeInfo;
+import gov.nasa.jpf.autodoc.types.output.StreamingXMLWriter;
+import gov.nasa.jpf.autodoc.types.output.XMLReaderWriter;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.io.StringReader;
+import java.io.StringWriter;
+import org.exolab.castor.mapping.Mapping;
+import org.exolab.castor.xml.Marshaller;
+import org.exolab.castor.xml.Unmarshaller;
+import org.exolab.castor.xml.XMLContext;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ *
+ * @author Carlos Uribe
+ */
+public class StreamingXMLWriterTest {
+
+  private static final String REFS = 
+          "src/tests/gov/nasa/jpf/test/autodoc/types/output/";
+
+  public StreamingXMLWriterTest() {
+  }
+
+  private static XMLContext createContext() throws Exception {
+    Mapping mapping = new Mapping();
+    mapping.loadMapping(XMLReaderWriter.DEF_MAP_FILE);
+    XMLContext context = new XMLContext();
+    context.addMapping(mapping);
+    return context;
+  }
+
+  private static String marshal(XMLContext context, CollectedInfo info) 
+          throws Exception {
+    StringWriter writer = new StringWriter();
+    Marshaller marshaller = context.createMarshaller();
+    marshaller.setProperty("org.exolab.castor.indent", "true");
+    marshaller.setWriter(writer);
+    marshaller.marshal(info);
+    return writer.toString();
+  }
+
+  private static String write(CollectedInfo info) throws Exception {
+    StringWriter writer = new StringWriter();
+    new StreamingXMLWriter(writer).write(info);
+    return writer.toString();
+  }
+
+  private static String load(File file) throws Exception {
+    Reader reader = new InputStreamReader(new FileInputStream(file), "UTF-8");
+    StringBuilder str = new StringBuilder();
+    char[] buf = new char[8192];
+
+    try {
+      for (int n = reader.read(buf); n > 0; n = reader.read(buf)) {
+        str.append(buf, 0, n);
+      }
+    } finally {
+      reader.close();
+    }
+    return str.toString();
+  }
+
+  /**
+   * Test of write(CollectedInfo) method on reference files, of class 
+   * StreamingXMLWriter.
+   */
+  @Test
+  public void testWriteReferences() throws Exception {
+    System.out.println("method> write(CollectedInfo)");
+
+    XMLContext context = createContext();
+    File[] refs = new File(REFS).listFiles();
+    int n = 0;
+
+    for (File ref : refs) {
+      if (!ref.getName().endsWith(".xml")) {
+        continue;
+      }
+
+      //--- references were written when info classes had another package.
+      String xml = load(ref).replace("gov.nasa.jpf.autodoc.info.", 
+                                     "gov.nasa.jpf.autodoc.types.info.");
+      Unmarshaller unmarshaller = context.createUnmarshaller();
+      unmarshaller.setClass(CollectedInfo.class);
+      CollectedInfo info = 
+              (CollectedInfo)unmarshaller.unmarshal(new StringReader(xml));
+
+      assertEquals(ref.getName(), marshal(context, info), write(info));
+      ++n;
+    }
+    System.out.println("  reference files: " + n);
+    assertTrue(n > 0);
+  }
+
+  /**
+   * Test of write(CollectedInfo) method with empty, missing and escaped 
+   * values, of class StreamingXMLWriter.
+   */
+  @Test
+  public void testWriteEdgeCases() throws Exception {
+    System.out.println("method> write(CollectedInfo) edge cases");
+
+    XMLContext context = createContext();
+    CollectedInfo info = new CollectedInfo();
+    assertEquals(marshal(context, info), write(info));
+
+    ClassInfo cls = new ClassInfo();
+    cls.setName("a/B$1");
+    cls.setSuperName(null);
+    cls.setLocation("C:\\Program Files\\a b\\B$1.class");
+    cls.setProject("p \"q\" & 'r' <s>\t");
+    cls.getMethods().add("<init>()V");
+
+    NativePeerInfo peer = new NativePeerInfo();
+    peer.setInfo(cls);
+    peer.setType("NativePeerClass");
+    peer.setModelName(null);
+    info.register(peer);
+
+    SubtypeInfo subtype = new SubtypeInfo();
+    subtype.getInfo().setName("a/C");
+    subtype.setType(null);
+    info.register(subtype);
+
+    assertEquals(marshal(context, info), write(info));
+  }
+}
@@ -0,0 +1,132 @@
+//
+// Copyright (C) 2014 United States Government as represented by the
+// Administrator of the National Aeronautics and Space Administration
+// (NASA).  All Rights Reserved.
+//
+// This software is distributed under the NASA Open Source Agreement
+// (NOSA), version 1.3.  The NOSA has been approved by the Open Source
+// Initiative.  See the file NOSA-1.3-JPF at the top of the distribution
+// directory tree for the complete NOSA document.
+//
+// THE SUBJECT SOFTWARE IS PROVIDED "AS IS" WITHOUT ANY WARRANTY OF ANY
+// KIND, EITHER EXPRESSED, IMPLIED, OR STATUTORY, INCLUDING, BUT NOT
+// LIMITED TO, ANY WARRANTY THAT THE SUBJECT SOFTWARE WILL CONFORM TO
+// SPECIFICATIONS, ANY IMPLIED WARRANTIES OF MERCHANTABILITY, FITNESS FOR
+// A PARTICULAR PURPOSE, OR FREEDOM FROM INFRINGEMENT, ANY WARRANTY THAT
+// THE SUBJECT SOFTWARE WILL BE ERROR FREE, OR ANY WARRANTY THAT
+// DOCUMENTATION, IF PROVIDED, WILL CONFORM TO THE SUBJECT SOFTWARE.
+//
+
+package gov.nasa.jpf.test.autodoc.types.parser;
+
+import gov.nasa.jpf.autodoc.types.info.ClassInfo;
+import gov.nasa.jpf.autodoc.types.parser.StdLibIndex;
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ *
+ * @author Carlos Uribe
+ */
+public class StdLibIndexTest {
+
+  private static File dir = new File("build/tests/jdk");
+  private static StdLibIndex index;
+
+  public StdLibIndexTest() {
+  }
+
+  @BeforeClass
+  public static void setUpClass() throws Exception {
+    index = StdLibIndex.open(dir);
+  }
+
+  @AfterClass
+  public static void tearDownClass() throws Exception {
+    index.getFile().delete();
+    dir.delete();
+  }
+
+  /**
+   * Test of open(File) method, of class StdLibIndex.
+   */
+  @Test
+  public void testOpen() throws Exception {
+    System.out.println("method> open(File)");
+    System.out.println("  " + index.getFile() + ": " + index.size());
+
+    assertEquals(System.getProperty("java.version"), index.getVersion());
+    assertTrue(index.size() > 0);
+
+    //--- already built, it's just mapped again.
+    long modified = index.getFile().lastModified();
+    assertEquals(index.size(), StdLibIndex.open(dir).size());
+    assertEquals(modified, index.getFile().lastModified());
+  }
+
+  /**
+   * Test of build(File) method, of class StdLibIndex, with builds at once.
+   */
+  @Test
+  public void testBuild() throws Exception {
+    System.out.println("method> build(File)");
+
+    File other = new File("build/tests/jdk-build");
+    final File idx = new File(other, index.getFile().getName());
+    idx.delete();
+
+    ExecutorService pool = Executors.newFixedThreadPool(2);
+    List<Future<Void>> builds = new ArrayList<Future<Void>>();
+
+    for (int i = 0; i < 2; ++i) {
+      builds.add(pool.submit(new Callable<Void>() {
+
+        @Override
+        public Void call() throws Exception {
+          StdLibIndex.build(idx);
+          return null;
+        }
+      }));
+    }
+
+    try {
+      for (Future<Void> build : builds) {
+        build.get();
+      }
+    } finally {
+      pool.shutdown();
+    }
+
+    //--- no temporary file is left and the index is whole.
+    assertEquals(1, other.listFiles().length);
+    assertEquals(index.size(), StdLibIndex.open(other).size());
+    idx.delete();
+    other.delete();
+  }
+
+  /**
+   * Test of lookup(String) method, of class StdLibIndex.
+   */
+  @Test
+  public void testLookup() {
+    System.out.println("method> lookup(String)");
+
+    ClassInfo cls = index.lookup("java.lang.String");
+    assertNotNull(cls);
+    assertEquals("java/lang/String", cls.getName());
+    assertEquals("java/lang/Object", cls.getSuperName());
+    assertTrue(cls.getMethods().contains("length()I"));
+
+    assertNull(index.lookup("java/lang/Object").getSuperName());
+    assertNull(index.lookup("gov.nasa.jpf.JPF"));
+  }
+}
@@ -0,0 +1,138 @@
+//
+// Copyright (C) 2014 United States Government as represented by the
+// Administrator of the National Aeronautics and Space Administration
+// (NASA).  All Rights Reserved.
+//
+// This software is distributed under the NASA Open Source Agreement
+// (NOSA), version 1.3.  The NOSA has been approved by the Open Source
+// Initiative.  See the file NOSA-1.3-JPF at the top of the distribution
+// directory tree for the complete NOSA document.
+//
+// THE SUBJECT SOFTWARE IS PROVIDED "AS IS" WITHOUT ANY WARRANTY OF ANY
+// KIND, EITHER EXPRESSED, IMPLIED, OR STATUTORY, INCLUDING, BUT NOT
+// LIMITED TO, ANY WARRANTY THAT THE SUBJECT SOFTWARE WILL CONFORM TO
+// SPECIFICATIONS, ANY IMPLIED WARRANTIES OF MERCHANTABILITY, FITNESS FOR
+// A PARTICULAR PURPOSE, OR FREEDOM FROM INFRINGEMENT, ANY WARRANTY THAT
+// THE SUBJECT SOFTWARE WILL BE ERROR FREE, OR ANY WARRANTY THAT
+// DOCUMENTATION, IF PROVIDED, WILL CONFORM TO THE SUBJECT SOFTWARE.
+//
+
+package gov.nasa.jpf.test.autodoc.types.query;
+
+import gov.nasa.jpf.autodoc.types.info.ClassInfo;
+import gov.nasa.jpf.autodoc.types.info.CollectedInfo;
+import gov.nasa.jpf.autodoc.types.info.JPFInfo;
+import gov.nasa.jpf.autodoc.types.info.ModelClassInfo;
+import gov.nasa.jpf.autodoc.types.info.NativePeerInfo;
+import gov.nasa.jpf.autodoc.types.info.SubtypeInfo;
+import gov.nasa.jpf.autodoc.types.query.InfoQuery;
+import gov.nasa.jpf.autodoc.types.query.InvalidQueryException;
+import java.util.List;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ *
+ * @author Carlos Uribe
+ */
+public class InfoQueryTest {
+
+  public InfoQueryTest() {
+  }
+
+  private static ClassInfo createClass(String name, String project) {
+    ClassInfo cls = new ClassInfo();
+    cls.setName(name);
+    cls.setProject(project);
+    cls.setLayer("main");
+    return cls;
+  }
+
+  private static CollectedInfo createInfo(int n) {
+    CollectedInfo info = new CollectedInfo();
+
+    for (int i = 0; i < n; ++i) {
+      String project = (i % 2 == 0) ? "jpf-core" : "jpf-symbc";
+      SubtypeInfo subtype = new SubtypeInfo();
+      subtype.setInfo(createClass("gov/nasa/jpf/listener/L" + i, project));
+      subtype.setType("Listener");
+      subtype.addAncestor("gov/nasa/jpf/ListenerAdapter");
+      info.register(subtype);
+
+      ModelClassInfo model = new ModelClassInfo();
+      model.setInfo(createClass("java/lang/M" + i, project));
+      model.setType("ModelClass");
+      info.register(model);
+
+      NativePeerInfo peer = new NativePeerInfo();
+      peer.setInfo(createClass("gov/nasa/jpf/vm/JPF_java_lang_M" + i, 
+                               project));
+      peer.setType("NativePeerClass");
+      peer.setModelName("java/lang/M" + i);
+      info.register(peer);
+    }
+    return info;
+  }
+
+  /**
+   * Test of select(String) method, of class InfoQuery.
+   */
+  @Test
+  public void testSelect() throws InvalidQueryException {
+    System.out.println("method> select(String)");
+
+    InfoQuery query = new InfoQuery(createInfo(10));
+    assertEquals(30, query.size());
+
+    List<JPFInfo> found = query.select("kind=subtype,project=jpf-symbc");
+    assertEquals(5, found.size());
+
+    found = query.select("kind=peer,model=java.lang.M3");
+    assertEquals(1, found.size());
+    assertEquals("gov/nasa/jpf/vm/JPF_java_lang_M3", 
+                 found.get(0).getInfo().getName());
+
+    found = query.select("model=java.lang.M3|java.lang.M4");
+    assertEquals(4, found.size());
+
+    found = query.select("package=gov.nasa.jpf");
+    assertEquals(20, found.size());
+    assertEquals(10, query.select("package=gov/nasa/jpf/listener").size());
+    assertEquals(10, query.select(
+            "ancestor=gov.nasa.jpf.ListenerAdapter").size());
+    assertEquals(0, query.select("type=Listener,kind=model").size());
+    assertEquals(30, query.select("").size());
+  }
+
+  /**
+   * Test of select(String) method with invalid queries, of class InfoQuery.
+   */
+  @Test(expected = InvalidQueryException.class)
+  public void testSelectInvalid() throws InvalidQueryException {
+    System.out.println("method> select(String) invalid");
+
+    new InfoQuery(createInfo(1)).select("kind:peer");
+  }
+
+  /**
+   * Test of select(Filter) method on many components, of class InfoQuery.
+   */
+  @Test
+  public void testSelectTime() throws InvalidQueryException {
+    System.out.println("method> select(Filter)");
+
+    InfoQuery query = new InfoQuery(createInfo(20000));
+    InfoQuery.Filter filter = InfoQuery.Filter.parse(
+            "kind=peer,project=jpf-symbc,model=java.lang.M3|java.lang.M5");
+    int n = 0;
+    long start = System.nanoTime();
+
+    for (int i = 0; i < 1000; ++i) {
+      n = query.select(filter).size();
+    }
+    long avg = (System.nanoTime() - start) / 1000;
+    System.out.println("  " + query.size() + " components, " + avg 
+                       + " ns per query");
+    assertEquals(2, n);
+  }
+}